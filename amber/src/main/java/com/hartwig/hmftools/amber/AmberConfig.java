@@ -26,6 +26,8 @@ import static com.hartwig.hmftools.common.utils.config.ConfigUtils.addLoggingOpt
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.addOutputDir;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.checkCreateOutputDir;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.parseOutputDir;
+import static com.hartwig.hmftools.common.utils.pcf.PCFSegmenter.NATIVE_PCF;
+import static com.hartwig.hmftools.common.utils.pcf.PCFSegmenter.NATIVE_PCF_DESC;
 
 import java.io.File;
 import java.util.Arrays;
@@ -69,6 +71,7 @@ public class AmberConfig
     public final ValidationStringency BamStringency;
     public final int Threads;
     public final boolean SkipBafSegmentation;
+    public final boolean NativePcf;
 
     public final List<String> SpecificChromosomes;
 
@@ -140,6 +143,7 @@ public class AmberConfig
         PositionGap = configBuilder.getInteger(POSITION_GAP);
 
         SkipBafSegmentation = configBuilder.hasFlag(SKIP_BAF_SEGMENTATION);
+        NativePcf = configBuilder.hasFlag(NATIVE_PCF);
 
         WriteUnfilteredGermline = configBuilder.hasFlag(WRITE_UNFILTERED_GERMLINE);
 
@@ -191,6 +195,7 @@ public class AmberConfig
         configBuilder.addDecimal(MAX_HIT_AT_PERC, "Max heterozygous AF%", DEFAULT_MAX_HET_AF_PERCENTAGE);
 
         configBuilder.addFlag(SKIP_BAF_SEGMENTATION, "Skip BAF segmentation");
+        configBuilder.addFlag(NATIVE_PCF, NATIVE_PCF_DESC);
 
         configBuilder.addFlag(WRITE_UNFILTERED_GERMLINE, "Write all (unfiltered) germline points");
 
@@ -1,26 +1,83 @@
 package com.hartwig.hmftools.amber;
 
+import static com.hartwig.hmftools.amber.AmberConfig.AMB_LOGGER;
+
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.hartwig.hmftools.common.amber.AmberBAF;
+import com.hartwig.hmftools.common.utils.Doubles;
 import com.hartwig.hmftools.common.utils.pcf.PCFFile;
+import com.hartwig.hmftools.common.utils.pcf.PCFSegment;
+import com.hartwig.hmftools.common.utils.pcf.PCFSegmenter;
 import com.hartwig.hmftools.common.utils.r.RExecutor;
 
 public class BAFSegmentation
 {
     private final String mOutputDir;
+    private final int mThreads;
+
+    // matches the sample column name used by the original R segmentation output
+    private static final String PCF_SAMPLE_ID = "tumorModifiedBAF";
+
+    private static final double PCF_GAMMA = 100;
 
-    public BAFSegmentation(final String outputDir)
+    public BAFSegmentation(final String outputDir, int threads)
     {
         mOutputDir = outputDir;
+        mThreads = threads;
     }
 
-    public void applySegmentation(final String tumor, final String ratioFile) throws InterruptedException, IOException
+    public void applySegmentation(final String tumor, final String bafFile) throws InterruptedException, IOException
     {
         final String pcfFile = PCFFile.generateBAFFilename(mOutputDir, tumor);
-        int result = RExecutor.executeFromClasspath("r/bafSegmentation.R", ratioFile, pcfFile);
+        int result = RExecutor.executeFromClasspath("r/bafSegmentation.R", bafFile, pcfFile);
         if(result != 0)
         {
             throw new IOException("R execution failed. Unable to complete segmentation.");
         }
     }
+
+    public void applyNativeSegmentation(final String tumor, final List<AmberBAF> bafs) throws IOException
+    {
+        PCFSegmenter segmenter = new PCFSegmenter(PCF_SAMPLE_ID, PCF_GAMMA);
+
+        for(AmberBAF baf : bafs)
+        {
+            // segment the BAFs at the precision they are written to the BAF file
+            double tumorModifiedBAF = Doubles.round(baf.tumorModifiedBAF(), 4);
+
+            if(Double.isFinite(tumorModifiedBAF))
+                segmenter.addValue(baf.chromosome(), baf.position(), tumorModifiedBAF);
+        }
+
+        final List<PCFSegment> segments;
+
+        if(mThreads > 1)
+        {
+            ExecutorService executorService = Executors.newFixedThreadPool(
+                    mThreads, new ThreadFactoryBuilder().setNameFormat("pcf-%d").build());
+
+            try
+            {
+                segments = segmenter.segment(executorService);
+            }
+            finally
+            {
+                executorService.shutdown();
+            }
+        }
+        else
+        {
+            segments = segmenter.segment(null);
+        }
+
+        final String pcfFile = PCFFile.generateBAFFilename(mOutputDir, tumor);
+        PCFFile.write(pcfFile, segments);
+
+        AMB_LOGGER.debug("segmented {} BAF sites into {} segments", segmenter.valueCount(), segments.size());
+    }
 }
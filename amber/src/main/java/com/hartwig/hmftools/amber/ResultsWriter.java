@@ -40,7 +40,12 @@ public class ResultsWriter
         if(mConfig.TumorId != null && !mConfig.SkipBafSegmentation)
         {
             AMB_LOGGER.info("applying pcf segmentation");
-            new BAFSegmentation(mConfig.OutputDir).applySegmentation(mConfig.TumorId, filename);
+            BAFSegmentation bafSegmentation = new BAFSegmentation(mConfig.OutputDir, mConfig.Threads);
+
+            if(mConfig.NativePcf)
+                bafSegmentation.applyNativeSegmentation(mConfig.TumorId, result);
+            else
+                bafSegmentation.applySegmentation(mConfig.TumorId, filename);
         }
     }
 
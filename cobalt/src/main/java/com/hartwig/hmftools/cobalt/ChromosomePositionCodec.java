@@ -2,18 +2,13 @@ package com.hartwig.hmftools.cobalt;
 
 import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 
-import tech.tablesaw.api.LongColumn;
-import tech.tablesaw.api.Row;
-import tech.tablesaw.api.Table;
-
-// tablesaw is not efficient at joining tables with chromosome, position columns.
-// we therefore encode the chromosome, position into a long to help it.
-// this is unfortunate, as pandas has no issue with the merge
+// encodes a chromosome and position into a long, which orders windows by chromosome and then position so that window stores can be
+// sorted and merged on a single primitive key
 public class ChromosomePositionCodec
 {
     // chromosome number * 10_000_000_000 + position
@@ -23,37 +18,8 @@ public class ChromosomePositionCodec
     // to make sure conversion is consistent (1 vs chr1), we store the string we used for encoding
     // this is checked and retrieved for encoding. This will help catch problems with inconsistent
     // genome file versions
-    private final Map<Long, String> mChromosomeNumStringMap = new HashMap<>();
-
-    // this is used unfortunately due to tablesaw very slow merge when we merge by [chromosome, position]
-    // pandas is able to complete in seconds
-    public void addEncodedChrPosColumn(Table table, boolean removeChromosomePosColumns)
-    {
-        LongColumn encodedChrPosCol = LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS);
-
-        for (Row row : table)
-        {
-            String chr = row.getString(CobaltColumns.CHROMOSOME);
-            int pos = row.getInt(CobaltColumns.POSITION);
-            long chrPosIndex = encodeChromosomePosition(chr, pos);
-            if (chrPosIndex >= 0)
-            {
-                encodedChrPosCol.append(chrPosIndex);
-            }
-            else
-            {
-                // add a missing value
-                encodedChrPosCol.appendMissing();
-            }
-        }
-
-        table.addColumns(encodedChrPosCol);
-
-        if (removeChromosomePosColumns)
-        {
-            table.removeColumns(CobaltColumns.CHROMOSOME, CobaltColumns.POSITION);
-        }
-    }
+    // ratio mapping runs per chromosome on multiple threads, so encoding and decoding may be concurrent
+    private final Map<Long, String> mChromosomeNumStringMap = new ConcurrentHashMap<>();
 
     // add a chromosome position index that is the
     // chromosome number * 1_000_000_000 + position
@@ -114,4 +80,9 @@ public class ChromosomePositionCodec
     {
         return (int)(chromsomePositionCode % CHROMOSOME_MULT);
     }
+
+    public static long chromosomeNumber(long chromsomePositionCode)
+    {
+        return chromsomePositionCode / CHROMOSOME_MULT;
+    }
 }
@@ -4,29 +4,29 @@ import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
 import static com.hartwig.hmftools.cobalt.CobaltConfig.registerConfig;
 import static com.hartwig.hmftools.cobalt.CobaltConstants.APP_NAME;
 import static com.hartwig.hmftools.cobalt.CobaltConstants.WINDOW_SIZE;
-import static com.hartwig.hmftools.cobalt.CobaltUtils.rowToCobaltRatio;
+import static com.hartwig.hmftools.cobalt.RatioSegmentation.applyNativeRatioSegmentation;
 import static com.hartwig.hmftools.cobalt.RatioSegmentation.applyRatioSegmentation;
 import static com.hartwig.hmftools.common.utils.PerformanceCounter.runTimeMinsStr;
-import static com.hartwig.hmftools.common.utils.file.FileDelimiters.TSV_DELIM;
 import static com.hartwig.hmftools.common.utils.version.VersionInfo.fromAppName;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Collection;
-import java.util.Map;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
-import java.util.stream.Collectors;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.hartwig.hmftools.cobalt.count.BamReadCounter;
+import com.hartwig.hmftools.cobalt.count.ReadDepthStore;
 import com.hartwig.hmftools.cobalt.diploid.DiploidRegionLoader;
+import com.hartwig.hmftools.cobalt.ratio.GcProfileStore;
 import com.hartwig.hmftools.cobalt.ratio.RatioSupplier;
+import com.hartwig.hmftools.cobalt.targeted.TargetEnrichmentStore;
+import com.hartwig.hmftools.cobalt.targeted.TargetRegionEnrichment;
+import com.hartwig.hmftools.common.cobalt.CobaltRatio;
 import com.hartwig.hmftools.common.cobalt.CobaltRatioFile;
-import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
-import com.hartwig.hmftools.common.genome.gc.GCProfile;
 import com.hartwig.hmftools.common.genome.gc.GCProfileFactory;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.common.utils.version.VersionInfo;
@@ -35,8 +35,6 @@ import org.jetbrains.annotations.NotNull;
 
 import htsjdk.samtools.SamReaderFactory;
 import htsjdk.samtools.cram.ref.ReferenceSource;
-import tech.tablesaw.api.*;
-import tech.tablesaw.io.csv.CsvReadOptions;
 
 public class CobaltApplication
 {
@@ -87,31 +85,27 @@ public class CobaltApplication
 
             bamReadCounter.generateDepths(mConfig.ReferenceBamPath, mConfig.TumorBamPath);
 
-            Table referenceReadDepths = bamReadCounter.getReferenceDepths();
-            Table tumorReadDepths = bamReadCounter.getTumorDepths();
+            ReadDepthStore referenceReadDepths = bamReadCounter.getReferenceDepths();
+            ReadDepthStore tumorReadDepths = bamReadCounter.getTumorDepths();
 
-            final Table gcProfiles = loadGCContent(chromosomePosCodec);
+            final GcProfileStore gcProfiles = loadGCContent(chromosomePosCodec);
 
             final RatioSupplier ratioSupplier = new RatioSupplier(mConfig.ReferenceId, mConfig.TumorId, mConfig.OutputDir,
                     gcProfiles, referenceReadDepths, tumorReadDepths,
-                    chromosomePosCodec);
+                    chromosomePosCodec, executorService);
 
             if(mConfig.TargetRegionPath != null)
             {
-                CsvReadOptions options = CsvReadOptions.builder(mConfig.TargetRegionPath)
-                        .separator(TSV_DELIM.charAt(0))
-                        .columnTypesPartial(Map.of("chromosome", ColumnType.STRING)).build();
-                Table targetRegionEnrichment = Table.read().usingOptions(options);
-                chromosomePosCodec.addEncodedChrPosColumn(targetRegionEnrichment, true);
-                ratioSupplier.setTargetRegionEnrichment(targetRegionEnrichment);
+                TargetRegionEnrichment targetRegionEnrichment = TargetRegionEnrichment.fromTsv(mConfig.TargetRegionPath);
+                ratioSupplier.setTargetRegionEnrichment(TargetEnrichmentStore.from(targetRegionEnrichment, chromosomePosCodec));
             }
 
-            Table ratios;
+            List<CobaltRatio> ratios;
 
             switch(mConfig.mode())
             {
                 case TUMOR_ONLY:
-                    final Table diploidRegions = new DiploidRegionLoader(mConfig.TumorOnlyDiploidBed, chromosomePosCodec).build();
+                    final WindowStore diploidRegions = new DiploidRegionLoader(mConfig.TumorOnlyDiploidBed, chromosomePosCodec).build();
                     ratios = ratioSupplier.tumorOnly(diploidRegions);
                     break;
                 case GERMLIHE_ONLY:
@@ -127,9 +121,12 @@ public class CobaltApplication
             CB_LOGGER.info("persisting cobalt ratios to {}", outputFilename);
 
 
-            CobaltRatioFile.write(outputFilename, ratios.stream().map(r -> rowToCobaltRatio(r, chromosomePosCodec)).collect(Collectors.toList()));
+            CobaltRatioFile.write(outputFilename, ratios);
 
-            applyRatioSegmentation(executorService, mConfig.OutputDir, outputFilename, mConfig.ReferenceId, mConfig.TumorId, mConfig.PcfGamma);
+            if(mConfig.NativePcf)
+                applyNativeRatioSegmentation(executorService, mConfig.OutputDir, ratios, mConfig.ReferenceId, mConfig.TumorId, mConfig.PcfGamma);
+            else
+                applyRatioSegmentation(executorService, mConfig.OutputDir, outputFilename, mConfig.ReferenceId, mConfig.TumorId, mConfig.PcfGamma);
 
             final VersionInfo version = fromAppName(APP_NAME);
             version.write(mConfig.OutputDir);
@@ -160,33 +157,8 @@ public class CobaltApplication
         return readerFactory;
     }
 
-    public Table loadGCContent(ChromosomePositionCodec chromosomePosCodec) throws IOException
+    public GcProfileStore loadGCContent(ChromosomePositionCodec chromosomePosCodec) throws IOException
     {
-        Table gcProfileTable = Table.create("gcProfiles",
-                LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                DoubleColumn.create(CobaltColumns.GC_CONTENT),
-                BooleanColumn.create(CobaltColumns.IS_MAPPABLE),
-                BooleanColumn.create(CobaltColumns.IS_AUTOSOME));
-
-        Collection<GCProfile> gcProfileList = GCProfileFactory.loadGCContent(WINDOW_SIZE, mConfig.GcProfilePath).values();
-
-        for(GCProfile gcProfile : gcProfileList)
-        {
-            Row row = gcProfileTable.appendRow();
-            long chrPosIndex = chromosomePosCodec.encodeChromosomePosition(gcProfile.chromosome(), gcProfile.start());
-            if (chrPosIndex > 0)
-            {
-                row.setLong(CobaltColumns.ENCODED_CHROMOSOME_POS, chrPosIndex);
-            }
-            else
-            {
-                throw new RuntimeException("Unknown chromosome: " + gcProfile.chromosome());
-            }
-            row.setDouble(CobaltColumns.GC_CONTENT, gcProfile.gcContent());
-            row.setBoolean(CobaltColumns.IS_MAPPABLE, gcProfile.isMappable());
-            row.setBoolean(CobaltColumns.IS_AUTOSOME, HumanChromosome.fromString(gcProfile.chromosome()).isAutosome());
-        }
-
-        return gcProfileTable;
+        return GcProfileStore.from(GCProfileFactory.loadGCContent(WINDOW_SIZE, mConfig.GcProfilePath), chromosomePosCodec);
     }
 }
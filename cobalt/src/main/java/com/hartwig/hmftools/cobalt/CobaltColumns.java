@@ -1,26 +0,0 @@
-package com.hartwig.hmftools.cobalt;
-
-public class CobaltColumns
-{
-    public static final String CHROMOSOME = "chromosome";
-    public static final String POSITION = "position";
-    public static final String READ_DEPTH = "readDepth";
-    public static final String READ_GC_CONTENT = "readGcContent";
-    public static final String RATIO = "ratio";
-
-    public static final String REFERENCE_GC_CONTENT = "referenceGcContent";
-    public static final String TUMOR_GC_CONTENT = "tumorGcContent";
-
-    public static final String REFERENCE_READ_DEPTH = "referenceReadDepth";
-    public static final String TUMOR_READ_DEPTH = "tumorReadDepth";
-
-    public static final String ENCODED_CHROMOSOME_POS = "encodedChrPos";
-
-    public static final String GC_CONTENT = "gcContent";
-    public static final String GC_BUCKET = "gcBucket";
-    public static final String IS_AUTOSOME = "isAutosome";
-
-    public static final String IS_MAPPABLE = "isMappable";
-
-    public static final String RELATIVE_ENRICHMENT = "relativeEnrichment";
-}
@@ -21,6 +21,8 @@ import static com.hartwig.hmftools.common.utils.config.ConfigUtils.addLoggingOpt
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.addOutputDir;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.checkCreateOutputDir;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.parseOutputDir;
+import static com.hartwig.hmftools.common.utils.pcf.PCFSegmenter.NATIVE_PCF;
+import static com.hartwig.hmftools.common.utils.pcf.PCFSegmenter.NATIVE_PCF_DESC;
 
 import com.hartwig.hmftools.common.bam.BamUtils;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
@@ -60,6 +62,7 @@ public class CobaltConfig
 
     public final int MinMappingQuality;
     public final int PcfGamma;
+    public final boolean NativePcf;
 
     public final ValidationStringency BamStringency;
     public final boolean IncludeDuplicates;
@@ -85,6 +88,7 @@ public class CobaltConfig
         
         MinMappingQuality = configBuilder.getInteger(MIN_MAPPING_QUALITY);
         PcfGamma = configBuilder.getInteger(PCF_GAMMA);
+        NativePcf = configBuilder.hasFlag(NATIVE_PCF);
         IncludeDuplicates = configBuilder.hasFlag(INCLUDE_DUPLICATES);
 
         BamStringency = BamUtils.validationStringency(configBuilder);
@@ -108,6 +112,7 @@ public class CobaltConfig
 
         configBuilder.addInteger(MIN_MAPPING_QUALITY, "Min map quality", DEFAULT_MIN_MAPPING_QUALITY);
         configBuilder.addInteger(PCF_GAMMA, "Gamma value for copy number PCF", DEFAULT_PCF_GAMMA);
+        configBuilder.addFlag(NATIVE_PCF, NATIVE_PCF_DESC);
         configBuilder.addFlag(INCLUDE_DUPLICATES, "Include duplicate reads in depth counts");
 
         addOutputDir(configBuilder);
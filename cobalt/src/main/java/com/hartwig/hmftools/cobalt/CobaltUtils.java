@@ -1,78 +1,60 @@
 package com.hartwig.hmftools.cobalt;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.Multimap;
-import com.hartwig.hmftools.common.cobalt.CobaltRatio;
-import com.hartwig.hmftools.common.cobalt.ImmutableCobaltRatio;
-import com.hartwig.hmftools.common.cobalt.ImmutableReadRatio;
-import com.hartwig.hmftools.common.cobalt.ReadRatio;
-import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
-
-import tech.tablesaw.api.*;
-import tech.tablesaw.columns.Column;
+import org.jetbrains.annotations.Nullable;
 
 public class CobaltUtils
 {
-    // helper function to set the correct column name
-    public static Table replaceColumn(Table table, String columnName, Column<?> newColumn)
+    public interface ChromosomeTask<T>
     {
-        return table.replaceColumn(columnName, newColumn.setName(columnName));
+        // maps the windows [startIndex, endIndex) of a single chromosome
+        T apply(int startIndex, int endIndex);
     }
 
-    public static Multimap<com.hartwig.hmftools.common.genome.chromosome.Chromosome, ReadRatio> toCommonChromosomeMap(
-            Table input)
+    // runs the task over each chromosome's windows, concurrently if an executor is provided, and returns the results in window order
+    public static <T> List<T> mapChromosomes(
+            final WindowStore windows, @Nullable final ExecutorService executorService, final ChromosomeTask<T> task)
     {
-        Multimap<com.hartwig.hmftools.common.genome.chromosome.Chromosome, ReadRatio> output = ArrayListMultimap.create();
-        for (String c : input.stringColumn(CobaltColumns.CHROMOSOME).unique())
+        int[] chromosomeStarts = windows.chromosomeStarts();
+        int chromosomeCount = chromosomeStarts.length - 1;
+        List<T> results = new ArrayList<>(chromosomeCount);
+
+        if(executorService == null)
         {
-            if(HumanChromosome.contains(c))
+            for(int i = 0; i < chromosomeCount; ++i)
             {
-                Table inputFiltered = input.where(input.stringColumn(CobaltColumns.CHROMOSOME).isEqualTo(c));
-
-                List<ReadRatio> ratios = inputFiltered.stream().map(
-                        r -> ImmutableReadRatio.builder()
-                            .chromosome(c)
-                            .position(r.getInt(CobaltColumns.POSITION))
-                            .ratio(r.getDouble(CobaltColumns.RATIO))
-                            .build()).collect(Collectors.toList());
-
-                output.putAll(HumanChromosome.fromString(c), ratios);
+                results.add(task.apply(chromosomeStarts[i], chromosomeStarts[i + 1]));
             }
+
+            return results;
         }
-        return output;
-    }
 
-    public static CobaltRatio rowToCobaltRatio(Row row, ChromosomePositionCodec chromosomePosCodec)
-    {
-        return ImmutableCobaltRatio.builder()
-                .chromosome(chromosomePosCodec.decodeChromosome(row.getLong(CobaltColumns.ENCODED_CHROMOSOME_POS)))
-                .position(chromosomePosCodec.decodePosition(row.getLong(CobaltColumns.ENCODED_CHROMOSOME_POS)))
-                .referenceReadDepth(row.getDouble(CobaltColumns.REFERENCE_READ_DEPTH))
-                .tumorReadDepth(row.getDouble(CobaltColumns.TUMOR_READ_DEPTH))
-                .referenceGCRatio(row.getDouble("referenceGCRatio"))
-                .tumorGCRatio(row.getDouble("tumorGCRatio"))
-                .referenceGCDiploidRatio(row.getDouble("referenceGCDiploidRatio"))
-                .referenceGcContent(row.getDouble(CobaltColumns.REFERENCE_GC_CONTENT))
-                .tumorGcContent(row.getDouble(CobaltColumns.TUMOR_GC_CONTENT))
-                .build();
-    }
+        List<Future<T>> futures = new ArrayList<>(chromosomeCount);
 
-    public static Table createReadCountTable()
-    {
-        return Table.create(
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                DoubleColumn.create(CobaltColumns.READ_DEPTH));
-    }
+        for(int i = 0; i < chromosomeCount; ++i)
+        {
+            int startIndex = chromosomeStarts[i];
+            int endIndex = chromosomeStarts[i + 1];
+            futures.add(executorService.submit(() -> task.apply(startIndex, endIndex)));
+        }
 
-    public static Table createRatioTable()
-    {
-        return Table.create(
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                DoubleColumn.create(CobaltColumns.RATIO));
+        try
+        {
+            for(Future<T> future : futures)
+            {
+                results.add(future.get());
+            }
+        }
+        catch(InterruptedException | ExecutionException e)
+        {
+            throw new RuntimeException("chromosome ratio mapping failed", e);
+        }
+
+        return results;
     }
 }
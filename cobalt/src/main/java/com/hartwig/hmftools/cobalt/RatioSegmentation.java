@@ -8,12 +8,24 @@ import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.function.ToDoubleFunction;
 
+import com.hartwig.hmftools.common.cobalt.CobaltRatio;
+import com.hartwig.hmftools.common.utils.Doubles;
 import com.hartwig.hmftools.common.utils.pcf.PCFFile;
+import com.hartwig.hmftools.common.utils.pcf.PCFSegment;
+import com.hartwig.hmftools.common.utils.pcf.PCFSegmenter;
 import com.hartwig.hmftools.common.utils.r.RExecutor;
 
+import org.jetbrains.annotations.Nullable;
+
 public class RatioSegmentation
 {
+    // matches the sample column name used by the original R segmentation output
+    private static final String PCF_SAMPLE_ID = "S1";
+
+    private static final double MIN_RATIO = 0.001;
+
     public static void applyRatioSegmentation(
             final ExecutorService executorService, final String outputDir, final String ratioFile,
             final String reference, final String tumor, int gamma) throws ExecutionException, InterruptedException
@@ -50,4 +62,51 @@ public class RatioSegmentation
 
         return null;
     }
+
+    public static void applyNativeRatioSegmentation(
+            @Nullable final ExecutorService executorService, final String outputDir, final List<CobaltRatio> ratios,
+            final String reference, final String tumor, int gamma) throws IOException
+    {
+        if(reference != null)
+        {
+            nativeRatioSegmentation(executorService, outputDir, ratios, reference, CobaltRatio::referenceGCDiploidRatio, gamma);
+        }
+
+        if(tumor != null)
+        {
+            nativeRatioSegmentation(executorService, outputDir, ratios, tumor, CobaltRatio::tumorGCRatio, gamma);
+        }
+
+        CB_LOGGER.info("Segmentation Complete");
+    }
+
+    private static void nativeRatioSegmentation(
+            @Nullable final ExecutorService executorService, final String outputDir, final List<CobaltRatio> ratios,
+            final String sample, final ToDoubleFunction<CobaltRatio> ratioGetter, int gamma) throws IOException
+    {
+        PCFSegmenter segmenter = new PCFSegmenter(PCF_SAMPLE_ID, gamma);
+
+        for(CobaltRatio ratio : ratios)
+        {
+            // segment the ratios at the precision they are written to the ratio file
+            double value = Doubles.round(ratioGetter.applyAsDouble(ratio), 4);
+
+            if(!(value >= 0))
+                continue;
+
+            segmenter.addValue(ratio.chromosome(), ratio.position(), log2(Math.max(value, MIN_RATIO)));
+        }
+
+        final List<PCFSegment> segments = segmenter.segment(executorService);
+
+        final String pcfFile = PCFFile.generateRatioFilename(outputDir, sample);
+        PCFFile.write(pcfFile, segments);
+
+        CB_LOGGER.debug("sample({}) segmented {} ratios into {} segments", sample, segmenter.valueCount(), segments.size());
+    }
+
+    private static double log2(double value)
+    {
+        return Math.log(value) / Math.log(2);
+    }
 }
@@ -0,0 +1,52 @@
+package com.hartwig.hmftools.cobalt;
+
+import static com.hartwig.hmftools.cobalt.ChromosomePositionCodec.chromosomeNumber;
+
+import java.util.Arrays;
+
+import org.apache.commons.lang3.Validate;
+
+public class WindowStore
+{
+    // windows keyed by their chromosome-position encoding, held in ascending order so that each chromosome's windows are a contiguous
+    // range sorted by position, stores are joined by merging their keys, and values are kept in primitive columns alongside
+    public final long[] EncodedChrPos;
+
+    public WindowStore(final long[] encodedChrPos)
+    {
+        for(int i = 1; i < encodedChrPos.length; ++i)
+        {
+            Validate.isTrue(encodedChrPos[i - 1] < encodedChrPos[i], "windows not in strict chromosome-position order");
+        }
+
+        EncodedChrPos = encodedChrPos;
+    }
+
+    public int size() { return EncodedChrPos.length; }
+
+    public boolean isEmpty() { return EncodedChrPos.length == 0; }
+
+    public int indexOf(long encodedChrPos)
+    {
+        int index = Arrays.binarySearch(EncodedChrPos, encodedChrPos);
+        return index >= 0 ? index : -1;
+    }
+
+    public boolean contains(long encodedChrPos) { return indexOf(encodedChrPos) >= 0; }
+
+    // the start index of each chromosome's windows, followed by the window count, so chromosome i spans [starts[i], starts[i+1])
+    public int[] chromosomeStarts()
+    {
+        int[] starts = new int[size() + 1];
+        int chromosomeCount = 0;
+
+        for(int i = 0; i < size(); ++i)
+        {
+            if(i == 0 || chromosomeNumber(EncodedChrPos[i]) != chromosomeNumber(EncodedChrPos[i - 1]))
+                starts[chromosomeCount++] = i;
+        }
+
+        starts[chromosomeCount++] = size();
+        return Arrays.copyOf(starts, chromosomeCount);
+    }
+}
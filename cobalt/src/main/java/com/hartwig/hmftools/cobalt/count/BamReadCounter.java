@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ExecutionException;
@@ -17,7 +18,6 @@ import java.util.concurrent.Future;
 
 import com.hartwig.hmftools.cobalt.Chromosome;
 import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
 import com.hartwig.hmftools.cobalt.CobaltConfig;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
@@ -32,15 +32,14 @@ import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
-import tech.tablesaw.api.*;
 
 public class BamReadCounter
 {
     private final int mMinMappingQuality;
     private final boolean mIncludeDuplicates;
 
-    private Table mReferenceDepths = null;
-    private Table mTumorDepths = null;
+    private ReadDepthStore mReferenceDepths = null;
+    private ReadDepthStore mTumorDepths = null;
 
     private final ExecutorService mExecutorService;
     private final SamReaderFactory mReaderFactory;
@@ -52,8 +51,8 @@ public class BamReadCounter
 
     private final ChromosomePositionCodec mChromosomePosCodec;
 
-    public Table getReferenceDepths() { return mReferenceDepths; }
-    public Table getTumorDepths() { return mTumorDepths; }
+    public ReadDepthStore getReferenceDepths() { return mReferenceDepths; }
+    public ReadDepthStore getTumorDepths() { return mTumorDepths; }
 
     public BamReadCounter(
             final int windowSize, final CobaltConfig config,
@@ -206,31 +205,38 @@ public class BamReadCounter
         readDepthAccumulator.addReadAlignmentToCounts(region.Chromosome, genomeStart, length, readBases, readStartIndex);
     }
 
-    private Table generateDepths(ReadDepthAccumulator readDepthAccumulator)
+    private ReadDepthStore generateDepths(ReadDepthAccumulator readDepthAccumulator)
     {
-        final Table readDepthTable = Table.create("readDepths",
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                DoubleColumn.create(CobaltColumns.READ_DEPTH),
-                DoubleColumn.create(CobaltColumns.READ_GC_CONTENT));
+        // windows are stored in chromosome-position order rather than the BAM's sequence order
+        List<Chromosome> chromosomes = new ArrayList<>(mChromosomes);
+        chromosomes.sort(Comparator.comparingInt(x -> HumanChromosome.fromString(x.contig).intValue()));
 
-        for (Chromosome chromosome : mChromosomes)
+        List<List<ReadDepth>> chromosomeReadDepths = new ArrayList<>();
+
+        for(Chromosome chromosome : chromosomes)
         {
             List<ReadDepth> readDepths = readDepthAccumulator.getChromosomeReadDepths(chromosome.contig);
-            Objects.requireNonNull(readDepths);
-            for (ReadDepth readDepth : readDepths)
+            chromosomeReadDepths.add(Objects.requireNonNull(readDepths));
+        }
+
+        int windowCount = chromosomeReadDepths.stream().mapToInt(List::size).sum();
+        long[] encodedChrPos = new long[windowCount];
+        double[] depths = new double[windowCount];
+        double[] gcContent = new double[windowCount];
+        int index = 0;
+
+        for(List<ReadDepth> readDepths : chromosomeReadDepths)
+        {
+            for(ReadDepth readDepth : readDepths)
             {
-                Row row = readDepthTable.appendRow();
-                row.setString(CobaltColumns.CHROMOSOME, chromosome.contig);
-                row.setInt(CobaltColumns.POSITION, readDepth.StartPosition);
-                row.setDouble(CobaltColumns.READ_DEPTH, readDepth.ReadDepth);
-                row.setDouble(CobaltColumns.READ_GC_CONTENT, readDepth.ReadGcContent);
+                encodedChrPos[index] = mChromosomePosCodec.encodeChromosomePosition(readDepth.Chromosome, readDepth.StartPosition);
+                depths[index] = readDepth.ReadDepth;
+                gcContent[index] = readDepth.ReadGcContent;
+                ++index;
             }
         }
 
-        mChromosomePosCodec.addEncodedChrPosColumn(readDepthTable, false);
-
-        return readDepthTable;
+        return new ReadDepthStore(encodedChrPos, depths, gcContent);
     }
 
     private Collection<Chromosome> loadChromosomes(final SamReaderFactory readerFactory,
@@ -0,0 +1,16 @@
+package com.hartwig.hmftools.cobalt.count;
+
+import com.hartwig.hmftools.cobalt.WindowStore;
+
+public class ReadDepthStore extends WindowStore
+{
+    public final double[] ReadDepths;
+    public final double[] ReadGcContent;
+
+    public ReadDepthStore(final long[] encodedChrPos, final double[] readDepths, final double[] readGcContent)
+    {
+        super(encodedChrPos);
+        ReadDepths = readDepths;
+        ReadGcContent = readGcContent;
+    }
+}
@@ -12,7 +12,7 @@ import java.util.List;
 import java.util.function.Consumer;
 
 import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.hartwig.hmftools.cobalt.WindowStore;
 
 import org.jetbrains.annotations.NotNull;
 
@@ -22,13 +22,10 @@ import htsjdk.tribble.bed.BEDCodec;
 import htsjdk.tribble.bed.BEDFeature;
 import htsjdk.tribble.readers.LineIterator;
 
-import tech.tablesaw.api.*;
-
 public class DiploidRegionLoader implements Consumer<Locatable>
 {
-    private final Table mResult = Table.create(
-            StringColumn.create(CobaltColumns.CHROMOSOME), IntColumn.create(CobaltColumns.POSITION));
-    private final Table mContigResult = mResult.emptyCopy();
+    private final List<Long> mResult = new ArrayList<>();
+    private final List<Long> mContigResult = new ArrayList<>();
 
     private final ChromosomePositionCodec mChromosomePosCodec;
 
@@ -79,9 +76,7 @@ public class DiploidRegionLoader implements Consumer<Locatable>
         int position = start;
         while(position < end)
         {
-            Row row = mContigResult.appendRow();
-            row.setString(CobaltColumns.CHROMOSOME, contig);
-            row.setInt(CobaltColumns.POSITION, position);
+            mContigResult.add(mChromosomePosCodec.encodeChromosomePosition(contig, position));
             position += WINDOW_SIZE;
         }
     }
@@ -90,17 +85,16 @@ public class DiploidRegionLoader implements Consumer<Locatable>
     {
         if(mChromosome != null && mStart > 0)
         {
-            mResult.append(mContigResult);
+            mResult.addAll(mContigResult);
         }
 
         mContigResult.clear();
     }
 
     @NotNull
-    public Table build()
+    public WindowStore build()
     {
         finaliseCurrent();
-        mChromosomePosCodec.addEncodedChrPosColumn(mResult, false);
-        return mResult;
+        return new WindowStore(mResult.stream().mapToLong(x -> x).sorted().distinct().toArray());
     }
 }
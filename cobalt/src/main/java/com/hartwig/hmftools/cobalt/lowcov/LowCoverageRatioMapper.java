@@ -1,200 +1,129 @@
 package com.hartwig.hmftools.cobalt.lowcov;
 
 import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
+import static com.hartwig.hmftools.cobalt.CobaltUtils.mapChromosomes;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Objects;
+import java.util.concurrent.ExecutorService;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Comparators;
 import com.google.common.collect.Multimap;
 import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
 import com.hartwig.hmftools.cobalt.CobaltConstants;
 import com.hartwig.hmftools.cobalt.ratio.RatioMapper;
+import com.hartwig.hmftools.cobalt.ratio.RatioStore;
 
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.math3.stat.StatUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import tech.tablesaw.aggregate.AggregateFunctions;
-import tech.tablesaw.api.*;
-
 public class LowCoverageRatioMapper implements RatioMapper
 {
-    private static final String BUCKET_ID_COLUMN = "lowCovBucketId";
-
-    private int mConsolidationCount = 0;
-    private @Nullable Multimap<String, LowCovBucket> mConsolidateBoundaries;
+    private final Multimap<String, LowCovBucket> mConsolidateBoundaries;
 
     private final ChromosomePositionCodec mChromosomePositionCodec;
-
-
-    public LowCoverageRatioMapper(int consolidationCount, final ChromosomePositionCodec chromosomePosCodec)
-    {
-        mConsolidationCount = consolidationCount;
-        mChromosomePositionCodec = chromosomePosCodec;
-    }
+    @Nullable private final ExecutorService mExecutorService;
 
     public LowCoverageRatioMapper(
             final @NotNull Multimap<String, LowCovBucket> consolidateBoundaries,
-            final @NotNull ChromosomePositionCodec chromosomePosCodec)
+            final @NotNull ChromosomePositionCodec chromosomePosCodec,
+            @Nullable final ExecutorService executorService)
     {
         mConsolidateBoundaries = consolidateBoundaries;
         mChromosomePositionCodec = chromosomePosCodec;
+        mExecutorService = executorService;
     }
 
     // we use on target ratios only for now
     @Override
-    public Table mapRatios(final Table inputRatios)
+    public RatioStore mapRatios(final RatioStore inputRatios)
     {
-        if(mConsolidateBoundaries == null)
-        {
-            Validate.isTrue(mConsolidationCount > 1);
-            mConsolidateBoundaries = consolidateIntoBuckets(inputRatios, mConsolidationCount);
-        }
-
-        Objects.requireNonNull(mConsolidateBoundaries);
         CB_LOGGER.info("using {} sparse consolidated buckets, from {} input ratios",
-                mConsolidateBoundaries.size(), inputRatios.rowCount());
+                mConsolidateBoundaries.size(), inputRatios.size());
 
-        return populateLowCoverageRatio(inputRatios, mConsolidateBoundaries);
+        return RatioStore.concat(mapChromosomes(inputRatios, mExecutorService,
+                (startIndex, endIndex) -> populateLowCoverageRatio(inputRatios, startIndex, endIndex)));
     }
 
     // we create a pan window ratio by taking the mean count of super windows that combine multiple windows
-    @SuppressWarnings("UnstableApiUsage")
-    private Table populateLowCoverageRatio(final Table rawRatios, Multimap<String, LowCovBucket> consolidateBoundaries)
+    private RatioStore populateLowCoverageRatio(final RatioStore rawRatios, int startIndex, int endIndex)
     {
-        // make sure the ratios chromosome code are sorted
-        Validate.isTrue(Comparators.isInStrictOrder(rawRatios.longColumn(CobaltColumns.ENCODED_CHROMOSOME_POS).asList(),
-                Comparator.naturalOrder()));
-
-        String chromosome = "";
-        Iterator<LowCovBucket> bucketItr = null;
-        LowCovBucket bucket = null;
-        int bucketId = 0;
-
-        IntColumn bucketIdCol = IntColumn.create(BUCKET_ID_COLUMN, rawRatios.rowCount());
-
-        // also create a table of the bucket themselves
-        Table bucketTable = Table.create(
-                IntColumn.create(BUCKET_ID_COLUMN),
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                BooleanColumn.create("isAutosome"));
-
-        // first step we give each row a lowCovBucketId
-        for (int i = 0; i < rawRatios.rowCount(); ++i)
-        {
-            Row row = rawRatios.row(i);
-            long encodedChrPos = row.getLong(CobaltColumns.ENCODED_CHROMOSOME_POS);
-            String rowChr = mChromosomePositionCodec.decodeChromosome(encodedChrPos);
-            int pos = mChromosomePositionCodec.decodePosition(encodedChrPos);
+        String chromosome = mChromosomePositionCodec.decodeChromosome(rawRatios.EncodedChrPos[startIndex]);
+        RatioStore.Builder builder = new RatioStore.Builder(0);
 
-            if(rowChr.isEmpty())
-            {
-                CB_LOGGER.error("chr is empty, row: {}", row);
-                throw new RuntimeException();
-            }
+        Iterator<LowCovBucket> bucketItr = mConsolidateBoundaries.get(chromosome).iterator();
 
-            if(!chromosome.equals(rowChr))
-            {
-                // move to next chromosome
-                chromosome = rowChr;
-                bucketItr = consolidateBoundaries.get(chromosome).iterator();
+        if(!bucketItr.hasNext())
+        {
+            CB_LOGGER.error("low cov bucket for chromosome {} not found", chromosome);
+            return builder.build();
+        }
 
-                if(!bucketItr.hasNext())
-                {
-                    CB_LOGGER.error("low cov bucket for chromosome {} not found", chromosome);
-                    bucket = null;
-                    assert false;
-                    continue;
-                }
+        LowCovBucket bucket = bucketItr.next();
 
-                bucket = bucketItr.next();
-                ++bucketId;
-                Row bucketRow = bucketTable.appendRow();
-                bucketRow.setInt(BUCKET_ID_COLUMN, bucketId);
-                bucketRow.setString(CobaltColumns.CHROMOSOME, chromosome);
-                bucketRow.setInt(CobaltColumns.POSITION, bucket.BucketPosition);
-                bucketRow.setBoolean("isAutosome", row.getBoolean("isAutosome"));
-            }
+        // the ratios and GC contents of the windows in the current bucket
+        double[] bucketRatios = new double[endIndex - startIndex];
+        double[] bucketGcContents = new double[endIndex - startIndex];
+        int ratioCount = 0;
+        int gcCount = 0;
 
-            if(bucket == null)
-            {
-                // no bucket for whole chromosome, or we already finished last bucket
+        for(int i = startIndex; i < endIndex; ++i)
+        {
+            // windows with invalid ratios are not assigned to a bucket
+            if(!(rawRatios.Ratios[i] >= 0))
                 continue;
-            }
 
-            if(row.getDouble(CobaltColumns.RATIO) >= 0)
+            int pos = mChromosomePositionCodec.decodePosition(rawRatios.EncodedChrPos[i]);
+
+            if(pos > bucket.EndPosition)
             {
-                if(pos > bucket.EndPosition)
+                addBucketRatio(builder, chromosome, bucket, bucketRatios, ratioCount, bucketGcContents, gcCount);
+                ratioCount = 0;
+                gcCount = 0;
+
+                if(!bucketItr.hasNext())
                 {
-                    if(bucketItr.hasNext())
-                    {
-                        // move to next bucket
-                        bucket = bucketItr.next();
-                        ++bucketId;
-                        Row bucketRow = bucketTable.appendRow();
-                        bucketRow.setInt(BUCKET_ID_COLUMN, bucketId);
-                        bucketRow.setString(CobaltColumns.CHROMOSOME, chromosome);
-                        bucketRow.setInt(CobaltColumns.POSITION, bucket.BucketPosition);
-                        bucketRow.setBoolean("isAutosome", row.getBoolean("isAutosome"));
-                    }
-                    else
-                    {
-                        // no more bucket for this chromosome. Setting bucket to null will let us skip through
-                        // the rest of the chromosome
-                        bucket = null;
-                        continue;
-                    }
+                    // no more bucket for this chromosome, so skip through the rest of it
+                    return builder.build();
                 }
 
-                // we do not assign bucket id for rows that have negative ratio, we do not want them
-                // to be in the summarize call
-                bucketIdCol.set(i, bucketId);
+                // move to next bucket
+                bucket = bucketItr.next();
             }
-        }
-
-        // now we assign a bucket id per row, we can do with it
-        rawRatios.addColumns(bucketIdCol);
 
-        //
-        Table lowCovRatio = rawRatios.summarize(
-                CobaltColumns.RATIO,
-                CobaltColumns.GC_CONTENT,
-                AggregateFunctions.mean).by(BUCKET_ID_COLUMN);
+            bucketRatios[ratioCount++] = rawRatios.Ratios[i];
 
-        CB_LOGGER.debug("low cov table: {}", lowCovRatio);
-
-        //
-        // lowCovBucketId  |   Mean [gcContent]    |  Mean [bucketEncodedChrPos]  |      Mean [ratio]
-        // fix up the column names
-        lowCovRatio.column("Mean [gcContent]").setName(CobaltColumns.GC_CONTENT);
-        lowCovRatio.column("Mean [ratio]").setName(CobaltColumns.RATIO);
-
-        // add is mappable column, we are not sure if this is needed yet. But if we want to pass
-        // consolidated ratios to gc normalisation this is needed.
-        lowCovRatio.addColumns(BooleanColumn.create(CobaltColumns.IS_MAPPABLE,
-                Collections.nCopies(lowCovRatio.rowCount(), true)));
-
-        // merge in the bucket, this is required to get the bucket position
-        lowCovRatio = lowCovRatio.joinOn(BUCKET_ID_COLUMN).inner(bucketTable);
-
-        // add the encoded chromosome pos columns
-        mChromosomePositionCodec.addEncodedChrPosColumn(lowCovRatio, false);
+            if(!Double.isNaN(rawRatios.GcContent[i]))
+                bucketGcContents[gcCount++] = rawRatios.GcContent[i];
+        }
 
-        CB_LOGGER.debug("low cov table: {}", lowCovRatio);
+        addBucketRatio(builder, chromosome, bucket, bucketRatios, ratioCount, bucketGcContents, gcCount);
+        return builder.build();
+    }
 
-        return lowCovRatio;
+    private void addBucketRatio(
+            final RatioStore.Builder builder, final String chromosome, final LowCovBucket bucket,
+            final double[] ratios, int ratioCount, final double[] gcContents, int gcCount)
+    {
+        if(ratioCount == 0)
+            return;
+
+        // consolidated ratios are marked as mappable in case they are passed to gc normalisation
+        builder.add(
+                mChromosomePositionCodec.encodeChromosomePosition(chromosome, bucket.BucketPosition),
+                StatUtils.mean(ratios, 0, ratioCount),
+                gcCount > 0 ? StatUtils.mean(gcContents, 0, gcCount) : Double.NaN,
+                true);
     }
 
     @Nullable
-    public static Multimap<String, LowCovBucket> calcConsolidateBuckets(final Table rawRatios, final double medianReadDepth)
+    public static Multimap<String, LowCovBucket> calcConsolidateBuckets(
+            final RatioStore rawRatios, final double medianReadDepth, final ChromosomePositionCodec chromosomePosCodec)
     {
         int consolidationCount = calcConsolidationCount(medianReadDepth);
 
@@ -207,25 +136,31 @@ public class LowCoverageRatioMapper implements RatioMapper
         CB_LOGGER.info("median read depth: {}, sparse consolidation count: {}",
                 medianReadDepth, consolidationCount);
 
-        return consolidateIntoBuckets(rawRatios, consolidationCount);
+        return consolidateIntoBuckets(rawRatios, consolidationCount, chromosomePosCodec);
     }
 
     // given the consolidation count, which is the number of 1k window we want in each bucket, we go through the windows and
     // and find the ranges of the consolidated buckets. We do this to skip through windows with invalid ratios.
     @Nullable
-    static ArrayListMultimap<String, LowCovBucket> consolidateIntoBuckets(final Table rawRatios, final int consolidationCount)
+    static ArrayListMultimap<String, LowCovBucket> consolidateIntoBuckets(
+            final RatioStore rawRatios, final int consolidationCount, final ChromosomePositionCodec chromosomePosCodec)
     {
         if(consolidationCount == 1)
             return null;
 
         ArrayListMultimap<String, LowCovBucket> boundaries = ArrayListMultimap.create();
+        int[] chromosomeStarts = rawRatios.chromosomeStarts();
 
-        for (String chromosome : rawRatios.stringColumn(CobaltColumns.CHROMOSOME).unique())
+        for(int c = 0; c < chromosomeStarts.length - 1; ++c)
         {
-            List<Integer> nonMaskedPositions = rawRatios.where(
-                    rawRatios.stringColumn(CobaltColumns.CHROMOSOME).isEqualTo(chromosome)
-                    .and(rawRatios.doubleColumn(CobaltColumns.RATIO).isNonNegative()))
-                    .intColumn(CobaltColumns.POSITION).asList();
+            String chromosome = chromosomePosCodec.decodeChromosome(rawRatios.EncodedChrPos[chromosomeStarts[c]]);
+            List<Integer> nonMaskedPositions = new ArrayList<>();
+
+            for(int i = chromosomeStarts[c]; i < chromosomeStarts[c + 1]; ++i)
+            {
+                if(rawRatios.Ratios[i] >= 0)
+                    nonMaskedPositions.add(chromosomePosCodec.decodePosition(rawRatios.EncodedChrPos[i]));
+            }
 
             List<LowCovBucket> consolidatedBuckets = consolidateIntoBuckets(nonMaskedPositions, consolidationCount);
 
@@ -2,50 +2,61 @@ package com.hartwig.hmftools.cobalt.ratio;
 
 import static com.hartwig.hmftools.cobalt.CobaltConstants.ROLLING_MEDIAN_MAX_DISTANCE;
 import static com.hartwig.hmftools.cobalt.CobaltConstants.ROLLING_MEDIAN_MIN_COVERAGE;
+import static com.hartwig.hmftools.cobalt.CobaltUtils.mapChromosomes;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
 import com.hartwig.hmftools.common.cobalt.MedianRatio;
 import com.hartwig.hmftools.common.genome.chromosome.CobaltChromosome;
 import com.hartwig.hmftools.common.genome.chromosome.CobaltChromosomes;
 import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 
-import tech.tablesaw.api.*;
+import org.jetbrains.annotations.Nullable;
 
 public final class DiploidRatioSupplier
 {
-    public static Table calcDiploidRatioResults(final Table normalRatios, final List<MedianRatio> medianRatios)
+    public static RatioStore calcDiploidRatioResults(
+            final RatioStore normalRatios, final List<MedianRatio> medianRatios, final ChromosomePositionCodec chromosomePosCodec,
+            @Nullable final ExecutorService executorService)
     {
-        Table results = normalRatios.emptyCopy();
+        CobaltChromosomes cobaltChromosomes = new CobaltChromosomes(medianRatios);
 
-        for (CobaltChromosome cobaltChromosome : new CobaltChromosomes(medianRatios).chromosomes())
+        List<RatioStore> chromosomeResults = mapChromosomes(normalRatios, executorService, (startIndex, endIndex) ->
         {
-            String chr = cobaltChromosome.contig();
-            if(HumanChromosome.contains(chr))
+            String chr = chromosomePosCodec.decodeChromosome(normalRatios.EncodedChrPos[startIndex]);
+            RatioStore.Builder builder = new RatioStore.Builder(endIndex - startIndex);
+
+            if(!cobaltChromosomes.hasChromosome(chr) || !HumanChromosome.contains(chr))
+                return builder.build();
+
+            final double[] ratios = Arrays.copyOfRange(normalRatios.Ratios, startIndex, endIndex);
+            final double[] adjustedRatios;
+
+            if(HumanChromosome.fromString(chr).equals(HumanChromosome._Y))
+            {
+                adjustedRatios = ratios;
+            }
+            else
             {
-                Table chrTable = normalRatios.where(normalRatios.stringColumn(CobaltColumns.CHROMOSOME).isEqualTo(chr));
-
-                final List<Double> ratios = chrTable.doubleColumn(CobaltColumns.RATIO).asList();
-                final List<Double> adjustedRatios;
-                if (HumanChromosome.fromString(chr).equals(HumanChromosome._Y))
-                {
-                    adjustedRatios = ratios;
-                }
-                else
-                {
-                    double expectedRatio = cobaltChromosome.actualRatio();
-                    adjustedRatios = new DiploidRatioNormalization(expectedRatio,
-                            ROLLING_MEDIAN_MAX_DISTANCE,
-                            ROLLING_MEDIAN_MIN_COVERAGE,
-                            ratios).get();
-                }
-
-                chrTable.replaceColumn(DoubleColumn.create(CobaltColumns.RATIO, adjustedRatios));
-                results.append(chrTable);
+                CobaltChromosome cobaltChromosome = cobaltChromosomes.get(chr);
+                double expectedRatio = cobaltChromosome.actualRatio();
+                adjustedRatios = new DiploidRatioNormalization(expectedRatio,
+                        ROLLING_MEDIAN_MAX_DISTANCE,
+                        ROLLING_MEDIAN_MIN_COVERAGE,
+                        ratios).get();
             }
-        }
 
-        return results;
+            for(int i = startIndex; i < endIndex; ++i)
+            {
+                builder.add(normalRatios.EncodedChrPos[i], adjustedRatios[i - startIndex], normalRatios.GcContent[i], normalRatios.IsMappable[i]);
+            }
+
+            return builder.build();
+        });
+
+        return RatioStore.concat(chromosomeResults);
     }
 }
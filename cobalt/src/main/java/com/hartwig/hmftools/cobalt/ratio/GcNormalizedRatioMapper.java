@@ -1,95 +1,147 @@
 package com.hartwig.hmftools.cobalt.ratio;
 
 import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
+import static com.hartwig.hmftools.cobalt.CobaltUtils.mapChromosomes;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.genome.gc.GCBucket;
 import com.hartwig.hmftools.common.genome.gc.GCMedianReadDepth;
 import com.hartwig.hmftools.common.genome.gc.ImmutableGCBucket;
 
-import tech.tablesaw.aggregate.AggregateFunctions;
-import tech.tablesaw.aggregate.NumericAggregateFunction;
-import tech.tablesaw.api.*;
+import org.apache.commons.math3.stat.StatUtils;
+import org.jetbrains.annotations.Nullable;
 
 public class GcNormalizedRatioMapper implements RatioMapper
 {
     private static final int MIN_BUCKET = 20;
     private static final int MAX_BUCKET = 60;
 
-    private Table mGCMedianReadDepth;
+    private final ChromosomePositionCodec mChromosomePosCodec;
+    @Nullable private final ExecutorService mExecutorService;
+
+    // median ratio of each GC bucket, NaN for buckets without windows in the median calculation
+    private final double[] mBucketMedians = new double[MAX_BUCKET - MIN_BUCKET + 1];
+    private final int[] mBucketWindowCounts = new int[MAX_BUCKET - MIN_BUCKET + 1];
     private double mSampleMedianReadDepth;
     private double mSampleMeanReadDepth;
 
-    // apply gc normalisation, the input ratios must have chromosome, position, ratio, gcBucket, isMappable
-    public GcNormalizedRatioMapper()
+    // apply gc normalisation, the input ratios must have ratio, gc content and mappability
+    public GcNormalizedRatioMapper(final ChromosomePositionCodec chromosomePosCodec, @Nullable final ExecutorService executorService)
     {
+        mChromosomePosCodec = chromosomePosCodec;
+        mExecutorService = executorService;
     }
 
     @Override
-    public Table mapRatios(final Table inputRatios)
+    public RatioStore mapRatios(final RatioStore inputRatios)
     {
         CB_LOGGER.info("applying ratio GC normalization");
 
-        // add a gc bucket column if not already have one
-        if (!inputRatios.containsColumn(CobaltColumns.GC_BUCKET))
+        Arrays.fill(mBucketWindowCounts, 0);
+        int[] gcBuckets = new int[inputRatios.size()];
+
+        for(int i = 0; i < inputRatios.size(); ++i)
         {
-            inputRatios.addColumns(inputRatios.doubleColumn(CobaltColumns.GC_CONTENT)
-                    .multiply(100).round().asIntColumn().setName(CobaltColumns.GC_BUCKET));
+            gcBuckets[i] = gcBucket(inputRatios.GcContent[i]);
         }
 
-        // create a gc normalisation df
+        // skip masked regions and allosomes when calculating the medians
+        boolean[] inMedianCalc = new boolean[inputRatios.size()];
+        int[] chromosomeStarts = inputRatios.chromosomeStarts();
+
+        for(int c = 0; c < chromosomeStarts.length - 1; ++c)
+        {
+            String chromosome = mChromosomePosCodec.decodeChromosome(inputRatios.EncodedChrPos[chromosomeStarts[c]]);
 
-        // skipped masked regions
-        Table gcMedianCalcDf = inputRatios.where(
-                inputRatios.doubleColumn(CobaltColumns.RATIO).isGreaterThan(0.0) // TODO: change to >= 0.0
-                        .and(inputRatios.intColumn(CobaltColumns.GC_BUCKET).isBetweenInclusive(MIN_BUCKET, MAX_BUCKET))
-                        .and(inputRatios.booleanColumn(CobaltColumns.IS_MAPPABLE).asSelection())
-                        .and(inputRatios.booleanColumn(CobaltColumns.IS_AUTOSOME).asSelection()));
+            if(!HumanChromosome.fromString(chromosome).isAutosome())
+                continue;
 
-        NumericAggregateFunction aggFunc = AggregateFunctions.median;
+            for(int i = chromosomeStarts[c]; i < chromosomeStarts[c + 1]; ++i)
+            {
+                inMedianCalc[i] = inputRatios.Ratios[i] > 0 // TODO: change to >= 0.0
+                        && gcBuckets[i] >= MIN_BUCKET && gcBuckets[i] <= MAX_BUCKET
+                        && inputRatios.IsMappable[i];
 
-        // get the sample median and mean
-        mSampleMedianReadDepth = aggFunc.summarize(gcMedianCalcDf.doubleColumn(CobaltColumns.RATIO));
-        mSampleMeanReadDepth = gcMedianCalcDf.doubleColumn(CobaltColumns.RATIO).mean();
+                if(inMedianCalc[i])
+                    ++mBucketWindowCounts[gcBuckets[i] - MIN_BUCKET];
+            }
+        }
 
-        // groupby gcBucket and apply median, to create a table with columns
-        // gcBucket, gcMedianCount, windowCount
-        gcMedianCalcDf = gcMedianCalcDf.retainColumns(CobaltColumns.GC_BUCKET, CobaltColumns.RATIO)
-                .summarize(CobaltColumns.RATIO, aggFunc, AggregateFunctions.count)
-                .by(CobaltColumns.GC_BUCKET);
+        // gather the ratios of each bucket together
+        int[] bucketOffsets = new int[mBucketWindowCounts.length + 1];
 
-        CB_LOGGER.trace("sample median: {}, mean: {}, gc median calc: {}", mSampleMedianReadDepth, mSampleMeanReadDepth, gcMedianCalcDf);
+        for(int b = 0; b < mBucketWindowCounts.length; ++b)
+        {
+            bucketOffsets[b + 1] = bucketOffsets[b] + mBucketWindowCounts[b];
+        }
+
+        // the sample ratios are also kept in window order, which sets the summation order of the mean
+        double[] sampleRatios = new double[bucketOffsets[mBucketWindowCounts.length]];
+        double[] bucketRatios = new double[sampleRatios.length];
+        int[] bucketFill = new int[mBucketWindowCounts.length];
+        int sampleIndex = 0;
 
-        gcMedianCalcDf.column(String.format("Median [%s]", CobaltColumns.RATIO)).setName("gcMedianCount");
-        gcMedianCalcDf.column(String.format("Count [%s]", CobaltColumns.RATIO)).setName("windowCount");
+        for(int i = 0; i < inputRatios.size(); ++i)
+        {
+            if(inMedianCalc[i])
+            {
+                int b = gcBuckets[i] - MIN_BUCKET;
+                bucketRatios[bucketOffsets[b] + bucketFill[b]++] = inputRatios.Ratios[i];
+                sampleRatios[sampleIndex++] = inputRatios.Ratios[i];
+            }
+        }
 
-        // merge in the gc median count
-        Table ratiosWithMedianCount = inputRatios
-                .where(inputRatios.booleanColumn(CobaltColumns.IS_MAPPABLE).asSelection())
-                .joinOn(CobaltColumns.GC_BUCKET).inner(gcMedianCalcDf);
+        // get the sample median and mean
+        mSampleMedianReadDepth = StatUtils.percentile(sampleRatios, 50);
+        mSampleMeanReadDepth = StatUtils.mean(sampleRatios);
+
+        for(int b = 0; b < mBucketWindowCounts.length; ++b)
+        {
+            mBucketMedians[b] = mBucketWindowCounts[b] > 0
+                    ? StatUtils.percentile(bucketRatios, bucketOffsets[b], mBucketWindowCounts[b], 50) : Double.NaN;
+        }
+
+        CB_LOGGER.trace("sample median: {}, mean: {}", mSampleMedianReadDepth, mSampleMeanReadDepth);
 
         double medianNormalisation = mSampleMedianReadDepth / mSampleMeanReadDepth;
 
-        DoubleColumn gcNormalisedRatio = ratiosWithMedianCount.doubleColumn(CobaltColumns.RATIO)
-                .multiply(medianNormalisation)
-                .divide(ratiosWithMedianCount.doubleColumn("gcMedianCount"))
-                .map(d -> Double.isFinite(d) ? d : Double.NaN); // protect against division by 0
+        // keep the mappable windows with a bucket median
+        List<RatioStore> chromosomeRatios = mapChromosomes(inputRatios, mExecutorService, (startIndex, endIndex) ->
+        {
+            RatioStore.Builder builder = new RatioStore.Builder(endIndex - startIndex);
+
+            for(int i = startIndex; i < endIndex; ++i)
+            {
+                if(!inputRatios.IsMappable[i] || gcBuckets[i] < MIN_BUCKET || gcBuckets[i] > MAX_BUCKET)
+                    continue;
 
-        ratiosWithMedianCount.replaceColumn(gcNormalisedRatio.setName(CobaltColumns.RATIO));
+                double bucketMedian = mBucketMedians[gcBuckets[i] - MIN_BUCKET];
 
-        // resort it, the join messes up with the ordering
-        ratiosWithMedianCount = ratiosWithMedianCount.sortAscendingOn(CobaltColumns.ENCODED_CHROMOSOME_POS);
+                if(Double.isNaN(bucketMedian))
+                    continue;
 
-        mGCMedianReadDepth = gcMedianCalcDf;
-        return ratiosWithMedianCount;
+                double ratio = inputRatios.Ratios[i] * medianNormalisation / bucketMedian;
+
+                // protect against division by 0
+                builder.add(inputRatios.EncodedChrPos[i], Double.isFinite(ratio) ? ratio : Double.NaN, inputRatios.GcContent[i], true);
+            }
+
+            return builder.build();
+        });
+
+        return RatioStore.concat(chromosomeRatios);
     }
 
-    public Table gcMedianReadDepthTable()
+    private static int gcBucket(double gcContent)
     {
-        return mGCMedianReadDepth;
+        return Double.isNaN(gcContent) ? 0 : (int)Math.round(gcContent * 100);
     }
 
     public double getSampleMedianReadDepth()
@@ -102,14 +154,16 @@ public class GcNormalizedRatioMapper implements RatioMapper
         return mSampleMeanReadDepth;
     }
 
-    // convert the gc median read count table to the object representation
     public GCMedianReadDepth gcMedianReadDepth()
     {
         final Map<GCBucket, Double> medianPerBucket = new HashMap<>();
-        for (Row row : mGCMedianReadDepth)
+
+        for(int b = 0; b < mBucketMedians.length; ++b)
         {
-            medianPerBucket.put(new ImmutableGCBucket(row.getInt(CobaltColumns.GC_BUCKET)), row.getDouble("gcMedianCount"));
+            if(mBucketWindowCounts[b] > 0)
+                medianPerBucket.put(new ImmutableGCBucket(b + MIN_BUCKET), mBucketMedians[b]);
         }
+
         return new GCMedianReadDepth(mSampleMeanReadDepth, mSampleMedianReadDepth, medianPerBucket);
     }
 }
@@ -0,0 +1,47 @@
+package com.hartwig.hmftools.cobalt.ratio;
+
+import java.util.Collection;
+
+import com.google.common.collect.Multimap;
+import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
+import com.hartwig.hmftools.cobalt.WindowStore;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.genome.gc.GCProfile;
+
+public class GcProfileStore extends WindowStore
+{
+    public final double[] GcContent;
+    public final boolean[] IsMappable;
+
+    public GcProfileStore(final long[] encodedChrPos, final double[] gcContent, final boolean[] isMappable)
+    {
+        super(encodedChrPos);
+        GcContent = gcContent;
+        IsMappable = isMappable;
+    }
+
+    public static GcProfileStore from(final Multimap<Chromosome, GCProfile> gcProfiles, final ChromosomePositionCodec chromosomePosCodec)
+    {
+        long[] encodedChrPos = new long[gcProfiles.size()];
+        double[] gcContent = new double[gcProfiles.size()];
+        boolean[] isMappable = new boolean[gcProfiles.size()];
+        int index = 0;
+
+        // chromosomes are added in their encoding order
+        for(HumanChromosome chromosome : HumanChromosome.values())
+        {
+            Collection<GCProfile> chromosomeProfiles = gcProfiles.get(chromosome);
+
+            for(GCProfile gcProfile : chromosomeProfiles)
+            {
+                encodedChrPos[index] = chromosomePosCodec.encodeChromosomePosition(gcProfile.chromosome(), gcProfile.start());
+                gcContent[index] = gcProfile.gcContent();
+                isMappable[index] = gcProfile.isMappable();
+                ++index;
+            }
+        }
+
+        return new GcProfileStore(encodedChrPos, gcContent, isMappable);
+    }
+}
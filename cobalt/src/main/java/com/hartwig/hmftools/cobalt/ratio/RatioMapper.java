@@ -1,9 +1,7 @@
 package com.hartwig.hmftools.cobalt.ratio;
 
-import tech.tablesaw.api.Table;
-
 public interface RatioMapper
 {
     // ratio mapper maps input ratio to output
-    Table mapRatios(final Table inputRatios);
+    RatioStore mapRatios(final RatioStore inputRatios);
 }
@@ -0,0 +1,86 @@
+package com.hartwig.hmftools.cobalt.ratio;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.hartwig.hmftools.cobalt.WindowStore;
+
+public class RatioStore extends WindowStore
+{
+    // a ratio of NaN marks a window without a valid ratio
+    public final double[] Ratios;
+    public final double[] GcContent;
+    public final boolean[] IsMappable;
+
+    public RatioStore(final long[] encodedChrPos, final double[] ratios, final double[] gcContent, final boolean[] isMappable)
+    {
+        super(encodedChrPos);
+        Ratios = ratios;
+        GcContent = gcContent;
+        IsMappable = isMappable;
+    }
+
+    // joins stores of successive chromosomes, such as those mapped per chromosome
+    public static RatioStore concat(final List<RatioStore> stores)
+    {
+        Builder builder = new Builder(stores.stream().mapToInt(WindowStore::size).sum());
+
+        for(RatioStore store : stores)
+        {
+            for(int i = 0; i < store.size(); ++i)
+            {
+                builder.add(store, i);
+            }
+        }
+
+        return builder.build();
+    }
+
+    public static class Builder
+    {
+        private long[] mEncodedChrPos;
+        private double[] mRatios;
+        private double[] mGcContent;
+        private boolean[] mIsMappable;
+        private int mSize;
+
+        public Builder(int capacity)
+        {
+            mEncodedChrPos = new long[capacity];
+            mRatios = new double[capacity];
+            mGcContent = new double[capacity];
+            mIsMappable = new boolean[capacity];
+            mSize = 0;
+        }
+
+        public void add(long encodedChrPos, double ratio, double gcContent, boolean isMappable)
+        {
+            if(mSize == mEncodedChrPos.length)
+            {
+                int capacity = Math.max(16, mSize * 2);
+                mEncodedChrPos = Arrays.copyOf(mEncodedChrPos, capacity);
+                mRatios = Arrays.copyOf(mRatios, capacity);
+                mGcContent = Arrays.copyOf(mGcContent, capacity);
+                mIsMappable = Arrays.copyOf(mIsMappable, capacity);
+            }
+
+            mEncodedChrPos[mSize] = encodedChrPos;
+            mRatios[mSize] = ratio;
+            mGcContent[mSize] = gcContent;
+            mIsMappable[mSize] = isMappable;
+            ++mSize;
+        }
+
+        public void add(final RatioStore store, int index)
+        {
+            add(store.EncodedChrPos[index], store.Ratios[index], store.GcContent[index], store.IsMappable[index]);
+        }
+
+        public RatioStore build()
+        {
+            return new RatioStore(
+                    Arrays.copyOf(mEncodedChrPos, mSize), Arrays.copyOf(mRatios, mSize),
+                    Arrays.copyOf(mGcContent, mSize), Arrays.copyOf(mIsMappable, mSize));
+        }
+    }
+}
@@ -1,28 +1,31 @@
 package com.hartwig.hmftools.cobalt.ratio;
 
 import static com.hartwig.hmftools.cobalt.CobaltConfig.CB_LOGGER;
-import static com.hartwig.hmftools.cobalt.CobaltUtils.toCommonChromosomeMap;
 import static com.hartwig.hmftools.cobalt.ratio.DiploidRatioSupplier.calcDiploidRatioResults;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-
-import tech.tablesaw.api.*;
-import tech.tablesaw.columns.Column;
+import java.util.concurrent.ExecutorService;
 
 import com.google.common.collect.Multimap;
 import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
 import com.hartwig.hmftools.cobalt.CobaltConstants;
+import com.hartwig.hmftools.cobalt.WindowStore;
+import com.hartwig.hmftools.cobalt.count.ReadDepthStore;
 import com.hartwig.hmftools.cobalt.lowcov.LowCovBucket;
 import com.hartwig.hmftools.cobalt.lowcov.LowCoverageRatioMapper;
+import com.hartwig.hmftools.cobalt.targeted.TargetEnrichmentStore;
 import com.hartwig.hmftools.cobalt.targeted.TargetedRatioMapper;
+import com.hartwig.hmftools.common.cobalt.CobaltRatio;
+import com.hartwig.hmftools.common.cobalt.ImmutableCobaltRatio;
 import com.hartwig.hmftools.common.cobalt.MedianRatio;
-import com.hartwig.hmftools.common.cobalt.MedianRatioFactory;
 import com.hartwig.hmftools.common.cobalt.MedianRatioFile;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
 import com.hartwig.hmftools.common.genome.gc.GCMedianReadDepthFile;
+import com.hartwig.hmftools.common.utils.Doubles;
 
-import org.apache.commons.lang3.Validate;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -32,14 +35,14 @@ public class RatioSupplier
     private final String mReferenceId;
     @Nullable private final String mOutputDir;
 
-    private final Table mGcProfiles;
-    @Nullable private final Table mReferenceDepths;
-    @Nullable private final Table mTumorDepths;
+    private final GcProfileStore mGcProfiles;
+    @Nullable private final ReadDepthStore mReferenceDepths;
+    @Nullable private final ReadDepthStore mTumorDepths;
 
-    // a table with chromosome, position, relativeEnrichment
-    private Table mTargetRegionEnrichment = null;
+    @Nullable private TargetEnrichmentStore mTargetRegionEnrichment = null;
 
     private final ChromosomePositionCodec mChromosomePosCodec;
+    @Nullable private final ExecutorService mExecutorService;
 
     enum SparseBucketPolicy
     {
@@ -55,53 +58,36 @@ public class RatioSupplier
 
         @Nullable Multimap<String, LowCovBucket> consolidatedBuckets;
 
-        // chromosomePositionIndex, ratio
-        Table readRatios;
+        RatioStore readRatios;
 
-        Table getRatios() { return readRatios; }
+        RatioStore getRatios() { return readRatios; }
 
         SampleRatios(
                 final String sampleId,
-                final Table readDepths,
-                final Table gcProfiles,
-                @Nullable Table targetRegionEnrichment,
+                final ReadDepthStore readDepths,
+                final GcProfileStore gcProfiles,
+                @Nullable TargetEnrichmentStore targetRegionEnrichment,
                 SparseBucketPolicy sparseBucketPolicy,
                 @Nullable Multimap<String, LowCovBucket> consolidatedBuckets,
                 @Nullable final String outputDir,
-                ChromosomePositionCodec chromosomePosCodec) throws IOException
+                ChromosomePositionCodec chromosomePosCodec,
+                @Nullable ExecutorService executorService) throws IOException
         {
             CB_LOGGER.info("calculating sample ratios for {}", sampleId);
 
-            readRatios = readDepths.copy().setName("readRatios");
-
             CB_LOGGER.info("merging in GC profile");
 
-            // merge in the gc profile
-            readRatios = readRatios.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).leftOuter(gcProfiles);
-
-            // set column as ratio, but filter out unmappable regions
-            DoubleColumn ratioColumn = DoubleColumn.create(CobaltColumns.RATIO);
-            for (Row row : readRatios)
-            {
-                if(!row.isMissing(CobaltColumns.IS_MAPPABLE) && row.getBoolean(CobaltColumns.IS_MAPPABLE))
-                {
-                    ratioColumn.append(row.getDouble(CobaltColumns.READ_DEPTH));
-                }
-                else
-                {
-                    ratioColumn.appendMissing();
-                }
-            }
-            readRatios.addColumns(ratioColumn);
+            // merge in the gc profile, and set the read depth as ratio, but filter out unmappable regions
+            readRatios = mergeGcProfile(readDepths, gcProfiles);
 
             // on target ratios
             if(targetRegionEnrichment != null)
             {
                 CB_LOGGER.info("using targeted ratio");
-                readRatios = new TargetedRatioMapper(targetRegionEnrichment, chromosomePosCodec).mapRatios(readRatios);
+                readRatios = new TargetedRatioMapper(targetRegionEnrichment).mapRatios(readRatios);
             }
 
-            gcNormalizedRatioMapper = new GcNormalizedRatioMapper();
+            gcNormalizedRatioMapper = new GcNormalizedRatioMapper(chromosomePosCodec, executorService);
             readRatios = gcNormalizedRatioMapper.mapRatios(readRatios);
 
             switch (sparseBucketPolicy)
@@ -117,7 +103,7 @@ public class RatioSupplier
                     // determine consolidated buckets
                     // determine the low cov consolidation window count
                     double medianReadDepth = gcNormalizedRatioMapper.getSampleMedianReadDepth();
-                    this.consolidatedBuckets = LowCoverageRatioMapper.calcConsolidateBuckets(readRatios, medianReadDepth);
+                    this.consolidatedBuckets = LowCoverageRatioMapper.calcConsolidateBuckets(readRatios, medianReadDepth, chromosomePosCodec);
                     break;
                 }
             }
@@ -125,7 +111,7 @@ public class RatioSupplier
             if(this.consolidatedBuckets != null)
             {
                 CB_LOGGER.info("using low coverage ratio");
-                readRatios = new LowCoverageRatioMapper(this.consolidatedBuckets, chromosomePosCodec).mapRatios(readRatios);
+                readRatios = new LowCoverageRatioMapper(this.consolidatedBuckets, chromosomePosCodec, executorService).mapRatios(readRatios);
             }
 
             if(outputDir != null)
@@ -140,38 +126,39 @@ public class RatioSupplier
     static class GermlineRatios extends SampleRatios
     {
         // processing states
-        private final Table gcDiploidRatios;
+        private final RatioStore gcDiploidRatios;
 
         GermlineRatios(final String referenceId,
-                final Table readDepths,
-                final Table gcProfiles,
-                @Nullable Table targetRegionEnrichment,
+                final ReadDepthStore readDepths,
+                final GcProfileStore gcProfiles,
+                @Nullable TargetEnrichmentStore targetRegionEnrichment,
                 SparseBucketPolicy sparseBucketPolicy,
                 @Nullable Multimap<String, LowCovBucket> consolidatedBuckets,
                 final String outputDir,
-                ChromosomePositionCodec chromosomePosCodec) throws IOException
+                ChromosomePositionCodec chromosomePosCodec,
+                @Nullable ExecutorService executorService) throws IOException
         {
             super(referenceId, readDepths, gcProfiles, targetRegionEnrichment, sparseBucketPolicy,
-                    consolidatedBuckets, outputDir, chromosomePosCodec);
+                    consolidatedBuckets, outputDir, chromosomePosCodec, executorService);
 
-            // TODO: check this
-            final List<MedianRatio> medianRatios = MedianRatioFactory.createFromReadRatio(toCommonChromosomeMap(getRatios()));
+            final List<MedianRatio> medianRatios = calcMedianRatios(getRatios(), chromosomePosCodec);
 
             CB_LOGGER.info("persisting {} gc ratio medians to {}", referenceId, outputDir);
             final String ratioMedianFilename = MedianRatioFile.generateFilename(outputDir, referenceId);
             MedianRatioFile.write(ratioMedianFilename, medianRatios);
 
             CB_LOGGER.info("applying ratio diploid normalization");
-            gcDiploidRatios = calcDiploidRatioResults(getRatios(), medianRatios);
+            gcDiploidRatios = calcDiploidRatioResults(getRatios(), medianRatios, chromosomePosCodec, executorService);
         }
     }
 
     public RatioSupplier(final String reference, final String tumor,
             @Nullable final String outputDirectory,
-            final Table gcProfiles,
-            @Nullable final Table referenceDepths,
-            @Nullable final Table tumorDepths,
-            ChromosomePositionCodec chromosomePosCodec)
+            final GcProfileStore gcProfiles,
+            @Nullable final ReadDepthStore referenceDepths,
+            @Nullable final ReadDepthStore tumorDepths,
+            ChromosomePositionCodec chromosomePosCodec,
+            @Nullable final ExecutorService executorService)
     {
         mTumorId = tumor;
         mReferenceId = reference;
@@ -180,15 +167,16 @@ public class RatioSupplier
         mReferenceDepths = referenceDepths;
         mTumorDepths = tumorDepths;
         mChromosomePosCodec = chromosomePosCodec;
+        mExecutorService = executorService;
     }
-    
-    public void setTargetRegionEnrichment(Table targetRegionEnrichment)
+
+    public void setTargetRegionEnrichment(TargetEnrichmentStore targetRegionEnrichment)
     {
         mTargetRegionEnrichment = targetRegionEnrichment;
     }
 
     @NotNull
-    public Table tumorOnly(final Table diploidRegions) throws IOException
+    public List<CobaltRatio> tumorOnly(final WindowStore diploidRegions) throws IOException
     {
         if(mTumorDepths == null)
         {
@@ -196,21 +184,24 @@ public class RatioSupplier
             throw new RuntimeException("tumor count is null");
         }
         SparseBucketPolicy sparseBucketPolicy = mTargetRegionEnrichment == null ? SparseBucketPolicy.CALC_CONSOLIDATED_BUCKETS : SparseBucketPolicy.DO_NOT_CONSOLIDATE;
-        Table tumorRatios = new SampleRatios(mTumorId, mTumorDepths, mGcProfiles, mTargetRegionEnrichment, sparseBucketPolicy,
-                null, mOutputDir, mChromosomePosCodec).getRatios();
+        RatioStore tumorRatios = new SampleRatios(mTumorId, mTumorDepths, mGcProfiles, mTargetRegionEnrichment, sparseBucketPolicy,
+                null, mOutputDir, mChromosomePosCodec, mExecutorService).getRatios();
 
-        // filter tumor ratios by the diploid regions
-        // we use inner join to remove any tumor ratios that are not in the diploid regions
-        tumorRatios = tumorRatios.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS)
-                .inner(diploidRegions.selectColumns(CobaltColumns.ENCODED_CHROMOSOME_POS))
-                .sortAscendingOn(CobaltColumns.ENCODED_CHROMOSOME_POS);
+        // filter tumor ratios by the diploid regions, removing any tumor ratios that are not in the diploid regions
+        RatioStore.Builder diploidTumorRatios = new RatioStore.Builder(Math.min(tumorRatios.size(), diploidRegions.size()));
+
+        for(int i = 0; i < tumorRatios.size(); ++i)
+        {
+            if(diploidRegions.contains(tumorRatios.EncodedChrPos[i]))
+                diploidTumorRatios.add(tumorRatios, i);
+        }
 
         // merge this ratios together into one cobalt ratio
-        return mergeRatios(null, mTumorDepths, null, tumorRatios, null);
+        return mergeRatios(null, mTumorDepths, null, diploidTumorRatios.build(), null);
     }
 
     @NotNull
-    public Table germlineOnly() throws IOException
+    public List<CobaltRatio> germlineOnly() throws IOException
     {
         if(mReferenceDepths == null)
         {
@@ -219,14 +210,14 @@ public class RatioSupplier
         }
         SparseBucketPolicy sparseBucketPolicy = mTargetRegionEnrichment == null ? SparseBucketPolicy.CALC_CONSOLIDATED_BUCKETS : SparseBucketPolicy.DO_NOT_CONSOLIDATE;
         var germlineRatios = new GermlineRatios(mReferenceId, mReferenceDepths, mGcProfiles, mTargetRegionEnrichment,
-                sparseBucketPolicy, null, mOutputDir, mChromosomePosCodec);
+                sparseBucketPolicy, null, mOutputDir, mChromosomePosCodec, mExecutorService);
         return mergeRatios(
                 mReferenceDepths, null,
                 germlineRatios.getRatios(), null, germlineRatios.gcDiploidRatios);
     }
 
     @NotNull
-    public Table tumorNormalPair() throws IOException
+    public List<CobaltRatio> tumorNormalPair() throws IOException
     {
         if(mReferenceDepths == null)
         {
@@ -242,124 +233,178 @@ public class RatioSupplier
                 SparseBucketPolicy.CALC_CONSOLIDATED_BUCKETS : SparseBucketPolicy.DO_NOT_CONSOLIDATE;
 
         var tumorRatios = new SampleRatios(mTumorId, mTumorDepths, mGcProfiles, mTargetRegionEnrichment,
-                tumorSparseBucketPolicy, null, mOutputDir, mChromosomePosCodec);
+                tumorSparseBucketPolicy, null, mOutputDir, mChromosomePosCodec, mExecutorService);
 
         SparseBucketPolicy germlineSparseBucketPolicy = tumorRatios.consolidatedBuckets == null ?
                 SparseBucketPolicy.DO_NOT_CONSOLIDATE : SparseBucketPolicy.USE_PROVIDED_BUCKETS;
 
         var germlineRatios = new GermlineRatios(mReferenceId, mReferenceDepths, mGcProfiles, mTargetRegionEnrichment,
-                germlineSparseBucketPolicy, tumorRatios.consolidatedBuckets, mOutputDir, mChromosomePosCodec);
+                germlineSparseBucketPolicy, tumorRatios.consolidatedBuckets, mOutputDir, mChromosomePosCodec, mExecutorService);
 
         return mergeRatios(
                 mReferenceDepths, mTumorDepths,
                 germlineRatios.getRatios(), tumorRatios.getRatios(), germlineRatios.gcDiploidRatios);
     }
 
-    // merge everything together
-    @NotNull
-    private static Table mergeRatios(
-            @Nullable Table referenceDepths,
-            @Nullable Table tumorDepths,
-            @Nullable Table referenceRatios,
-            @Nullable Table tumorRatios,
-            @Nullable Table referenceDiploidRatios)
+    private static RatioStore mergeGcProfile(final ReadDepthStore readDepths, final GcProfileStore gcProfiles)
     {
-        CB_LOGGER.info("start merging ratios");
+        // windows without a GC profile are treated as unmappable
+        double[] ratios = new double[readDepths.size()];
+        double[] gcContent = new double[readDepths.size()];
+        boolean[] isMappable = new boolean[readDepths.size()];
+        int profileIndex = 0;
 
-        // get all the chromosome positions from the counts
-        Table result = Table.create(LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS));
-
-        // now we make sure all tables are valid, by setting missing tables to empty
-        if(referenceDepths == null)
+        for(int i = 0; i < readDepths.size(); ++i)
         {
-            referenceDepths = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.READ_DEPTH),
-                    DoubleColumn.create(CobaltColumns.READ_GC_CONTENT));
-        }
+            long encodedChrPos = readDepths.EncodedChrPos[i];
 
-        if(tumorDepths == null)
-        {
-            tumorDepths = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.READ_DEPTH),
-                    DoubleColumn.create(CobaltColumns.READ_GC_CONTENT));
-        }
+            while(profileIndex < gcProfiles.size() && gcProfiles.EncodedChrPos[profileIndex] < encodedChrPos)
+            {
+                ++profileIndex;
+            }
 
-        if(referenceRatios == null)
-        {
-            referenceRatios = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.RATIO));
-        }
+            boolean hasProfile = profileIndex < gcProfiles.size() && gcProfiles.EncodedChrPos[profileIndex] == encodedChrPos;
 
-        if(tumorRatios == null)
-        {
-            tumorRatios = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.RATIO));
+            gcContent[i] = hasProfile ? gcProfiles.GcContent[profileIndex] : Double.NaN;
+            isMappable[i] = hasProfile && gcProfiles.IsMappable[profileIndex];
+            ratios[i] = isMappable[i] ? readDepths.ReadDepths[i] : Double.NaN;
         }
 
-        if(referenceDiploidRatios == null)
+        return new RatioStore(readDepths.EncodedChrPos, ratios, gcContent, isMappable);
+    }
+
+    private static List<MedianRatio> calcMedianRatios(final RatioStore ratios, final ChromosomePositionCodec chromosomePosCodec)
+    {
+        // the median of each chromosome's positive ratios, in chromosome order
+        List<MedianRatio> medianRatios = new ArrayList<>();
+        int[] chromosomeStarts = ratios.chromosomeStarts();
+
+        for(int c = 0; c < chromosomeStarts.length - 1; ++c)
         {
-            referenceDiploidRatios = Table.create(
-                    LongColumn.create(CobaltColumns.ENCODED_CHROMOSOME_POS),
-                    DoubleColumn.create(CobaltColumns.RATIO));
-        }
+            String contig = chromosomePosCodec.decodeChromosome(ratios.EncodedChrPos[chromosomeStarts[c]]);
 
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                referenceDepths.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.READ_DEPTH, CobaltColumns.READ_GC_CONTENT));
+            if(!HumanChromosome.contains(contig))
+                continue;
 
-        // rename the readDepth column
-        result.doubleColumn(CobaltColumns.READ_DEPTH).setName(CobaltColumns.REFERENCE_READ_DEPTH);
-        result.doubleColumn(CobaltColumns.READ_GC_CONTENT).setName(CobaltColumns.REFERENCE_GC_CONTENT);
+            List<Double> contigRatios = new ArrayList<>();
 
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                tumorDepths.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.READ_DEPTH, CobaltColumns.READ_GC_CONTENT));
+            for(int i = chromosomeStarts[c]; i < chromosomeStarts[c + 1]; ++i)
+            {
+                if(Doubles.positive(ratios.Ratios[i]))
+                    contigRatios.add(ratios.Ratios[i]);
+            }
 
-        // rename the readDepth column
-        result.doubleColumn(CobaltColumns.READ_DEPTH).setName(CobaltColumns.TUMOR_READ_DEPTH);
-        result.doubleColumn(CobaltColumns.READ_GC_CONTENT).setName(CobaltColumns.TUMOR_GC_CONTENT);
+            int count = contigRatios.size();
+            double medianRatio = count > 0 ? Doubles.median(contigRatios) : 0;
 
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                referenceRatios.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.RATIO));
+            medianRatios.add(new MedianRatio(contig, medianRatio, count));
+        }
+
+        return medianRatios;
+    }
+
+    // merge everything together
+    @NotNull
+    private List<CobaltRatio> mergeRatios(
+            @Nullable ReadDepthStore referenceDepths,
+            @Nullable ReadDepthStore tumorDepths,
+            @Nullable RatioStore referenceRatios,
+            @Nullable RatioStore tumorRatios,
+            @Nullable RatioStore referenceDiploidRatios)
+    {
+        CB_LOGGER.info("start merging ratios");
 
-        // rename the ratio column
-        result.doubleColumn(CobaltColumns.RATIO).setName("referenceGCRatio");
+        // get all the chromosome positions, with each store's index for them
+        long[] encodedChrPos = new long[0];
 
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                tumorRatios.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.RATIO));
+        for(WindowStore store : Arrays.asList(referenceDepths, tumorDepths, referenceRatios, tumorRatios, referenceDiploidRatios))
+        {
+            if(store != null)
+                encodedChrPos = unionKeys(encodedChrPos, store.EncodedChrPos);
+        }
 
-        // rename the ratio column
-        result.doubleColumn(CobaltColumns.RATIO).setName("tumorGCRatio");
+        int[] refDepthIndices = storeIndices(encodedChrPos, referenceDepths);
+        int[] tumorDepthIndices = storeIndices(encodedChrPos, tumorDepths);
+        int[] refRatioIndices = storeIndices(encodedChrPos, referenceRatios);
+        int[] tumorRatioIndices = storeIndices(encodedChrPos, tumorRatios);
+        int[] refDiploidRatioIndices = storeIndices(encodedChrPos, referenceDiploidRatios);
 
-        result = result.joinOn(CobaltColumns.ENCODED_CHROMOSOME_POS).fullOuter(
-                referenceDiploidRatios.retainColumns(CobaltColumns.ENCODED_CHROMOSOME_POS, CobaltColumns.RATIO));
+        List<CobaltRatio> results = new ArrayList<>(encodedChrPos.length);
+
+        for(int i = 0; i < encodedChrPos.length; ++i)
+        {
+            // any missing value is set to -1
+            results.add(ImmutableCobaltRatio.builder()
+                    .chromosome(mChromosomePosCodec.decodeChromosome(encodedChrPos[i]))
+                    .position(mChromosomePosCodec.decodePosition(encodedChrPos[i]))
+                    .referenceReadDepth(valueOrInvalid(referenceDepths != null ? referenceDepths.ReadDepths : null, refDepthIndices[i]))
+                    .tumorReadDepth(valueOrInvalid(tumorDepths != null ? tumorDepths.ReadDepths : null, tumorDepthIndices[i]))
+                    .referenceGCRatio(valueOrInvalid(referenceRatios != null ? referenceRatios.Ratios : null, refRatioIndices[i]))
+                    .tumorGCRatio(valueOrInvalid(tumorRatios != null ? tumorRatios.Ratios : null, tumorRatioIndices[i]))
+                    .referenceGCDiploidRatio(valueOrInvalid(
+                            referenceDiploidRatios != null ? referenceDiploidRatios.Ratios : null, refDiploidRatioIndices[i]))
+                    .referenceGcContent(valueOrInvalid(referenceDepths != null ? referenceDepths.ReadGcContent : null, refDepthIndices[i]))
+                    .tumorGcContent(valueOrInvalid(tumorDepths != null ? tumorDepths.ReadGcContent : null, tumorDepthIndices[i]))
+                    .build());
+        }
 
-        // rename the ratio column
-        result.doubleColumn(CobaltColumns.RATIO).setName("referenceGCDiploidRatio");
+        CB_LOGGER.info("finish merging ratios");
 
-        Validate.isTrue(result.longColumn(CobaltColumns.ENCODED_CHROMOSOME_POS).isMissing().isEmpty());
+        return results;
+    }
 
-        // sort by the encoded chromosome pos
-        result = result.sortAscendingOn(CobaltColumns.ENCODED_CHROMOSOME_POS);
+    private static long[] unionKeys(final long[] keys1, final long[] keys2)
+    {
+        long[] union = new long[keys1.length + keys2.length];
+        int index1 = 0;
+        int index2 = 0;
+        int count = 0;
 
-        // set any missing value to -1
-        for (Column<?> c: result.columns())
+        while(index1 < keys1.length || index2 < keys2.length)
         {
-            if(c instanceof IntColumn)
+            if(index2 == keys2.length || (index1 < keys1.length && keys1[index1] < keys2[index2]))
             {
-                ((IntColumn)c).setMissingTo(CobaltConstants.INVALID_VALUE_INDICATOR);
+                union[count++] = keys1[index1++];
             }
-            else if(c instanceof DoubleColumn)
+            else if(index1 == keys1.length || keys2[index2] < keys1[index1])
             {
-                ((DoubleColumn)c).setMissingTo((double)CobaltConstants.INVALID_VALUE_INDICATOR);
-                // ((DoubleColumn)c).map(d -> Double.isFinite(d) ? d : -1.0);
+                union[count++] = keys2[index2++];
+            }
+            else
+            {
+                union[count++] = keys1[index1++];
+                ++index2;
             }
         }
 
-        CB_LOGGER.info("finish merging ratios");
+        return Arrays.copyOf(union, count);
+    }
+
+    private static int[] storeIndices(final long[] encodedChrPos, @Nullable final WindowStore store)
+    {
+        // the store's index for each key, or -1 if it has no such window
+        int[] indices = new int[encodedChrPos.length];
+        Arrays.fill(indices, -1);
+
+        if(store == null)
+            return indices;
+
+        int storeIndex = 0;
+
+        for(int i = 0; i < encodedChrPos.length && storeIndex < store.size(); ++i)
+        {
+            if(store.EncodedChrPos[storeIndex] == encodedChrPos[i])
+                indices[i] = storeIndex++;
+        }
+
+        return indices;
+    }
+
+    private static double valueOrInvalid(@Nullable final double[] values, int index)
+    {
+        if(values == null || index < 0 || Double.isNaN(values[index]))
+            return CobaltConstants.INVALID_VALUE_INDICATOR;
 
-        return result;
+        return values[index];
     }
-}
\ No newline at end of file
+}
@@ -1,37 +1,65 @@
 package com.hartwig.hmftools.cobalt.ratio;
 
-import java.util.Comparator;
-import java.util.PriorityQueue;
+import java.util.Arrays;
 
 public class RollingMedian
 {
-    private final PriorityQueue<Double> mMinheap;
-    private final PriorityQueue<Double> mMaxheap;
+    // values are held in an indexable skip list of primitive arrays, giving O(log n) add, remove and lookup by rank. The list is
+    // split into a lower and an upper part, replicating a max-heap and min-heap pair - the median is taken from the parts' boundary,
+    // and a value is added to and removed from the part chosen by comparing it to the current median, so that results, including a
+    // removal which finds no matching value in its part, are the same as the heap-based calculation
+    private static final int MAX_LEVELS = 24;
+    private static final int HEAD = 0;
+    private static final int NIL = -1;
+
+    private double[] mValues;
+    private int[] mLevels;
+    private int[] mNext; // per node and level, the next node
+    private int[] mWidths; // per node and level, the number of values spanned by the link to the next node
+
+    private int[] mFreeNodes;
+    private int mFreeCount;
+    private int mNodeCount;
+
+    private int mSize;
+    private int mLowerCount; // values in the lower part, ie those at or below the median
+
+    private final int[] mChain;
+    private final int[] mChainSteps;
+    private long mRandomState;
 
     public RollingMedian()
     {
-       mMinheap = new PriorityQueue<>(new MinHeapComparator());
-       mMaxheap = new PriorityQueue<>(new MaxHeapComparator());
+        int capacity = 64;
+        mValues = new double[capacity];
+        mLevels = new int[capacity];
+        mNext = new int[capacity * MAX_LEVELS];
+        mWidths = new int[capacity * MAX_LEVELS];
+        mFreeNodes = new int[capacity];
+        mFreeCount = 0;
+
+        mNodeCount = 1;
+        mLevels[HEAD] = MAX_LEVELS;
+
+        for(int level = 0; level < MAX_LEVELS; ++level)
+        {
+            mNext[HEAD * MAX_LEVELS + level] = NIL;
+            mWidths[HEAD * MAX_LEVELS + level] = 1;
+        }
+
+        mSize = 0;
+        mLowerCount = 0;
+        mChain = new int[MAX_LEVELS];
+        mChainSteps = new int[MAX_LEVELS];
+        mRandomState = 0x9E3779B97F4A7C15L;
     }
 
     public void add(double n)
     {
-        if(isEmpty())
-        {
-            mMinheap.add(n);
-        }
-        else
-        {
-            if(Double.compare(n, median()) <= 0)
-            {
-                mMaxheap.add(n);
-            }
-            else
-            {
-                mMinheap.add(n);
-            }
-        }
+        if(!isEmpty() && Double.compare(n, median()) <= 0)
+            ++mLowerCount;
 
+        insert(n);
         fixChaos();
     }
 
@@ -41,19 +69,23 @@ public class RollingMedian
         {
             if(Double.compare(n, median()) <= 0)
             {
-                mMaxheap.remove(n);
+                // the value must be present in the lower part
+                if(countBelow(n, false) < mLowerCount && delete(n))
+                    --mLowerCount;
             }
             else
             {
-                mMinheap.remove(n);
+                if(countBelow(n, true) > mLowerCount)
+                    delete(n);
             }
         }
+
         fixChaos();
     }
 
     public int size()
     {
-        return mMaxheap.size() + mMinheap.size();
+        return mSize;
     }
 
     private boolean isEmpty()
@@ -63,18 +95,15 @@ public class RollingMedian
 
     private void fixChaos()
     {
-        //if sizes of heaps differ by 2, then it's a chaos, since median must be the middle element
-        if(Math.abs(mMaxheap.size() - mMinheap.size()) > 1)
+        // if the parts' sizes differ by 2, move the boundary so the median is the middle element
+        int upperCount = mSize - mLowerCount;
+
+        if(Math.abs(mLowerCount - upperCount) > 1)
         {
-            //check which one is the culprit and take action by kicking out the root from culprit into victim
-            if(mMaxheap.size() > mMinheap.size())
-            {
-                mMinheap.add(mMaxheap.poll());
-            }
+            if(mLowerCount > upperCount)
+                --mLowerCount;
             else
-            {
-                mMaxheap.add(mMinheap.poll());
-            }
+                ++mLowerCount;
         }
     }
 
@@ -84,36 +113,195 @@ public class RollingMedian
         {
             return 0;
         }
-        if(mMaxheap.size() == mMinheap.size())
+
+        int upperCount = mSize - mLowerCount;
+
+        if(mLowerCount == upperCount)
         {
-            return (mMaxheap.peek() + mMinheap.peek()) / 2;
+            return (valueAt(mLowerCount - 1) + valueAt(mLowerCount)) / 2;
         }
-        else if(mMaxheap.size() > mMinheap.size())
+        else if(mLowerCount > upperCount)
         {
-            return mMaxheap.peek();
+            return valueAt(mLowerCount - 1);
         }
         else
         {
-            return mMinheap.peek();
+            return valueAt(mLowerCount);
         }
     }
 
-    private static class MinHeapComparator implements Comparator<Double>
+    private double valueAt(int rank)
     {
-        @Override
-        public int compare(Double i, Double j)
+        int node = HEAD;
+        int remaining = rank + 1;
+
+        for(int level = MAX_LEVELS - 1; level >= 0; --level)
         {
-            return Double.compare(i, j);
+            while(mNext[node * MAX_LEVELS + level] != NIL && mWidths[node * MAX_LEVELS + level] <= remaining)
+            {
+                remaining -= mWidths[node * MAX_LEVELS + level];
+                node = mNext[node * MAX_LEVELS + level];
+            }
         }
+
+        return mValues[node];
     }
 
-    private static class MaxHeapComparator implements Comparator<Double>
+    private int countBelow(double value, boolean inclusive)
     {
-        // opposite to minHeapComparator, invert the return values
-        @Override
-        public int compare(Double i, Double j)
+        // the number of values less than, or optionally equal to, the specified value
+        int node = HEAD;
+        int count = 0;
+
+        for(int level = MAX_LEVELS - 1; level >= 0; --level)
         {
-            return -1 * Double.compare(i, j);
+            int next = mNext[node * MAX_LEVELS + level];
+
+            while(next != NIL && precedes(mValues[next], value, inclusive))
+            {
+                count += mWidths[node * MAX_LEVELS + level];
+                node = next;
+                next = mNext[node * MAX_LEVELS + level];
+            }
+        }
+
+        return count;
+    }
+
+    private static boolean precedes(double value, double other, boolean inclusive)
+    {
+        int compare = Double.compare(value, other);
+        return inclusive ? compare <= 0 : compare < 0;
+    }
+
+    private void insert(double value)
+    {
+        // find the last node at each level at or before the value, and the number of values stepped over at each level
+        int node = HEAD;
+
+        for(int level = MAX_LEVELS - 1; level >= 0; --level)
+        {
+            mChainSteps[level] = 0;
+            int next = mNext[node * MAX_LEVELS + level];
+
+            while(next != NIL && Double.compare(mValues[next], value) <= 0)
+            {
+                mChainSteps[level] += mWidths[node * MAX_LEVELS + level];
+                node = next;
+                next = mNext[node * MAX_LEVELS + level];
+            }
+
+            mChain[level] = node;
         }
+
+        int newNode = allocateNode(value);
+        int newLevels = mLevels[newNode];
+        int steps = 0;
+
+        for(int level = 0; level < newLevels; ++level)
+        {
+            int prevIndex = mChain[level] * MAX_LEVELS + level;
+            int newIndex = newNode * MAX_LEVELS + level;
+
+            mNext[newIndex] = mNext[prevIndex];
+            mNext[prevIndex] = newNode;
+            mWidths[newIndex] = mWidths[prevIndex] - steps;
+            mWidths[prevIndex] = steps + 1;
+            steps += mChainSteps[level];
+        }
+
+        for(int level = newLevels; level < MAX_LEVELS; ++level)
+        {
+            ++mWidths[mChain[level] * MAX_LEVELS + level];
+        }
+
+        ++mSize;
+    }
+
+    private boolean delete(double value)
+    {
+        // removes one instance of the value if present
+        int node = HEAD;
+
+        for(int level = MAX_LEVELS - 1; level >= 0; --level)
+        {
+            int next = mNext[node * MAX_LEVELS + level];
+
+            while(next != NIL && Double.compare(mValues[next], value) < 0)
+            {
+                node = next;
+                next = mNext[node * MAX_LEVELS + level];
+            }
+
+            mChain[level] = node;
+        }
+
+        int target = mNext[mChain[0] * MAX_LEVELS];
+
+        if(target == NIL || Double.compare(mValues[target], value) != 0)
+            return false;
+
+        int targetLevels = mLevels[target];
+
+        for(int level = 0; level < targetLevels; ++level)
+        {
+            int prevIndex = mChain[level] * MAX_LEVELS + level;
+            int targetIndex = target * MAX_LEVELS + level;
+
+            mWidths[prevIndex] += mWidths[targetIndex] - 1;
+            mNext[prevIndex] = mNext[targetIndex];
+        }
+
+        for(int level = targetLevels; level < MAX_LEVELS; ++level)
+        {
+            --mWidths[mChain[level] * MAX_LEVELS + level];
+        }
+
+        releaseNode(target);
+        --mSize;
+        return true;
+    }
+
+    private int allocateNode(double value)
+    {
+        int node;
+
+        if(mFreeCount > 0)
+        {
+            node = mFreeNodes[--mFreeCount];
+        }
+        else
+        {
+            if(mNodeCount == mValues.length)
+            {
+                int capacity = mValues.length * 2;
+                mValues = Arrays.copyOf(mValues, capacity);
+                mLevels = Arrays.copyOf(mLevels, capacity);
+                mNext = Arrays.copyOf(mNext, capacity * MAX_LEVELS);
+                mWidths = Arrays.copyOf(mWidths, capacity * MAX_LEVELS);
+                mFreeNodes = Arrays.copyOf(mFreeNodes, capacity);
+            }
+
+            node = mNodeCount++;
+        }
+
+        mValues[node] = value;
+        mLevels[node] = randomLevels();
+        return node;
+    }
+
+    private void releaseNode(int node)
+    {
+        mFreeNodes[mFreeCount++] = node;
+    }
+
+    private int randomLevels()
+    {
+        // each additional level with probability 1/2, from a fixed-seed xorshift so runs are repeatable
+        mRandomState ^= mRandomState << 13;
+        mRandomState ^= mRandomState >>> 7;
+        mRandomState ^= mRandomState << 17;
+
+        return Math.min(MAX_LEVELS, 1 + Long.numberOfTrailingZeros(mRandomState | (1L << (MAX_LEVELS - 1))));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package com.hartwig.hmftools.cobalt.targeted;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
+import com.hartwig.hmftools.cobalt.WindowStore;
+import com.hartwig.hmftools.common.genome.position.GenomePosition;
+
+public class TargetEnrichmentStore extends WindowStore
+{
+    public final double[] RelativeEnrichment; // NaN where the target region has no enrichment value
+
+    public TargetEnrichmentStore(final long[] encodedChrPos, final double[] relativeEnrichment)
+    {
+        super(encodedChrPos);
+        RelativeEnrichment = relativeEnrichment;
+    }
+
+    public static TargetEnrichmentStore from(final TargetRegionEnrichment targetRegionEnrichment, final ChromosomePositionCodec chromosomePosCodec)
+    {
+        List<GenomePosition> targetedRegions = targetRegionEnrichment.getTargetedRegions();
+        Map<GenomePosition, Double> relativeEnrichmentMap = targetRegionEnrichment.getTargetRelativeEnrichment();
+
+        long[] encodedChrPos = new long[targetedRegions.size()];
+
+        for(int i = 0; i < targetedRegions.size(); ++i)
+        {
+            GenomePosition region = targetedRegions.get(i);
+            encodedChrPos[i] = chromosomePosCodec.encodeChromosomePosition(region.chromosome(), region.position());
+        }
+
+        encodedChrPos = Arrays.stream(encodedChrPos).sorted().distinct().toArray();
+        double[] relativeEnrichment = new double[encodedChrPos.length];
+        Arrays.fill(relativeEnrichment, Double.NaN);
+
+        for(Map.Entry<GenomePosition, Double> entry : relativeEnrichmentMap.entrySet())
+        {
+            long key = chromosomePosCodec.encodeChromosomePosition(entry.getKey().chromosome(), entry.getKey().position());
+            relativeEnrichment[Arrays.binarySearch(encodedChrPos, key)] = entry.getValue();
+        }
+
+        return new TargetEnrichmentStore(encodedChrPos, relativeEnrichment);
+    }
+}
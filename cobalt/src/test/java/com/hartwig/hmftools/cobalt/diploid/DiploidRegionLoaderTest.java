@@ -2,46 +2,38 @@ package com.hartwig.hmftools.cobalt.diploid;
 
 import static junit.framework.TestCase.assertEquals;
 
-import java.util.List;
-
-import com.hartwig.hmftools.cobalt.Chromosome;
 import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.hartwig.hmftools.cobalt.WindowStore;
 
 import org.jetbrains.annotations.NotNull;
 import org.junit.Test;
 
 import htsjdk.samtools.util.Locatable;
 
-import tech.tablesaw.api.*;
-
 public class DiploidRegionLoaderTest
 {
     @Test
     public void testBuildRatios()
     {
-        String chr1 = "1";
-        String chr2 = "2";
         ChromosomePositionCodec chromosomePosCodec = new ChromosomePositionCodec();
         DiploidRegionLoader victim = new DiploidRegionLoader(chromosomePosCodec);
         victim.accept(locatable("1", 1001, 3000));
         victim.accept(locatable("1", 5001, 6000));
         victim.accept(locatable("2", 1001, 3000));
 
-        Table result = victim.build();
-        assertEquals(5, result.rowCount());
-        StringColumn chrColumn = result.stringColumn(CobaltColumns.CHROMOSOME);
-        assertReadRatio("1", 1001, result.where(chrColumn.isEqualTo(chr1)).row(0));
-        assertReadRatio("1", 2001, result.where(chrColumn.isEqualTo(chr1)).row(1));
-        assertReadRatio("1", 5001, result.where(chrColumn.isEqualTo(chr1)).row(2));
-        assertReadRatio("2", 1001, result.where(chrColumn.isEqualTo(chr2)).row(0));
-        assertReadRatio("2", 2001, result.where(chrColumn.isEqualTo(chr2)).row(1));
+        WindowStore result = victim.build();
+        assertEquals(5, result.size());
+        assertReadRatio(chromosomePosCodec, "1", 1001, result.EncodedChrPos[0]);
+        assertReadRatio(chromosomePosCodec, "1", 2001, result.EncodedChrPos[1]);
+        assertReadRatio(chromosomePosCodec, "1", 5001, result.EncodedChrPos[2]);
+        assertReadRatio(chromosomePosCodec, "2", 1001, result.EncodedChrPos[3]);
+        assertReadRatio(chromosomePosCodec, "2", 2001, result.EncodedChrPos[4]);
     }
 
-    private void assertReadRatio(@NotNull String contig, long position, @NotNull Row victim)
+    private void assertReadRatio(@NotNull ChromosomePositionCodec chromosomePosCodec, @NotNull String contig, int position, long victim)
     {
-        assertEquals(contig, victim.getString(CobaltColumns.CHROMOSOME));
-        assertEquals(position, victim.getInt(CobaltColumns.POSITION));
+        assertEquals(contig, chromosomePosCodec.decodeChromosome(victim));
+        assertEquals(position, chromosomePosCodec.decodePosition(victim));
     }
 
     @NotNull
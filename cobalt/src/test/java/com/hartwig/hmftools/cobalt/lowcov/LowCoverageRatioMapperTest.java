@@ -6,12 +6,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
-import com.hartwig.hmftools.cobalt.CobaltColumns;
+import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
+import com.hartwig.hmftools.cobalt.ratio.RatioStore;
 
 import org.junit.Test;
 
-import tech.tablesaw.api.*;
-
 public class LowCoverageRatioMapperTest
 {
     @Test
@@ -80,28 +79,26 @@ public class LowCoverageRatioMapperTest
     @Test
     public void testCalcConsolidateBoundaryRatios()
     {
-        final Table rawRatios = Table.create(
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                DoubleColumn.create(CobaltColumns.RATIO));
+        ChromosomePositionCodec chromosomePosCodec = new ChromosomePositionCodec();
+        RatioStore.Builder rawRatios = new RatioStore.Builder(16);
 
-        Row row;
         // add in some chromosome read ratio
-        appendReadRatio(rawRatios, "chr1", 1001, 1.0);
-        appendReadRatio(rawRatios, "chr1", 2001, -1.0);
-        appendReadRatio(rawRatios, "chr1", 3001, 1.0);
-        appendReadRatio(rawRatios, "chr1", 5001, 1.0);
-        appendReadRatio(rawRatios, "chr1", 9001, 1.0);
+        appendReadRatio(rawRatios, chromosomePosCodec, "chr1", 1001, 1.0);
+        appendReadRatio(rawRatios, chromosomePosCodec, "chr1", 2001, -1.0);
+        appendReadRatio(rawRatios, chromosomePosCodec, "chr1", 3001, 1.0);
+        appendReadRatio(rawRatios, chromosomePosCodec, "chr1", 5001, 1.0);
+        appendReadRatio(rawRatios, chromosomePosCodec, "chr1", 9001, 1.0);
 
-        appendReadRatio(rawRatios, "chr1", 10001, 1.0);
-        appendReadRatio(rawRatios, "chr1", 12001, -1.0);
-        appendReadRatio(rawRatios, "chr1", 13001, 1.0);
-        appendReadRatio(rawRatios, "chr1", 14001, 1.0);
-        appendReadRatio(rawRatios, "chr1", 16001, 1.0);
+        appendReadRatio(rawRatios, chromosomePosCodec, "chr1", 10001, 1.0);
+        appendReadRatio(rawRatios, chromosomePosCodec, "chr1", 12001, -1.0);
+        appendReadRatio(rawRatios, chromosomePosCodec, "chr1", 13001, 1.0);
+        appendReadRatio(rawRatios, chromosomePosCodec, "chr1", 14001, 1.0);
+        appendReadRatio(rawRatios, chromosomePosCodec, "chr1", 16001, 1.0);
 
-        appendReadRatio(rawRatios, "chr1", 19001, 1.0);
+        appendReadRatio(rawRatios, chromosomePosCodec, "chr1", 19001, 1.0);
 
-        List<LowCovBucket> buckets = Objects.requireNonNull(LowCoverageRatioMapper.consolidateIntoBuckets(rawRatios, 4)).get("chr1");
+        List<LowCovBucket> buckets = Objects.requireNonNull(LowCoverageRatioMapper.consolidateIntoBuckets(
+                rawRatios.build(), 4, chromosomePosCodec)).get("chr1");
 
         assertEquals(3, buckets.size());
 
@@ -117,9 +114,10 @@ public class LowCoverageRatioMapperTest
         assertEquals(20001, buckets.get(2).EndPosition);
 
         // put a masked out ratio at the end, should also work
-        row = rawRatios.appendRow(); row.setString("chromosome", "chr1"); row.setInt("position", 20001); row.setDouble("ratio", -1.0);
+        appendReadRatio(rawRatios, chromosomePosCodec, "chr1", 20001, -1.0);
 
-        buckets = Objects.requireNonNull(LowCoverageRatioMapper.consolidateIntoBuckets(rawRatios, 4)).get("chr1");
+        buckets = Objects.requireNonNull(LowCoverageRatioMapper.consolidateIntoBuckets(
+                rawRatios.build(), 4, chromosomePosCodec)).get("chr1");
 
         assertEquals(3, buckets.size());
 
@@ -133,11 +131,9 @@ public class LowCoverageRatioMapperTest
     }
 
     @SuppressWarnings("SameParameterValue")
-    private static void appendReadRatio(Table table, String chromosome, int position, double ratio)
+    private static void appendReadRatio(
+            RatioStore.Builder ratios, ChromosomePositionCodec chromosomePosCodec, String chromosome, int position, double ratio)
     {
-        Row row = table.appendRow();
-        row.setString(CobaltColumns.CHROMOSOME, chromosome);
-        row.setInt(CobaltColumns.POSITION, position);
-        row.setDouble(CobaltColumns.RATIO, ratio);
+        ratios.add(chromosomePosCodec.encodeChromosomePosition(chromosome, position), ratio, Double.NaN, true);
     }
 }
@@ -5,20 +5,15 @@ import static com.hartwig.hmftools.cobalt.CobaltTestUtils.assertDoubleEquals;
 import static org.junit.Assert.assertEquals;
 
 import java.io.IOException;
+import java.util.List;
 
 import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
-import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.cobalt.WindowStore;
+import com.hartwig.hmftools.cobalt.count.ReadDepthStore;
+import com.hartwig.hmftools.common.cobalt.CobaltRatio;
 
 import org.junit.Test;
 
-import tech.tablesaw.api.BooleanColumn;
-import tech.tablesaw.api.DoubleColumn;
-import tech.tablesaw.api.IntColumn;
-import tech.tablesaw.api.Row;
-import tech.tablesaw.api.StringColumn;
-import tech.tablesaw.api.Table;
-
 public class RatioSupplierTest
 {
     @Test
@@ -26,85 +21,46 @@ public class RatioSupplierTest
     {
         var chromosomePosCodec = new ChromosomePositionCodec();
 
-        // add some counts
-        final Table readDepths = Table.create("readDepths",
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                DoubleColumn.create(CobaltColumns.READ_DEPTH),
-                DoubleColumn.create(CobaltColumns.READ_GC_CONTENT));
-
-        addReadDepth(readDepths, "chr1", 2001, 10.0);
-        addReadDepth(readDepths, "chr2", 3001, 5.0);
-        addReadDepth(readDepths, "chr2", 4001, 7.0);
+        long chr1Pos2001 = chromosomePosCodec.encodeChromosomePosition("chr1", 2001);
+        long chr2Pos3001 = chromosomePosCodec.encodeChromosomePosition("chr2", 3001);
+        long chr2Pos4001 = chromosomePosCodec.encodeChromosomePosition("chr2", 4001);
 
-        chromosomePosCodec.addEncodedChrPosColumn(readDepths, false);
+        // add some counts
+        final ReadDepthStore readDepths = new ReadDepthStore(
+                new long[] { chr1Pos2001, chr2Pos3001, chr2Pos4001 },
+                new double[] { 10.0, 5.0, 7.0 },
+                new double[] { 0.5, 0.5, 0.5 });
 
         // gc profiles
-        Table gcProfiles = Table.create("gcProfiles",
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                DoubleColumn.create(CobaltColumns.GC_CONTENT),
-                BooleanColumn.create(CobaltColumns.IS_MAPPABLE),
-                BooleanColumn.create(CobaltColumns.IS_AUTOSOME));
-
-        addGcProfile(gcProfiles, "chr1", 2001, 0.45, true);
-        addGcProfile(gcProfiles, "chr2", 3001, 0.50, true);
-        addGcProfile(gcProfiles, "chr2", 4001, 0.50, true);
-
-        chromosomePosCodec.addEncodedChrPosColumn(gcProfiles, true);
+        final GcProfileStore gcProfiles = new GcProfileStore(
+                new long[] { chr1Pos2001, chr2Pos3001, chr2Pos4001 },
+                new double[] { 0.45, 0.50, 0.50 },
+                new boolean[] { true, true, true });
 
         // diploid regions
-        final Table diploidRegions = Table.create("diploidRegions",
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION));
-
-        Row row = diploidRegions.appendRow();
-        row.setString(CobaltColumns.CHROMOSOME, "chr1");
-        row.setInt(CobaltColumns.POSITION, 2001);
-
-        row = diploidRegions.appendRow();
-        row.setString(CobaltColumns.CHROMOSOME, "chr2");
-        row.setInt(CobaltColumns.POSITION, 3001);
-        chromosomePosCodec.addEncodedChrPosColumn(diploidRegions, true);
+        final WindowStore diploidRegions = new WindowStore(new long[] { chr1Pos2001, chr2Pos3001 });
 
         final RatioSupplier ratioSupplier = new RatioSupplier("TEST", "TEST", null,
                 gcProfiles, null, readDepths,
-                chromosomePosCodec);
+                chromosomePosCodec, null);
 
-        Table ratios = ratioSupplier.tumorOnly(diploidRegions);
+        List<CobaltRatio> ratios = ratioSupplier.tumorOnly(diploidRegions);
 
-        assertEquals(3, ratios.rowCount());
+        assertEquals(3, ratios.size());
 
-        Row ratio = ratios.row(0);
-        assertEquals(chromosomePosCodec.encodeChromosomePosition("chr1", 2001), ratio.getLong(CobaltColumns.ENCODED_CHROMOSOME_POS));
+        CobaltRatio ratio = ratios.get(0);
+        assertEquals("chr1", ratio.chromosome());
+        assertEquals(2001, ratio.position());
 
-        ratio = ratios.row(1);
-        assertEquals(chromosomePosCodec.encodeChromosomePosition("chr2", 3001), ratio.getLong(CobaltColumns.ENCODED_CHROMOSOME_POS));
+        ratio = ratios.get(1);
+        assertEquals("chr2", ratio.chromosome());
+        assertEquals(3001, ratio.position());
 
-        ratio = ratios.row(2);
-        assertEquals(chromosomePosCodec.encodeChromosomePosition("chr2", 4001), ratio.getLong(CobaltColumns.ENCODED_CHROMOSOME_POS));
+        ratio = ratios.get(2);
+        assertEquals("chr2", ratio.chromosome());
+        assertEquals(4001, ratio.position());
 
         // tumorGCRatio must be -1 since this position is not in diploid bed file
-        assertDoubleEquals(ratio.getDouble("tumorGCRatio"), -1);
-    }
-
-    private static void addReadDepth(Table readCountTable, String chromosome, int position, double readDepth)
-    {
-        Row row = readCountTable.appendRow();
-        row.setString(CobaltColumns.CHROMOSOME, chromosome);
-        row.setInt(CobaltColumns.POSITION, position);
-        row.setDouble(CobaltColumns.READ_DEPTH, readDepth);
-        row.setDouble(CobaltColumns.READ_GC_CONTENT, 0.5);
-    }
-
-    @SuppressWarnings("SameParameterValue")
-    private static void addGcProfile(Table table, String chromosome, int position, double gcContent, boolean isMappable)
-    {
-        Row row = table.appendRow();
-        row.setString(CobaltColumns.CHROMOSOME, chromosome);
-        row.setInt(CobaltColumns.POSITION, position);
-        row.setDouble(CobaltColumns.GC_CONTENT, gcContent);
-        row.setBoolean(CobaltColumns.IS_MAPPABLE, isMappable);
-        row.setBoolean(CobaltColumns.IS_AUTOSOME, HumanChromosome.fromString(chromosome).isAutosome());
+        assertDoubleEquals(ratio.tumorGCRatio(), -1);
     }
 }
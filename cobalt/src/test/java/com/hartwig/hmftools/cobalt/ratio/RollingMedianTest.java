@@ -2,6 +2,12 @@ package com.hartwig.hmftools.cobalt.ratio;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.PriorityQueue;
+import java.util.Random;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -50,6 +56,95 @@ public class RollingMedianTest
         assertMedian(5.5);
     }
 
+    @Test
+    public void testMatchesHeapMedian()
+    {
+        // ratios repeat often, so values are drawn from a small set to exercise duplicates at the median, including removals which
+        // the heap calculation doesn't apply
+        Random random = new Random(123);
+
+        for(int test = 0; test < 20; ++test)
+        {
+            RollingMedian rollingMedian = new RollingMedian();
+            HeapMedian heapMedian = new HeapMedian();
+            Deque<Double> window = new ArrayDeque<>();
+            int windowSize = 1 + random.nextInt(200);
+            int distinctValues = 1 + random.nextInt(50);
+
+            for(int i = 0; i < 5000; ++i)
+            {
+                double value = random.nextInt(distinctValues) * 0.1;
+                window.addLast(value);
+                rollingMedian.add(value);
+                heapMedian.add(value);
+
+                if(window.size() > windowSize || random.nextInt(10) == 0)
+                {
+                    double removed = window.pollFirst();
+                    rollingMedian.remove(removed);
+                    heapMedian.remove(removed);
+                }
+
+                assertEquals(heapMedian.size(), rollingMedian.size());
+                assertEquals(Double.doubleToLongBits(heapMedian.median()), Double.doubleToLongBits(rollingMedian.median()));
+            }
+        }
+    }
+
+    private static class HeapMedian
+    {
+        // the previous two-heap implementation
+        private final PriorityQueue<Double> mMinheap = new PriorityQueue<>();
+        private final PriorityQueue<Double> mMaxheap = new PriorityQueue<>(Collections.reverseOrder());
+
+        public void add(double n)
+        {
+            if(size() == 0 || Double.compare(n, median()) > 0)
+                mMinheap.add(n);
+            else
+                mMaxheap.add(n);
+
+            fixChaos();
+        }
+
+        public void remove(double n)
+        {
+            if(size() > 0)
+            {
+                if(Double.compare(n, median()) <= 0)
+                    mMaxheap.remove(n);
+                else
+                    mMinheap.remove(n);
+            }
+
+            fixChaos();
+        }
+
+        public int size() { return mMaxheap.size() + mMinheap.size(); }
+
+        private void fixChaos()
+        {
+            if(Math.abs(mMaxheap.size() - mMinheap.size()) > 1)
+            {
+                if(mMaxheap.size() > mMinheap.size())
+                    mMinheap.add(mMaxheap.poll());
+                else
+                    mMaxheap.add(mMinheap.poll());
+            }
+        }
+
+        public double median()
+        {
+            if(size() == 0)
+                return 0;
+
+            if(mMaxheap.size() == mMinheap.size())
+                return (mMaxheap.peek() + mMinheap.peek()) / 2;
+
+            return mMaxheap.size() > mMinheap.size() ? mMaxheap.peek() : mMinheap.peek();
+        }
+    }
+
     private void assertMedian(double expected)
     {
         assertEquals(expected, victim.median(), EPSILON);
@@ -4,107 +4,118 @@ import static com.hartwig.hmftools.cobalt.CobaltTestUtils.assertDoubleEquals;
 
 import static org.junit.Assert.assertEquals;
 
-import java.util.Arrays;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.ListMultimap;
+import com.google.common.io.Resources;
 import com.hartwig.hmftools.cobalt.Chromosome;
 import com.hartwig.hmftools.cobalt.ChromosomePositionCodec;
-import com.hartwig.hmftools.cobalt.CobaltColumns;
-import com.hartwig.hmftools.common.cobalt.ReadRatio;
+import com.hartwig.hmftools.cobalt.ratio.RatioStore;
 
-import org.jetbrains.annotations.NotNull;
 import org.junit.Test;
 
-import tech.tablesaw.api.*;
-
 public class TargetedRatioMapperTest
 {
     private static final Chromosome CHROMOSOME = new Chromosome("chr1", 10000);
 
+    private static final String TARGETED_PATH = Resources.getResource("targeted").getPath() + File.separator;
+
     @Test
     public void testOnTargetRatio()
     {
         var chromosomePositionCodec = new ChromosomePositionCodec();
 
-        final Table ratios = Table.create(
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                DoubleColumn.create(CobaltColumns.RATIO),
-                DoubleColumn.create(CobaltColumns.GC_CONTENT),
-                IntColumn.create(CobaltColumns.GC_BUCKET),
-                BooleanColumn.create(CobaltColumns.IS_MAPPABLE),
-                BooleanColumn.create(CobaltColumns.IS_AUTOSOME));
-
-        addReadRatio(ratios, 1001, 0, 45);
-        addReadRatio(ratios, 2001, 0.5, 45);
-        addReadRatio(ratios, 11001, 4.0, 45);
-        addReadRatio(ratios, 12001, 19.5, 45);
-        addReadRatio(ratios, 23001, 0, 45);
-
-        chromosomePositionCodec.addEncodedChrPosColumn(ratios, false);
-
-        final Table targetEnrichmentRatios = Table.create(
-                StringColumn.create(CobaltColumns.CHROMOSOME),
-                IntColumn.create(CobaltColumns.POSITION),
-                DoubleColumn.create(CobaltColumns.RELATIVE_ENRICHMENT),
-                BooleanColumn.create("offTarget"));
-
-        Row row = targetEnrichmentRatios.appendRow();
-        row.setString(CobaltColumns.CHROMOSOME, CHROMOSOME.contig);
-        row.setInt(CobaltColumns.POSITION, 2001);
-        row.setDouble(CobaltColumns.RELATIVE_ENRICHMENT, 2.0);
-        row.setBoolean("offTarget", false);
-
-        row = targetEnrichmentRatios.appendRow();
-        row.setString(CobaltColumns.CHROMOSOME, CHROMOSOME.contig);
-        row.setInt(CobaltColumns.POSITION, 12001);
-        row.setDouble(CobaltColumns.RELATIVE_ENRICHMENT, 10.0);
-        row.setBoolean("offTarget", false);
+        RatioStore.Builder ratios = new RatioStore.Builder(8);
 
-        chromosomePositionCodec.addEncodedChrPosColumn(targetEnrichmentRatios, true);
+        addReadRatio(ratios, chromosomePositionCodec, 1001, 0, 45);
+        addReadRatio(ratios, chromosomePositionCodec, 2001, 0.5, 45);
+        addReadRatio(ratios, chromosomePositionCodec, 11001, 4.0, 45);
+        addReadRatio(ratios, chromosomePositionCodec, 12001, 19.5, 45);
+        addReadRatio(ratios, chromosomePositionCodec, 23001, 0, 45);
 
-        var ratioMapper = new TargetedRatioMapper(targetEnrichmentRatios, chromosomePositionCodec);
+        final TargetEnrichmentStore targetEnrichmentRatios = new TargetEnrichmentStore(
+                new long[] {
+                        chromosomePositionCodec.encodeChromosomePosition(CHROMOSOME.contig, 2001),
+                        chromosomePositionCodec.encodeChromosomePosition(CHROMOSOME.contig, 12001) },
+                new double[] { 2.0, 10.0 });
 
-        Table onTargetRatios = ratioMapper.onTargetRatios(ratios);
+        var ratioMapper = new TargetedRatioMapper(targetEnrichmentRatios);
 
-        assertEquals(2, onTargetRatios.rowCount());
+        RatioStore onTargetRatios = ratioMapper.onTargetRatios(ratios.build());
 
-        Row readRatio2001 = onTargetRatios.row(0);
-        Row readRatio12001 = onTargetRatios.row(1);
+        assertEquals(2, onTargetRatios.size());
 
-        assertEquals(2001, readRatio2001.getInt(CobaltColumns.POSITION));
+        assertEquals(2001, chromosomePositionCodec.decodePosition(onTargetRatios.EncodedChrPos[0]));
 
         // ratio = raw ratio / target enrichment / median of raw ratios that overlap with targeted
 
         // median of the unnormalized gc ratio is 10.0
         // so read ratio = 0.5 / 2.0 / 10 = 0.025
-        assertDoubleEquals(0.025, readRatio2001.getDouble(CobaltColumns.RATIO));
+        assertDoubleEquals(0.025, onTargetRatios.Ratios[0]);
 
-        assertEquals(12001, readRatio12001.getInt(CobaltColumns.POSITION));
+        assertEquals(12001, chromosomePositionCodec.decodePosition(onTargetRatios.EncodedChrPos[1]));
 
         // median of the unnormalized gc ratio is 10.0
         // so read ratio = 19.5 / 10.0 / 10 = 0.195
-        assertDoubleEquals(0.195, readRatio12001.getDouble(CobaltColumns.RATIO));
+        assertDoubleEquals(0.195, onTargetRatios.Ratios[1]);
+    }
+
+    @Test
+    public void testMatchesPreviousMapper() throws IOException
+    {
+        // windows with unmappable, zero and missing ratios and zero enrichment, with the expected ratios written by the
+        // tablesaw-based mapper which this replaced, see the fixture README
+        var chromosomePositionCodec = new ChromosomePositionCodec();
+
+        List<String[]> inputRatios = readFixture("ratios.input.tsv");
+        RatioStore.Builder ratios = new RatioStore.Builder(inputRatios.size());
+
+        for(String[] values : inputRatios)
+        {
+            long encodedChrPos = chromosomePositionCodec.encodeChromosomePosition(values[0], Integer.parseInt(values[1]));
+            ratios.add(encodedChrPos, Double.parseDouble(values[2]), 0.45, true);
+        }
+
+        List<String[]> enrichment = readFixture("target_enrichment.tsv");
+        long[] targetChrPos = new long[enrichment.size()];
+        double[] relativeEnrichment = new double[enrichment.size()];
+
+        for(int i = 0; i < enrichment.size(); ++i)
+        {
+            String[] values = enrichment.get(i);
+            targetChrPos[i] = chromosomePositionCodec.encodeChromosomePosition(values[0], Integer.parseInt(values[1]));
+            relativeEnrichment[i] = Double.parseDouble(values[2]);
+        }
+
+        var ratioMapper = new TargetedRatioMapper(new TargetEnrichmentStore(targetChrPos, relativeEnrichment));
+        RatioStore onTargetRatios = ratioMapper.mapRatios(ratios.build());
+
+        List<String[]> expectedRatios = readFixture("ratios.expected.tsv");
+        assertEquals(expectedRatios.size(), onTargetRatios.size());
+
+        for(int i = 0; i < expectedRatios.size(); ++i)
+        {
+            String[] expected = expectedRatios.get(i);
+            long encodedChrPos = onTargetRatios.EncodedChrPos[i];
+
+            assertEquals(expected[0], chromosomePositionCodec.decodeChromosome(encodedChrPos));
+            assertEquals(Integer.parseInt(expected[1]), chromosomePositionCodec.decodePosition(encodedChrPos));
+            assertEquals(Double.parseDouble(expected[2]), onTargetRatios.Ratios[i], 0);
+        }
     }
 
-    @NotNull
-    private static ListMultimap<Chromosome, ReadRatio> create(ReadRatio ... readRatios)
+    private static List<String[]> readFixture(final String filename) throws IOException
     {
-        ListMultimap<Chromosome, ReadRatio> ratios = ArrayListMultimap.create();
-        ratios.putAll(CHROMOSOME, Arrays.asList(readRatios));
-        return ratios;
+        List<String> lines = Files.readAllLines(new File(TARGETED_PATH + filename).toPath());
+        return lines.subList(1, lines.size()).stream().map(x -> x.split("\t")).collect(Collectors.toList());
     }
 
-    private static void addReadRatio(Table table, int position, double ratio, int gcBucket)
+    private static void addReadRatio(
+            RatioStore.Builder ratios, ChromosomePositionCodec chromosomePositionCodec, int position, double ratio, int gcBucket)
     {
-        Row row = table.appendRow();
-        row.setString(CobaltColumns.CHROMOSOME, CHROMOSOME.contig);
-        row.setInt(CobaltColumns.POSITION, position);
-        row.setDouble(CobaltColumns.RATIO, ratio);
-        row.setDouble(CobaltColumns.GC_CONTENT, gcBucket / 100.0);
-        row.setInt(CobaltColumns.GC_BUCKET, gcBucket);
-        row.setBoolean(CobaltColumns.IS_MAPPABLE, true);
-        row.setBoolean(CobaltColumns.IS_AUTOSOME, true);
+        ratios.add(chromosomePositionCodec.encodeChromosomePosition(CHROMOSOME.contig, position), ratio, gcBucket / 100.0, true);
     }
 }
@@ -29,11 +29,14 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.hartwig.hmftools.common.utils.PerformanceCounter;
+import com.hartwig.hmftools.esvee.alignment.Aligner;
 import com.hartwig.hmftools.esvee.alignment.Alignment;
+import com.hartwig.hmftools.esvee.alignment.AlignmentStore;
 import com.hartwig.hmftools.esvee.alignment.AssemblyAlignment;
 import com.hartwig.hmftools.esvee.alignment.Breakend;
 import com.hartwig.hmftools.esvee.alignment.BreakendFragLengths;
 import com.hartwig.hmftools.esvee.alignment.BwaAligner;
+import com.hartwig.hmftools.esvee.alignment.StoredAligner;
 import com.hartwig.hmftools.esvee.alignment.Deduplication;
 import com.hartwig.hmftools.esvee.assembly.output.BreakendWriter;
 import com.hartwig.hmftools.esvee.assembly.types.AssemblyLink;
@@ -46,6 +49,7 @@ import com.hartwig.hmftools.esvee.assembly.phase.PhaseGroupBuilder;
 import com.hartwig.hmftools.esvee.assembly.JunctionGroupAssembler;
 import com.hartwig.hmftools.esvee.assembly.phase.PhaseSetTask;
 import com.hartwig.hmftools.esvee.prep.FragmentSizeDistribution;
+import com.hartwig.hmftools.esvee.prep.PrepOutputCache;
 import com.hartwig.hmftools.esvee.assembly.types.Junction;
 import com.hartwig.hmftools.esvee.assembly.types.JunctionAssembly;
 import com.hartwig.hmftools.esvee.assembly.types.JunctionGroup;
@@ -57,6 +61,8 @@ import com.hartwig.hmftools.esvee.assembly.read.BamReader;
 import com.hartwig.hmftools.esvee.assembly.output.VcfWriter;
 import com.hartwig.hmftools.esvee.assembly.read.ReadStats;
 
+import org.jetbrains.annotations.Nullable;
+
 public class AssemblyApplication
 {
     private final AssemblyConfig mConfig;
@@ -66,12 +72,19 @@ public class AssemblyApplication
     private final Map<String,List<JunctionGroup>> mJunctionGroupMap;
 
     private final List<BamReader> mBamReaders;
+    private final PrepOutputCache mPrepOutputCache;
 
     private final List<PerformanceCounter> mPerfCounters;
 
     public AssemblyApplication(final AssemblyConfig config)
+    {
+        this(config, null);
+    }
+
+    public AssemblyApplication(final AssemblyConfig config, @Nullable final PrepOutputCache prepOutputCache)
     {
         mConfig = config;
+        mPrepOutputCache = prepOutputCache;
 
         mChrJunctionsMap = Maps.newHashMap();
         mJunctionGroupMap = Maps.newHashMap();
@@ -101,6 +114,12 @@ public class AssemblyApplication
             return true;
         }
 
+        if(mPrepOutputCache != null)
+        {
+            mChrJunctionsMap.putAll(mPrepOutputCache.junctions(mConfig.SpecificChrRegions, mConfig.ProcessDiscordant));
+            return !mChrJunctionsMap.isEmpty();
+        }
+
         for(String junctionFile : mConfig.JunctionFiles)
         {
             Map<String,List<Junction>> newJunctionsMap = Junction.loadJunctions(
@@ -125,7 +144,7 @@ public class AssemblyApplication
 
     private void loadFragmentLengthBounds()
     {
-        if(mConfig.JunctionFiles.isEmpty())
+        if(mConfig.JunctionFiles.isEmpty() && mPrepOutputCache == null)
             return;
 
         String fragLengthFilename = formFragmentLengthDistFilename(mConfig.OutputDir, mConfig.sampleId());
@@ -210,7 +229,7 @@ public class AssemblyApplication
     {
         for(int i = 0; i < taskCount; ++i)
         {
-            BamReader bamReader = new BamReader(mConfig);
+            BamReader bamReader = new BamReader(mConfig, mPrepOutputCache);
             mBamReaders.add(bamReader);
         }
     }
@@ -300,9 +319,37 @@ public class AssemblyApplication
             return;
 
         boolean useCache = mConfig.AlignmentFile != null;
-        Alignment alignment = new Alignment(mConfig, !useCache ? new BwaAligner(mConfig.RefGenomeImageFile) : null);
+        BwaAligner bwaAligner = !useCache ? new BwaAligner(mConfig.RefGenomeImageFile) : null;
+        Aligner aligner = bwaAligner;
+
+        AlignmentStore alignmentStore = null;
+
+        if(bwaAligner != null && mConfig.AlignmentStoreFile != null)
+        {
+            // only store alignments from a loaded aligner
+            if(bwaAligner.isAvailable())
+                alignmentStore = new AlignmentStore(mConfig.AlignmentStoreFile, bwaAligner.alignerFingerprint());
+            else
+                SV_LOGGER.warn("BWA aligner unavailable, alignment store({}) not used", mConfig.AlignmentStoreFile);
+        }
+
+        StoredAligner storedAligner = null;
+
+        if(alignmentStore != null && alignmentStore.enabled())
+        {
+            storedAligner = new StoredAligner(aligner, alignmentStore);
+            aligner = storedAligner;
+        }
+
+        Alignment alignment = new Alignment(mConfig, aligner);
         alignment.run(assemblyAlignments, mPerfCounters);
         alignment.close();
+
+        if(storedAligner != null)
+            storedAligner.logStats();
+
+        if(alignmentStore != null)
+            alignmentStore.close();
     }
 
     private void gatherAssemblies(
@@ -440,5 +487,8 @@ public class AssemblyApplication
     public void close()
     {
         mResultsWriter.close();
+
+        if(mPrepOutputCache != null)
+            mPrepOutputCache.clear();
     }
 }
@@ -28,6 +28,7 @@ import static com.hartwig.hmftools.common.utils.file.FileDelimiters.ITEM_DELIM;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.OUTPUT_ID;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.addOutputOptions;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.parseOutputDir;
+import static com.hartwig.hmftools.esvee.AssemblyConstants.DEFAULT_ALIGNMENT_BATCH_SIZE;
 import static com.hartwig.hmftools.esvee.AssemblyConstants.DEFAULT_ASSEMBLY_REF_BASE_WRITE_MAX;
 import static com.hartwig.hmftools.esvee.alignment.BwaAligner.loadAlignerLibrary;
 import static com.hartwig.hmftools.esvee.assembly.output.WriteType.ALIGNMENT_DATA;
@@ -55,6 +56,7 @@ import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
 import com.hartwig.hmftools.common.region.SpecificRegions;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 import com.hartwig.hmftools.esvee.alignment.AlignmentCache;
+import com.hartwig.hmftools.esvee.alignment.AlignmentStore;
 import com.hartwig.hmftools.esvee.assembly.types.Junction;
 import com.hartwig.hmftools.esvee.assembly.output.WriteType;
 import com.hartwig.hmftools.esvee.common.ReadIdTrimmer;
@@ -88,6 +90,7 @@ public class AssemblyConfig
     public final List<WriteType> WriteTypes;
 
     public final boolean ProcessDiscordant;
+    public final boolean InMemoryPrep;
     public final boolean RunAlignment;
 
     public final String OutputDir;
@@ -104,11 +107,13 @@ public class AssemblyConfig
 
     public final int AssemblyRefBaseWriteMax;
     public final int PhaseProcessingLimit;
+    public final int AlignmentBatchSize;
 
     public final int Threads;
 
     public final String TruthsetFile;
     public final String AlignmentFile;
+    public final String AlignmentStoreFile;
 
     public final boolean ApplyRemotePhasingReadCheckThreshold;
 
@@ -121,9 +126,11 @@ public class AssemblyConfig
     private static final String PERF_LOG_TIME = "perf_log_time";
 
     private static final String PROCESS_DISCORDANT = "discordant_pairs";
+    private static final String IN_MEMORY_PREP = "in_memory_prep";
     private static final String RUN_ALIGNMENT = "run_alignment";
 
     private static final String PHASE_PROCESSING_LIMIT = "phase_process_limit";
+    private static final String ALIGNMENT_BATCH_SIZE = "alignment_batch_size";
     private static final String LOG_PHASE_GROUP_LINKS = "phase_group_links";
     private static final String SPECIFIC_JUNCTIONS = "specific_junctions";
     private static final String ASSEMBLY_REF_BASE_WRITE_MAX = "asm_ref_base_write_max";
@@ -195,6 +202,7 @@ public class AssemblyConfig
         WriteTypes = fromConfig(configBuilder.getValue(WRITE_TYPES));
 
         AlignmentFile = AlignmentCache.filename(configBuilder);
+        AlignmentStoreFile = AlignmentStore.filename(configBuilder);
         RunAlignment = configBuilder.hasFlag(RUN_ALIGNMENT) || AlignmentFile != null
                 || WriteTypes.contains(BREAKEND) ||  WriteTypes.contains(ALIGNMENT_DATA);
 
@@ -204,6 +212,7 @@ public class AssemblyConfig
             loadAlignerLibrary(bwaLibPath);
 
         ProcessDiscordant = configBuilder.hasFlag(PROCESS_DISCORDANT);
+        InMemoryPrep = configBuilder.hasFlag(IN_MEMORY_PREP);
         BamStringency = ValidationStringency.STRICT;
 
         RefGenomeCoords = RefGenVersion == V37 ? RefGenomeCoordinates.COORDS_37 : RefGenomeCoordinates.COORDS_38;
@@ -239,6 +248,7 @@ public class AssemblyConfig
         PerfLogTime = configBuilder.getDecimal(PERF_LOG_TIME);
 
         PhaseProcessingLimit = configBuilder.getInteger(PHASE_PROCESSING_LIMIT);
+        AlignmentBatchSize = Math.max(configBuilder.getInteger(ALIGNMENT_BATCH_SIZE), 1);
 
         // limit the length of ref bases by config unless using filters
         AssemblyRefBaseWriteMax = SpecificChrRegions.hasFilters() || !SpecificJunctions.isEmpty()
@@ -303,6 +313,7 @@ public class AssemblyConfig
         configBuilder.addPath(DECOY_GENOME, false, "Decoy genome image file");
 
         configBuilder.addFlag(PROCESS_DISCORDANT, "Proces discordant-only groups");
+        configBuilder.addFlag(IN_MEMORY_PREP, "Run prep on the input BAMs and pass its reads and junctions to assembly in memory");
         configBuilder.addFlag(RUN_ALIGNMENT, "Run assembly alignment");
         configBuilder.addPath(BWA_LIB_PATH, false, "Path to BWA library");
 
@@ -325,10 +336,14 @@ public class AssemblyConfig
         configBuilder.addInteger(
                 PHASE_PROCESSING_LIMIT, "Exclude phase groups above this size from extension and phase sets", 0);
 
+        configBuilder.addInteger(
+                ALIGNMENT_BATCH_SIZE, "Number of assembly sequences passed to the aligner in each call", DEFAULT_ALIGNMENT_BATCH_SIZE);
+
         configBuilder.addFlag(REMOTE_PHASING_READ_CHECK_THRESHOLD, "Apply remote phase building max read check threshold");
 
         TruthsetAnnotation.registerConfig(configBuilder);
         AlignmentCache.registerConfig(configBuilder);
+        AlignmentStore.registerConfig(configBuilder);
         BamToolName.addConfig(configBuilder);
 
         SpecificRegions.addSpecificChromosomesRegionsConfig(configBuilder);
@@ -357,6 +372,7 @@ public class AssemblyConfig
         DecoyGenome = null;
 
         ProcessDiscordant = true;
+        InMemoryPrep = false;
         RunAlignment = true;
 
         BamStringency = ValidationStringency.SILENT;
@@ -377,9 +393,11 @@ public class AssemblyConfig
 
         AssemblyRefBaseWriteMax = 0;
         PhaseProcessingLimit = 0;
+        AlignmentBatchSize = DEFAULT_ALIGNMENT_BATCH_SIZE;
         Threads = 0;
         TruthsetFile = null;
         AlignmentFile = null;
+        AlignmentStoreFile = null;
 
         ApplyRemotePhasingReadCheckThreshold = false;
 
@@ -7,14 +7,19 @@ import static com.hartwig.hmftools.esvee.AssemblyConfig.SV_LOGGER;
 import static com.hartwig.hmftools.esvee.common.FileCommon.APP_NAME;
 
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.esvee.prep.PrepConfig;
+import com.hartwig.hmftools.esvee.prep.PrepOutputCache;
+import com.hartwig.hmftools.esvee.prep.SvPrepApplication;
 
 public class EsveeApplication
 {
     private final AssemblyConfig mConfig;
+    private final ConfigBuilder mConfigBuilder;
 
     public EsveeApplication(final ConfigBuilder configBuilder)
     {
         mConfig = new AssemblyConfig(configBuilder);
+        mConfigBuilder = configBuilder;
     }
 
     public void run()
@@ -24,7 +29,21 @@ public class EsveeApplication
         SV_LOGGER.info("writing to output directory({}){}",
                 mConfig.OutputDir, mConfig.OutputId != null ? format(" outputId(%s)", mConfig.OutputId) : "");
 
-        AssemblyApplication junctionProcessor = new AssemblyApplication(mConfig);
+        PrepOutputCache prepOutputCache = null;
+
+        if(mConfig.InMemoryPrep)
+        {
+            // run prep on the input BAMs and keep its junctions and candidate reads for assembly, rather than writing and re-reading a BAM
+            PrepConfig prepConfig = PrepConfig.forInMemoryAssembly(
+                    mConfigBuilder, mConfig.combinedSampleIds(), mConfig.combinedBamFiles());
+
+            prepOutputCache = new PrepOutputCache(prepConfig.SampleIds);
+
+            SvPrepApplication prepApplication = new SvPrepApplication(prepConfig, prepOutputCache);
+            prepApplication.run();
+        }
+
+        AssemblyApplication junctionProcessor = new AssemblyApplication(mConfig, prepOutputCache);
 
         if(!junctionProcessor.loadJunctionFiles())
         {
@@ -43,6 +62,7 @@ public class EsveeApplication
         ConfigBuilder configBuilder = new ConfigBuilder(APP_NAME);
 
         AssemblyConfig.registerConfig(configBuilder);
+        PrepConfig.addInMemoryAssemblyConfig(configBuilder);
 
         configBuilder.checkAndParseCommandLine(args);
 
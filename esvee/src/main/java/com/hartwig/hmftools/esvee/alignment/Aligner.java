@@ -1,10 +1,20 @@
 package com.hartwig.hmftools.esvee.alignment;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.broadinstitute.hellbender.utils.bwa.BwaMemAlignment;
 
 public interface Aligner
 {
     List<BwaMemAlignment> alignSequence(final byte[] bases);
+
+    // false if the aligner could not be loaded, in which case it returns no alignments
+    default boolean isAvailable() { return true; }
+
+    // returns alignments for each sequence in the same order as the input
+    default List<List<BwaMemAlignment>> alignSequences(final List<byte[]> sequences)
+    {
+        return sequences.stream().map(this::alignSequence).collect(Collectors.toList());
+    }
 }
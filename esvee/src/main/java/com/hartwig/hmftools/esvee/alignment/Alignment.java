@@ -12,7 +12,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.NoSuchElementException;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -123,32 +122,40 @@ public class Alignment
         @Override
         public void run()
         {
+            List<AssemblyAlignment> batch = Lists.newArrayListWithCapacity(mConfig.AlignmentBatchSize);
+
             while(true)
             {
                 try
                 {
-                    int remainingCount = mAssemblyAlignments.size();
-                    int processedCount = mAssemblyAlignmentCount - remainingCount;
+                    batch.clear();
 
-                    mPerfCounter.start();
+                    // take a batch of assemblies so the aligner is called once per batch rather than once per sequence
+                    AssemblyAlignment assemblyAlignment;
+
+                    while(batch.size() < mConfig.AlignmentBatchSize && (assemblyAlignment = mAssemblyAlignments.poll()) != null)
+                    {
+                        batch.add(assemblyAlignment);
+                    }
+
+                    if(batch.isEmpty())
+                    {
+                        SV_LOGGER.trace("all alignment tasks complete");
+                        break;
+                    }
 
-                    ++processedCount;
+                    mPerfCounter.start();
 
-                    AssemblyAlignment assemblyAlignment = mAssemblyAlignments.remove();
+                    processBatch(batch);
 
-                    processAssembly(assemblyAlignment);
+                    int processedCount = mAssemblyAlignmentCount - mAssemblyAlignments.size();
 
-                    if((processedCount % LOG_COUNT) == 0)
+                    if(processedCount / LOG_COUNT > (processedCount - batch.size()) / LOG_COUNT)
                     {
                         SV_LOGGER.debug("processed {} assembly alignments", processedCount);
                     }
 
-                    stopCheckLog(assemblyAlignment.info(), mConfig.PerfLogTime);
-                }
-                catch(NoSuchElementException e)
-                {
-                    SV_LOGGER.trace("all alignment tasks complete");
-                    break;
+                    stopCheckLog(format("%s batch(%d)", batch.get(0).info(), batch.size()), mConfig.PerfLogTime);
                 }
                 catch(Exception e)
                 {
@@ -158,28 +165,90 @@ public class Alignment
             }
         }
 
-        private void processAssembly(final AssemblyAlignment assemblyAlignment)
+        private void processBatch(final List<AssemblyAlignment> batch)
         {
-            List<AlignData> alignments;
-            List<AlignData> requeriedAlignments;
-
             if(mAlignmentCache.enabled())
             {
-                alignments = mAlignmentCache.findAssemblyAlignments(assemblyAlignment.info());
-                requeriedAlignments = Collections.emptyList();
+                for(AssemblyAlignment assemblyAlignment : batch)
+                {
+                    List<AlignData> alignments = mAlignmentCache.findAssemblyAlignments(assemblyAlignment.info());
+                    processAssembly(assemblyAlignment, alignments, Collections.emptyList());
+                }
+
+                return;
             }
-            else
+
+            List<List<BwaMemAlignment>> batchBwaAlignments = mAligner.alignSequences(
+                    batch.stream().map(x -> x.fullSequence().getBytes()).collect(Collectors.toList()));
+
+            List<List<AlignData>> batchAlignments = Lists.newArrayListWithCapacity(batch.size());
+
+            // re-align supplementaries to get a more reliable map quality, again with a single call for the batch
+            List<AlignData> requeryAlignments = Lists.newArrayList();
+            List<String> requerySequences = Lists.newArrayList();
+
+            for(int i = 0; i < batch.size(); ++i)
             {
-                List<BwaMemAlignment> bwaAlignments = mAligner.alignSequence(assemblyAlignment.fullSequence().getBytes());
+                AssemblyAlignment assemblyAlignment = batch.get(i);
 
-                alignments = bwaAlignments.stream()
+                List<AlignData> alignments = batchBwaAlignments.get(i).stream()
                         .map(x -> AlignData.from(x, mConfig.RefGenVersion))
                         .filter(x -> x != null).collect(Collectors.toList());
 
-                requeriedAlignments = Lists.newArrayList();
-                alignments = requerySupplementaryAlignments(assemblyAlignment, alignments, requeriedAlignments);
+                batchAlignments.add(alignments);
+
+                for(AlignData alignData : alignments)
+                {
+                    if(!alignData.isSupplementary())
+                        continue;
+
+                    requeryAlignments.add(alignData);
+                    requerySequences.add(requerySequence(assemblyAlignment, alignData));
+                }
+            }
+
+            List<List<BwaMemAlignment>> requeryBwaAlignments = !requerySequences.isEmpty()
+                    ? mAligner.alignSequences(requerySequences.stream().map(String::getBytes).collect(Collectors.toList()))
+                    : Collections.emptyList();
+
+            int requeryIndex = 0;
+
+            for(int i = 0; i < batch.size(); ++i)
+            {
+                AssemblyAlignment assemblyAlignment = batch.get(i);
+                List<AlignData> alignments = batchAlignments.get(i);
+                List<AlignData> requeriedAlignments = Lists.newArrayList();
+
+                if(alignments.stream().anyMatch(x -> x.isSupplementary()))
+                {
+                    List<AlignData> newAlignments = Lists.newArrayList();
+
+                    for(AlignData alignData : alignments)
+                    {
+                        if(!alignData.isSupplementary())
+                        {
+                            newAlignments.add(alignData);
+                            continue;
+                        }
+
+                        requeriedAlignments.add(alignData);
+
+                        newAlignments.addAll(convertRequeriedAlignments(
+                                alignData, requerySequences.get(requeryIndex), requeryBwaAlignments.get(requeryIndex)));
+
+                        ++requeryIndex;
+                    }
+
+                    alignments = newAlignments;
+                }
+
+                processAssembly(assemblyAlignment, alignments, requeriedAlignments);
             }
+        }
 
+        private void processAssembly(
+                final AssemblyAlignment assemblyAlignment, final List<AlignData> alignments, final List<AlignData> requeriedAlignments)
+        {
             processAlignmentResults(assemblyAlignment, alignments);
 
             if(mConfig.WriteTypes.contains(WriteType.ALIGNMENT))
@@ -203,31 +272,7 @@ public class Alignment
             }
         }
 
-        private List<AlignData> requerySupplementaryAlignments(
-                final AssemblyAlignment assemblyAlignment, final List<AlignData> alignments, final List<AlignData> requeriedAlignments)
-        {
-            // re-alignment supplementaries to get a more reliable map quality
-            if(alignments.stream().noneMatch(x -> x.isSupplementary()))
-                return alignments;
-
-            List<AlignData> newAlignments = Lists.newArrayList();
-
-            for(AlignData alignData : alignments)
-            {
-                if(!alignData.isSupplementary())
-                {
-                    newAlignments.add(alignData);
-                    continue;
-                }
-
-                requeriedAlignments.add(alignData);
-                newAlignments.addAll(requeryAlignment(assemblyAlignment, alignData));
-            }
-
-            return newAlignments;
-        }
-
-        private List<AlignData> requeryAlignment(final AssemblyAlignment assemblyAlignment, final AlignData alignData)
+        private String requerySequence(final AssemblyAlignment assemblyAlignment, final AlignData alignData)
         {
             ++mRequeriedSuppCount;
 
@@ -235,10 +280,12 @@ public class Alignment
 
             alignData.setFullSequenceData(fullSequence, assemblyAlignment.fullSequenceLength());
 
-            String alignmentSequence = fullSequence.substring(alignData.sequenceStart(), alignData.sequenceEnd() + 1);
-
-            List<BwaMemAlignment> requeryBwaAlignments = mAligner.alignSequence(alignmentSequence.getBytes());
+            return fullSequence.substring(alignData.sequenceStart(), alignData.sequenceEnd() + 1);
+        }
 
+        private List<AlignData> convertRequeriedAlignments(
+                final AlignData alignData, final String alignmentSequence, final List<BwaMemAlignment> requeryBwaAlignments)
+        {
             List<AlignData> requeryAlignments = requeryBwaAlignments.stream()
                     .map(x -> AlignData.from(x, mConfig.RefGenVersion))
                     .filter(x -> x != null).collect(Collectors.toList());
@@ -0,0 +1,411 @@
+package com.hartwig.hmftools.esvee.alignment;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.esvee.AssemblyConfig.SV_LOGGER;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+
+import org.broadinstitute.hellbender.utils.bwa.BwaMemAlignment;
+import org.jetbrains.annotations.Nullable;
+
+// an append-only, memory-mapped store of BWA results keyed by a 128-bit hash of the aligned bases, reusable across runs
+public class AlignmentStore
+{
+    private final String mFilename;
+    private final String mFingerprint;
+
+    private FileChannel mChannel;
+    private FileLock mLock;
+    private MappedByteBuffer mMappedRecords;
+    private long mWritePosition;
+    private boolean mWritable;
+
+    // records present when the store was opened, by the first half of the hash, to their offset in the mapped file
+    private final Map<Long,Integer> mRecordOffsets;
+
+    // records added during this run
+    private final Map<SequenceKey,List<BwaMemAlignment>> mNewRecords;
+
+    private static final String ALIGNMENT_STORE = "alignment_store";
+
+    private static final int MAGIC = 0x45535641; // 'ESVA'
+    private static final int VERSION = 1;
+
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES + 2 * Long.BYTES + Integer.BYTES + Short.BYTES;
+    private static final int ALIGNMENT_INT_FIELDS = 13;
+    private static final long MAX_STORE_SIZE = Integer.MAX_VALUE;
+
+    private static final HashFunction SEQUENCE_HASH = Hashing.murmur3_128();
+
+    public static void registerConfig(final ConfigBuilder configBuilder)
+    {
+        configBuilder.addConfigItem(
+                ALIGNMENT_STORE, false, "Persistent alignment result store, created if absent and appended to with new alignments");
+    }
+
+    @Nullable
+    public static String filename(final ConfigBuilder configBuilder) { return configBuilder.getValue(ALIGNMENT_STORE); }
+
+    // the fingerprint identifies the reference and aligner settings, so a store is never used with a different reference
+    public AlignmentStore(final String filename, final String fingerprint)
+    {
+        mFilename = filename;
+        mFingerprint = fingerprint;
+        mRecordOffsets = Maps.newHashMap();
+        mNewRecords = new ConcurrentHashMap<>();
+        mMappedRecords = null;
+        mWritable = false;
+
+        try
+        {
+            open();
+        }
+        catch(IOException e)
+        {
+            SV_LOGGER.error("failed to open alignment store({}): {}", filename, e.toString());
+            close();
+        }
+    }
+
+    public boolean enabled() { return mChannel != null; }
+
+    public int recordCount() { return mRecordOffsets.size() + mNewRecords.size(); }
+
+    private void open() throws IOException
+    {
+        File file = new File(mFilename);
+        boolean exists = file.exists() && file.length() > 0;
+
+        mChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try
+        {
+            mLock = mChannel.tryLock();
+        }
+        catch(OverlappingFileLockException e)
+        {
+            mLock = null;
+        }
+
+        // another process is writing to the store, so only read the records it contained on opening
+        mWritable = mLock != null;
+
+        if(!mWritable)
+            SV_LOGGER.warn("alignment store({}) is locked by another process, opening read-only", mFilename);
+
+        byte[] fingerprintBytes = mFingerprint.getBytes(StandardCharsets.UTF_8);
+        int headerSize = 3 * Integer.BYTES + fingerprintBytes.length;
+
+        if(!exists)
+        {
+            if(!mWritable)
+            {
+                close();
+                return;
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(headerSize);
+            header.putInt(MAGIC).putInt(VERSION).putInt(fingerprintBytes.length).put(fingerprintBytes);
+            header.flip();
+            mChannel.write(header, 0);
+            mWritePosition = headerSize;
+            return;
+        }
+
+        if(mChannel.size() > MAX_STORE_SIZE)
+            mWritable = false;
+
+        long fileSize = Math.min(mChannel.size(), MAX_STORE_SIZE);
+        mMappedRecords = mChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+
+        if(!readHeader(mMappedRecords, fingerprintBytes))
+        {
+            SV_LOGGER.error("alignment store({}) has an invalid header or was built with different reference or aligner settings",
+                    mFilename);
+            close();
+            return;
+        }
+
+        int offset = headerSize;
+
+        while(offset + RECORD_HEADER_SIZE <= fileSize)
+        {
+            int recordLength = mMappedRecords.getInt(offset);
+
+            // a record truncated by an interrupted write ends the valid records
+            if(recordLength < RECORD_HEADER_SIZE - Integer.BYTES || offset + Integer.BYTES + (long)recordLength > fileSize)
+                break;
+
+            mRecordOffsets.put(mMappedRecords.getLong(offset + Integer.BYTES), offset);
+            offset += Integer.BYTES + recordLength;
+        }
+
+        // drop any partial record so new records follow on from the last complete one
+        mWritePosition = offset;
+
+        if(mWritable && mChannel.size() > mWritePosition)
+            mChannel.truncate(mWritePosition);
+
+        SV_LOGGER.info("loaded alignment store({}) with {} sequences", mFilename, mRecordOffsets.size());
+    }
+
+    private static boolean readHeader(final ByteBuffer buffer, final byte[] fingerprintBytes)
+    {
+        if(buffer.limit() < 3 * Integer.BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION)
+            return false;
+
+        int fingerprintLength = buffer.getInt(2 * Integer.BYTES);
+
+        if(fingerprintLength != fingerprintBytes.length || buffer.limit() < 3 * Integer.BYTES + fingerprintLength)
+            return false;
+
+        for(int i = 0; i < fingerprintLength; ++i)
+        {
+            if(buffer.get(3 * Integer.BYTES + i) != fingerprintBytes[i])
+                return false;
+        }
+
+        return true;
+    }
+
+    public static SequenceKey sequenceKey(final byte[] bases)
+    {
+        ByteBuffer hash = ByteBuffer.wrap(SEQUENCE_HASH.hashBytes(bases).asBytes());
+        return new SequenceKey(hash.getLong(), hash.getLong(), bases.length);
+    }
+
+    // returns null if the sequence has not been aligned before
+    @Nullable
+    public List<BwaMemAlignment> find(final SequenceKey key)
+    {
+        List<BwaMemAlignment> alignments = mNewRecords.get(key);
+
+        if(alignments != null)
+            return alignments;
+
+        Integer offset = mRecordOffsets.get(key.HashHigh);
+
+        if(offset == null)
+            return null;
+
+        // reads use absolute positions only, so the shared mapping is safe across threads
+        ByteBuffer buffer = mMappedRecords;
+        int position = offset + Integer.BYTES;
+
+        if(buffer.getLong(position) != key.HashHigh || buffer.getLong(position + Long.BYTES) != key.HashLow
+        || buffer.getInt(position + 2 * Long.BYTES) != key.SequenceLength)
+        {
+            return null;
+        }
+
+        position += 2 * Long.BYTES + Integer.BYTES;
+        int alignmentCount = buffer.getShort(position);
+        position += Short.BYTES;
+
+        if(alignmentCount == 0)
+            return Collections.emptyList();
+
+        alignments = Lists.newArrayListWithCapacity(alignmentCount);
+
+        for(int i = 0; i < alignmentCount; ++i)
+        {
+            int[] values = new int[ALIGNMENT_INT_FIELDS];
+
+            for(int j = 0; j < ALIGNMENT_INT_FIELDS; ++j)
+            {
+                values[j] = buffer.getInt(position);
+                position += Integer.BYTES;
+            }
+
+            String[] tags = new String[3];
+
+            for(int j = 0; j < tags.length; ++j)
+            {
+                int length = buffer.getInt(position);
+                position += Integer.BYTES;
+
+                if(length < 0)
+                    continue;
+
+                byte[] tagBytes = new byte[length];
+
+                for(int k = 0; k < length; ++k)
+                {
+                    tagBytes[k] = buffer.get(position + k);
+                }
+
+                tags[j] = new String(tagBytes, StandardCharsets.US_ASCII);
+                position += length;
+            }
+
+            alignments.add(new BwaMemAlignment(
+                    values[0], values[1], values[2], values[3], values[4], values[5], values[6], values[7], values[8], values[9],
+                    tags[0], tags[1], tags[2], values[10], values[11], values[12]));
+        }
+
+        return alignments;
+    }
+
+    public void add(final SequenceKey key, final List<BwaMemAlignment> alignments)
+    {
+        if(!mWritable || mNewRecords.putIfAbsent(key, alignments) != null)
+            return;
+
+        ByteBuffer record = serialise(key, alignments);
+
+        synchronized(this)
+        {
+            if(!mWritable)
+                return;
+
+            if(mWritePosition + record.limit() > MAX_STORE_SIZE)
+            {
+                SV_LOGGER.warn("alignment store({}) has reached its maximum size, no further alignments will be added", mFilename);
+                mWritable = false;
+                return;
+            }
+
+            try
+            {
+                while(record.hasRemaining())
+                {
+                    mWritePosition += mChannel.write(record, mWritePosition);
+                }
+            }
+            catch(IOException e)
+            {
+                SV_LOGGER.error("failed to write to alignment store({}): {}", mFilename, e.toString());
+                mWritable = false;
+            }
+        }
+    }
+
+    private static ByteBuffer serialise(final SequenceKey key, final List<BwaMemAlignment> alignments)
+    {
+        List<byte[]> tagBytes = Lists.newArrayListWithCapacity(alignments.size() * 3);
+        int recordSize = RECORD_HEADER_SIZE;
+
+        for(BwaMemAlignment alignment : alignments)
+        {
+            recordSize += ALIGNMENT_INT_FIELDS * Integer.BYTES;
+
+            for(String tag : new String[] { alignment.getCigar(), alignment.getMDTag(), alignment.getXATag() })
+            {
+                byte[] bytes = tag != null ? tag.getBytes(StandardCharsets.US_ASCII) : null;
+                tagBytes.add(bytes);
+                recordSize += Integer.BYTES + (bytes != null ? bytes.length : 0);
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(recordSize);
+        buffer.putInt(recordSize - Integer.BYTES);
+        buffer.putLong(key.HashHigh).putLong(key.HashLow).putInt(key.SequenceLength);
+        buffer.putShort((short)alignments.size());
+
+        int tagIndex = 0;
+
+        for(BwaMemAlignment alignment : alignments)
+        {
+            buffer.putInt(alignment.getSamFlag()).putInt(alignment.getRefId())
+                    .putInt(alignment.getRefStart()).putInt(alignment.getRefEnd())
+                    .putInt(alignment.getSeqStart()).putInt(alignment.getSeqEnd())
+                    .putInt(alignment.getMapQual()).putInt(alignment.getNMismatches())
+                    .putInt(alignment.getAlignerScore()).putInt(alignment.getSuboptimalScore())
+                    .putInt(alignment.getMateRefId()).putInt(alignment.getMateRefStart()).putInt(alignment.getTemplateLen());
+
+            for(int i = 0; i < 3; ++i)
+            {
+                byte[] bytes = tagBytes.get(tagIndex++);
+
+                if(bytes == null)
+                {
+                    buffer.putInt(-1);
+                }
+                else
+                {
+                    buffer.putInt(bytes.length);
+                    buffer.put(bytes);
+                }
+            }
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    public synchronized void close()
+    {
+        if(mChannel == null)
+            return;
+
+        try
+        {
+            if(mLock != null)
+                mLock.release();
+
+            mChannel.close();
+
+            if(!mNewRecords.isEmpty())
+                SV_LOGGER.info("added {} sequences to alignment store({})", mNewRecords.size(), mFilename);
+        }
+        catch(IOException e)
+        {
+            SV_LOGGER.error("failed to close alignment store({}): {}", mFilename, e.toString());
+        }
+
+        mChannel = null;
+        mLock = null;
+        mWritable = false;
+    }
+
+    public static class SequenceKey
+    {
+        public final long HashHigh;
+        public final long HashLow;
+        public final int SequenceLength;
+
+        public SequenceKey(final long hashHigh, final long hashLow, final int sequenceLength)
+        {
+            HashHigh = hashHigh;
+            HashLow = hashLow;
+            SequenceLength = sequenceLength;
+        }
+
+        @Override
+        public boolean equals(final Object other)
+        {
+            if(this == other)
+                return true;
+
+            if(!(other instanceof SequenceKey))
+                return false;
+
+            SequenceKey otherKey = (SequenceKey)other;
+            return HashHigh == otherKey.HashHigh && HashLow == otherKey.HashLow && SequenceLength == otherKey.SequenceLength;
+        }
+
+        @Override
+        public int hashCode() { return Long.hashCode(HashHigh); }
+
+        public String toString() { return format("%016x%016x:%d", HashHigh, HashLow, SequenceLength); }
+    }
+}
@@ -1,5 +1,7 @@
 package com.hartwig.hmftools.esvee.alignment;
 
+import static java.lang.String.format;
+
 import static com.hartwig.hmftools.esvee.AssemblyConfig.SV_LOGGER;
 import static com.hartwig.hmftools.esvee.common.SvConstants.MIN_INDEL_LENGTH;
 
@@ -8,6 +10,8 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.List;
+import java.util.StringJoiner;
+import java.util.stream.Collectors;
 
 import org.broadinstitute.hellbender.utils.bwa.BwaMemAligner;
 import org.broadinstitute.hellbender.utils.bwa.BwaMemAlignment;
@@ -17,9 +21,12 @@ import org.jetbrains.annotations.Nullable;
 public class BwaAligner implements Aligner
 {
     private final BwaMemAligner mAligner;
+    private final String mRefGenomeImageFile;
 
     public BwaAligner(final String refGenomeImageFile)
     {
+        mRefGenomeImageFile = refGenomeImageFile;
+
         if(!refGenomeImageFile.isEmpty() && Files.exists(Paths.get(refGenomeImageFile)))
         {
             BwaMemIndex index = null;
@@ -49,6 +56,41 @@ public class BwaAligner implements Aligner
         }
     }
 
+    @Override
+    public boolean isAvailable() { return mAligner != null; }
+
+    public String alignerFingerprint()
+    {
+        // identifies the reference image and the alignment options in effect, which determine the stored alignments
+        File imageFile = new File(mRefGenomeImageFile);
+
+        StringJoiner sj = new StringJoiner(":");
+        sj.add(imageFile.getName());
+        sj.add(String.valueOf(imageFile.length()));
+        sj.add(String.valueOf(imageFile.lastModified()));
+
+        if(mAligner != null)
+        {
+            sj.add(format("match=%d", mAligner.getMatchScoreOption()));
+            sj.add(format("mismatch=%d", mAligner.getMismatchPenaltyOption()));
+            sj.add(format("gap=%d,%d,%d,%d", mAligner.getDGapOpenPenaltyOption(), mAligner.getDGapExtendPenaltyOption(),
+                    mAligner.getIGapOpenPenaltyOption(), mAligner.getIGapExtendPenaltyOption()));
+            sj.add(format("clip=%d,%d", mAligner.getClip5PenaltyOption(), mAligner.getClip3PenaltyOption()));
+            sj.add(format("unpaired=%d", mAligner.getUnpairedPenaltyOption()));
+            sj.add(format("bandwidth=%d", mAligner.getBandwidthOption()));
+            sj.add(format("zdrop=%d", mAligner.getZDropOption()));
+            sj.add(format("minScore=%d", mAligner.getOutputScoreThresholdOption()));
+            sj.add(format("flag=%d", mAligner.getFlagOption()));
+            sj.add(format("seed=%d,%d,%d", mAligner.getMinSeedLengthOption(), mAligner.getMaxSeedOccurencesOption(),
+                    mAligner.getMaxMemIntvOption()));
+            sj.add(format("chain=%d,%d,%d", mAligner.getMinChainWeightOption(), mAligner.getMaxChainExtendOption(),
+                    mAligner.getMaxChainGapOption()));
+            sj.add(format("split=%.3f,%d", mAligner.getSplitFactorOption(), mAligner.getSplitWidthOption()));
+        }
+
+        return sj.toString();
+    }
+
     private static final String LIBBWA_PATH = "LIBBWA_PATH"; // as expected by the BWA library
     private static final String LIBBWA_PREFIX = "libbwa.";
 
@@ -108,4 +150,14 @@ public class BwaAligner implements Aligner
 
         return alignmentSet;
     }
+
+    @Override
+    public List<List<BwaMemAlignment>> alignSequences(final List<byte[]> sequences)
+    {
+        if(mAligner == null)
+            return sequences.stream().map(x -> Collections.<BwaMemAlignment>emptyList()).collect(Collectors.toList());
+
+        // a single JNI call for the batch
+        return mAligner.alignSeqs(sequences);
+    }
 }
@@ -0,0 +1,87 @@
+package com.hartwig.hmftools.esvee.alignment;
+
+import static com.hartwig.hmftools.esvee.AssemblyConfig.SV_LOGGER;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.Lists;
+
+import org.broadinstitute.hellbender.utils.bwa.BwaMemAlignment;
+
+// looks up sequences in the alignment store and only passes unseen sequences to the underlying aligner
+// results are only stored if the aligner is available, since an unavailable aligner returns no alignments for every sequence
+public class StoredAligner implements Aligner
+{
+    private final Aligner mAligner;
+    private final AlignmentStore mStore;
+
+    private final AtomicInteger mStoreHits;
+    private final AtomicInteger mStoreMisses;
+
+    public StoredAligner(final Aligner aligner, final AlignmentStore store)
+    {
+        mAligner = aligner;
+        mStore = store;
+        mStoreHits = new AtomicInteger();
+        mStoreMisses = new AtomicInteger();
+    }
+
+    @Override
+    public List<BwaMemAlignment> alignSequence(final byte[] bases)
+    {
+        return alignSequences(List.of(bases)).get(0);
+    }
+
+    @Override
+    public List<List<BwaMemAlignment>> alignSequences(final List<byte[]> sequences)
+    {
+        List<List<BwaMemAlignment>> results = Lists.newArrayListWithCapacity(sequences.size());
+        List<AlignmentStore.SequenceKey> keys = Lists.newArrayListWithCapacity(sequences.size());
+
+        List<Integer> unalignedIndices = Lists.newArrayList();
+        List<byte[]> unalignedSequences = Lists.newArrayList();
+
+        for(int i = 0; i < sequences.size(); ++i)
+        {
+            AlignmentStore.SequenceKey key = AlignmentStore.sequenceKey(sequences.get(i));
+            keys.add(key);
+
+            List<BwaMemAlignment> alignments = mStore.find(key);
+            results.add(alignments);
+
+            if(alignments == null)
+            {
+                unalignedIndices.add(i);
+                unalignedSequences.add(sequences.get(i));
+            }
+        }
+
+        mStoreHits.addAndGet(sequences.size() - unalignedSequences.size());
+        mStoreMisses.addAndGet(unalignedSequences.size());
+
+        if(unalignedSequences.isEmpty())
+            return results;
+
+        List<List<BwaMemAlignment>> newAlignments = mAligner.alignSequences(unalignedSequences);
+        boolean storeAlignments = mAligner.isAvailable();
+
+        for(int i = 0; i < unalignedIndices.size(); ++i)
+        {
+            int index = unalignedIndices.get(i);
+            List<BwaMemAlignment> alignments = newAlignments.get(i);
+
+            results.set(index, alignments);
+
+            if(storeAlignments)
+                mStore.add(keys.get(index), alignments);
+        }
+
+        return results;
+    }
+
+    public void logStats()
+    {
+        SV_LOGGER.info("alignment store hits({}) misses({})", mStoreHits.get(), mStoreMisses.get());
+    }
+}
@@ -25,8 +25,11 @@ import com.hartwig.hmftools.esvee.assembly.types.SupportRead;
 import com.hartwig.hmftools.esvee.assembly.types.JunctionAssembly;
 import com.hartwig.hmftools.esvee.assembly.types.JunctionSequence;
 import com.hartwig.hmftools.esvee.assembly.types.LinkType;
+import com.hartwig.hmftools.esvee.assembly.types.SequenceKmerIndex;
 import com.hartwig.hmftools.esvee.assembly.types.SupportType;
 
+import org.jetbrains.annotations.Nullable;
+
 public final class AssemblyLinker
 {
     public static AssemblyLink tryAssemblyFacing(final JunctionAssembly first, final JunctionAssembly second)
@@ -115,6 +118,13 @@ public final class AssemblyLinker
     }
 
     public static AssemblyLink tryAssemblyOverlap(final JunctionAssembly assembly1, final JunctionAssembly assembly2, boolean allowMismatches)
+    {
+        return tryAssemblyOverlap(assembly1, assembly2, allowMismatches, null);
+    }
+
+    public static AssemblyLink tryAssemblyOverlap(
+            final JunctionAssembly assembly1, final JunctionAssembly assembly2, boolean allowMismatches,
+            @Nullable final JunctionSequenceCache sequenceCache)
     {
         JunctionAssembly first, second;
         JunctionSequence firstSeq, secondSeq;
@@ -137,14 +147,21 @@ public final class AssemblyLinker
                 firstReversed = true;
         }
 
-        firstSeq = new JunctionSequence(first, firstReversed);
-        secondSeq = new JunctionSequence(second, secondReversed);
+        if(sequenceCache != null)
+        {
+            firstSeq = sequenceCache.get(first, firstReversed);
+            secondSeq = sequenceCache.get(second, secondReversed);
+        }
+        else
+        {
+            firstSeq = new JunctionSequence(first, firstReversed);
+            secondSeq = new JunctionSequence(second, secondReversed);
+        }
 
         // start with a simple comparison looking for the first sequence around its junction in the second
         String firstJunctionSequence = firstSeq.junctionSequence();
-        int firstJunctionSeqLength = firstJunctionSequence.length();
 
-        int firstSeqIndexInSecond = secondSeq.FullSequence.indexOf(firstJunctionSequence);
+        int firstSeqIndexInSecond = secondSeq.kmerIndex().indexOf(firstJunctionSequence);
 
         if(firstSeqIndexInSecond >= 0)
         {
@@ -156,34 +173,7 @@ public final class AssemblyLinker
             return null;
 
         // take a smaller sections of the first's junction sequence and try to find their start index in the second sequence
-        int juncSeqStartIndex = 0;
-        List<int[]> alternativeIndexStarts = Lists.newArrayList();
-        int subSeqIterations = (int)floor(firstJunctionSeqLength / MATCH_SUBSEQUENCE_LENGTH);
-        for(int i = 0; i < subSeqIterations; ++i) // being the total junction sequence length (ie 100) divided by the subsequence length
-        {
-            juncSeqStartIndex = i * MATCH_SUBSEQUENCE_LENGTH;
-            int juncSeqEndIndex = juncSeqStartIndex + MATCH_SUBSEQUENCE_LENGTH;
-
-            if(juncSeqEndIndex >= firstJunctionSeqLength)
-                break;
-
-            String firstSubSequence = firstJunctionSequence.substring(juncSeqStartIndex, juncSeqStartIndex + MATCH_SUBSEQUENCE_LENGTH);
-
-            int secondSubSeqIndex = secondSeq.FullSequence.indexOf(firstSubSequence);
-
-            if(secondSubSeqIndex < 0)
-                continue;
-
-            alternativeIndexStarts.add(new int[] {juncSeqStartIndex, secondSubSeqIndex});
-
-            secondSubSeqIndex = secondSeq.FullSequence.indexOf(firstSubSequence, secondSubSeqIndex + MATCH_SUBSEQUENCE_LENGTH);
-
-            while(secondSubSeqIndex >= 0)
-            {
-                alternativeIndexStarts.add(new int[] {juncSeqStartIndex, secondSubSeqIndex});
-                secondSubSeqIndex = secondSeq.FullSequence.indexOf(firstSubSequence, secondSubSeqIndex + MATCH_SUBSEQUENCE_LENGTH);
-            }
-        }
+        List<int[]> alternativeIndexStarts = findSubsequenceMatches(firstJunctionSequence, secondSeq);
 
         // now perform a full junction sequence search in the second using the sequence matching logic
         int minOverlapLength = min(min(first.extensionLength(), second.extensionLength()), ASSEMBLY_LINK_OVERLAP_BASES);
@@ -202,6 +192,29 @@ public final class AssemblyLinker
         return null;
     }
 
+    public static List<int[]> findSubsequenceMatches(final String junctionSequence, final JunctionSequence otherSeq)
+    {
+        // find each successive sub-sequence of the junction sequence in the other sequence, using its k-mer index
+        SequenceKmerIndex kmerIndex = otherSeq.kmerIndex();
+        int junctionSeqLength = junctionSequence.length();
+
+        List<int[]> alternativeIndexStarts = Lists.newArrayList();
+        int subSeqIterations = (int)floor(junctionSeqLength / MATCH_SUBSEQUENCE_LENGTH);
+
+        for(int i = 0; i < subSeqIterations; ++i) // being the total junction sequence length (ie 100) divided by the subsequence length
+        {
+            int juncSeqStartIndex = i * MATCH_SUBSEQUENCE_LENGTH;
+            int juncSeqEndIndex = juncSeqStartIndex + MATCH_SUBSEQUENCE_LENGTH;
+
+            if(juncSeqEndIndex >= junctionSeqLength)
+                break;
+
+            kmerIndex.addKmerMatches(junctionSequence, juncSeqStartIndex, alternativeIndexStarts);
+        }
+
+        return alternativeIndexStarts;
+    }
+
     public static int[] findBestSequenceMatch(
             final JunctionSequence firstSeq, final JunctionSequence secondSeq, int minOverlapLength, final List<int[]> alternativeIndexStarts)
     {
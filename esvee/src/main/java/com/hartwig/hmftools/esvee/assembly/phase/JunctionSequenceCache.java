@@ -0,0 +1,72 @@
+package com.hartwig.hmftools.esvee.assembly.phase;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import com.hartwig.hmftools.esvee.assembly.types.JunctionAssembly;
+import com.hartwig.hmftools.esvee.assembly.types.JunctionSequence;
+
+// reuses each assembly's junction sequences and their k-mer indices across the pairwise link tests in a phase group
+public class JunctionSequenceCache
+{
+    private final Map<JunctionAssembly,CachedSequence[]> mSequences;
+
+    private int mHits;
+    private int mMisses;
+
+    public JunctionSequenceCache()
+    {
+        mSequences = new IdentityHashMap<>();
+        mHits = 0;
+        mMisses = 0;
+    }
+
+    public JunctionSequence get(final JunctionAssembly assembly, final boolean reversed)
+    {
+        CachedSequence[] assemblySequences = mSequences.computeIfAbsent(assembly, k -> new CachedSequence[2]);
+        int index = reversed ? 1 : 0;
+
+        CachedSequence cached = assemblySequences[index];
+
+        // assembly bases and quals can be changed in place as support is added, so only use a sequence formed from the current state
+        if(cached != null && cached.matches(assembly))
+        {
+            ++mHits;
+            return cached.Sequence;
+        }
+
+        ++mMisses;
+        JunctionSequence sequence = new JunctionSequence(assembly, reversed);
+        assemblySequences[index] = new CachedSequence(assembly, sequence);
+        return sequence;
+    }
+
+    public int hits() { return mHits; }
+    public int misses() { return mMisses; }
+
+    private static class CachedSequence
+    {
+        public final JunctionSequence Sequence;
+
+        private final byte[] mBases;
+        private final byte[] mBaseQuals;
+        private final int mJunctionIndex;
+
+        public CachedSequence(final JunctionAssembly assembly, final JunctionSequence sequence)
+        {
+            Sequence = sequence;
+            mBases = Arrays.copyOf(assembly.bases(), assembly.bases().length);
+            mBaseQuals = Arrays.copyOf(assembly.baseQuals(), assembly.baseQuals().length);
+            mJunctionIndex = assembly.junctionIndex();
+        }
+
+        public boolean matches(final JunctionAssembly assembly)
+        {
+            return mJunctionIndex == assembly.junctionIndex()
+                && Arrays.equals(mBases, assembly.bases()) && Arrays.equals(mBaseQuals, assembly.baseQuals());
+        }
+    }
+
+    public String toString() { return String.format("assemblies(%d) hits(%d) misses(%d)", mSequences.size(), mHits, mMisses); }
+}
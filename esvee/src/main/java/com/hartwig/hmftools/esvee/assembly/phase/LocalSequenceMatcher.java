@@ -1,15 +1,14 @@
 package com.hartwig.hmftools.esvee.assembly.phase;
 
-import static java.lang.Math.floor;
 import static java.lang.Math.min;
 
 import static com.hartwig.hmftools.common.genome.region.Orientation.FORWARD;
 import static com.hartwig.hmftools.common.genome.region.Orientation.REVERSE;
 import static com.hartwig.hmftools.esvee.AssemblyConstants.ASSEMBLY_LINK_OVERLAP_BASES;
-import static com.hartwig.hmftools.esvee.AssemblyConstants.MATCH_SUBSEQUENCE_LENGTH;
 import static com.hartwig.hmftools.esvee.AssemblyConstants.PHASED_ASSEMBLY_JUNCTION_OVERLAP;
 import static com.hartwig.hmftools.esvee.assembly.AssemblyUtils.createMinBaseQuals;
 import static com.hartwig.hmftools.esvee.assembly.phase.AssemblyLinker.findBestSequenceMatch;
+import static com.hartwig.hmftools.esvee.assembly.phase.AssemblyLinker.findSubsequenceMatches;
 
 import java.util.List;
 
@@ -54,10 +53,9 @@ public class LocalSequenceMatcher
 
         // start with a simple comparison looking for the first sequence around its junction in the second
         String assemblyExtBases = assembly.formJunctionSequence();
-        int assemblyJunctionSeqLength = assemblyExtBases.length();
 
         // first a simple local match
-        int assemblySeqIndexInRef = localRefSeq.FullSequence.indexOf(assemblyExtBases);
+        int assemblySeqIndexInRef = localRefSeq.kmerIndex().indexOf(assemblyExtBases);
 
         if(assemblySeqIndexInRef >= 0)
         {
@@ -65,37 +63,7 @@ public class LocalSequenceMatcher
             return formLocalLink(assembly, localRegionStart, assemblySeqIndexInRef);
         }
 
-        int juncSeqStartIndex = 0;
-        List<int[]> alternativeIndexStarts = Lists.newArrayList();
-
-        int subsequenceLength = MATCH_SUBSEQUENCE_LENGTH;
-        int subSeqIterations = (int)floor(assemblyJunctionSeqLength / subsequenceLength);
-
-        for(int i = 0; i < subSeqIterations; ++i)
-        {
-            juncSeqStartIndex = i * subsequenceLength;
-            int juncSeqEndIndex = juncSeqStartIndex + subsequenceLength;
-
-            if(juncSeqEndIndex >= assemblyJunctionSeqLength)
-                break;
-
-            String assemblySubSequence = assemblyExtBases.substring(juncSeqStartIndex, juncSeqStartIndex + subsequenceLength);
-
-            int refSubSeqIndex = localRefSeq.FullSequence.indexOf(assemblySubSequence);
-
-            if(refSubSeqIndex < 0)
-                continue;
-
-            alternativeIndexStarts.add(new int[] {juncSeqStartIndex, refSubSeqIndex});
-
-            refSubSeqIndex = localRefSeq.FullSequence.indexOf(assemblySubSequence, refSubSeqIndex + subsequenceLength);
-
-            while(refSubSeqIndex >= 0)
-            {
-                alternativeIndexStarts.add(new int[] {juncSeqStartIndex, refSubSeqIndex});
-                refSubSeqIndex = localRefSeq.FullSequence.indexOf(assemblySubSequence, refSubSeqIndex + subsequenceLength);
-            }
-        }
+        List<int[]> alternativeIndexStarts = findSubsequenceMatches(assemblyExtBases, localRefSeq);
 
         int minOverlapLength = min(assembly.extensionLength(), ASSEMBLY_LINK_OVERLAP_BASES);
 
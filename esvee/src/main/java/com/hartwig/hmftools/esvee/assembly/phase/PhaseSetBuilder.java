@@ -65,6 +65,7 @@ public class PhaseSetBuilder
     private final List<AssemblyLink> mSplitLinks;
     private final List<AssemblyLink> mFacingLinks;
     private final List<AssemblyLink> mSecondarySplitLinks;
+    private final JunctionSequenceCache mSequenceCache;
 
     public PhaseSetBuilder(
             final RefGenomeInterface refGenome, final RemoteRegionAssembler remoteRegionAssembler, final PhaseGroup phaseGroup)
@@ -77,6 +78,7 @@ public class PhaseSetBuilder
         mPhaseSets = mPhaseGroup.phaseSets();
         mAssemblies = mPhaseGroup.assemblies();
         mSecondarySplitLinks = mPhaseGroup.secondaryLinks();
+        mSequenceCache = new JunctionSequenceCache();
 
         mSplitLinks = Lists.newArrayList();
         mFacingLinks = Lists.newArrayList();
@@ -302,7 +304,7 @@ public class PhaseSetBuilder
                 continue;
 
             boolean allowSequenceMismatches = true; // was false for secondaries
-            AssemblyLink assemblyLink = AssemblyLinker.tryAssemblyOverlap(assembly1, assembly2, allowSequenceMismatches);
+            AssemblyLink assemblyLink = AssemblyLinker.tryAssemblyOverlap(assembly1, assembly2, allowSequenceMismatches, mSequenceCache);
 
             if(assemblyLink != null)
             {
@@ -368,7 +370,7 @@ public class PhaseSetBuilder
         if(assemblyLink != null)
             return assemblyLink;
 
-        return AssemblyLinker.tryAssemblyOverlap(assembly1, assembly2);
+        return AssemblyLinker.tryAssemblyOverlap(assembly1, assembly2, true, mSequenceCache);
     }
 
     private void buildUnmappedExtensions()
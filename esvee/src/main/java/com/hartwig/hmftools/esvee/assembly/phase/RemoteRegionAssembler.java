@@ -1,16 +1,15 @@
 package com.hartwig.hmftools.esvee.assembly.phase;
 
-import static java.lang.Math.floor;
 import static java.lang.Math.min;
 
 import static com.hartwig.hmftools.common.region.BaseRegion.positionWithin;
 import static com.hartwig.hmftools.common.region.BaseRegion.positionsOverlap;
 import static com.hartwig.hmftools.esvee.AssemblyConfig.SV_LOGGER;
 import static com.hartwig.hmftools.esvee.AssemblyConstants.ASSEMBLY_LINK_OVERLAP_BASES;
-import static com.hartwig.hmftools.esvee.AssemblyConstants.MATCH_SUBSEQUENCE_LENGTH;
 import static com.hartwig.hmftools.esvee.AssemblyConstants.PRIMARY_ASSEMBLY_MIN_READ_SUPPORT;
 import static com.hartwig.hmftools.esvee.assembly.AssemblyUtils.calcTrimmedExtensionBaseLength;
 import static com.hartwig.hmftools.esvee.assembly.phase.AssemblyLinker.findBestSequenceMatch;
+import static com.hartwig.hmftools.esvee.assembly.phase.AssemblyLinker.findSubsequenceMatches;
 import static com.hartwig.hmftools.esvee.assembly.AssemblyUtils.createMinBaseQuals;
 import static com.hartwig.hmftools.esvee.common.SvConstants.MIN_VARIANT_LENGTH;
 
@@ -173,10 +172,9 @@ public class RemoteRegionAssembler
 
         // start with a simple comparison looking for the first sequence around its junction in the second
         String firstJunctionSequence = assemblySeq.junctionSequence();
-        int firstJunctionSeqLength = firstJunctionSequence.length();
 
         // first a simple local match
-        int remoteSeqIndexInRef = remoteRefSeq.FullSequence.indexOf(firstJunctionSequence);
+        int remoteSeqIndexInRef = remoteRefSeq.kmerIndex().indexOf(firstJunctionSequence);
 
         if(remoteSeqIndexInRef >= 0)
         {
@@ -186,37 +184,7 @@ public class RemoteRegionAssembler
         }
 
         // take a smaller sections of the first's junction sequence and try to find their start index in the second sequence
-        int juncSeqStartIndex = 0;
-        List<int[]> alternativeIndexStarts = Lists.newArrayList();
-
-        int subsequenceLength = MATCH_SUBSEQUENCE_LENGTH;
-        int subSeqIterations = (int)floor(firstJunctionSeqLength / subsequenceLength);
-
-        for(int i = 0; i < subSeqIterations; ++i)
-        {
-            juncSeqStartIndex = i * subsequenceLength;
-            int juncSeqEndIndex = juncSeqStartIndex + subsequenceLength;
-
-            if(juncSeqEndIndex >= firstJunctionSeqLength)
-                break;
-
-            String firstSubSequence = firstJunctionSequence.substring(juncSeqStartIndex, juncSeqStartIndex + subsequenceLength);
-
-            int secondSubSeqIndex = remoteRefSeq.FullSequence.indexOf(firstSubSequence);
-
-            if(secondSubSeqIndex < 0)
-                continue;
-
-            alternativeIndexStarts.add(new int[] {juncSeqStartIndex, secondSubSeqIndex});
-
-            secondSubSeqIndex = remoteRefSeq.FullSequence.indexOf(firstSubSequence, secondSubSeqIndex + subsequenceLength);
-
-            while(secondSubSeqIndex >= 0)
-            {
-                alternativeIndexStarts.add(new int[] {juncSeqStartIndex, secondSubSeqIndex});
-                secondSubSeqIndex = remoteRefSeq.FullSequence.indexOf(firstSubSequence, secondSubSeqIndex + subsequenceLength);
-            }
-        }
+        List<int[]> alternativeIndexStarts = findSubsequenceMatches(firstJunctionSequence, remoteRefSeq);
 
         // now perform a full junction sequence search in the second using the sequence matching logic
         int minOverlapLength = min(assembly.extensionLength(), ASSEMBLY_LINK_OVERLAP_BASES);
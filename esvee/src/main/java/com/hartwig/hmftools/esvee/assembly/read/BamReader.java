@@ -4,6 +4,7 @@ import static java.lang.Math.max;
 import static java.lang.Math.min;
 
 import static com.hartwig.hmftools.esvee.common.FileCommon.createBamSlicer;
+import static com.hartwig.hmftools.esvee.common.FileCommon.createBamSlicerFilter;
 import static com.hartwig.hmftools.esvee.common.SvConstants.BAM_HEADER_SAMPLE_INDEX_TAG;
 
 import java.io.File;
@@ -14,7 +15,11 @@ import java.util.function.Consumer;
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 import com.hartwig.hmftools.common.bam.BamSlicer;
+import com.hartwig.hmftools.common.bam.BamSlicerFilter;
 import com.hartwig.hmftools.esvee.AssemblyConfig;
+import com.hartwig.hmftools.esvee.prep.PrepOutputCache;
+
+import org.jetbrains.annotations.Nullable;
 
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SamReader;
@@ -26,14 +31,27 @@ public class BamReader implements AutoCloseable
 
     private final List<SamReader> mSamReaders;
     private final BamSlicer mBamSlicer;
+    private final BamSlicerFilter mCacheFilter;
+    private final PrepOutputCache mPrepOutputCache; // reads from prep run in the same process, in place of its BAM
     private boolean mCurrentIsReferenceSample;
 
     public BamReader(final AssemblyConfig config)
+    {
+        this(config, null);
+    }
+
+    public BamReader(final AssemblyConfig config, @Nullable final PrepOutputCache prepOutputCache)
     {
         mConfig = config;
+        mPrepOutputCache = prepOutputCache;
 
         mSamReaders = Lists.newArrayList();
         mCurrentIsReferenceSample = false;
+        mBamSlicer = createBamSlicer();
+        mCacheFilter = mPrepOutputCache != null ? createBamSlicerFilter() : null;
+
+        if(mPrepOutputCache != null)
+            return;
 
         List<String> combinedBamFiles = mConfig.combinedBamFiles();
         List<String> combinedSampleId = mConfig.combinedSampleIds();
@@ -50,8 +68,6 @@ public class BamReader implements AutoCloseable
 
             mSamReaders.add(samReader);
         }
-
-        mBamSlicer = createBamSlicer();
     }
 
     public void sliceBam(final String chromosome, int positionStart, int positionEnd, final Consumer<SAMRecord> consumer)
@@ -62,6 +78,22 @@ public class BamReader implements AutoCloseable
         if(bamPosStart > bamPosEnd)
             return;
 
+        if(mPrepOutputCache != null)
+        {
+            for(int i = 0; i < mPrepOutputCache.sampleCount(); ++i)
+            {
+                mCurrentIsReferenceSample = i >= mConfig.TumorIds.size();
+
+                mPrepOutputCache.sliceReads(i, chromosome, positionStart, positionEnd, record ->
+                {
+                    if(mCacheFilter.passesFilters(record))
+                        consumer.accept(record);
+                });
+            }
+
+            return;
+        }
+
         for(int i = 0; i < mSamReaders.size(); ++i)
         {
             SamReader reader = mSamReaders.get(i);
@@ -3,6 +3,7 @@ package com.hartwig.hmftools.esvee.assembly.types;
 import static java.lang.Math.min;
 import static java.lang.String.format;
 
+import static com.hartwig.hmftools.esvee.AssemblyConstants.MATCH_SUBSEQUENCE_LENGTH;
 import static com.hartwig.hmftools.esvee.AssemblyConstants.PHASED_ASSEMBLY_JUNCTION_OVERLAP;
 
 import java.util.Collections;
@@ -34,6 +35,7 @@ public class JunctionSequence
     private List<RepeatInfo> mRepeatInfo;
     private byte[] mBases;
     private byte[] mBaseQuals;
+    private SequenceKmerIndex mKmerIndex;
 
     public JunctionSequence(final JunctionAssembly assembly, final boolean reverseCompliment)
     {
@@ -183,6 +185,14 @@ public class JunctionSequence
         return mBaseQuals;
     }
 
+    public SequenceKmerIndex kmerIndex()
+    {
+        if(mKmerIndex == null)
+            mKmerIndex = new SequenceKmerIndex(FullSequence, MATCH_SUBSEQUENCE_LENGTH);
+
+        return mKmerIndex;
+    }
+
     public List<RepeatInfo> repeatInfo()
     {
         if(mRepeatInfo == null)
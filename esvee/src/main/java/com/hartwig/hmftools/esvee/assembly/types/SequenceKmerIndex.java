@@ -0,0 +1,162 @@
+package com.hartwig.hmftools.esvee.assembly.types;
+
+import java.util.Arrays;
+import java.util.List;
+
+// positions of each k-mer in a sequence, so sub-sequence searches are lookups rather than repeated scans of the sequence
+public class SequenceKmerIndex
+{
+    private final String mSequence;
+    private final int mKmerLength;
+
+    // k-mer code in the upper half and sequence position in the lower half, sorted so each k-mer's positions are contiguous
+    private final long[] mEntries;
+
+    private static final int MAX_KMER_LENGTH = 15;
+    private static final int INVALID_CODE = -1;
+
+    public SequenceKmerIndex(final String sequence, final int kmerLength)
+    {
+        if(kmerLength < 1 || kmerLength > MAX_KMER_LENGTH)
+            throw new IllegalArgumentException("invalid k-mer length: " + kmerLength);
+
+        mSequence = sequence;
+        mKmerLength = kmerLength;
+
+        int kmerCount = Math.max(sequence.length() - kmerLength + 1, 0);
+        long[] entries = new long[kmerCount];
+        int entryCount = 0;
+
+        int code = 0;
+        int validLength = 0; // count of consecutive indexable bases ending at the current position
+        int codeMask = (1 << (2 * kmerLength)) - 1;
+
+        for(int i = 0; i < sequence.length(); ++i)
+        {
+            int baseCode = baseCode(sequence.charAt(i));
+
+            if(baseCode == INVALID_CODE)
+            {
+                validLength = 0;
+                continue;
+            }
+
+            code = ((code << 2) | baseCode) & codeMask;
+            ++validLength;
+
+            if(validLength >= kmerLength)
+                entries[entryCount++] = ((long)code << 32) | (i - kmerLength + 1);
+        }
+
+        mEntries = entryCount < entries.length ? Arrays.copyOf(entries, entryCount) : entries;
+        Arrays.sort(mEntries);
+    }
+
+    public String sequence() { return mSequence; }
+    public int kmerLength() { return mKmerLength; }
+
+    // equivalent to String.indexOf on the indexed sequence
+    public int indexOf(final String query)
+    {
+        int code = query.length() >= mKmerLength ? kmerCode(query, 0) : INVALID_CODE;
+
+        if(code == INVALID_CODE)
+            return mSequence.indexOf(query);
+
+        for(int entryIndex = firstEntry(code); entryIndex < mEntries.length && entryCode(entryIndex) == code; ++entryIndex)
+        {
+            int position = entryPosition(entryIndex);
+
+            if(mSequence.startsWith(query, position))
+                return position;
+        }
+
+        return -1;
+    }
+
+    // adds the sequence positions of the k-mer at the query offset, excluding those overlapping a previous match, so the same
+    // as repeatedly calling indexOf from the last match plus the k-mer length
+    public void addKmerMatches(final String query, final int queryOffset, final List<int[]> matches)
+    {
+        int code = kmerCode(query, queryOffset);
+
+        if(code == INVALID_CODE)
+        {
+            String kmer = query.substring(queryOffset, queryOffset + mKmerLength);
+            int position = mSequence.indexOf(kmer);
+
+            while(position >= 0)
+            {
+                matches.add(new int[] { queryOffset, position });
+                position = mSequence.indexOf(kmer, position + mKmerLength);
+            }
+
+            return;
+        }
+
+        int nextAllowedPosition = 0;
+
+        for(int entryIndex = firstEntry(code); entryIndex < mEntries.length && entryCode(entryIndex) == code; ++entryIndex)
+        {
+            int position = entryPosition(entryIndex);
+
+            if(position < nextAllowedPosition)
+                continue;
+
+            matches.add(new int[] { queryOffset, position });
+            nextAllowedPosition = position + mKmerLength;
+        }
+    }
+
+    private int firstEntry(final int code)
+    {
+        // lower bound of the k-mer's entries
+        long key = (long)code << 32;
+        int low = 0;
+        int high = mEntries.length;
+
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if(mEntries[mid] < key)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low;
+    }
+
+    private int entryCode(final int entryIndex) { return (int)(mEntries[entryIndex] >>> 32); }
+    private int entryPosition(final int entryIndex) { return (int)mEntries[entryIndex]; }
+
+    private int kmerCode(final String query, final int offset)
+    {
+        int code = 0;
+
+        for(int i = offset; i < offset + mKmerLength; ++i)
+        {
+            int baseCode = baseCode(query.charAt(i));
+
+            if(baseCode == INVALID_CODE)
+                return INVALID_CODE;
+
+            code = (code << 2) | baseCode;
+        }
+
+        return code;
+    }
+
+    private static int baseCode(final char base)
+    {
+        switch(base)
+        {
+            case 'A': return 0;
+            case 'C': return 1;
+            case 'G': return 2;
+            case 'T': return 3;
+            default: return INVALID_CODE;
+        }
+    }
+}
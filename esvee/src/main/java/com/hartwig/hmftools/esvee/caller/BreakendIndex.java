@@ -0,0 +1,93 @@
+package com.hartwig.hmftools.esvee.caller;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.region.IntervalIndex;
+
+// an immutable index of each chromosome's breakends, ordered by position, for range and proximity queries
+public class BreakendIndex
+{
+    private final Map<String,ChromosomeIndex> mChromosomeIndices;
+
+    public BreakendIndex(final Map<String,List<Breakend>> chromosomeBreakends)
+    {
+        mChromosomeIndices = Maps.newHashMap();
+
+        for(Map.Entry<String,List<Breakend>> entry : chromosomeBreakends.entrySet())
+        {
+            mChromosomeIndices.put(entry.getKey(), new ChromosomeIndex(entry.getValue()));
+        }
+    }
+
+    // breakends whose confidence interval overlaps the range, in position order
+    public List<Breakend> findOverlapping(final String chromosome, int minPosition, int maxPosition)
+    {
+        ChromosomeIndex chrIndex = mChromosomeIndices.get(chromosome);
+
+        if(chrIndex == null)
+            return Collections.emptyList();
+
+        int[] indices = chrIndex.Intervals.findOverlapping(minPosition, maxPosition);
+
+        List<Breakend> breakends = Lists.newArrayListWithCapacity(indices.length);
+
+        for(int index : indices)
+        {
+            breakends.add(chrIndex.Breakends.get(index));
+        }
+
+        return breakends;
+    }
+
+    // passes each pair of breakends on the same chromosome with positions within the distance to the consumer, with the lower
+    // breakend first and pairs in order of the lower then upper breakend's position
+    public void forEachPairWithin(int distance, final BiConsumer<Breakend,Breakend> consumer)
+    {
+        for(ChromosomeIndex chrIndex : mChromosomeIndices.values())
+        {
+            int[] positions = chrIndex.Positions;
+
+            for(int i = 0; i < positions.length; ++i)
+            {
+                for(int j = i + 1; j < positions.length; ++j)
+                {
+                    if(positions[j] - positions[i] > distance)
+                        break;
+
+                    consumer.accept(chrIndex.Breakends.get(i), chrIndex.Breakends.get(j));
+                }
+            }
+        }
+    }
+
+    private static class ChromosomeIndex
+    {
+        public final List<Breakend> Breakends;
+        public final int[] Positions;
+        public final IntervalIndex Intervals;
+
+        public ChromosomeIndex(final List<Breakend> breakends)
+        {
+            Breakends = breakends;
+            Positions = new int[breakends.size()];
+
+            int[] minPositions = new int[breakends.size()];
+            int[] maxPositions = new int[breakends.size()];
+
+            for(int i = 0; i < breakends.size(); ++i)
+            {
+                Breakend breakend = breakends.get(i);
+                Positions[i] = breakend.Position;
+                minPositions[i] = breakend.minPosition();
+                maxPositions[i] = breakend.maxPosition();
+            }
+
+            Intervals = new IntervalIndex(minPositions, maxPositions);
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.hartwig.hmftools.esvee.caller;
 
+import static java.lang.Math.max;
+
 import static com.hartwig.hmftools.esvee.AssemblyConfig.SV_LOGGER;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 public class DuplicateFinder
@@ -14,9 +19,6 @@ public class DuplicateFinder
     private final Set<Breakend> mDuplicateBreakends;
     private final Set<Breakend> mSingleDuplicates; // SGLs which are duplicates or duplicates of SGLs
 
-    private static final int MAX_DEDUP_SGL_SEEK_DISTANCE = 1000;
-    private static final int MAX_DEDUP_SGL_ADDITIONAL_DISTANCE = 0;
-
     public DuplicateFinder(final SvDataCache dataCache)
     {
         mDataCache = dataCache;
@@ -30,6 +32,8 @@ public class DuplicateFinder
 
     public void findDuplicateSingles()
     {
+        Map<Breakend,List<Breakend>> sglDuplicateCandidates = findSglDuplicateCandidates();
+
         for(Variant var : mDataCache.getSvList())
         {
             if(!var.isSgl())
@@ -39,8 +43,10 @@ public class DuplicateFinder
             
             boolean isPass = var.isPass();
 
-            List<Breakend> nearbyBreakends = mDataCache.selectOthersNearby(
-                    breakend, MAX_DEDUP_SGL_ADDITIONAL_DISTANCE, MAX_DEDUP_SGL_SEEK_DISTANCE);
+            List<Breakend> nearbyBreakends = sglDuplicateCandidates.get(breakend);
+
+            if(nearbyBreakends == null)
+                continue;
 
             // look through duplicate breakends in the vacinity
             // if none of them require keeping the single, then mark it as a duplicate
@@ -80,6 +86,38 @@ public class DuplicateFinder
         }
     }
 
+    private Map<Breakend,List<Breakend>> findSglDuplicateCandidates()
+    {
+        // a duplicate lies within a SGL's confidence interval, so only breakends within the widest of these need to be compared
+        int maxSglInterval = 0;
+
+        for(Variant var : mDataCache.getSvList())
+        {
+            if(!var.isSgl())
+                continue;
+
+            Breakend breakend = var.breakendStart();
+            maxSglInterval = max(maxSglInterval, max(breakend.Position - breakend.minPosition(), breakend.maxPosition() - breakend.Position));
+        }
+
+        Map<Breakend,List<Breakend>> sglDuplicateCandidates = Maps.newHashMap();
+
+        // pairs are visited in position order, so each SGL's candidates are too
+        mDataCache.getBreakendIndex().forEachPairWithin(maxSglInterval, (lower, upper) ->
+        {
+            if(lower.sv() == upper.sv())
+                return;
+
+            if(lower.isSgl() && isDuplicateCandidate(lower, upper))
+                sglDuplicateCandidates.computeIfAbsent(lower, k -> Lists.newArrayList()).add(upper);
+
+            if(upper.isSgl() && isDuplicateCandidate(upper, lower))
+                sglDuplicateCandidates.computeIfAbsent(upper, k -> Lists.newArrayList()).add(lower);
+        });
+
+        return sglDuplicateCandidates;
+    }
+
     private static boolean isDuplicateCandidate(final Breakend breakend, final Breakend otherBreakend)
     {
         return breakend.Orient == otherBreakend.Orient && isExactPosition(breakend, otherBreakend);
@@ -3,6 +3,7 @@ package com.hartwig.hmftools.esvee.caller;
 import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.SE_END;
 import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.SE_START;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 
@@ -24,6 +25,7 @@ public class SvDataCache
 
     private final List<Variant> mSvData;
     private final Map<String,List<Breakend>> mChromosomeBreakends;
+    private BreakendIndex mBreakendIndex;
     private int mHardFilteredCount;
 
     public SvDataCache(final CallerConfig config, final TargetRegions targetRegions)
@@ -31,6 +33,7 @@ public class SvDataCache
         mConfig = config;
         mSvData = Lists.newArrayList();
         mChromosomeBreakends = Maps.newHashMap();
+        mBreakendIndex = null;
 
         mTargetRegions = targetRegions;
 
@@ -45,6 +48,7 @@ public class SvDataCache
 
     public List<Variant> getSvList() { return mSvData; }
     public Map<String,List<Breakend>> getBreakendMap() { return mChromosomeBreakends; }
+    public BreakendIndex getBreakendIndex() { return mBreakendIndex; }
 
     public int sglCount() { return (int)mSvData.stream().filter(x -> x.isSgl()).count(); }
     public int svCount() { return (int)mSvData.stream().filter(x -> !x.isSgl()).count(); }
@@ -122,75 +126,46 @@ public class SvDataCache
                 if(breakend == null)
                     continue;
 
-                List<Breakend> breakends = mChromosomeBreakends.get(breakend.Chromosome);
-
-                if(breakends == null)
-                {
-                    breakends = Lists.newArrayList();
-                    mChromosomeBreakends.put(breakend.Chromosome, breakends);
-                }
-
-                int index = 0;
-                while(index < breakends.size())
-                {
-                    if(breakend.Position < breakends.get(index).Position)
-                        break;
-
-                    ++index;
-                }
-
-                breakends.add(index, breakend);
+                mChromosomeBreakends.computeIfAbsent(breakend.Chromosome, k -> Lists.newArrayList()).add(breakend);
             }
         }
 
         for(List<Breakend> breakends : mChromosomeBreakends.values())
         {
+            // a stable sort so breakends at the same position stay in variant order
+            breakends.sort(Comparator.comparingInt(x -> x.Position));
+
             for(int index = 0; index < breakends.size(); ++index)
             {
                 breakends.get(index).setChrLocationIndex(index);
             }
         }
+
+        mBreakendIndex = new BreakendIndex(mChromosomeBreakends);
     }
 
     public List<Breakend> selectOthersNearby(final Breakend breakend, int additionalDistance, int maxSeekDistance)
     {
-        List<Breakend> breakends = mChromosomeBreakends.get(breakend.Chromosome);
-
-        List<Breakend> closeBreakends = Lists.newArrayList();
-
-        if(breakends == null)
-            return closeBreakends;
+        if(mBreakendIndex == null)
+            return Lists.newArrayList();
 
         int minStart = breakend.minPosition() - additionalDistance;
         int maxStart = breakend.maxPosition() + additionalDistance;
 
-        // search down
-        for(int index = breakend.chrLocationIndex() - 1; index >= 0; --index)
-        {
-            Breakend nextBreakend = breakends.get(index);
-
-            if(nextBreakend.sv() == breakend.sv())
-                continue;
-
-            if(nextBreakend.maxPosition() < breakend.minPosition() - maxSeekDistance)
-                break;
+        int seekMinPosition = breakend.minPosition() - maxSeekDistance;
+        int seekMaxPosition = breakend.maxPosition() + maxSeekDistance;
 
-            if(nextBreakend.minPosition() <= maxStart && nextBreakend.maxPosition() >= minStart)
-                closeBreakends.add(0, nextBreakend);
-        }
+        List<Breakend> closeBreakends = Lists.newArrayList();
 
-        for(int index = breakend.chrLocationIndex() + 1; index < breakends.size(); ++index)
+        for(Breakend nextBreakend : mBreakendIndex.findOverlapping(breakend.Chromosome, minStart, maxStart))
         {
-            Breakend nextBreakend = breakends.get(index);
-
             if(nextBreakend.sv() == breakend.sv())
                 continue;
 
-            if(nextBreakend.minPosition() > breakend.maxPosition() + maxSeekDistance)
-                break;
+            if(nextBreakend.maxPosition() < seekMinPosition || nextBreakend.minPosition() > seekMaxPosition)
+                continue;
 
-            if(nextBreakend.minPosition() <= maxStart && nextBreakend.maxPosition() >= minStart)
-                closeBreakends.add(nextBreakend);
+            closeBreakends.add(nextBreakend);
         }
 
         return closeBreakends;
@@ -199,6 +174,7 @@ public class SvDataCache
     public void clear()
     {
         mChromosomeBreakends.clear();
+        mBreakendIndex = null;
         mSvData.clear();
     }
 }
@@ -11,6 +11,7 @@ import java.nio.file.Paths;
 
 import com.hartwig.hmftools.common.bam.BamOperations;
 import com.hartwig.hmftools.common.bam.BamSlicer;
+import com.hartwig.hmftools.common.bam.BamSlicerFilter;
 import com.hartwig.hmftools.common.bam.BamToolName;
 
 import org.jetbrains.annotations.Nullable;
@@ -68,10 +69,15 @@ public final class FileCommon
 
     public static BamSlicer createBamSlicer()
     {
-        BamSlicer bamSlicer = new BamSlicer(0, false, true, false);
-        bamSlicer.setKeepUnmapped();
-        bamSlicer.setKeepHardClippedSecondaries();
-        return bamSlicer;
+        return new BamSlicer(createBamSlicerFilter());
+    }
+
+    public static BamSlicerFilter createBamSlicerFilter()
+    {
+        BamSlicerFilter filter = new BamSlicerFilter(0, false, true, false);
+        filter.setKeepUnmapped();
+        filter.setKeepHardClippedSecondaries();
+        return filter;
     }
 
     public static void deleteInterimFile(final String filename)
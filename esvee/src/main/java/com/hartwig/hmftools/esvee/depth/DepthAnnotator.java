@@ -154,19 +154,27 @@ public class DepthAnnotator
             depthTasks.add(depthTask);
         }
 
-        final List<Callable> callableList = depthTasks.stream().collect(Collectors.toList());
+        // sweep each chromosome for each sample BAM in parallel
+        List<DepthSweep> sampleSweeps = Lists.newArrayList();
+        depthTasks.forEach(x -> sampleSweeps.addAll(x.sampleSweeps()));
+
+        SV_LOGGER.info("running {} depth sweeps across {} chromosomes", sampleSweeps.size(), depthTasks.size());
+
+        final List<Callable> callableList = sampleSweeps.stream().collect(Collectors.toList());
         if(!TaskExecutor.executeTasks(callableList, mConfig.Threads))
             System.exit(1);
 
+        depthTasks.forEach(x -> x.annotateVariants());
+
         // write output VCF
         writeVcf(vcfHeader, depthTasks);
 
         SV_LOGGER.info("depth annotation complete, mins({})", runTimeMinsStr(startTimeMs));
 
-        PerformanceCounter perfCounter = depthTasks.get(0).getPerfCounter();
-        for(int i = 1; i < depthTasks.size(); ++i)
+        PerformanceCounter perfCounter = sampleSweeps.get(0).getPerfCounter();
+        for(int i = 1; i < sampleSweeps.size(); ++i)
         {
-            perfCounter.merge(depthTasks.get(i).getPerfCounter());
+            perfCounter.merge(sampleSweeps.get(i).getPerfCounter());
         }
 
         perfCounter.logStats();
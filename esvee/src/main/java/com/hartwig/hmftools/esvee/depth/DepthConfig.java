@@ -117,7 +117,7 @@ public class DepthConfig
         addRefGenomeConfig(configBuilder, true);
 
         configBuilder.addDecimal(VAF_CAP, "Ref support depth limit as function of variant fragments", DEFAULT_VAF_CAP);
-        configBuilder.addInteger(PROXIMITY_DISTANCE, "Proximity distance to group variants", DEFAULT_PROXIMITY_DISTANCE);
+        configBuilder.addInteger(PROXIMITY_DISTANCE, "Max gap between variant fragment windows to read in a single region", DEFAULT_PROXIMITY_DISTANCE);
 
         addValidationStringencyOption(configBuilder);
         addSpecificChromosomesRegionsConfig(configBuilder);
@@ -0,0 +1,500 @@
+package com.hartwig.hmftools.esvee.depth;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.common.bam.CigarUtils.leftSoftClipped;
+import static com.hartwig.hmftools.common.bam.CigarUtils.rightSoftClipped;
+import static com.hartwig.hmftools.common.genome.region.Orientation.FORWARD;
+import static com.hartwig.hmftools.common.genome.region.Orientation.REVERSE;
+import static com.hartwig.hmftools.common.region.BaseRegion.positionWithin;
+import static com.hartwig.hmftools.common.region.BaseRegion.positionsOverlap;
+import static com.hartwig.hmftools.esvee.AssemblyConfig.SV_LOGGER;
+import static com.hartwig.hmftools.esvee.prep.PrepConstants.DEFAULT_MAX_FRAGMENT_LENGTH;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.bam.BamSlicer;
+import com.hartwig.hmftools.common.bam.SupplementaryReadData;
+import com.hartwig.hmftools.common.genome.region.Orientation;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
+import com.hartwig.hmftools.common.utils.PerformanceCounter;
+
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+
+// counts ref support for one sample's BAM with a single coordinate-ordered pass over a chromosome's variant regions, with each read
+// checked against all the variants whose fragment window it falls in
+public class DepthSweep implements Callable
+{
+    private final DepthConfig mConfig;
+    private final String mChromosome;
+    private final int mSampleIndex;
+    private final List<VariantInfo> mVariantInfos;
+
+    private List<VariantInfo> mSweepVariants; // ordered by lower position, activated as the sweep reaches their windows
+    private int mNextVariantIndex;
+
+    private final SliceRegionState mActiveState;
+    private final Map<String,ReadGroup> mReadGroups; // in order of each group's first read
+    private int mNextGroupFlushPosition;
+
+    private final BamSlicer mBamSlicer;
+
+    private int mTotalReadCount;
+    private final PerformanceCounter mPerfCounter;
+
+    public DepthSweep(final String chromosome, final int sampleIndex, final DepthConfig config, final List<VariantInfo> variantInfos)
+    {
+        mConfig = config;
+        mChromosome = chromosome;
+        mSampleIndex = sampleIndex;
+        mVariantInfos = variantInfos;
+
+        mSweepVariants = Lists.newArrayList();
+        mNextVariantIndex = 0;
+
+        mActiveState = new SliceRegionState();
+        mReadGroups = Maps.newLinkedHashMap();
+        mNextGroupFlushPosition = Integer.MAX_VALUE;
+
+        mBamSlicer = new BamSlicer(0, false, true, false);
+
+        mTotalReadCount = 0;
+        mPerfCounter = new PerformanceCounter("Sweep");
+    }
+
+    public PerformanceCounter getPerfCounter() { return mPerfCounter; }
+
+    @Override
+    public Long call()
+    {
+        if(mVariantInfos.isEmpty() || mSampleIndex >= mConfig.BamFiles.size())
+            return (long)0;
+
+        mPerfCounter.start();
+
+        List<ChrBaseRegion> sweepRegions = initialiseSweep();
+
+        String bamFile = mConfig.BamFiles.get(mSampleIndex);
+
+        try(SamReader samReader = SamReaderFactory.makeDefault()
+                .validationStringency(mConfig.BamStringency)
+                .referenceSequence(new File(mConfig.RefGenome)).open(new File(bamFile)))
+        {
+            mBamSlicer.slice(samReader, sweepRegions, this::processSweepRead);
+        }
+        catch(IOException e)
+        {
+            SV_LOGGER.error("failed to read BAM({}): {}", bamFile, e.toString());
+        }
+
+        completeSweep();
+
+        mPerfCounter.stop();
+
+        SV_LOGGER.debug("chr({}) sample({}) swept {} regions for {} variants, total reads({}) time({})",
+                mChromosome, mConfig.Samples.get(mSampleIndex), sweepRegions.size(), mSweepVariants.size(), mTotalReadCount,
+                format("%.3f", mPerfCounter.getLastTime()));
+
+        mSweepVariants = Lists.newArrayList();
+        mActiveState.reset();
+
+        return (long)0;
+    }
+
+    protected List<ChrBaseRegion> initialiseSweep()
+    {
+        reset();
+
+        mSweepVariants = Lists.newArrayList(mVariantInfos);
+        mSweepVariants.sort(Comparator.comparingInt(x -> x.PositionMin));
+
+        return formSweepRegions();
+    }
+
+    protected void completeSweep()
+    {
+        // fragments with reads outside the swept regions are assessed with the reads received
+        mReadGroups.values().forEach(x -> processReadGroup(x));
+        mReadGroups.clear();
+    }
+
+    private List<ChrBaseRegion> formSweepRegions()
+    {
+        // merge each variant's fragment window, so reads in overlapping windows are retrieved and decoded once
+        List<ChrBaseRegion> regions = Lists.newArrayList();
+        ChrBaseRegion current = null;
+
+        for(VariantInfo variant : mSweepVariants)
+        {
+            int windowStart = max(windowStart(variant), 1);
+            int windowEnd = windowEnd(variant);
+
+            if(current != null && windowStart - current.end() <= mConfig.ProximityDistance)
+            {
+                current.setEnd(max(current.end(), windowEnd));
+                continue;
+            }
+
+            current = new ChrBaseRegion(mChromosome, windowStart, windowEnd);
+            regions.add(current);
+        }
+
+        return regions;
+    }
+
+    private static int windowStart(final VariantInfo variant) { return variant.PositionMin - DEFAULT_MAX_FRAGMENT_LENGTH; }
+    private static int windowEnd(final VariantInfo variant) { return variant.PositionMax + DEFAULT_MAX_FRAGMENT_LENGTH; }
+
+    protected void processSweepRead(final SAMRecord read)
+    {
+        int readStart = read.getAlignmentStart();
+
+        // assess fragments which can receive no further reads, then drop variants behind the sweep
+        if(readStart > mNextGroupFlushPosition)
+            flushReadGroups(readStart);
+
+        retireVariants(readStart);
+
+        while(mNextVariantIndex < mSweepVariants.size() && windowStart(mSweepVariants.get(mNextVariantIndex)) <= read.getAlignmentEnd())
+        {
+            VariantInfo variant = mSweepVariants.get(mNextVariantIndex++);
+            mActiveState.activateVariant(variant, variant.SampleSupportCounts[mSampleIndex].exceedsMaxDepth());
+        }
+
+        processRead(read);
+    }
+
+    private void flushReadGroups(int readStart)
+    {
+        mNextGroupFlushPosition = Integer.MAX_VALUE;
+
+        Iterator<ReadGroup> iter = mReadGroups.values().iterator();
+
+        while(iter.hasNext())
+        {
+            ReadGroup readGroup = iter.next();
+
+            if(readGroup.FlushPosition < readStart)
+            {
+                processReadGroup(readGroup);
+                iter.remove();
+            }
+            else
+            {
+                mNextGroupFlushPosition = min(mNextGroupFlushPosition, readGroup.FlushPosition);
+            }
+        }
+    }
+
+    private void retireVariants(int readStart)
+    {
+        // a variant is no longer needed once new reads start past its window and no pending fragment could overlap it
+        int earliestGroupPosition = mReadGroups.isEmpty() ? Integer.MAX_VALUE : mReadGroups.values().iterator().next().PositionStart;
+
+        while(!mActiveState.Variants.isEmpty())
+        {
+            VariantInfo variant = mActiveState.Variants.get(0);
+
+            if(windowEnd(variant) >= readStart || variant.PositionMax + READ_POSITION_MARGIN >= earliestGroupPosition)
+                break;
+
+            mActiveState.retireFirstVariant();
+        }
+    }
+
+    protected void processRead(final SAMRecord read)
+    {
+        ++mTotalReadCount;
+
+        int maxSlicePosition = mActiveState.PositionMax + DEFAULT_MAX_FRAGMENT_LENGTH;
+
+        ReadGroup readGroup = mReadGroups.get(read.getReadName());
+
+        if(readGroup != null)
+        {
+            readGroup.Reads.add(read);
+
+            if(!readGroup.WaitForAll)
+            {
+                if(read.getSupplementaryAlignmentFlag())
+                {
+                    readGroup.WaitForAll = true;
+                    readGroup.FlushPosition = max(readGroup.FlushPosition, maxSlicePosition);
+                }
+                else
+                {
+                    // check again for a supplementary
+                    SupplementaryReadData suppReadData = SupplementaryReadData.extractAlignment(read);
+
+                    if(suppReadData != null && suppReadData.Chromosome.equals(mChromosome)
+                            && positionWithin(suppReadData.Position, mActiveState.PositionMin, maxSlicePosition))
+                    {
+                        readGroup.WaitForAll = true;
+                        readGroup.FlushPosition = max(readGroup.FlushPosition, suppReadData.Position);
+                    }
+                }
+            }
+
+            if(!readGroup.WaitForAll)
+            {
+                processReadGroup(readGroup);
+                mReadGroups.remove(read.getReadName());
+            }
+
+            return;
+        }
+
+        // check for any support for this read against the current variants
+        boolean isRelevant = false;
+        boolean anyUncapped = false;
+
+        int index = 0;
+        while(index < mActiveState.UncappedVariants.size())
+        {
+            VariantInfo variantInfo = mActiveState.UncappedVariants.get(index);
+
+            RefSupportCounts variantSampleCounts = variantInfo.SampleSupportCounts[mSampleIndex];
+
+            if(variantSampleCounts.exceedsMaxDepth())
+            {
+                mActiveState.UncappedVariants.remove(index);
+                mActiveState.MinPositionIndex = max(mActiveState.MinPositionIndex - 1, 0);
+                continue;
+            }
+
+            anyUncapped = true;
+
+            if(isRelevantRead(read, variantInfo))
+            {
+                isRelevant = true;
+                break;
+            }
+
+            ++index;
+        }
+
+        // skip reads while all the current variants have reached their VAF cap
+        if(!anyUncapped || !isRelevant)
+            return;
+
+        // determine if mate or supp reads are expected within the current variants' windows
+        boolean expectSupplementaries = read.getSupplementaryAlignmentFlag();
+        boolean expectMate = false;
+        int flushPosition = expectSupplementaries ? maxSlicePosition : read.getAlignmentStart();
+
+        if(read.getReadPairedFlag() && !read.getMateUnmappedFlag()
+        && read.getMateReferenceIndex() == read.getReferenceIndex() && read.getMateAlignmentStart() <= maxSlicePosition)
+        {
+            expectMate = true;
+            flushPosition = max(flushPosition, read.getMateAlignmentStart());
+        }
+
+        SupplementaryReadData suppReadData = SupplementaryReadData.extractAlignment(read);
+
+        if(suppReadData != null && suppReadData.Chromosome.equals(mChromosome)
+        && positionWithin(suppReadData.Position, mActiveState.PositionMin, maxSlicePosition))
+        {
+            expectSupplementaries = true;
+            flushPosition = max(flushPosition, suppReadData.Position);
+        }
+
+        if(!expectMate && !expectSupplementaries)
+        {
+            processSingleRead(read);
+        }
+        else
+        {
+            ReadGroup newGroup = new ReadGroup(read, expectSupplementaries);
+            newGroup.FlushPosition = flushPosition;
+            mReadGroups.put(read.getReadName(), newGroup);
+            mNextGroupFlushPosition = min(mNextGroupFlushPosition, flushPosition);
+        }
+    }
+
+    private boolean isRelevantRead(final SAMRecord read, VariantInfo variantInfo)
+    {
+        // ignore reads which cannot span the current variant(s)
+        if(read.getAlignmentEnd() < variantInfo.PositionMin)
+        {
+            if(!read.getReadPairedFlag() || read.getMateUnmappedFlag() || read.getMateReferenceIndex() != read.getReferenceIndex())
+                return false;
+
+            // both reads before the variants
+            if(read.getMateAlignmentStart() + read.getReadBases().length < variantInfo.PositionMin)
+                return false;
+        }
+        else if(read.getAlignmentStart() > variantInfo.PositionMax)
+        {
+            return false;
+        }
+
+        return true;
+    }
+
+    private static final int READ_POSITION_MARGIN = 100;
+
+    private void processSingleRead(final SAMRecord read)
+    {
+        if(mActiveState.UncappedVariants.size() < 10)
+        {
+            processReadGroup(new ReadGroup(read, false));
+            return;
+        }
+
+        int newMinPositionIndex = mActiveState.MinPositionIndex;
+
+        for(int i = mActiveState.MinPositionIndex; i < mActiveState.UncappedVariants.size(); ++i)
+        {
+            VariantInfo variantInfo = mActiveState.UncappedVariants.get(i);
+            if(read.getAlignmentStart() > variantInfo.PositionMax + READ_POSITION_MARGIN)
+            {
+                newMinPositionIndex = i + 1;
+                continue;
+            }
+            else if(read.getAlignmentEnd() < variantInfo.PositionMin - READ_POSITION_MARGIN)
+            {
+                break;
+            }
+
+            RefSupportCounts variantSampleCounts = variantInfo.SampleSupportCounts[mSampleIndex];
+            checkReadGroupSupport(variantInfo, variantSampleCounts, new ReadGroup(read, false));
+        }
+
+        // record the starting index for the set of current variants
+        mActiveState.MinPositionIndex = newMinPositionIndex;
+    }
+
+    private void processReadGroup(final ReadGroup readGroup)
+    {
+        // find the variants that this group overlaps
+        int groupMinPosition = readGroup.Reads.stream().mapToInt(x -> x.getAlignmentStart()).min().orElse(0);
+        int groupMaxPosition = readGroup.Reads.stream().mapToInt(x -> x.getAlignmentEnd()).max().orElse(0);
+
+        for(VariantInfo variantInfo : mActiveState.UncappedVariants)
+        {
+            if(groupMinPosition > variantInfo.PositionMax + READ_POSITION_MARGIN)
+                continue;
+            else if(groupMaxPosition < variantInfo.PositionMin - READ_POSITION_MARGIN)
+                break;
+
+            RefSupportCounts variantSampleCounts = variantInfo.SampleSupportCounts[mSampleIndex];
+            checkReadGroupSupport(variantInfo, variantSampleCounts, readGroup);
+        }
+    }
+
+    private void checkReadGroupSupport(final VariantInfo variant, RefSupportCounts supportCounts, final ReadGroup readGroup)
+    {
+        boolean readSupportsRef = false;
+        boolean hasLowerPosRead = false;
+        boolean hasUpperPosRead = false;
+        int strandCount = 0;
+        boolean matchesJunction = false;
+        int readGroupPosMin = 0;
+        int readGroupPosMax = 0;
+
+        for(SAMRecord read : readGroup.Reads)
+        {
+            int readStart = read.getAlignmentStart();
+            int readEnd = read.getAlignmentEnd();
+            boolean isSupplementary = read.getSupplementaryAlignmentFlag();
+
+            if(!isSupplementary)
+            {
+                readGroupPosMin = readGroupPosMin == 0 ? readStart : min(readStart, readGroupPosMin);
+                readGroupPosMax = max(readEnd, readGroupPosMax);
+            }
+
+            // check for an exact SC match
+            if((variant.Orient.isReverse() && positionWithin(readStart, variant.PositionMin, variant.PositionMax) && leftSoftClipped(read))
+            || (variant.Orient.isForward() && positionWithin(readEnd, variant.PositionMin, variant.PositionMax)) && rightSoftClipped(read))
+            {
+                SV_LOGGER.trace("var({}) pos({}-{}) read({}-{}) id({}) at junction",
+                        variant.Position, variant.PositionMin, variant.PositionMax, readStart, readEnd, read.getReadName());
+                matchesJunction = true;
+                break;
+            }
+
+            if(!isSupplementary && readGroup.Reads.size() > 1)
+            {
+                Orientation orientation = !read.getReadNegativeStrandFlag() ? FORWARD : REVERSE;
+
+                if(orientation.isForward() && readEnd <= max(variant.Position, variant.PositionMax) && !hasLowerPosRead
+                && abs(read.getInferredInsertSize()) < DEFAULT_MAX_FRAGMENT_LENGTH)
+                {
+                    hasLowerPosRead = true;
+                    strandCount += read.getReadNegativeStrandFlag() ? -1 : 1;
+                }
+                else if(orientation.isReverse() && readStart >= min(variant.Position, variant.PositionMin) && !hasUpperPosRead
+                && abs(read.getInferredInsertSize()) < DEFAULT_MAX_FRAGMENT_LENGTH)
+                {
+                    hasUpperPosRead = true;
+                    strandCount += read.getReadNegativeStrandFlag() ? -1 : 1;
+                }
+            }
+
+            if(positionsOverlap(variant.PositionMin, variant.PositionMax, readStart, readEnd))
+            {
+                readSupportsRef = true;
+            }
+        }
+
+        if(matchesJunction)
+            return;
+
+        if(readSupportsRef)
+        {
+            ++supportCounts.RefSupport;
+        }
+        else if(hasLowerPosRead && hasUpperPosRead && strandCount == 0)
+        {
+            ++supportCounts.RefPairSupport;
+
+            SV_LOGGER.trace("var({}) pos({}-{}) fragment(id={} {}-{}) has ref-pair support",
+                    variant.Position, variant.PositionMin, variant.PositionMax, readGroup.id(), readGroupPosMin, readGroupPosMax);
+        }
+
+        if(supportCounts.exceedsMaxDepth())
+        {
+            SV_LOGGER.trace("var({}:{}) sampleIndex({}) ref limit({}) reached with support(ref={} pair={})",
+                    mChromosome, variant.Position, mSampleIndex,
+                    supportCounts.VafCap, supportCounts.RefSupport, supportCounts.RefPairSupport);
+        }
+    }
+
+    protected void reset()
+    {
+        mReadGroups.clear();
+        mNextGroupFlushPosition = Integer.MAX_VALUE;
+        mNextVariantIndex = 0;
+        mTotalReadCount = 0;
+        mActiveState.reset();
+    }
+
+    protected void setActiveVariants(final List<VariantInfo> variants)
+    {
+        mActiveState.reset();
+        variants.forEach(x -> mActiveState.addVariant(x));
+        mActiveState.resetUncappedVariants();
+    }
+
+    protected Map<String,ReadGroup> readGroups() { return mReadGroups; }
+    protected SliceRegionState activeState() { return mActiveState; }
+
+    public String toString()
+    {
+        return format("chr(%s) sample(%d) variants(%d) active(%s)", mChromosome, mSampleIndex, mVariantInfos.size(), mActiveState);
+    }
+}
@@ -13,10 +13,15 @@ class ReadGroup
     public final List<SAMRecord> Reads;
     public boolean WaitForAll;
 
+    public final int PositionStart;
+    public int FlushPosition; // no further reads are expected once the sweep passes this position
+
     public ReadGroup(final SAMRecord read, boolean waitForAll)
     {
         Reads = Lists.newArrayList(read);
         WaitForAll = waitForAll;
+        PositionStart = read.getAlignmentStart();
+        FlushPosition = PositionStart;
     }
 
     public String id() { return Reads.get(0).getReadName(); }
@@ -8,6 +8,7 @@ import java.util.List;
 
 import com.google.common.collect.Lists;
 
+// the variants currently within range of a depth sweep, ordered by their lower position
 public class SliceRegionState
 {
     public int PositionMax;
@@ -57,6 +58,31 @@ public class SliceRegionState
         PositionMax = max(variant.PositionMax, PositionMax);
     }
 
+    public void activateVariant(final VariantInfo variant, boolean capped)
+    {
+        addVariant(variant);
+
+        if(!capped)
+            UncappedVariants.add(variant);
+    }
+
+    public void retireFirstVariant()
+    {
+        VariantInfo variant = Variants.remove(0);
+
+        int uncappedIndex = UncappedVariants.indexOf(variant);
+
+        if(uncappedIndex >= 0)
+        {
+            UncappedVariants.remove(uncappedIndex);
+
+            if(uncappedIndex < MinPositionIndex)
+                --MinPositionIndex;
+        }
+
+        PositionMin = Variants.isEmpty() ? PositionMax : Variants.get(0).PositionMin;
+    }
+
     public int variantCount() { return Variants.size(); }
 
     public String toString()
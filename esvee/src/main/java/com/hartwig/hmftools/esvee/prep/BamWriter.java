@@ -13,6 +13,8 @@ import java.util.Map;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
+import org.jetbrains.annotations.Nullable;
+
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMFileWriter;
 import htsjdk.samtools.SAMFileWriterFactory;
@@ -29,10 +31,12 @@ public class BamWriter
     private final Map<String,SAMFileWriter> mWriters;
     private final List<String> mUnsortedBamFiles;
     private final SAMFileWriter mSingleWriter;
+    private final PrepOutputCache mOutputCache;
 
-    public BamWriter(final PrepConfig config)
+    public BamWriter(final PrepConfig config, @Nullable final PrepOutputCache outputCache)
     {
         mConfig = config;
+        mOutputCache = outputCache;
         mRecordWriteCount = 0;
         mWriters = Maps.newHashMap();
         mUnsortedBamFiles = Lists.newArrayList();
@@ -64,18 +68,25 @@ public class BamWriter
 
     public void writeRecord(final SAMRecord record)
     {
-        if(mWriters.isEmpty())
+        if(mWriters.isEmpty() && mOutputCache == null)
             return;
 
-        ++mRecordWriteCount;
-
         String sampleId = record.getStringAttribute(BAM_RECORD_SAMPLE_ID_TAG);
         record.setAttribute(BAM_RECORD_SAMPLE_ID_TAG, null); // remove since not required downstream
 
-        if(mSingleWriter != null)
-            mSingleWriter.addAlignment(record);
-        else
-            mWriters.get(sampleId).addAlignment(record);
+        if(!mWriters.isEmpty())
+        {
+            ++mRecordWriteCount;
+
+            if(mSingleWriter != null)
+                mSingleWriter.addAlignment(record);
+            else
+                mWriters.get(sampleId).addAlignment(record);
+        }
+
+        // cached after writing, since the writer assigns its own header to the record
+        if(mOutputCache != null)
+            mOutputCache.addRecord(sampleId, record);
     }
 
     public void close()
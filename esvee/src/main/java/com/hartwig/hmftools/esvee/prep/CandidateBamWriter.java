@@ -52,7 +52,7 @@ public class CandidateBamWriter
         mReadIdTrimmer = new ReadIdTrimmer(mConfig.TrimReadId);
     }
 
-    public void addJunctionReadId(final Set<String> remotePartitions, final String readId)
+    public synchronized void addJunctionReadId(final Set<String> remotePartitions, final String readId)
     {
         for(String remotePartition : remotePartitions)
         {
@@ -70,7 +70,7 @@ public class CandidateBamWriter
         }
     }
 
-    public void writeCandidateRead(final PrepRead read)
+    public synchronized void writeCandidateRead(final PrepRead read)
     {
         if(!mConfig.UseCacheBam)
             return;
@@ -44,6 +44,7 @@ import static com.hartwig.hmftools.esvee.prep.PrepConstants.PREP_FRAG_LENGTH_FIL
 import static com.hartwig.hmftools.esvee.prep.PrepConstants.PREP_JUNCTIONS_FILE_ID;
 import static com.hartwig.hmftools.esvee.prep.types.WriteType.BAM;
 import static com.hartwig.hmftools.esvee.prep.types.WriteType.FRAGMENT_LENGTH_DIST;
+import static com.hartwig.hmftools.esvee.prep.types.WriteType.JUNCTIONS;
 import static com.hartwig.hmftools.esvee.prep.types.WriteType.READS;
 
 import java.util.Arrays;
@@ -122,17 +123,37 @@ public class PrepConfig
     private static final String NO_CLEAN_UP = "no_clean_up";
     private static final String NO_TRIM_READ_ID = "no_trim_read_id";
     private static final String UNPAIRED_READS = "unpaired_reads";
+    private static final String WRITE_PREP_BAM = "write_prep_bam";
 
     public PrepConfig(final ConfigBuilder configBuilder)
     {
-        mIsValid = true;
+        this(configBuilder, parseSampleIds(configBuilder), parseBamFiles(configBuilder), parseWriteTypes(configBuilder),
+                configBuilder.hasFlag(CALC_FRAG_LENGTH));
+    }
 
-        SampleIds = Arrays.stream(configBuilder.getValue(SAMPLE).split(CONFIG_FILE_DELIM)).collect(Collectors.toList());
+    // for prep run in the same process as assembly, which supplies the samples and BAMs and only registers the prep-specific config
+    public static PrepConfig forInMemoryAssembly(
+            final ConfigBuilder configBuilder, final List<String> sampleIds, final List<String> bamFiles)
+    {
+        Set<WriteType> writeTypes = Sets.newHashSet(FRAGMENT_LENGTH_DIST);
 
-        if(configBuilder.hasValue(BAM_FILE))
-            BamFiles = Lists.newArrayList(configBuilder.getValue(BAM_FILE));
-        else
-            BamFiles = Arrays.stream(configBuilder.getValue(BAM_FILES).split(CONFIG_FILE_DELIM)).collect(Collectors.toList());
+        if(configBuilder.hasFlag(WRITE_PREP_BAM))
+        {
+            writeTypes.add(BAM);
+            writeTypes.add(JUNCTIONS);
+        }
+
+        return new PrepConfig(configBuilder, sampleIds, bamFiles, writeTypes, true);
+    }
+
+    private PrepConfig(
+            final ConfigBuilder configBuilder, final List<String> sampleIds, final List<String> bamFiles, final Set<WriteType> writeTypes,
+            boolean calcFragmentLength)
+    {
+        mIsValid = true;
+
+        SampleIds = sampleIds;
+        BamFiles = bamFiles;
 
         RefGenomeFile = configBuilder.getValue(REF_GENOME);
 
@@ -173,20 +194,9 @@ public class PrepConfig
 
         ReadFiltering = new ReadFilters(ReadFilterConfig.from(configBuilder));
 
-        WriteTypes = Sets.newHashSet();
+        WriteTypes = writeTypes;
 
-        if(configBuilder.hasValue(WRITE_TYPES))
-        {
-            String[] writeTypes = configBuilder.getValue(WRITE_TYPES).split(ITEM_DELIM, -1);
-            Arrays.stream(writeTypes).forEach(x -> WriteTypes.add(WriteType.valueOf(x)));
-        }
-        else
-        {
-            WriteTypes.add(WriteType.JUNCTIONS);
-            WriteTypes.add(WriteType.BAM);
-        }
-
-        CalcFragmentLength = configBuilder.hasFlag(CALC_FRAG_LENGTH) || WriteTypes.contains(FRAGMENT_LENGTH_DIST);
+        CalcFragmentLength = calcFragmentLength || WriteTypes.contains(FRAGMENT_LENGTH_DIST);
         BamStringency = BamUtils.validationStringency(configBuilder);
         BamToolPath = configBuilder.getValue(BAMTOOL_PATH);
 
@@ -208,6 +218,37 @@ public class PrepConfig
         PerfDebug = configBuilder.hasFlag(PERF_DEBUG);
     }
 
+    private static List<String> parseSampleIds(final ConfigBuilder configBuilder)
+    {
+        return Arrays.stream(configBuilder.getValue(SAMPLE).split(CONFIG_FILE_DELIM)).collect(Collectors.toList());
+    }
+
+    private static List<String> parseBamFiles(final ConfigBuilder configBuilder)
+    {
+        if(configBuilder.hasValue(BAM_FILE))
+            return Lists.newArrayList(configBuilder.getValue(BAM_FILE));
+        else
+            return Arrays.stream(configBuilder.getValue(BAM_FILES).split(CONFIG_FILE_DELIM)).collect(Collectors.toList());
+    }
+
+    private static Set<WriteType> parseWriteTypes(final ConfigBuilder configBuilder)
+    {
+        Set<WriteType> writeTypes = Sets.newHashSet();
+
+        if(configBuilder.hasValue(WRITE_TYPES))
+        {
+            String[] writeTypesStr = configBuilder.getValue(WRITE_TYPES).split(ITEM_DELIM, -1);
+            Arrays.stream(writeTypesStr).forEach(x -> writeTypes.add(WriteType.valueOf(x)));
+        }
+        else
+        {
+            writeTypes.add(WriteType.JUNCTIONS);
+            writeTypes.add(WriteType.BAM);
+        }
+
+        return writeTypes;
+    }
+
     public boolean isValid()
     {
         if(!mIsValid)
@@ -331,4 +372,21 @@ public class PrepConfig
         addOutputOptions(configBuilder, false);
         ConfigUtils.addLoggingOptions(configBuilder);
     }
+
+    public static void addInMemoryAssemblyConfig(final ConfigBuilder configBuilder)
+    {
+        // only the prep-specific items, since the samples, BAMs, ref genome, output and common options are registered by assembly
+        configBuilder.addPath(KNOWN_FUSION_BED, false, "Known fusion hotspot BED file");
+        configBuilder.addPath(BLACKLIST_BED, false, "Blacklist regions BED file");
+        configBuilder.addInteger(READ_LENGTH, "Read length", DEFAULT_READ_LENGTH);
+        configBuilder.addInteger(PARTITION_SIZE, "Partition size", DEFAULT_CHR_PARTITION_SIZE);
+        configBuilder.addFlag(UNPAIRED_READS, "Unpaired reads ignores non-expect junction support");
+        configBuilder.addFlag(NO_CACHE_BAM, "Write a BAM to cache candidate reads");
+        configBuilder.addFlag(TRACK_REMOTES, "Track support for remote junctions");
+        configBuilder.addFlag(NO_TRIM_READ_ID, "Disable use of a shortened readId internally");
+        configBuilder.addFlag(NO_CLEAN_UP, "Keep candidate cache BAM files");
+        configBuilder.addFlag(WRITE_PREP_BAM, "Also write the prep BAM and junctions file, for debugging");
+        addValidationStringencyOption(configBuilder);
+        ReadFilterConfig.addConfig(configBuilder);
+    }
 }
@@ -0,0 +1,232 @@
+package com.hartwig.hmftools.esvee.prep;
+
+import static java.lang.Math.max;
+
+import static com.hartwig.hmftools.esvee.AssemblyConfig.SV_LOGGER;
+import static com.hartwig.hmftools.esvee.common.SvConstants.BAM_HEADER_SAMPLE_INDEX_TAG;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.genome.region.Orientation;
+import com.hartwig.hmftools.common.region.SpecificRegions;
+import com.hartwig.hmftools.esvee.assembly.types.Junction;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+
+// holds prep's junctions and candidate reads in memory for assembly run in the same process, in place of the prep BAM and junctions file
+public class PrepOutputCache
+{
+    private final List<String> mSampleIds;
+    private final List<Map<String,ChromosomeReads>> mSampleChromosomeReads; // by sample index then chromosome
+    private final Map<String,List<Junction>> mChrJunctions;
+    private final SAMFileHeader[] mSampleHeaders; // a header per sample labelled with its index, since reads may share headers
+
+    private int mRecordCount;
+    private boolean mFinalised;
+
+    public PrepOutputCache(final List<String> sampleIds)
+    {
+        mSampleIds = sampleIds;
+        mSampleChromosomeReads = Lists.newArrayListWithCapacity(sampleIds.size());
+        sampleIds.forEach(x -> mSampleChromosomeReads.add(Maps.newHashMap()));
+        mChrJunctions = Maps.newHashMap();
+        mSampleHeaders = new SAMFileHeader[sampleIds.size()];
+        mRecordCount = 0;
+        mFinalised = false;
+    }
+
+    public synchronized void addRecord(final String sampleId, final SAMRecord record)
+    {
+        int sampleIndex = mSampleIds.size() == 1 ? 0 : mSampleIds.indexOf(sampleId);
+
+        if(sampleIndex < 0)
+        {
+            SV_LOGGER.error("read({}) has unknown sampleId({})", record.getReadName(), sampleId);
+            return;
+        }
+
+        // records are shared by assembly threads, so decode them fully now rather than lazily on first access
+        record.getCigar();
+        record.getReadBases();
+        record.getBaseQualities();
+        record.getAttributes();
+
+        // assembly reads use this to attribute support to each sample, as set on its BAM readers' headers - reads recovered from
+        // the candidate cache BAM share one header across samples, so each sample's reads are given that sample's own header
+        SAMFileHeader header = record.getHeader();
+
+        if(header != null)
+            record.setHeader(sampleHeader(sampleIndex, header));
+
+        ChromosomeReads chromosomeReads = mSampleChromosomeReads.get(sampleIndex).computeIfAbsent(
+                record.getReferenceName(), k -> new ChromosomeReads());
+
+        chromosomeReads.add(record);
+        ++mRecordCount;
+    }
+
+    private SAMFileHeader sampleHeader(int sampleIndex, final SAMFileHeader header)
+    {
+        SAMFileHeader sampleHeader = mSampleHeaders[sampleIndex];
+
+        if(sampleHeader == null)
+        {
+            sampleHeader = header.clone();
+            sampleHeader.setAttribute(BAM_HEADER_SAMPLE_INDEX_TAG, String.valueOf(sampleIndex));
+            mSampleHeaders[sampleIndex] = sampleHeader;
+        }
+
+        return sampleHeader;
+    }
+
+    public synchronized void addJunction(
+            final String chromosome, int position, final Orientation orientation, int junctionFrags, int otherSupportFrags,
+            boolean indel, boolean hotspot)
+    {
+        // as per the junction file loading
+        boolean discordantOnly = junctionFrags == 0 && otherSupportFrags > 0;
+
+        mChrJunctions.computeIfAbsent(chromosome, k -> Lists.newArrayList()).add(
+                new Junction(chromosome, position, orientation, discordantOnly, indel, hotspot));
+    }
+
+    public void finalise()
+    {
+        // sort each chromosome's reads by position so they can be sliced in the same order as from a sorted BAM
+        for(Map<String,ChromosomeReads> chromosomeReads : mSampleChromosomeReads)
+        {
+            chromosomeReads.values().forEach(x -> x.sort());
+        }
+
+        mChrJunctions.values().forEach(x -> Collections.sort(x));
+        mFinalised = true;
+
+        SV_LOGGER.info("prep output cached {} reads and {} junctions",
+                mRecordCount, mChrJunctions.values().stream().mapToInt(x -> x.size()).sum());
+    }
+
+    public int sampleCount() { return mSampleIds.size(); }
+    public int recordCount() { return mRecordCount; }
+
+    public Map<String,List<Junction>> junctions(final SpecificRegions specificRegions, boolean processDiscordantGroups)
+    {
+        Map<String,List<Junction>> chrJunctionsMap = Maps.newHashMap();
+
+        for(Map.Entry<String,List<Junction>> entry : mChrJunctions.entrySet())
+        {
+            String chromosome = entry.getKey();
+
+            if(!specificRegions.includeChromosome(chromosome))
+                continue;
+
+            List<Junction> junctions = Lists.newArrayList();
+
+            for(Junction junction : entry.getValue())
+            {
+                if(!specificRegions.includePosition(chromosome, junction.Position))
+                    continue;
+
+                if(junction.DiscordantOnly && !processDiscordantGroups)
+                    continue;
+
+                junctions.add(junction);
+            }
+
+            if(!junctions.isEmpty())
+                chrJunctionsMap.put(chromosome, junctions);
+        }
+
+        return chrJunctionsMap;
+    }
+
+    public void sliceReads(
+            int sampleIndex, final String chromosome, int positionStart, int positionEnd, final Consumer<SAMRecord> consumer)
+    {
+        if(!mFinalised)
+            throw new IllegalStateException("prep output cache sliced before being finalised");
+
+        ChromosomeReads chromosomeReads = mSampleChromosomeReads.get(sampleIndex).get(chromosome);
+
+        if(chromosomeReads != null)
+            chromosomeReads.slice(positionStart, positionEnd, consumer);
+    }
+
+    public void clear()
+    {
+        mSampleChromosomeReads.forEach(x -> x.clear());
+        mChrJunctions.clear();
+        Arrays.fill(mSampleHeaders, null);
+    }
+
+    private static int alignmentEnd(final SAMRecord record)
+    {
+        // unmapped reads with a mate's position are indexed as covering a single base
+        return max(record.getAlignmentEnd(), record.getAlignmentStart());
+    }
+
+    private static final Comparator<SAMRecord> RECORD_COMPARATOR = Comparator.comparingInt(SAMRecord::getAlignmentStart)
+            .thenComparing(SAMRecord::getReadName)
+            .thenComparingInt(SAMRecord::getFlags);
+
+    private class ChromosomeReads
+    {
+        private final List<SAMRecord> mRecords;
+        private int mMaxReadSpan; // allows a slice to start its search from the earliest read which could overlap it
+
+        public ChromosomeReads()
+        {
+            mRecords = Lists.newArrayList();
+            mMaxReadSpan = 0;
+        }
+
+        public void add(final SAMRecord record)
+        {
+            mRecords.add(record);
+            mMaxReadSpan = max(mMaxReadSpan, alignmentEnd(record) - record.getAlignmentStart());
+        }
+
+        public void sort() { mRecords.sort(RECORD_COMPARATOR); }
+
+        public void slice(int positionStart, int positionEnd, final Consumer<SAMRecord> consumer)
+        {
+            int index = firstIndexFrom(positionStart - mMaxReadSpan);
+
+            for(; index < mRecords.size(); ++index)
+            {
+                SAMRecord record = mRecords.get(index);
+
+                if(record.getAlignmentStart() > positionEnd)
+                    break;
+
+                if(alignmentEnd(record) >= positionStart)
+                    consumer.accept(record);
+            }
+        }
+
+        private int firstIndexFrom(int position)
+        {
+            int low = 0;
+            int high = mRecords.size();
+
+            while(low < high)
+            {
+                int mid = (low + high) >>> 1;
+
+                if(mRecords.get(mid).getAlignmentStart() < position)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+
+            return low;
+        }
+    }
+}
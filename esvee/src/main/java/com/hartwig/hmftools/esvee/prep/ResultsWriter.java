@@ -39,6 +39,8 @@ import com.hartwig.hmftools.esvee.prep.types.PrepRead;
 import com.hartwig.hmftools.esvee.prep.types.ReadType;
 import com.hartwig.hmftools.esvee.prep.types.RemoteJunction;
 
+import org.jetbrains.annotations.Nullable;
+
 public class ResultsWriter
 {
     private final PrepConfig mConfig;
@@ -46,10 +48,17 @@ public class ResultsWriter
     private final BufferedWriter mReadWriter;
     private final BufferedWriter mJunctionWriter;
     private final BamWriter mBamWriter;
+    private final PrepOutputCache mOutputCache;
 
     public ResultsWriter(final PrepConfig config)
+    {
+        this(config, null);
+    }
+
+    public ResultsWriter(final PrepConfig config, @Nullable final PrepOutputCache outputCache)
     {
         mConfig = config;
+        mOutputCache = outputCache;
 
         if(mConfig.OutputDir == null)
         {
@@ -61,7 +70,7 @@ public class ResultsWriter
 
         mJunctionWriter = initialiseJunctionWriter();
         mReadWriter = initialiseReadWriter();
-        mBamWriter = new BamWriter(config);
+        mBamWriter = new BamWriter(config, outputCache);
     }
 
     public void close()
@@ -138,6 +147,16 @@ public class ResultsWriter
 
     public synchronized void writeJunctionData(final String chromosome, final List<JunctionData> junctions)
     {
+        if(mOutputCache != null)
+        {
+            for(JunctionData junctionData : junctions)
+            {
+                mOutputCache.addJunction(
+                        chromosome, junctionData.Position, junctionData.Orient, junctionData.junctionFragmentCount(),
+                        junctionData.supportingFragmentCount(), junctionData.internalIndel(), junctionData.hotspot());
+            }
+        }
+
         if(mJunctionWriter == null)
             return;
 
@@ -7,7 +7,14 @@ import static com.hartwig.hmftools.esvee.AssemblyConfig.SV_LOGGER;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -34,33 +41,55 @@ public class SpanningReadCache
     // - if no unprocessed partitions then drop immediately
     // - otherwise cache as now (ie source partition and readId)
 
-    private final Map<String,Map<String, CachedReadGroup>> mCandidatePartitionGroups; // keyed by chromosome-partition then readId
-    private final Map<String,Set<String>> mJunctionPartitionReadIds;
-
-    private final PerformanceCounter mPerfCounter;
+    // there is no cache-wide lock: each chr-partition has its own shard, guarded by its own lock only while its processed state is
+    // checked and entries added, and all changes to a read group are made under a lock striped by its readId
+    private final Map<String,PartitionCache> mPartitionCaches;
     private final Set<String> mProcessedPartitions;
+    private final ReentrantLock[] mReadIdLocks;
 
-    private int mLastSnapshotCount;
-    private int mMatchedCandidates;
-    private int mPurgedCandidates;
+    private final AtomicInteger mMatchedCandidates;
+    private final AtomicInteger mPurgedCandidates;
+    private final AtomicBoolean mLoggingCacheCount;
+    private volatile int mLastSnapshotCount;
     private final CandidateBamWriter mCandidateBamWriter;
 
+    // performance and lock contention, recorded per thread and combined when logged
+    private final ThreadLocal<ThreadCounters> mThreadCounters;
+    private final Queue<ThreadCounters> mAllThreadCounters;
+
     public SpanningReadCache(final PrepConfig config)
     {
         mConfig = config;
         mPartitionSize = config.PartitionSize;
-        mCandidatePartitionGroups = Maps.newHashMap();
-        mJunctionPartitionReadIds = Maps.newHashMap();
-        mProcessedPartitions = Sets.newHashSet();
+        mPartitionCaches = new ConcurrentHashMap<>();
+        mProcessedPartitions = ConcurrentHashMap.newKeySet();
+
+        mReadIdLocks = new ReentrantLock[READ_ID_LOCK_STRIPES];
+
+        for(int i = 0; i < mReadIdLocks.length; ++i)
+        {
+            mReadIdLocks[i] = new ReentrantLock();
+        }
+
         mLastSnapshotCount = 0;
-        mMatchedCandidates = 0;
-        mPurgedCandidates = 0;
+        mMatchedCandidates = new AtomicInteger();
+        mPurgedCandidates = new AtomicInteger();
+        mLoggingCacheCount = new AtomicBoolean(false);
         mCandidateBamWriter = new CandidateBamWriter(config);
-        mPerfCounter = new PerformanceCounter("SpanningReads");
+
+        mAllThreadCounters = new ConcurrentLinkedQueue<>();
+
+        mThreadCounters = ThreadLocal.withInitial(() ->
+        {
+            ThreadCounters threadCounters = new ThreadCounters();
+            mAllThreadCounters.add(threadCounters);
+            return threadCounters;
+        });
     }
 
     private static final String CHR_PARTITION_DELIM = "_";
     private static final int LOG_CACH_DIFF = 50000;
+    private static final int READ_ID_LOCK_STRIPES = 1024; // must be a power of 2
 
     public CandidateBamWriter candidateBamWriter() { return mCandidateBamWriter; }
 
@@ -77,19 +106,34 @@ public class SpanningReadCache
 
     private String chrPartition(final String chromosome, int position) { return formChromosomePartition(chromosome, position, mPartitionSize); }
 
-    public synchronized Set<String> getExpectedReadIds(final ChrBaseRegion partitionRegion)
+    public Set<String> getExpectedReadIds(final ChrBaseRegion partitionRegion)
     {
         String chrPartition = chrPartition(partitionRegion.Chromosome, partitionRegion.start());
-        Set<String> expectedReadIds = mJunctionPartitionReadIds.get(chrPartition);
-        return expectedReadIds != null ? Sets.newHashSet(expectedReadIds) : Sets.newHashSet();
+        PartitionCache partitionCache = mPartitionCaches.get(chrPartition);
+        return partitionCache != null ? Sets.newHashSet(partitionCache.JunctionReadIds) : Sets.newHashSet();
     }
 
-    public synchronized void processSpanningReadGroups(final ChrBaseRegion partitionRegion, final Map<String,ReadGroup> spanningGroups)
+    public void processSpanningReadGroups(final ChrBaseRegion partitionRegion, final Map<String,ReadGroup> spanningGroups)
     {
-        mPerfCounter.start();
+        ThreadCounters threadCounters = mThreadCounters.get();
+        threadCounters.Processing.start();
 
         String sourceChrPartition = chrPartition(partitionRegion.Chromosome, partitionRegion.start());
-        mProcessedPartitions.add(sourceChrPartition);
+
+        // mark as processed under the shard's lock, so that any other partition either adds its reads beforehand (and they are
+        // found below) or sees this partition as processed and does not add them
+        PartitionCache sourceCache = mPartitionCaches.computeIfAbsent(sourceChrPartition, k -> new PartitionCache());
+
+        lock(sourceCache.Lock, threadCounters);
+
+        try
+        {
+            mProcessedPartitions.add(sourceChrPartition);
+        }
+        finally
+        {
+            sourceCache.Lock.unlock();
+        }
 
         // look for reads which have already been found (and therefore written)
         for(Map.Entry<String,ReadGroup> entry : spanningGroups.entrySet())
@@ -101,29 +145,39 @@ public class SpanningReadCache
                     .filter(x -> mConfig.SpecificChrRegions.Chromosomes.isEmpty() || !ignoreChromosome(chrFromChrPartition(x)))
                     .collect(Collectors.toList());
 
-            if(readGroup.conditionalOnRemoteReads())
+            ReentrantLock readIdLock = readIdLock(readGroup.id());
+            lock(readIdLock, threadCounters);
+
+            try
             {
-                for(PrepRead read : readGroup.reads())
+                if(readGroup.conditionalOnRemoteReads())
                 {
-                    processCandidateRead(unprocessedPartitions, readGroup, read);
+                    for(PrepRead read : readGroup.reads())
+                    {
+                        processCandidateRead(unprocessedPartitions, readGroup, read);
+                    }
+                }
+                else
+                {
+                    processJunctionRead(unprocessedPartitions, readGroup, sourceCache);
                 }
             }
-            else
+            finally
             {
-                processJunctionRead(unprocessedPartitions, readGroup, sourceChrPartition);
+                readIdLock.unlock();
             }
         }
 
         // purge any cached candidate reads and junction readIds which are no longer relevant
-        purgePartition(sourceChrPartition);
+        purgePartition(sourceChrPartition, sourceCache);
 
         logCacheCount(false);
 
-        mPerfCounter.stop();
+        threadCounters.Processing.stop();
     }
 
     private void processJunctionRead(
-            final List<String> unprocessedPartitions, final ReadGroup readGroup, final String sourceChrPartition)
+            final List<String> unprocessedPartitions, final ReadGroup readGroup, final PartitionCache sourceCache)
     {
         final PrepRead read = readGroup.reads().get(0);
 
@@ -136,33 +190,21 @@ public class SpanningReadCache
         }
         else
         {
-            Map<String,CachedReadGroup> cachedReadGroups = mCandidatePartitionGroups.get(sourceChrPartition);
+            CachedReadGroup cachedReadGroup = sourceCache.CandidateGroups.remove(readGroup.id());
 
-            if(cachedReadGroups != null)
+            if(cachedReadGroup != null)
             {
-                CachedReadGroup cachedReadGroup = cachedReadGroups.get(readGroup.id());
+                mMatchedCandidates.addAndGet(cachedReadGroup.Reads.size());
+                cachedReadGroup.Reads.forEach(x -> readGroup.addRead(x));
+                cachedReadGroup.Reads.clear();
 
-                if(cachedReadGroup != null)
+                // also purge from other remote partitions
+                for(String otherRemotePartition : cachedReadGroup.Partitions)
                 {
-                    mMatchedCandidates += cachedReadGroup.Reads.size();
-                    cachedReadGroup.Reads.forEach(x -> readGroup.addRead(x));
-                    cachedReadGroup.Reads.clear();
+                    PartitionCache otherCache = mPartitionCaches.get(otherRemotePartition);
 
-                    cachedReadGroups.remove(readGroup.id());
-
-                    // also purge from other remote partitions
-                    for(String otherRemotePartitions : cachedReadGroup.Partitions)
-                    {
-                        if(!otherRemotePartitions.equals(sourceChrPartition))
-                        {
-                            Map<String, CachedReadGroup> otherReadGroups = mCandidatePartitionGroups.get(otherRemotePartitions);
-
-                            if(otherReadGroups == null)
-                                continue;
-
-                            otherReadGroups.remove(readGroup.id());
-                        }
-                    }
+                    if(otherCache != null && otherCache != sourceCache)
+                        otherCache.CandidateGroups.remove(readGroup.id());
                 }
             }
         }
@@ -174,15 +216,19 @@ public class SpanningReadCache
         // store the junction group's readId against each unprocessed partition, to use to capture expected reads
         for(String unprocessedPartition : unprocessedPartitions)
         {
-            Set<String> readIds = mJunctionPartitionReadIds.get(unprocessedPartition);
+            PartitionCache partitionCache = lockUnprocessed(unprocessedPartition);
+
+            if(partitionCache == null)
+                continue;
 
-            if(readIds == null)
+            try
             {
-                readIds = Sets.newHashSet();
-                mJunctionPartitionReadIds.put(unprocessedPartition, readIds);
+                partitionCache.JunctionReadIds.add(readGroup.id());
+            }
+            finally
+            {
+                partitionCache.Lock.unlock();
             }
-
-            readIds.add(readGroup.id());
         }
     }
 
@@ -208,21 +254,21 @@ public class SpanningReadCache
 
         for(String remotePartition : readGroup.remotePartitions())
         {
-            Map<String,CachedReadGroup> cachedReadGroups = mCandidatePartitionGroups.get(remotePartition);
+            PartitionCache partitionCache = mPartitionCaches.get(remotePartition);
 
-            if(cachedReadGroups == null)
+            if(partitionCache == null)
                 continue;
 
             if(cachedReadGroup == null)
             {
-                cachedReadGroup = cachedReadGroups.get(readGroup.id());
+                cachedReadGroup = partitionCache.CandidateGroups.get(readGroup.id());
 
                 if(cachedReadGroup != null)
                     matchedPartitions.add(remotePartition);
             }
             else
             {
-                if(cachedReadGroups.containsKey(readGroup.id()))
+                if(partitionCache.CandidateGroups.containsKey(readGroup.id()))
                     matchedPartitions.add(remotePartition);
             }
         }
@@ -244,69 +290,96 @@ public class SpanningReadCache
             if(matchedPartitions.contains(remotePartition))
                 continue;
 
-            Map<String,CachedReadGroup> cachedReadGroups = mCandidatePartitionGroups.get(remotePartition);
+            PartitionCache partitionCache = lockUnprocessed(remotePartition);
+
+            if(partitionCache == null)
+                continue;
 
-            if(cachedReadGroups == null)
+            try
             {
-                cachedReadGroups = Maps.newHashMap();
-                mCandidatePartitionGroups.put(remotePartition, cachedReadGroups);
+                partitionCache.CandidateGroups.put(readGroup.id(), cachedReadGroup);
+            }
+            finally
+            {
+                partitionCache.Lock.unlock();
             }
-
-            cachedReadGroups.put(readGroup.id(), cachedReadGroup);
         }
     }
 
-    private void purgePartition(final String chrPartition)
+    private PartitionCache lockUnprocessed(final String chrPartition)
     {
-        mJunctionPartitionReadIds.remove(chrPartition); // no further value
+        // returns the partition's shard locked, or null if it has since been processed
+        if(mProcessedPartitions.contains(chrPartition))
+            return null;
 
-        Map<String,CachedReadGroup> cachedReadGroups = mCandidatePartitionGroups.get(chrPartition);
+        PartitionCache partitionCache = mPartitionCaches.computeIfAbsent(chrPartition, k -> new PartitionCache());
 
-        if(cachedReadGroups == null)
-            return;
-
-        mCandidatePartitionGroups.remove(chrPartition);
+        lock(partitionCache.Lock, mThreadCounters.get());
 
-        // purge any group without unprocessed partitions
-        Set<String> purgedGroupReadIds = Sets.newHashSet();
-        for(CachedReadGroup cachedReadGroup : cachedReadGroups.values())
+        if(mProcessedPartitions.contains(chrPartition))
         {
-            if(cachedReadGroup.Partitions.stream().noneMatch(x -> !mProcessedPartitions.contains(x)))
-                purgedGroupReadIds.add(cachedReadGroup.ReadId);
+            // drop a shard only created here after the partition was purged
+            if(partitionCache.CandidateGroups.isEmpty() && partitionCache.JunctionReadIds.isEmpty())
+                mPartitionCaches.remove(chrPartition, partitionCache);
+
+            partitionCache.Lock.unlock();
+            return null;
         }
 
-        purgedGroupReadIds.forEach(x -> cachedReadGroups.remove(x));
-        mPurgedCandidates += purgedGroupReadIds.size();
+        return partitionCache;
     }
 
-    private void logCacheCount(boolean forceLog)
+    private void purgePartition(final String chrPartition, final PartitionCache partitionCache)
     {
-        if(mConfig.UseCacheBam)
-        {
-            if(!forceLog)
-                return;
+        // no further value in junction readIds, and no reads can be added since the partition is marked as processed
+        mPartitionCaches.remove(chrPartition);
 
-            int junctionReadIds = mJunctionPartitionReadIds.values().stream().mapToInt(x -> x.size()).sum();
+        // count any group without unprocessed partitions as purged
+        int purgedGroups = (int)partitionCache.CandidateGroups.values().stream()
+                .filter(x -> x.Partitions.stream().allMatch(y -> mProcessedPartitions.contains(y)))
+                .count();
 
-            SV_LOGGER.info("spanning cache partition processed({}) junctionIds({})", mProcessedPartitions.size(), junctionReadIds);
-            return;
-        }
+        mPurgedCandidates.addAndGet(purgedGroups);
+    }
 
-        // read groups spanning multiple partitions will be double-counted, but ignore this
-        int newCount = mCandidatePartitionGroups.values().stream()
-                .mapToInt(x -> x.values().stream().mapToInt(y -> y.Reads.size()).sum()).sum();
+    private void logCacheCount(boolean forceLog)
+    {
+        // only one thread computes the cache count at a time, and others skip it rather than wait
+        if(!mLoggingCacheCount.compareAndSet(false, true))
+            return;
 
-        if(abs(newCount - mLastSnapshotCount) > LOG_CACH_DIFF || forceLog)
+        try
         {
-            int junctionReadIds = mJunctionPartitionReadIds.values().stream().mapToInt(x -> x.size()).sum();
+            if(mConfig.UseCacheBam)
+            {
+                if(!forceLog)
+                    return;
+
+                SV_LOGGER.info("spanning cache partition processed({}) junctionIds({})", mProcessedPartitions.size(), junctionReadIdCount());
+                return;
+            }
+
+            // read groups spanning multiple partitions will be double-counted, but ignore this
+            int newCount = mPartitionCaches.values().stream()
+                    .mapToInt(x -> x.CandidateGroups.values().stream().mapToInt(y -> y.Reads.size()).sum()).sum();
 
-            SV_LOGGER.info("spanning cache partition processed({}) candidates cached({} -> {} matched={} purged={}) junctionIds({})",
-                    mProcessedPartitions.size(), mLastSnapshotCount, newCount, mMatchedCandidates, mPurgedCandidates, junctionReadIds);
+            if(abs(newCount - mLastSnapshotCount) > LOG_CACH_DIFF || forceLog)
+            {
+                SV_LOGGER.info("spanning cache partition processed({}) candidates cached({} -> {} matched={} purged={}) junctionIds({})",
+                        mProcessedPartitions.size(), mLastSnapshotCount, newCount, mMatchedCandidates.get(), mPurgedCandidates.get(),
+                        junctionReadIdCount());
 
-            mLastSnapshotCount = newCount;
+                mLastSnapshotCount = newCount;
+            }
+        }
+        finally
+        {
+            mLoggingCacheCount.set(false);
         }
     }
 
+    private int junctionReadIdCount() { return mPartitionCaches.values().stream().mapToInt(x -> x.JunctionReadIds.size()).sum(); }
+
     private boolean ignoreChromosome(final String chrPartition)
     {
         if(mConfig.SpecificChrRegions.Chromosomes.isEmpty())
@@ -316,17 +389,70 @@ public class SpanningReadCache
         return !mConfig.SpecificChrRegions.Chromosomes.contains(chromosome);
     }
 
-    public synchronized void logStats()
+    private ReentrantLock readIdLock(final String readId)
+    {
+        int hash = readId.hashCode();
+        return mReadIdLocks[(hash ^ (hash >>> 16)) & (READ_ID_LOCK_STRIPES - 1)];
+    }
+
+    private static void lock(final ReentrantLock lock, final ThreadCounters threadCounters)
+    {
+        ++threadCounters.LockAcquisitions;
+
+        if(lock.tryLock())
+            return;
+
+        // record how often and for how long threads wait on another thread holding the same shard or read group
+        ++threadCounters.ContendedAcquisitions;
+        threadCounters.LockWait.start();
+        lock.lock();
+        threadCounters.LockWait.stop();
+    }
+
+    public void logStats()
     {
         if(!mConfig.PerfDebug)
             return;
 
         logCacheCount(true);
-        mPerfCounter.logStats();
+
+        PerformanceCounter processing = new PerformanceCounter("SpanningReads");
+        PerformanceCounter lockWait = new PerformanceCounter("SpanningReadsLockWait", false);
+        long lockAcquisitions = 0;
+        long contendedAcquisitions = 0;
+
+        for(ThreadCounters threadCounters : mAllThreadCounters)
+        {
+            processing.merge(threadCounters.Processing);
+            lockWait.merge(threadCounters.LockWait);
+            lockAcquisitions += threadCounters.LockAcquisitions;
+            contendedAcquisitions += threadCounters.ContendedAcquisitions;
+        }
+
+        processing.logStats();
+        lockWait.logStats();
+
+        SV_LOGGER.info("spanning cache threads({}) lock acquisitions({}) contended({})",
+                mAllThreadCounters.size(), lockAcquisitions, contendedAcquisitions);
+    }
+
+    private class PartitionCache
+    {
+        public final ReentrantLock Lock;
+        public final Map<String,CachedReadGroup> CandidateGroups; // keyed by readId
+        public final Set<String> JunctionReadIds;
+
+        public PartitionCache()
+        {
+            Lock = new ReentrantLock();
+            CandidateGroups = new ConcurrentHashMap<>();
+            JunctionReadIds = ConcurrentHashMap.newKeySet();
+        }
     }
 
     private class CachedReadGroup
     {
+        // only changed under the readId's lock
         public final String ReadId;
         public final List<PrepRead> Reads;
         public final Set<String> Partitions;
@@ -335,7 +461,7 @@ public class SpanningReadCache
         {
             ReadId = readId;
             Reads = Lists.newArrayList();
-            Partitions = Sets.newHashSet();
+            Partitions = ConcurrentHashMap.newKeySet();
         }
 
         public String toString()
@@ -344,13 +470,39 @@ public class SpanningReadCache
         }
     }
 
+    private class ThreadCounters
+    {
+        public final PerformanceCounter Processing;
+        public final PerformanceCounter LockWait;
+        public long LockAcquisitions;
+        public long ContendedAcquisitions;
+
+        public ThreadCounters()
+        {
+            Processing = new PerformanceCounter("SpanningReads");
+            LockWait = new PerformanceCounter("SpanningReadsLockWait", false);
+            LockAcquisitions = 0;
+            ContendedAcquisitions = 0;
+        }
+    }
+
     @VisibleForTesting
-    public Map<String,Set<String>> junctionPartitionReadIdsMap() { return mJunctionPartitionReadIds; }
+    public Map<String,Set<String>> junctionPartitionReadIdsMap()
+    {
+        Map<String,Set<String>> junctionPartitionReadIds = Maps.newHashMap();
+
+        for(Map.Entry<String,PartitionCache> entry : mPartitionCaches.entrySet())
+        {
+            if(!entry.getValue().JunctionReadIds.isEmpty())
+                junctionPartitionReadIds.put(entry.getKey(), entry.getValue().JunctionReadIds);
+        }
+
+        return junctionPartitionReadIds;
+    }
 
     public void reset()
     {
-        mCandidatePartitionGroups.clear();
-        mJunctionPartitionReadIds.clear();
+        mPartitionCaches.clear();
         mProcessedPartitions.clear();
     }
 
@@ -358,7 +510,8 @@ public class SpanningReadCache
     {
         Set<CachedReadGroup> cachedReadGroups = Sets.newHashSet();
 
-        mCandidatePartitionGroups.values().stream()
+        mPartitionCaches.values().stream()
+                .map(x -> x.CandidateGroups)
                 .filter(x -> readId == null || x.containsKey(readId))
                 .forEach(x -> x.values().forEach(y -> cachedReadGroups.add(y)));
 
@@ -12,17 +12,25 @@ import com.hartwig.hmftools.esvee.common.FragmentLengthBounds;
 import com.hartwig.hmftools.esvee.prep.types.CombinedStats;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public class SvPrepApplication
 {
     private final PrepConfig mConfig;
     private final ResultsWriter mWriter;
     private final SpanningReadCache mSpanningReadCache;
+    private final PrepOutputCache mOutputCache;
 
     public SvPrepApplication(final ConfigBuilder configBuilder)
     {
-        mConfig = new PrepConfig(configBuilder);
-        mWriter = new ResultsWriter(mConfig);
+        this(new PrepConfig(configBuilder), null);
+    }
+
+    public SvPrepApplication(final PrepConfig config, @Nullable final PrepOutputCache outputCache)
+    {
+        mConfig = config;
+        mOutputCache = outputCache;
+        mWriter = new ResultsWriter(mConfig, outputCache);
         mSpanningReadCache = new SpanningReadCache(mConfig);
     }
 
@@ -78,6 +86,9 @@ public class SvPrepApplication
 
         mWriter.close();
 
+        if(mOutputCache != null)
+            mOutputCache.finalise();
+
         long timeTakenMs = System.currentTimeMillis() - startTimeMs;
 
         if(mConfig.PerfDebug && (combinedStats.ReadStats.TotalReads > 10000 || timeTakenMs > 10000))
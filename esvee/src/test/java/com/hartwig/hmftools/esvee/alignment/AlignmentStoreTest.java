@@ -0,0 +1,192 @@
+package com.hartwig.hmftools.esvee.alignment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.esvee.alignment.AlignmentStore.SequenceKey;
+
+import org.broadinstitute.hellbender.utils.bwa.BwaMemAlignment;
+import org.junit.Test;
+
+public class AlignmentStoreTest
+{
+    private static final String FINGERPRINT = "ref.img:1000:bandwidth=31";
+
+    @Test
+    public void testStoreAndReload() throws Exception
+    {
+        File storeFile = createStoreFile();
+
+        byte[] sequence1 = "ACGTACGTAAACCCGGGTTT".getBytes();
+        byte[] sequence2 = "TTTGGGCCCAAACGTACGTA".getBytes();
+        byte[] sequence3 = "ACGTACGTAAACCCGGGTTA".getBytes();
+
+        AlignmentStore store = new AlignmentStore(storeFile.getAbsolutePath(), FINGERPRINT);
+        assertTrue(store.enabled());
+
+        SequenceKey key1 = AlignmentStore.sequenceKey(sequence1);
+        SequenceKey key2 = AlignmentStore.sequenceKey(sequence2);
+        SequenceKey key3 = AlignmentStore.sequenceKey(sequence3);
+
+        assertNull(store.find(key1));
+
+        store.add(key1, List.of(createAlignment(0, 100, "20M", null), createAlignment(2048, 500, "10S10M", "1,+600,10M,0;")));
+        store.add(key2, Collections.emptyList());
+
+        assertEquals(2, store.find(key1).size());
+        store.close();
+
+        store = new AlignmentStore(storeFile.getAbsolutePath(), FINGERPRINT);
+        assertEquals(2, store.recordCount());
+
+        List<BwaMemAlignment> alignments = store.find(key1);
+        assertNotNull(alignments);
+        assertEquals(2, alignments.size());
+        assertAlignmentsEqual(createAlignment(0, 100, "20M", null), alignments.get(0));
+        assertAlignmentsEqual(createAlignment(2048, 500, "10S10M", "1,+600,10M,0;"), alignments.get(1));
+
+        // a sequence with no alignments is distinct from one not seen before
+        assertNotNull(store.find(key2));
+        assertTrue(store.find(key2).isEmpty());
+        assertNull(store.find(key3));
+
+        store.add(key3, List.of(createAlignment(16, 300, "20M", null)));
+        store.close();
+
+        // an interrupted write leaves a partial record, which is ignored and then overwritten
+        try(RandomAccessFile file = new RandomAccessFile(storeFile, "rw"))
+        {
+            file.seek(file.length());
+            file.writeInt(1000);
+            file.writeLong(123);
+        }
+
+        store = new AlignmentStore(storeFile.getAbsolutePath(), FINGERPRINT);
+        assertEquals(3, store.recordCount());
+        assertEquals(300, store.find(key3).get(0).getRefStart());
+        store.close();
+
+        // a store from a different reference is not used
+        store = new AlignmentStore(storeFile.getAbsolutePath(), "other.img:1000:bandwidth=31");
+        assertFalse(store.enabled());
+        assertNull(store.find(key1));
+
+        storeFile.delete();
+    }
+
+    @Test
+    public void testStoredAligner() throws Exception
+    {
+        File storeFile = createStoreFile();
+
+        List<Integer> alignedCounts = Lists.newArrayList();
+
+        Aligner aligner = new Aligner()
+        {
+            @Override
+            public List<BwaMemAlignment> alignSequence(final byte[] bases)
+            {
+                return List.of(createAlignment(0, bases.length, bases.length + "M", null));
+            }
+
+            @Override
+            public List<List<BwaMemAlignment>> alignSequences(final List<byte[]> sequences)
+            {
+                alignedCounts.add(sequences.size());
+                return sequences.stream().map(this::alignSequence).collect(Collectors.toList());
+            }
+        };
+
+        List<byte[]> sequences = List.of("ACGTACGTAC".getBytes(), "ACGTACGTACGTAC".getBytes(), "GGGCCCTTTAAA".getBytes());
+
+        AlignmentStore store = new AlignmentStore(storeFile.getAbsolutePath(), FINGERPRINT);
+        StoredAligner storedAligner = new StoredAligner(aligner, store);
+
+        List<List<BwaMemAlignment>> results = storedAligner.alignSequences(sequences.subList(0, 2));
+        assertEquals(10, results.get(0).get(0).getRefStart());
+        assertEquals(14, results.get(1).get(0).getRefStart());
+        store.close();
+
+        // only the unseen sequence is passed to the aligner on a repeat run, with results in the original order
+        store = new AlignmentStore(storeFile.getAbsolutePath(), FINGERPRINT);
+        storedAligner = new StoredAligner(aligner, store);
+
+        results = storedAligner.alignSequences(sequences);
+        assertEquals(List.of(2, 1), alignedCounts);
+        assertEquals(10, results.get(0).get(0).getRefStart());
+        assertEquals(14, results.get(1).get(0).getRefStart());
+        assertEquals(12, results.get(2).get(0).getRefStart());
+
+        storedAligner.alignSequences(sequences);
+        assertEquals(2, alignedCounts.size());
+        store.close();
+
+        storeFile.delete();
+    }
+
+    @Test
+    public void testUnavailableAlignerNotStored() throws Exception
+    {
+        File storeFile = createStoreFile();
+
+        // an aligner which failed to load returns no alignments, which must not be stored as the sequences' results
+        Aligner unavailableAligner = new BwaAligner("");
+        assertFalse(unavailableAligner.isAvailable());
+
+        List<byte[]> sequences = List.of("ACGTACGTAC".getBytes(), "GGGCCCTTTAAA".getBytes());
+
+        AlignmentStore store = new AlignmentStore(storeFile.getAbsolutePath(), FINGERPRINT);
+        StoredAligner storedAligner = new StoredAligner(unavailableAligner, store);
+
+        List<List<BwaMemAlignment>> results = storedAligner.alignSequences(sequences);
+        assertTrue(results.get(0).isEmpty());
+        assertTrue(results.get(1).isEmpty());
+        assertEquals(0, store.recordCount());
+        assertNull(store.find(AlignmentStore.sequenceKey(sequences.get(0))));
+        store.close();
+
+        storeFile.delete();
+    }
+
+    private static File createStoreFile() throws Exception
+    {
+        File storeFile = Files.createTempFile("esvee_alignment_store", ".bin").toFile();
+        storeFile.delete();
+        storeFile.deleteOnExit();
+        return storeFile;
+    }
+
+    private static BwaMemAlignment createAlignment(int flags, int refStart, final String cigar, final String xaTag)
+    {
+        return new BwaMemAlignment(
+                flags, 0, refStart, refStart + 20, 0, 20, 60, 1, 20, 0, cigar, "20", xaTag, -1, -1, 0);
+    }
+
+    private static void assertAlignmentsEqual(final BwaMemAlignment first, final BwaMemAlignment second)
+    {
+        assertEquals(first.getSamFlag(), second.getSamFlag());
+        assertEquals(first.getRefId(), second.getRefId());
+        assertEquals(first.getRefStart(), second.getRefStart());
+        assertEquals(first.getRefEnd(), second.getRefEnd());
+        assertEquals(first.getSeqStart(), second.getSeqStart());
+        assertEquals(first.getSeqEnd(), second.getSeqEnd());
+        assertEquals(first.getMapQual(), second.getMapQual());
+        assertEquals(first.getNMismatches(), second.getNMismatches());
+        assertEquals(first.getAlignerScore(), second.getAlignerScore());
+        assertEquals(first.getCigar(), second.getCigar());
+        assertEquals(first.getMDTag(), second.getMDTag());
+        assertEquals(first.getXATag(), second.getXATag());
+        assertEquals(first.getMateRefId(), second.getMateRefId());
+    }
+}
@@ -0,0 +1,85 @@
+package com.hartwig.hmftools.esvee.assembly;
+
+import static com.hartwig.hmftools.esvee.AssemblyConstants.MATCH_SUBSEQUENCE_LENGTH;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.esvee.assembly.types.SequenceKmerIndex;
+
+import org.junit.Test;
+
+public class SequenceKmerIndexTest
+{
+    @Test
+    public void testIndexOf()
+    {
+        String sequence = "AAAAAAAAAAAACGTACGTACGTNACGTACGTACGTTTTTGGGCCCAAACCC";
+        SequenceKmerIndex index = new SequenceKmerIndex(sequence, 4);
+
+        assertEquals(sequence.indexOf("ACGTACGT"), index.indexOf("ACGTACGT"));
+        assertEquals(sequence.indexOf("CGTNACG"), index.indexOf("CGTNACG"));
+        assertEquals(sequence.indexOf("TTTTGGGCCC"), index.indexOf("TTTTGGGCCC"));
+        assertEquals(-1, index.indexOf("TTTTGGGCCT"));
+        assertEquals(sequence.indexOf("AC"), index.indexOf("AC"));
+        assertEquals(0, index.indexOf("AAAAA"));
+    }
+
+    @Test
+    public void testMatchesStringSearch()
+    {
+        Random random = new Random(1);
+        String bases = "ACGTN";
+
+        for(int test = 0; test < 200; ++test)
+        {
+            // a low-complexity sequence so that k-mers repeat and overlap
+            String sequence = randomSequence(random, 300, test % 2 == 0 ? "AC" : bases);
+            String query = random.nextBoolean() ? sequence.substring(50, 150) : randomSequence(random, 100, test % 2 == 0 ? "AC" : bases);
+
+            SequenceKmerIndex index = new SequenceKmerIndex(sequence, MATCH_SUBSEQUENCE_LENGTH);
+
+            assertEquals(sequence.indexOf(query), index.indexOf(query));
+
+            for(int offset = 0; offset + MATCH_SUBSEQUENCE_LENGTH <= query.length(); offset += MATCH_SUBSEQUENCE_LENGTH)
+            {
+                List<int[]> expected = Lists.newArrayList();
+                String subSequence = query.substring(offset, offset + MATCH_SUBSEQUENCE_LENGTH);
+
+                int position = sequence.indexOf(subSequence);
+
+                while(position >= 0)
+                {
+                    expected.add(new int[] { offset, position });
+                    position = sequence.indexOf(subSequence, position + MATCH_SUBSEQUENCE_LENGTH);
+                }
+
+                List<int[]> actual = Lists.newArrayList();
+                index.addKmerMatches(query, offset, actual);
+
+                assertEquals(expected.size(), actual.size());
+
+                for(int i = 0; i < expected.size(); ++i)
+                {
+                    assertEquals(expected.get(i)[0], actual.get(i)[0]);
+                    assertEquals(expected.get(i)[1], actual.get(i)[1]);
+                }
+            }
+        }
+    }
+
+    private static String randomSequence(final Random random, int length, final String bases)
+    {
+        StringBuilder sb = new StringBuilder(length);
+
+        for(int i = 0; i < length; ++i)
+        {
+            sb.append(bases.charAt(random.nextInt(bases.length())));
+        }
+
+        return sb.toString();
+    }
+}
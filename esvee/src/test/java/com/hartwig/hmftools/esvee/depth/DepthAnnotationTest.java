@@ -207,6 +207,59 @@ public class DepthAnnotationTest
         Assert.assertEquals(variants.size() - 1, mDepthTask.sliceRegionState().UncappedVariants.size());
     }
 
+    @Test
+    public void testSweep()
+    {
+        mDepthTask.reset();
+
+        VariantContext var1 = createVariantContext(nextVariantId(), 1000);
+        VariantContext var2 = createVariantContext(nextVariantId(), 10000);
+
+        mDepthTask.addVariants(Lists.newArrayList(var1, var2));
+
+        // distant variants have their fragment windows read as separate regions
+        Assert.assertEquals(2, mDepthTask.initialiseSweep().size());
+
+        SAMRecord read1 = createSamRecord(
+                mReadIdGen.nextId(), CHR_1, 800, CHR_1, 1300, "100M", true, false,
+                false, "");
+
+        SAMRecord read2 = createSamRecord(
+                mReadIdGen.nextId(), CHR_1, 950, CHR_1, 1500, "100M", true, false,
+                false, "");
+
+        SAMRecord mate1 = createSamRecord(
+                read1.getReadName(), CHR_1, 1300, CHR_1, 800, "100M", false, true,
+                false, "");
+        mate1.setReadNegativeStrandFlag(true);
+
+        mDepthTask.processSweepRecord(read1);
+        mDepthTask.processSweepRecord(read2);
+        Assert.assertEquals(1, mDepthTask.sliceRegionState().Variants.size());
+        Assert.assertEquals(2, mDepthTask.readGroups().size());
+
+        mDepthTask.processSweepRecord(mate1);
+        Assert.assertEquals(1, mDepthTask.readGroups().size());
+        checkRefSupport(1000, 0, 1);
+
+        // the second read's mate is not received, so it is assessed once the sweep has passed its mate's position
+        SAMRecord read3 = createSamRecord(
+                mReadIdGen.nextId(), CHR_1, 9950, CHR_2, 100, "100M", true, false,
+                false, "");
+
+        mDepthTask.processSweepRecord(read3);
+        assertTrue(mDepthTask.readGroups().isEmpty());
+        checkRefSupport(1000, 1, 1);
+
+        // and the first variant is dropped from the active set
+        Assert.assertEquals(1, mDepthTask.sliceRegionState().Variants.size());
+        Assert.assertEquals(10000, mDepthTask.sliceRegionState().Variants.get(0).Position);
+        checkRefSupport(10000, 1, 0);
+
+        mDepthTask.completeSweep();
+        checkRefSupport(1000, 1, 1);
+    }
+
     private void checkRefSupport(int varPosition, int refSupport, int refPairSupport)
     {
         VariantInfo variant = mDepthTask.variantInfos().stream().filter(x -> x.Position == varPosition).findFirst().orElse(null);
@@ -0,0 +1,127 @@
+package com.hartwig.hmftools.esvee.prep;
+
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_2;
+import static com.hartwig.hmftools.esvee.TestUtils.createSamRecord;
+import static com.hartwig.hmftools.esvee.common.SvConstants.BAM_HEADER_SAMPLE_INDEX_TAG;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.genome.region.Orientation;
+import com.hartwig.hmftools.common.region.SpecificRegions;
+import com.hartwig.hmftools.esvee.assembly.read.Read;
+import com.hartwig.hmftools.esvee.assembly.types.Junction;
+
+import org.junit.Test;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+
+public class PrepOutputCacheTest
+{
+    private static final String TUMOR_ID = "TUMOR";
+    private static final String REF_ID = "REF";
+    private static final String READ_BASES = "A".repeat(100);
+
+    @Test
+    public void testSliceReads()
+    {
+        PrepOutputCache cache = new PrepOutputCache(List.of(TUMOR_ID, REF_ID));
+
+        // added out of order, as from multiple partition threads
+        cache.addRecord(TUMOR_ID, createSamRecord("READ_03", CHR_1, 3000, READ_BASES, "100M"));
+        cache.addRecord(TUMOR_ID, createSamRecord("READ_01", CHR_1, 1000, READ_BASES, "100M"));
+        cache.addRecord(TUMOR_ID, createSamRecord("READ_02", CHR_1, 500, READ_BASES, "50M2000N50M"));
+        cache.addRecord(TUMOR_ID, createSamRecord("READ_04", CHR_2, 1000, READ_BASES, "100M"));
+
+        SAMRecord refRecord = createSamRecord("READ_05", CHR_1, 1000, READ_BASES, "100M");
+        cache.addRecord(REF_ID, refRecord);
+
+        assertEquals(5, cache.recordCount());
+        assertEquals("1", refRecord.getHeader().getAttribute(BAM_HEADER_SAMPLE_INDEX_TAG));
+
+        cache.finalise();
+
+        // the spliced read starts well before the slice but overlaps it
+        assertEquals(List.of("READ_02", "READ_01"), sliceReadIds(cache, 0, CHR_1, 1050, 1200));
+        assertEquals(List.of("READ_02", "READ_03"), sliceReadIds(cache, 0, CHR_1, 2200, 3000));
+        assertEquals(List.of("READ_02", "READ_01", "READ_03"), sliceReadIds(cache, 0, CHR_1, 1, 5000));
+        assertTrue(sliceReadIds(cache, 0, CHR_1, 3100, 5000).isEmpty());
+
+        assertEquals(List.of("READ_05"), sliceReadIds(cache, 1, CHR_1, 1050, 1200));
+        assertEquals(List.of("READ_04"), sliceReadIds(cache, 0, CHR_2, 1099, 1099));
+        assertTrue(sliceReadIds(cache, 1, CHR_2, 1, 5000).isEmpty());
+    }
+
+    @Test
+    public void testSampleIndexWithSharedHeader()
+    {
+        PrepOutputCache cache = new PrepOutputCache(List.of(TUMOR_ID, REF_ID));
+
+        // candidate reads recovered from the cache BAM share one header across samples
+        SAMRecord tumorRecord = createSamRecord("READ_01", CHR_1, 1000, READ_BASES, "100M");
+        SAMRecord refRecord = createSamRecord("READ_02", CHR_1, 1000, READ_BASES, "100M");
+        SAMFileHeader sharedHeader = tumorRecord.getHeader();
+        refRecord.setHeader(sharedHeader);
+
+        cache.addRecord(TUMOR_ID, tumorRecord);
+        cache.addRecord(REF_ID, refRecord);
+        cache.addRecord(TUMOR_ID, createSamRecord("READ_03", CHR_1, 2000, READ_BASES, "100M"));
+
+        assertEquals(0, new Read(tumorRecord).sampleIndex());
+        assertEquals(1, new Read(refRecord).sampleIndex());
+        assertNull(sharedHeader.getAttribute(BAM_HEADER_SAMPLE_INDEX_TAG));
+
+        cache.finalise();
+
+        List<SAMRecord> records = Lists.newArrayList();
+        cache.sliceReads(0, CHR_1, 1, 5000, records::add);
+        assertEquals(2, records.size());
+        assertTrue(records.stream().allMatch(x -> new Read(x).sampleIndex() == 0));
+
+        records.clear();
+        cache.sliceReads(1, CHR_1, 1, 5000, records::add);
+        assertEquals(1, new Read(records.get(0)).sampleIndex());
+    }
+
+    @Test
+    public void testJunctions()
+    {
+        PrepOutputCache cache = new PrepOutputCache(List.of(TUMOR_ID));
+
+        cache.addJunction(CHR_1, 2000, Orientation.FORWARD, 5, 2, false, false);
+        cache.addJunction(CHR_1, 1000, Orientation.REVERSE, 0, 3, false, false);
+        cache.addJunction(CHR_2, 1000, Orientation.FORWARD, 2, 0, true, false);
+        cache.finalise();
+
+        Map<String,List<Junction>> chrJunctions = cache.junctions(new SpecificRegions(), true);
+        assertEquals(2, chrJunctions.size());
+
+        List<Junction> junctions = chrJunctions.get(CHR_1);
+        assertEquals(2, junctions.size());
+        assertEquals(1000, junctions.get(0).Position);
+        assertTrue(junctions.get(0).DiscordantOnly);
+        assertFalse(junctions.get(1).DiscordantOnly);
+        assertTrue(chrJunctions.get(CHR_2).get(0).IndelBased);
+
+        chrJunctions = cache.junctions(new SpecificRegions(), false);
+        assertEquals(1, chrJunctions.get(CHR_1).size());
+        assertEquals(2000, chrJunctions.get(CHR_1).get(0).Position);
+    }
+
+    private static List<String> sliceReadIds(
+            final PrepOutputCache cache, int sampleIndex, final String chromosome, int positionStart, int positionEnd)
+    {
+        List<SAMRecord> records = Lists.newArrayList();
+        cache.sliceReads(sampleIndex, chromosome, positionStart, positionEnd, records::add);
+        return records.stream().map(SAMRecord::getReadName).collect(Collectors.toList());
+    }
+}
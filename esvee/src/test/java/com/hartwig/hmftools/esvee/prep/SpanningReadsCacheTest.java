@@ -1,5 +1,7 @@
 package com.hartwig.hmftools.esvee.prep;
 
+import static java.lang.Math.max;
+
 import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
 import static com.hartwig.hmftools.esvee.TestUtils.createSamRecord;
 import static com.hartwig.hmftools.esvee.TestUtils.readIdStr;
@@ -14,9 +16,15 @@ import static junit.framework.TestCase.assertEquals;
 import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
 import com.hartwig.hmftools.esvee.prep.types.ReadGroup;
 import com.hartwig.hmftools.esvee.prep.types.PrepRead;
 import com.hartwig.hmftools.esvee.prep.types.ReadType;
@@ -385,4 +393,72 @@ public class SpanningReadsCacheTest
         mSpanningReadCache.reset();
         spanningGroupsMap.clear();
     }
+
+    @Test
+    public void testConcurrentPartitions() throws Exception
+    {
+        int partitionCount = 32;
+        List<Map<String,ReadGroup>> partitionGroups = Lists.newArrayList();
+        List<ChrBaseRegion> partitionRegions = Lists.newArrayList();
+
+        for(int p = 0; p < partitionCount; ++p)
+        {
+            partitionGroups.add(Maps.newHashMap());
+            partitionRegions.add(new ChrBaseRegion(CHR_1, max(p * PARTITION_SIZE, 1), p * PARTITION_SIZE + PARTITION_SIZE - 1));
+        }
+
+        // fragments with a candidate read in one partition and a junction read in another
+        int readId = 0;
+
+        for(int f = 0; f < 2000; ++f)
+        {
+            int candidatePartition = f % partitionCount;
+            int junctionPartition = (f * 7 + 3) % partitionCount;
+
+            if(candidatePartition == junctionPartition)
+                continue;
+
+            int candidatePosition = candidatePartition * PARTITION_SIZE + 500;
+            int junctionPosition = junctionPartition * PARTITION_SIZE + 500;
+
+            PrepRead candidateRead = PrepRead.from(createSamRecord(
+                    readIdStr(++readId), CHR_1, candidatePosition, CHR_1, junctionPosition, true, false, ""));
+            candidateRead.setReadType(CANDIDATE_SUPPORT);
+
+            ReadGroup candidateGroup = new ReadGroup(candidateRead);
+            candidateGroup.setPartitionCount(partitionRegions.get(candidatePartition), PARTITION_SIZE);
+            partitionGroups.get(candidatePartition).put(candidateGroup.id(), candidateGroup);
+
+            PrepRead junctionRead = PrepRead.from(createSamRecord(
+                    readIdStr(readId), CHR_1, junctionPosition, CHR_1, candidatePosition, false, false, ""));
+            junctionRead.setReadType(JUNCTION);
+
+            ReadGroup junctionGroup = new ReadGroup(junctionRead);
+            junctionGroup.setPartitionCount(partitionRegions.get(junctionPartition), PARTITION_SIZE);
+            partitionGroups.get(junctionPartition).put(junctionGroup.id(), junctionGroup);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = Lists.newArrayList();
+
+        for(int p = 0; p < partitionCount; ++p)
+        {
+            int partition = p;
+            futures.add(executor.submit(() ->
+                    mSpanningReadCache.processSpanningReadGroups(partitionRegions.get(partition), partitionGroups.get(partition))));
+        }
+
+        for(Future<?> future : futures)
+        {
+            future.get();
+        }
+
+        executor.shutdown();
+
+        // nothing is left cached against a partition once all have been processed
+        assertEquals(0, getCachedReadsCount(null));
+        assertTrue(mSpanningReadCache.junctionPartitionReadIdsMap().isEmpty());
+
+        mSpanningReadCache.reset();
+    }
 }
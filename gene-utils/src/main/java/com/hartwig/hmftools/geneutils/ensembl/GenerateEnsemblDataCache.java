@@ -16,11 +16,14 @@ import static com.hartwig.hmftools.geneutils.common.CommonUtils.GU_LOGGER;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.ensemblcache.EnsemblDataCache;
+import com.hartwig.hmftools.common.ensemblcache.EnsemblDataImage;
 import com.hartwig.hmftools.common.gene.GeneData;
 import com.hartwig.hmftools.common.gene.ExonData;
 import com.hartwig.hmftools.common.gene.TranscriptData;
@@ -56,6 +59,17 @@ public class GenerateEnsemblDataCache
             ensemblDAO.writeDataCacheFiles(outputDir);
         }
 
+        // remove any image of previous data, since it would be loaded in place of the new files
+        try
+        {
+            Files.deleteIfExists(Paths.get(EnsemblDataImage.imageFile(outputDir)));
+        }
+        catch(IOException e)
+        {
+            GU_LOGGER.error("failed to remove previous Ensembl data image: {}", e.toString());
+            System.exit(1);
+        }
+
         GU_LOGGER.debug("reloading transcript data to generate splice acceptor positions");
 
         // create the transcript splice acceptor position data
@@ -65,6 +79,9 @@ public class GenerateEnsemblDataCache
         createTranscriptPreGenePositionData(
                 geneTransCache.getChrGeneDataMap(), geneTransCache.getTranscriptDataMap(), DEFAULT_PRE_GENE_PROMOTOR_DISTANCE, outputDir);
 
+        if(!EnsemblDataImage.writeImage(outputDir))
+            System.exit(1);
+
         GU_LOGGER.info("Ensembl data cache complete");
     }
 
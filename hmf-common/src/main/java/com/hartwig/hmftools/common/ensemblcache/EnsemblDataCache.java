@@ -16,6 +16,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -25,6 +26,7 @@ import com.hartwig.hmftools.common.gene.ExonData;
 import com.hartwig.hmftools.common.gene.TranscriptData;
 import com.hartwig.hmftools.common.gene.TranscriptProteinData;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+import com.hartwig.hmftools.common.region.IntervalIndex;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
 
 public class EnsemblDataCache
@@ -52,6 +54,9 @@ public class EnsemblDataCache
     private final List<GeneData> mAlternativeGeneData;
     private final List<String> mRestrictedGeneIdList = Lists.newArrayList();
 
+    private final EnsemblDataImage mDataImage; // used in place of the CSV files when present
+    private final Map<String,GeneIndex> mChrGeneIndices; // built on first region query per chromosome
+
     public static final String ENSEMBL_DATA_DIR = "ensembl_data_dir";
     public static final String ENSEMBL_DATA_DIR_CFG = "Ensembl data file directory";
 
@@ -80,6 +85,11 @@ public class EnsemblDataCache
         mRequireNonEnsemblTranscripts = false;
         mDownstreamGeneAnnotations = Maps.newHashMap();
         mAlternativeGeneData = Lists.newArrayList();
+        mChrGeneIndices = new ConcurrentHashMap<>();
+
+        boolean hasImage = mDataPath != null && !mDataPath.isEmpty() && EnsemblDataImage.hasImage(mDataPath);
+        EnsemblDataImage dataImage = hasImage ? EnsemblDataImage.open(EnsemblDataImage.imageFile(mDataPath)) : null;
+        mDataImage = dataImage != null && dataImage.matchesSourceFiles(mDataPath) ? dataImage : null;
     }
 
     public static void addEnsemblDir(final ConfigBuilder configBuilder)
@@ -232,13 +242,8 @@ public class EnsemblDataCache
         // find genes if any of their transcripts are within this position
         List<GeneData> genesList = Lists.newArrayList();
 
-        final List<GeneData> geneDataList = mChrGeneDataMap.get(chromosome);
-
-        for(final GeneData geneData : geneDataList)
+        for(final GeneData geneData : findOverlappingGenes(chromosome, posStart, posEnd))
         {
-            if(posStart > geneData.GeneEnd || posEnd < geneData.GeneStart)
-                continue;
-
             final List<TranscriptData> transList = mTranscriptByGeneIdMap.get(geneData.GeneId);
 
             if(transList == null || transList.isEmpty())
@@ -261,12 +266,10 @@ public class EnsemblDataCache
     {
         final List<GeneData> matchedGenes = Lists.newArrayList();
 
-        final List<GeneData> geneDataList = mChrGeneDataMap.get(chromosome);
+        // candidates are genes within the upstream distance either side, before the strand-specific check
+        int maxDistance = max(upstreamDistance, 0);
 
-        if(geneDataList == null)
-            return matchedGenes;
-
-        for(final GeneData geneData : geneDataList)
+        for(final GeneData geneData : findOverlappingGenes(chromosome, position - maxDistance, position + maxDistance))
         {
             int geneStartRange = geneData.Strand == 1 ? geneData.GeneStart - upstreamDistance : geneData.GeneStart;
             int geneEndRange = geneData.Strand == 1 ? geneData.GeneEnd : geneData.GeneEnd + upstreamDistance;
@@ -294,6 +297,68 @@ public class EnsemblDataCache
         return matchedGenes;
     }
 
+    private List<GeneData> findOverlappingGenes(final String chromosome, int posStart, int posEnd)
+    {
+        final List<GeneData> geneDataList = mChrGeneDataMap.get(chromosome);
+
+        if(geneDataList == null || geneDataList.isEmpty())
+            return Collections.emptyList();
+
+        GeneIndex geneIndex = mChrGeneIndices.get(chromosome);
+
+        if(geneIndex == null || !geneIndex.matches(geneDataList))
+        {
+            synchronized(mChrGeneIndices)
+            {
+                geneIndex = mChrGeneIndices.get(chromosome);
+
+                if(geneIndex == null || !geneIndex.matches(geneDataList))
+                {
+                    geneIndex = new GeneIndex(geneDataList);
+                    mChrGeneIndices.put(chromosome, geneIndex);
+                }
+            }
+        }
+
+        int[] indices = geneIndex.Intervals.findOverlapping(posStart, posEnd);
+
+        List<GeneData> genes = Lists.newArrayListWithCapacity(indices.length);
+
+        for(int index : indices)
+        {
+            genes.add(geneDataList.get(index));
+        }
+
+        return genes;
+    }
+
+    private static class GeneIndex
+    {
+        public final List<GeneData> Genes;
+        public final int GeneCount;
+        public final IntervalIndex Intervals;
+
+        public GeneIndex(final List<GeneData> genes)
+        {
+            Genes = genes;
+            GeneCount = genes.size();
+
+            int[] geneStarts = new int[GeneCount];
+            int[] geneEnds = new int[GeneCount];
+
+            for(int i = 0; i < GeneCount; ++i)
+            {
+                geneStarts[i] = genes.get(i).GeneStart;
+                geneEnds[i] = genes.get(i).GeneEnd;
+            }
+
+            Intervals = new IntervalIndex(geneStarts, geneEnds);
+        }
+
+        // rebuilt if the chromosome's genes are replaced or added to after loading
+        public boolean matches(final List<GeneData> genes) { return Genes == genes && GeneCount == genes.size(); }
+    }
+
     public int findPrecedingGeneSpliceAcceptorPosition(int transId)
     {
         if(mTransSpliceAcceptorPosDataMap.isEmpty())
@@ -386,6 +451,9 @@ public class EnsemblDataCache
 
     public boolean load(boolean delayTranscriptLoading)
     {
+        if(mDataImage != null)
+            return loadFromImage(delayTranscriptLoading);
+
         if(!loadEnsemblGeneData(mDataPath, mRestrictedGeneIdList, mChrGeneDataMap, mRefGenomeVersion, mRequireGeneSynonyms))
             return false;
 
@@ -408,6 +476,26 @@ public class EnsemblDataCache
         return true;
     }
 
+    private boolean loadFromImage(boolean delayTranscriptLoading)
+    {
+        mDataImage.loadGeneData(mRestrictedGeneIdList, mChrGeneDataMap, mRefGenomeVersion, mRequireGeneSynonyms);
+
+        if(!delayTranscriptLoading)
+        {
+            mDataImage.loadTranscriptData(
+                    mTranscriptByGeneIdMap, mRestrictedGeneIdList, mRequireExons, mCanonicalTranscriptsOnly,
+                    mRequireNonEnsemblTranscripts, Collections.emptyList());
+
+            if(mRequireProteinDomains)
+                mDataImage.loadTranscriptProteinData(mEnsemblProteinDataMap, Sets.newHashSet());
+
+            if(mRequireSplicePositions)
+                mDataImage.loadTranscriptSpliceAcceptorData(mTransSpliceAcceptorPosDataMap, Sets.newHashSet());
+        }
+
+        return true;
+    }
+
     public boolean loadTranscriptData(final List<String> restrictedGeneIds)
     {
         return loadTranscriptData(restrictedGeneIds, Collections.emptyList());
@@ -415,6 +503,24 @@ public class EnsemblDataCache
 
     public boolean loadTranscriptData(final List<String> restrictedGeneIds, final List<String> nonCanonicalTrans)
     {
+        if(mDataImage != null)
+        {
+            mDataImage.loadTranscriptData(
+                    mTranscriptByGeneIdMap, restrictedGeneIds, mRequireExons, mCanonicalTranscriptsOnly,
+                    mRequireNonEnsemblTranscripts, nonCanonicalTrans);
+
+            Set<Integer> uniqueTransIds = Sets.newHashSet();
+            mTranscriptByGeneIdMap.values().forEach(x -> x.forEach(y -> uniqueTransIds.add(y.TransId)));
+
+            if(mRequireProteinDomains)
+                mDataImage.loadTranscriptProteinData(mEnsemblProteinDataMap, uniqueTransIds);
+
+            if(mRequireSplicePositions)
+                mDataImage.loadTranscriptSpliceAcceptorData(mTransSpliceAcceptorPosDataMap, uniqueTransIds);
+
+            return true;
+        }
+
         if(!EnsemblDataLoader.loadTranscriptData(
                 mDataPath, mTranscriptByGeneIdMap, restrictedGeneIds, mRequireExons, mCanonicalTranscriptsOnly,
                 mRequireNonEnsemblTranscripts, nonCanonicalTrans))
@@ -0,0 +1,649 @@
+package com.hartwig.hmftools.common.ensemblcache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.ENSEMBL_GENE_DATA_FILE;
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.ENSEMBL_PROTEIN_FEATURE_DATA_FILE;
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.ENSEMBL_TRANSCRIPT_PREFIX;
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.ENSEMBL_TRANS_EXON_DATA_FILE;
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.ENSEMBL_TRANS_SPLICE_DATA_FILE;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.checkAddDirSeparator;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.hartwig.hmftools.common.gene.ExonData;
+import com.hartwig.hmftools.common.gene.GeneData;
+import com.hartwig.hmftools.common.gene.TranscriptData;
+import com.hartwig.hmftools.common.gene.TranscriptProteinData;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+// a binary image of the Ensembl data cache files, memory-mapped on load in place of parsing the CSV files, with each gene's
+// transcripts located by offset so a restricted set of genes are read directly
+public class EnsemblDataImage
+{
+    public static final String ENSEMBL_DATA_IMAGE_FILE = "ensembl_data_cache.bin";
+
+    private static final int MAGIC = 0x454E5343; // ENSC
+    private static final int FORMAT_VERSION = 2;
+    private static final int NULL_POSITION = Integer.MIN_VALUE;
+    private static final int EXON_BYTES = 5 * Integer.BYTES;
+
+    // the CSV files the image is compiled from, with their size and modified time recorded in its header
+    private static final List<String> SOURCE_FILES = List.of(
+            ENSEMBL_GENE_DATA_FILE, ENSEMBL_TRANS_EXON_DATA_FILE, ENSEMBL_PROTEIN_FEATURE_DATA_FILE, ENSEMBL_TRANS_SPLICE_DATA_FILE);
+
+    private static final int SECTION_OFFSETS_LENGTH = 7 * Integer.BYTES;
+    private static final long MISSING_FILE = -1;
+
+    private static final Logger LOGGER = LogManager.getLogger(EnsemblDataImage.class);
+
+    private final String mFilename;
+    private final MappedByteBuffer mBuffer;
+
+    private final int[] mStringOffsets;
+    private final String[] mStrings; // decoded on first use
+
+    private final int mGenesOffset;
+    private final int mTranscriptIndexOffset;
+    private final int mProteinsOffset;
+    private final int mSpliceAcceptorsOffset;
+
+    private final long[] mSourceFileStamps; // size and modified time of each source file
+
+    private EnsemblDataImage(final String filename, final MappedByteBuffer buffer)
+    {
+        mFilename = filename;
+        mBuffer = buffer;
+
+        if(buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION)
+            throw new IllegalArgumentException("invalid Ensembl data image: " + filename);
+
+        int stringTableOffset = buffer.getInt(8);
+        mGenesOffset = buffer.getInt(12);
+        mTranscriptIndexOffset = buffer.getInt(16);
+        mProteinsOffset = buffer.getInt(20);
+        mSpliceAcceptorsOffset = buffer.getInt(24);
+
+        mSourceFileStamps = new long[SOURCE_FILES.size() * 2];
+
+        for(int i = 0; i < mSourceFileStamps.length; ++i)
+        {
+            mSourceFileStamps[i] = buffer.getLong(SECTION_OFFSETS_LENGTH + i * Long.BYTES);
+        }
+
+        int stringCount = buffer.getInt(stringTableOffset);
+        mStringOffsets = new int[stringCount];
+
+        ByteBuffer offsets = buffer.duplicate();
+        offsets.position(stringTableOffset + 4);
+        offsets.asIntBuffer().get(mStringOffsets);
+
+        mStrings = new String[stringCount];
+    }
+
+    public static String imageFile(final String dataPath) { return checkAddDirSeparator(dataPath) + ENSEMBL_DATA_IMAGE_FILE; }
+
+    public static boolean hasImage(final String dataPath) { return Files.exists(Paths.get(imageFile(dataPath))); }
+
+    private static long[] sourceFileStamps(final String dataPath)
+    {
+        long[] stamps = new long[SOURCE_FILES.size() * 2];
+
+        for(int i = 0; i < SOURCE_FILES.size(); ++i)
+        {
+            File sourceFile = new File(checkAddDirSeparator(dataPath) + SOURCE_FILES.get(i));
+            boolean exists = sourceFile.exists();
+            stamps[i * 2] = exists ? sourceFile.length() : MISSING_FILE;
+            stamps[i * 2 + 1] = exists ? sourceFile.lastModified() : MISSING_FILE;
+        }
+
+        return stamps;
+    }
+
+    public boolean matchesSourceFiles(final String dataPath)
+    {
+        // CSV files which have changed or been added since the image was written make it stale, but it can be used without them
+        long[] currentStamps = sourceFileStamps(dataPath);
+
+        for(int i = 0; i < SOURCE_FILES.size(); ++i)
+        {
+            if(currentStamps[i * 2] == MISSING_FILE)
+                continue;
+
+            if(currentStamps[i * 2] != mSourceFileStamps[i * 2] || currentStamps[i * 2 + 1] != mSourceFileStamps[i * 2 + 1])
+            {
+                LOGGER.warn("Ensembl data file({}) differs from that used to write image({}), loading from data files",
+                        SOURCE_FILES.get(i), mFilename);
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public static EnsemblDataImage open(final String filename)
+    {
+        try(FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ))
+        {
+            // the mapping remains valid once the channel is closed, and is shared through the page cache by any process mapping it
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new EnsemblDataImage(filename, buffer);
+        }
+        catch(IOException | IllegalArgumentException e)
+        {
+            LOGGER.error("failed to open Ensembl data image({}): {}", filename, e.toString());
+            return null;
+        }
+    }
+
+    private synchronized String string(int index)
+    {
+        String value = mStrings[index];
+
+        if(value == null)
+        {
+            int offset = mStringOffsets[index];
+            int length = mBuffer.getInt(offset);
+            byte[] bytes = new byte[length];
+
+            ByteBuffer source = mBuffer.duplicate();
+            source.position(offset + 4);
+            source.get(bytes);
+
+            value = new String(bytes, UTF_8);
+            mStrings[index] = value;
+        }
+
+        return value;
+    }
+
+    private ByteBuffer reader(int offset)
+    {
+        ByteBuffer reader = mBuffer.duplicate();
+        reader.position(offset);
+        return reader;
+    }
+
+    public boolean loadGeneData(
+            final List<String> restrictedGeneIds, final Map<String,List<GeneData>> chrGeneDataMap, final RefGenomeVersion version,
+            boolean loadSynonyms)
+    {
+        ByteBuffer reader = reader(mGenesOffset);
+        int geneCount = reader.getInt();
+        int loadedCount = 0;
+
+        String currentChr = "";
+        List<GeneData> geneList = null;
+
+        for(int i = 0; i < geneCount; ++i)
+        {
+            String geneId = string(reader.getInt());
+            int geneNameIndex = reader.getInt();
+            int chromosomeIndex = reader.getInt();
+            byte strand = reader.get();
+            int geneStart = reader.getInt();
+            int geneEnd = reader.getInt();
+            int karyotypeBandIndex = reader.getInt();
+            int synonymsIndex = reader.getInt();
+
+            if(!restrictedGeneIds.isEmpty() && !restrictedGeneIds.contains(geneId))
+                continue;
+
+            String chromosome = version.versionedChromosome(string(chromosomeIndex));
+
+            GeneData geneData = new GeneData(
+                    geneId, string(geneNameIndex), chromosome, strand, geneStart, geneEnd, string(karyotypeBandIndex));
+
+            if(loadSynonyms)
+                geneData.setSynonyms(string(synonymsIndex));
+
+            if(!currentChr.equals(chromosome))
+            {
+                currentChr = chromosome;
+                geneList = chrGeneDataMap.computeIfAbsent(chromosome, k -> Lists.newArrayList());
+            }
+
+            geneList.add(geneData);
+            ++loadedCount;
+        }
+
+        LOGGER.debug("loaded {} gene records from image({})", loadedCount, mFilename);
+        return true;
+    }
+
+    public boolean loadTranscriptData(
+            final Map<String,List<TranscriptData>> transcriptDataMap, final List<String> restrictedGeneIds, boolean cacheExons,
+            boolean canonicalOnly, boolean includeNonEnsembl, final List<String> nonCanonicalTrans)
+    {
+        ByteBuffer indexReader = reader(mTranscriptIndexOffset);
+        int geneCount = indexReader.getInt();
+
+        Set<String> restrictedGenes = restrictedGeneIds.isEmpty() ? Collections.emptySet() : Sets.newHashSet(restrictedGeneIds);
+
+        int transcriptCount = 0;
+        int exonCount = 0;
+
+        for(int i = 0; i < geneCount; ++i)
+        {
+            String geneId = string(indexReader.getInt());
+            int geneOffset = indexReader.getInt();
+
+            if(!restrictedGenes.isEmpty() && !restrictedGenes.contains(geneId))
+                continue;
+
+            List<TranscriptData> transDataList = Lists.newArrayList();
+            transcriptDataMap.put(geneId, transDataList);
+
+            ByteBuffer reader = reader(geneOffset);
+            int geneTransCount = reader.getInt();
+
+            for(int t = 0; t < geneTransCount; ++t)
+            {
+                int transId = reader.getInt();
+                String transName = string(reader.getInt());
+                boolean isCanonical = reader.get() != 0;
+                byte strand = reader.get();
+                int transStart = reader.getInt();
+                int transEnd = reader.getInt();
+                int codingStart = reader.getInt();
+                int codingEnd = reader.getInt();
+                int bioTypeIndex = reader.getInt();
+                int transExonCount = reader.getInt();
+
+                boolean skipTranscript = (canonicalOnly && !isCanonical && !nonCanonicalTrans.contains(transName))
+                        || (!includeNonEnsembl && !transName.startsWith(ENSEMBL_TRANSCRIPT_PREFIX));
+
+                if(skipTranscript)
+                {
+                    reader.position(reader.position() + transExonCount * EXON_BYTES);
+                    continue;
+                }
+
+                TranscriptData transData = new TranscriptData(
+                        transId, transName, geneId, isCanonical, strand, transStart, transEnd,
+                        codingStart != NULL_POSITION ? codingStart : null, codingEnd != NULL_POSITION ? codingEnd : null,
+                        string(bioTypeIndex));
+
+                List<ExonData> exons = Lists.newArrayListWithCapacity(transExonCount);
+
+                if(cacheExons || isCanonical)
+                {
+                    for(int e = 0; e < transExonCount; ++e)
+                    {
+                        exons.add(new ExonData(transId, reader.getInt(), reader.getInt(), reader.getInt(), reader.getInt(), reader.getInt()));
+                    }
+
+                    exonCount += transExonCount;
+                }
+                else
+                {
+                    reader.position(reader.position() + transExonCount * EXON_BYTES);
+                }
+
+                transData.setExons(exons);
+                transDataList.add(transData);
+                ++transcriptCount;
+            }
+        }
+
+        LOGGER.debug("loaded {} genes with {} transcripts records and {} exons from image",
+                transcriptDataMap.size(), transcriptCount, exonCount);
+
+        return true;
+    }
+
+    public boolean loadTranscriptProteinData(
+            final Map<Integer,List<TranscriptProteinData>> proteinDataMap, final Set<Integer> restrictedTransIds)
+    {
+        ByteBuffer reader = reader(mProteinsOffset);
+        int recordCount = reader.getInt();
+
+        int currentTransId = -1;
+        List<TranscriptProteinData> transProteinDataList = null;
+
+        for(int i = 0; i < recordCount; ++i)
+        {
+            int transId = reader.getInt();
+            int translationId = reader.getInt();
+            int featureId = reader.getInt();
+            int seqStart = reader.getInt();
+            int seqEnd = reader.getInt();
+            int descriptionIndex = reader.getInt();
+
+            if(!restrictedTransIds.isEmpty() && !restrictedTransIds.contains(transId))
+                continue;
+
+            if(transId != currentTransId)
+            {
+                currentTransId = transId;
+                transProteinDataList = Lists.newArrayList();
+                proteinDataMap.put(transId, transProteinDataList);
+            }
+
+            transProteinDataList.add(new TranscriptProteinData(transId, translationId, featureId, seqStart, seqEnd, string(descriptionIndex)));
+        }
+
+        return true;
+    }
+
+    public boolean loadTranscriptSpliceAcceptorData(final Map<Integer,Integer> transSaPositionDataMap, final Set<Integer> restrictedTransIds)
+    {
+        ByteBuffer reader = reader(mSpliceAcceptorsOffset);
+        int recordCount = reader.getInt();
+
+        for(int i = 0; i < recordCount; ++i)
+        {
+            int transId = reader.getInt();
+            int position = reader.getInt();
+
+            if(!restrictedTransIds.isEmpty() && !restrictedTransIds.contains(transId))
+                continue;
+
+            transSaPositionDataMap.put(transId, position);
+        }
+
+        return true;
+    }
+
+    // compiles the Ensembl data cache files in a directory into an image, written to the same directory
+    public static boolean writeImage(final String dataPath)
+    {
+        String ensemblDir = checkAddDirSeparator(dataPath);
+
+        // load genes without chromosome versioning so the image applies to either ref genome version's naming
+        Map<String,List<GeneData>> chrGeneDataMap = Maps.newLinkedHashMap();
+        Map<String,List<TranscriptData>> transcriptDataMap = Maps.newLinkedHashMap();
+        Map<Integer,List<TranscriptProteinData>> proteinDataMap = Maps.newLinkedHashMap();
+        Map<Integer,Integer> spliceAcceptorMap = Maps.newLinkedHashMap();
+
+        if(!EnsemblDataLoader.loadEnsemblGeneData(ensemblDir, Collections.emptyList(), chrGeneDataMap, RefGenomeVersion.V37, true))
+            return false;
+
+        if(!EnsemblDataLoader.loadTranscriptData(
+                ensemblDir, transcriptDataMap, Collections.emptyList(), true, false, true, Collections.emptyList()))
+        {
+            return false;
+        }
+
+        // protein and splice acceptor data are optional
+        EnsemblDataLoader.loadTranscriptProteinData(ensemblDir, proteinDataMap, Collections.emptySet());
+        EnsemblDataLoader.loadTranscriptSpliceAcceptorData(ensemblDir, spliceAcceptorMap, Collections.emptySet());
+
+        String filename = imageFile(ensemblDir);
+        long[] sourceFileStamps = sourceFileStamps(ensemblDir);
+
+        try
+        {
+            new ImageWriter(chrGeneDataMap, transcriptDataMap, proteinDataMap, spliceAcceptorMap)
+                    .write(Paths.get(filename), sourceFileStamps);
+        }
+        catch(IOException e)
+        {
+            LOGGER.error("failed to write Ensembl data image({}): {}", filename, e.toString());
+            return false;
+        }
+
+        LOGGER.info("written Ensembl data image({}) with {} genes and {} transcripts", filename,
+                chrGeneDataMap.values().stream().mapToInt(x -> x.size()).sum(),
+                transcriptDataMap.values().stream().mapToInt(x -> x.size()).sum());
+
+        return true;
+    }
+
+    private static class ImageWriter
+    {
+        private final Map<String,List<GeneData>> mChrGeneDataMap;
+        private final Map<String,List<TranscriptData>> mTranscriptDataMap;
+        private final Map<Integer,List<TranscriptProteinData>> mProteinDataMap;
+        private final Map<Integer,Integer> mSpliceAcceptorMap;
+
+        private final Map<String,Integer> mStringIndices;
+        private final List<String> mStrings;
+
+        public ImageWriter(
+                final Map<String,List<GeneData>> chrGeneDataMap, final Map<String,List<TranscriptData>> transcriptDataMap,
+                final Map<Integer,List<TranscriptProteinData>> proteinDataMap, final Map<Integer,Integer> spliceAcceptorMap)
+        {
+            mChrGeneDataMap = chrGeneDataMap;
+            mTranscriptDataMap = transcriptDataMap;
+            mProteinDataMap = proteinDataMap;
+            mSpliceAcceptorMap = spliceAcceptorMap;
+            mStringIndices = Maps.newHashMap();
+            mStrings = Lists.newArrayList();
+        }
+
+        private int stringIndex(final String value)
+        {
+            return mStringIndices.computeIfAbsent(value, k -> { mStrings.add(k); return mStrings.size() - 1; });
+        }
+
+        public void write(final Path path, final long[] sourceFileStamps) throws IOException
+        {
+            // sections are formed in memory first, so the header can hold their offsets and strings can be shared across them
+            byte[] genes = writeGenes();
+            byte[] transcripts = writeTranscripts();
+            byte[] proteins = writeProteins();
+            byte[] spliceAcceptors = writeSpliceAcceptors();
+            int headerLength = SECTION_OFFSETS_LENGTH + sourceFileStamps.length * Long.BYTES;
+            byte[] stringTable = writeStringTable(headerLength);
+
+            int stringTableOffset = headerLength;
+            int genesOffset = stringTableOffset + stringTable.length;
+            int transcriptsOffset = genesOffset + genes.length;
+            int proteinsOffset = transcriptsOffset + transcripts.length;
+            int spliceAcceptorsOffset = proteinsOffset + proteins.length;
+
+            try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path.toFile()))))
+            {
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                output.writeInt(stringTableOffset);
+                output.writeInt(genesOffset);
+                output.writeInt(transcriptsOffset + transcriptIndexStart());
+                output.writeInt(proteinsOffset);
+                output.writeInt(spliceAcceptorsOffset);
+
+                for(long stamp : sourceFileStamps)
+                {
+                    output.writeLong(stamp);
+                }
+
+                output.write(stringTable);
+                output.write(genes);
+                output.write(fixTranscriptOffsets(transcripts, transcriptsOffset));
+                output.write(proteins);
+                output.write(spliceAcceptors);
+            }
+        }
+
+        private byte[] writeGenes() throws IOException
+        {
+            SectionWriter section = new SectionWriter();
+            section.Output.writeInt(mChrGeneDataMap.values().stream().mapToInt(x -> x.size()).sum());
+
+            for(List<GeneData> geneList : mChrGeneDataMap.values())
+            {
+                for(GeneData geneData : geneList)
+                {
+                    section.Output.writeInt(stringIndex(geneData.GeneId));
+                    section.Output.writeInt(stringIndex(geneData.GeneName));
+                    section.Output.writeInt(stringIndex(geneData.Chromosome));
+                    section.Output.writeByte(geneData.Strand);
+                    section.Output.writeInt(geneData.GeneStart);
+                    section.Output.writeInt(geneData.GeneEnd);
+                    section.Output.writeInt(stringIndex(geneData.KaryotypeBand));
+                    section.Output.writeInt(stringIndex(geneData.getSynonyms()));
+                }
+            }
+
+            return section.toBytes();
+        }
+
+        // transcripts are written per gene, followed by an index of each gene's offset relative to the section start
+        private int mTranscriptIndexStart = 0;
+
+        private int transcriptIndexStart() { return mTranscriptIndexStart; }
+
+        private byte[] writeTranscripts() throws IOException
+        {
+            SectionWriter section = new SectionWriter();
+            List<Integer> geneIdIndices = Lists.newArrayList();
+            List<Integer> geneOffsets = Lists.newArrayList();
+
+            for(Map.Entry<String,List<TranscriptData>> entry : mTranscriptDataMap.entrySet())
+            {
+                geneIdIndices.add(stringIndex(entry.getKey()));
+                geneOffsets.add(section.Output.size());
+
+                section.Output.writeInt(entry.getValue().size());
+
+                for(TranscriptData transData : entry.getValue())
+                {
+                    section.Output.writeInt(transData.TransId);
+                    section.Output.writeInt(stringIndex(transData.TransName));
+                    section.Output.writeByte(transData.IsCanonical ? 1 : 0);
+                    section.Output.writeByte(transData.Strand);
+                    section.Output.writeInt(transData.TransStart);
+                    section.Output.writeInt(transData.TransEnd);
+                    section.Output.writeInt(transData.CodingStart != null ? transData.CodingStart : NULL_POSITION);
+                    section.Output.writeInt(transData.CodingEnd != null ? transData.CodingEnd : NULL_POSITION);
+                    section.Output.writeInt(stringIndex(transData.BioType));
+                    section.Output.writeInt(transData.exons().size());
+
+                    for(ExonData exon : transData.exons())
+                    {
+                        section.Output.writeInt(exon.Start);
+                        section.Output.writeInt(exon.End);
+                        section.Output.writeInt(exon.Rank);
+                        section.Output.writeInt(exon.PhaseStart);
+                        section.Output.writeInt(exon.PhaseEnd);
+                    }
+                }
+            }
+
+            mTranscriptIndexStart = section.Output.size();
+            section.Output.writeInt(geneIdIndices.size());
+
+            for(int i = 0; i < geneIdIndices.size(); ++i)
+            {
+                section.Output.writeInt(geneIdIndices.get(i));
+                section.Output.writeInt(geneOffsets.get(i));
+            }
+
+            return section.toBytes();
+        }
+
+        private byte[] fixTranscriptOffsets(final byte[] transcripts, int sectionOffset)
+        {
+            // convert the index's gene offsets from section-relative to file positions
+            ByteBuffer buffer = ByteBuffer.wrap(transcripts);
+            int geneCount = buffer.getInt(mTranscriptIndexStart);
+
+            for(int i = 0; i < geneCount; ++i)
+            {
+                int offsetPosition = mTranscriptIndexStart + Integer.BYTES + i * 2 * Integer.BYTES + Integer.BYTES;
+                buffer.putInt(offsetPosition, buffer.getInt(offsetPosition) + sectionOffset);
+            }
+
+            return transcripts;
+        }
+
+        private byte[] writeProteins() throws IOException
+        {
+            SectionWriter section = new SectionWriter();
+            section.Output.writeInt(mProteinDataMap.values().stream().mapToInt(x -> x.size()).sum());
+
+            for(List<TranscriptProteinData> proteinDataList : mProteinDataMap.values())
+            {
+                for(TranscriptProteinData proteinData : proteinDataList)
+                {
+                    section.Output.writeInt(proteinData.TranscriptId);
+                    section.Output.writeInt(proteinData.TranslationId);
+                    section.Output.writeInt(proteinData.ProteinFeatureId);
+                    section.Output.writeInt(proteinData.SeqStart);
+                    section.Output.writeInt(proteinData.SeqEnd);
+                    section.Output.writeInt(stringIndex(proteinData.HitDescription));
+                }
+            }
+
+            return section.toBytes();
+        }
+
+        private byte[] writeSpliceAcceptors() throws IOException
+        {
+            SectionWriter section = new SectionWriter();
+            section.Output.writeInt(mSpliceAcceptorMap.size());
+
+            for(Map.Entry<Integer,Integer> entry : mSpliceAcceptorMap.entrySet())
+            {
+                section.Output.writeInt(entry.getKey());
+                section.Output.writeInt(entry.getValue());
+            }
+
+            return section.toBytes();
+        }
+
+        private byte[] writeStringTable(int headerLength) throws IOException
+        {
+            // string count and offsets, then each string's length and UTF-8 bytes, with offsets as file positions
+            int offsetsLength = Integer.BYTES + mStrings.size() * Integer.BYTES;
+
+            SectionWriter values = new SectionWriter();
+            int[] offsets = new int[mStrings.size()];
+
+            for(int i = 0; i < mStrings.size(); ++i)
+            {
+                offsets[i] = headerLength + offsetsLength + values.Output.size();
+
+                byte[] bytes = mStrings.get(i).getBytes(UTF_8);
+                values.Output.writeInt(bytes.length);
+                values.Output.write(bytes);
+            }
+
+            SectionWriter section = new SectionWriter();
+            section.Output.writeInt(mStrings.size());
+
+            for(int offset : offsets)
+            {
+                section.Output.writeInt(offset);
+            }
+
+            section.Output.write(values.toBytes());
+            return section.toBytes();
+        }
+    }
+
+    private static class SectionWriter
+    {
+        private final ByteArrayOutputStream mBytes = new ByteArrayOutputStream();
+        public final DataOutputStream Output = new DataOutputStream(mBytes);
+
+        public byte[] toBytes() throws IOException
+        {
+            Output.flush();
+            return mBytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.hartwig.hmftools.common.region;
+
+import static java.lang.Math.max;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// an immutable index of position intervals for overlap queries, held as a balanced tree implicit in the start-ordered arrays, with
+// each node recording the max end of its subtree so non-overlapping subtrees are skipped
+public class IntervalIndex
+{
+    private final int[] mStarts;
+    private final int[] mEnds;
+    private final int[] mItems; // the original index of each interval
+    private final int[] mMaxEnds;
+
+    public IntervalIndex(final int[] starts, final int[] ends)
+    {
+        if(starts.length != ends.length)
+            throw new IllegalArgumentException("interval starts and ends differ in length");
+
+        int count = starts.length;
+
+        // order by start then original index, packed for a primitive sort
+        long[] keys = new long[count];
+
+        for(int i = 0; i < count; ++i)
+        {
+            keys[i] = ((long)starts[i] << 32) | i;
+        }
+
+        Arrays.sort(keys);
+
+        mStarts = new int[count];
+        mEnds = new int[count];
+        mItems = new int[count];
+        mMaxEnds = new int[count];
+
+        for(int i = 0; i < count; ++i)
+        {
+            int item = (int)keys[i];
+            mItems[i] = item;
+            mStarts[i] = starts[item];
+            mEnds[i] = ends[item];
+        }
+
+        buildMaxEnds(0, count);
+    }
+
+    public int size() { return mStarts.length; }
+
+    private int buildMaxEnds(int lower, int upper)
+    {
+        if(lower >= upper)
+            return Integer.MIN_VALUE;
+
+        int mid = (lower + upper) >>> 1;
+
+        mMaxEnds[mid] = max(mEnds[mid], max(buildMaxEnds(lower, mid), buildMaxEnds(mid + 1, upper)));
+        return mMaxEnds[mid];
+    }
+
+    // passes the original index of each interval overlapping the query range to the consumer, in order of interval start
+    public void query(int start, int end, final IntConsumer consumer)
+    {
+        query(0, mStarts.length, start, end, consumer);
+    }
+
+    private void query(int lower, int upper, int start, int end, final IntConsumer consumer)
+    {
+        if(lower >= upper)
+            return;
+
+        int mid = (lower + upper) >>> 1;
+
+        if(mMaxEnds[mid] < start)
+            return;
+
+        query(lower, mid, start, end, consumer);
+
+        if(mStarts[mid] > end)
+            return;
+
+        if(mEnds[mid] >= start)
+            consumer.accept(mItems[mid]);
+
+        query(mid + 1, upper, start, end, consumer);
+    }
+
+    // the original indices of intervals overlapping the query range, in ascending order
+    public int[] findOverlapping(int start, int end)
+    {
+        IntBuffer buffer = new IntBuffer();
+        query(start, end, buffer::add);
+
+        int[] matched = buffer.toArray();
+        Arrays.sort(matched);
+        return matched;
+    }
+
+    private static class IntBuffer
+    {
+        private int[] mValues = new int[8];
+        private int mCount = 0;
+
+        public void add(int value)
+        {
+            if(mCount == mValues.length)
+                mValues = Arrays.copyOf(mValues, mCount * 2);
+
+            mValues[mCount++] = value;
+        }
+
+        public int[] toArray() { return Arrays.copyOf(mValues, mCount); }
+    }
+}
@@ -0,0 +1,228 @@
+package com.hartwig.hmftools.common.sigs;
+
+import static java.lang.Math.abs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+// expectation-maximisation fit of counts to sparse definitions, with working buffers kept and grown across fits so that repeated fits,
+// eg for each gene collection, allocate nothing - the returned allocations and fitted counts are only valid until the next fit, and may
+// be longer than the fit's definitions and categories
+// not thread-safe - use one fitter per task
+public class ExpectationMaxFitter
+{
+    private final double mMinResidualsPerc;
+    private final int mMaxIterations;
+
+    private double[] mAllocations;
+    private double[] mNewAllocations;
+    private double[] mAllocFactors;
+    private double[] mFittedCounts;
+
+    private int mIterations;
+    private double mResiduals;
+    private double mFitTotal;
+
+    public static final int MAX_ITERATIONS = 20;
+    public static final double RESIDUALS_EXIT_PERC = 0.001;
+
+    // a warm start mixes in a share of the uniform allocation, so definitions without a prior allocation can still be fitted
+    public static final double WARM_START_UNIFORM_WEIGHT = 0.05;
+
+    private static final Logger LOGGER = LogManager.getLogger(ExpectationMaxFitter.class);
+
+    public ExpectationMaxFitter()
+    {
+        this(RESIDUALS_EXIT_PERC, MAX_ITERATIONS);
+    }
+
+    public ExpectationMaxFitter(double minResidualsPerc, int maxIterations)
+    {
+        mMinResidualsPerc = minResidualsPerc;
+        mMaxIterations = maxIterations;
+
+        mAllocations = new double[0];
+        mNewAllocations = new double[0];
+        mAllocFactors = new double[0];
+        mFittedCounts = new double[0];
+        mIterations = 0;
+        mResiduals = 0;
+        mFitTotal = 0;
+    }
+
+    public int iterations() { return mIterations; }
+    public double residuals() { return mResiduals; }
+    public double fitTotal() { return mFitTotal; }
+
+    // fitted counts per category from the last fit's allocations
+    public double[] fittedCounts() { return mFittedCounts; }
+
+    public double[] fit(final double[] counts, final SparseSigMatrix definitions)
+    {
+        return fit(counts, definitions, null);
+    }
+
+    // fits the counts, starting from a prior fit's allocations if provided, and returns the allocated count per definition
+    public double[] fit(final double[] counts, final SparseSigMatrix definitions, final double[] priorAllocations)
+    {
+        int definitionCount = definitions.Definitions;
+        int categoryCount = definitions.Categories;
+
+        initialiseBuffers(definitionCount, categoryCount);
+
+        final int[] rowStarts = definitions.rowStarts();
+        final int[] categoryIndices = definitions.categoryIndices();
+        final double[] values = definitions.values();
+
+        final double[] allocations = mAllocations;
+        final double[] newAllocations = mNewAllocations;
+        final double[] allocFactors = mAllocFactors;
+        final double[] fittedCounts = mFittedCounts;
+
+        double totalCounts = 0;
+
+        for(int catId = 0; catId < categoryCount; ++catId)
+        {
+            totalCounts += counts[catId];
+        }
+
+        setInitialAllocations(definitionCount, priorAllocations);
+
+        mIterations = 0;
+        mResiduals = 0;
+
+        for(int defId = 0; defId < definitionCount; ++defId)
+        {
+            newAllocations[defId] = 0;
+        }
+
+        while(mIterations < mMaxIterations)
+        {
+            for(int catId = 0; catId < categoryCount; ++catId)
+            {
+                allocFactors[catId] = 0;
+            }
+
+            for(int defId = 0; defId < definitionCount; ++defId)
+            {
+                double allocation = allocations[defId];
+
+                for(int entry = rowStarts[defId]; entry < rowStarts[defId + 1]; ++entry)
+                {
+                    allocFactors[categoryIndices[entry]] += allocation * values[entry];
+                }
+            }
+
+            for(int defId = 0; defId < definitionCount; ++defId)
+            {
+                double defAlloc = allocations[defId];
+                double newAllocation = 0;
+
+                for(int entry = rowStarts[defId]; entry < rowStarts[defId + 1]; ++entry)
+                {
+                    int catId = categoryIndices[entry];
+
+                    if(allocFactors[catId] == 0)
+                        continue;
+
+                    newAllocation += counts[catId] * values[entry] * defAlloc / allocFactors[catId];
+                }
+
+                newAllocations[defId] = newAllocation;
+            }
+
+            definitions.calculateFittedCounts(newAllocations, fittedCounts);
+
+            double residualsTotal = 0;
+
+            for(int catId = 0; catId < categoryCount; ++catId)
+            {
+                residualsTotal += abs(fittedCounts[catId] - counts[catId]);
+            }
+
+            mResiduals = residualsTotal;
+            double residualsPerc = residualsTotal / totalCounts;
+
+            if(LOGGER.isTraceEnabled())
+            {
+                LOGGER.trace(String.format("totalCount(%.0f) residuals(%.0f perc=%.3f) iteration(%d)",
+                        totalCounts, residualsTotal, residualsPerc, mIterations));
+            }
+
+            if(residualsPerc < mMinResidualsPerc)
+                break;
+
+            for(int defId = 0; defId < definitionCount; ++defId)
+            {
+                allocations[defId] = newAllocations[defId] / totalCounts;
+            }
+
+            ++mIterations;
+        }
+
+        if(mMaxIterations <= 0)
+            definitions.calculateFittedCounts(newAllocations, fittedCounts);
+
+        mFitTotal = 0;
+
+        for(int defId = 0; defId < definitionCount; ++defId)
+        {
+            mFitTotal += newAllocations[defId];
+        }
+
+        return newAllocations;
+    }
+
+    private void setInitialAllocations(int definitionCount, final double[] priorAllocations)
+    {
+        double uniformAlloc = 1 / (double)definitionCount;
+
+        double priorTotal = 0;
+
+        if(priorAllocations != null)
+        {
+            // a prior from another set of definitions cannot be mapped onto these
+            if(priorAllocations.length != definitionCount)
+            {
+                throw new IllegalArgumentException(String.format("prior allocations(%d) do not match definitions(%d)",
+                        priorAllocations.length, definitionCount));
+            }
+
+            for(int defId = 0; defId < definitionCount; ++defId)
+            {
+                priorTotal += priorAllocations[defId];
+            }
+        }
+
+        if(priorTotal <= 0)
+        {
+            for(int defId = 0; defId < definitionCount; ++defId)
+            {
+                mAllocations[defId] = uniformAlloc;
+            }
+
+            return;
+        }
+
+        for(int defId = 0; defId < definitionCount; ++defId)
+        {
+            mAllocations[defId] = (1 - WARM_START_UNIFORM_WEIGHT) * priorAllocations[defId] / priorTotal
+                    + WARM_START_UNIFORM_WEIGHT * uniformAlloc;
+        }
+    }
+
+    private void initialiseBuffers(int definitionCount, int categoryCount)
+    {
+        if(mAllocations.length < definitionCount)
+        {
+            mAllocations = new double[definitionCount];
+            mNewAllocations = new double[definitionCount];
+        }
+
+        if(mAllocFactors.length < categoryCount)
+        {
+            mAllocFactors = new double[categoryCount];
+            mFittedCounts = new double[categoryCount];
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.hartwig.hmftools.common.sigs;
+
+import com.hartwig.hmftools.common.utils.Matrix;
+
+// signature or transcript definitions held as compressed rows, one per definition, of its non-zero category ratios - the transpose
+// of a dense bucket x definition matrix, so each definition's ratios are contiguous and zero categories are never visited
+public class SparseSigMatrix
+{
+    public final int Categories; // equivalent of the dense matrix's rows
+    public final int Definitions; // and its columns
+
+    private final int[] mRowStarts; // per definition, the start of its entries, plus a final end index
+    private final int[] mCategoryIndices;
+    private final double[] mValues;
+
+    private SparseSigMatrix(int categories, int definitions, final int[] rowStarts, final int[] categoryIndices, final double[] values)
+    {
+        Categories = categories;
+        Definitions = definitions;
+        mRowStarts = rowStarts;
+        mCategoryIndices = categoryIndices;
+        mValues = values;
+    }
+
+    public static SparseSigMatrix from(final Matrix definitions)
+    {
+        final double[][] data = definitions.getData();
+
+        int entryCount = 0;
+
+        for(int catId = 0; catId < definitions.Rows; ++catId)
+        {
+            for(int defId = 0; defId < definitions.Cols; ++defId)
+            {
+                if(data[catId][defId] != 0)
+                    ++entryCount;
+            }
+        }
+
+        int[] rowStarts = new int[definitions.Cols + 1];
+        int[] categoryIndices = new int[entryCount];
+        double[] values = new double[entryCount];
+
+        int index = 0;
+
+        for(int defId = 0; defId < definitions.Cols; ++defId)
+        {
+            rowStarts[defId] = index;
+
+            for(int catId = 0; catId < definitions.Rows; ++catId)
+            {
+                double value = data[catId][defId];
+
+                if(value != 0)
+                {
+                    categoryIndices[index] = catId;
+                    values[index] = value;
+                    ++index;
+                }
+            }
+        }
+
+        rowStarts[definitions.Cols] = index;
+
+        return new SparseSigMatrix(definitions.Rows, definitions.Cols, rowStarts, categoryIndices, values);
+    }
+
+    public int entryCount() { return mValues.length; }
+
+    protected int[] rowStarts() { return mRowStarts; }
+    protected int[] categoryIndices() { return mCategoryIndices; }
+    protected double[] values() { return mValues; }
+
+    public void calculateFittedCounts(final double[] allocations, final double[] fittedCounts)
+    {
+        for(int catId = 0; catId < Categories; ++catId)
+        {
+            fittedCounts[catId] = 0;
+        }
+
+        for(int defId = 0; defId < Definitions; ++defId)
+        {
+            double allocation = allocations[defId];
+
+            for(int entry = mRowStarts[defId]; entry < mRowStarts[defId + 1]; ++entry)
+            {
+                fittedCounts[mCategoryIndices[entry]] += allocation * mValues[entry];
+            }
+        }
+    }
+}
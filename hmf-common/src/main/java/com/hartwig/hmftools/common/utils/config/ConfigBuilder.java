@@ -173,6 +173,8 @@ public class ConfigBuilder
         return item;
     }
 
+    public List<ConfigItem> items() { return mItems; }
+
     public String getValue(final String name) { return getItem(name).value(); }
     public boolean hasValue(final String name) { return getItem(name).hasValue(); }
 
@@ -5,8 +5,12 @@ import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.checkAddDir
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.StringJoiner;
 import java.util.function.Function;
 
 import com.google.common.collect.ArrayListMultimap;
@@ -19,6 +23,7 @@ import com.hartwig.hmftools.common.genome.position.GenomePosition;
 import com.hartwig.hmftools.common.genome.region.GenomeRegion;
 import com.hartwig.hmftools.common.genome.region.GenomeRegions;
 import com.hartwig.hmftools.common.genome.region.Window;
+import com.hartwig.hmftools.common.utils.Doubles;
 
 import org.apache.logging.log4j.util.Strings;
 import org.jetbrains.annotations.NotNull;
@@ -30,6 +35,8 @@ public final class PCFFile
     private static final String RATIO_EXTENSION = ".cobalt.ratio.pcf";
     private static final String BAF_EXTENSION = ".amber.baf.pcf";
 
+    private static final DecimalFormat FORMAT = new DecimalFormat("0.####", new DecimalFormatSymbols(Locale.ENGLISH));
+
     @NotNull
     public static String generateRatioFilename(final String basePath, final String sample)
     {
@@ -135,6 +142,30 @@ public final class PCFFile
         return GenomeRegions.create(chromosome, posStart, posEnd);
     }
 
+    public static void write(final String filename, final List<PCFSegment> segments) throws IOException
+    {
+        List<String> lines = Lists.newArrayListWithCapacity(segments.size() + 1);
+
+        lines.add(new StringJoiner(DELIMITER)
+                .add(HEADER_PREFIX).add("chrom").add("arm").add("start.pos").add("end.pos").add("n.probes").add("mean")
+                .toString());
+
+        for(PCFSegment segment : segments)
+        {
+            lines.add(new StringJoiner(DELIMITER)
+                    .add(segment.SampleId)
+                    .add(segment.Chromosome)
+                    .add(String.valueOf(segment.Arm))
+                    .add(String.valueOf(segment.StartPosition))
+                    .add(String.valueOf(segment.EndPosition))
+                    .add(String.valueOf(segment.ProbeCount))
+                    .add(FORMAT.format(Doubles.round(segment.Mean, 4)))
+                    .toString());
+        }
+
+        Files.write(new File(filename).toPath(), lines);
+    }
+
     private static final Comparator<PCFPosition> COMPARE = Comparator.comparing(
             (Function<PCFPosition, String>) GenomePosition::chromosome).thenComparingLong(GenomePosition::position);
 
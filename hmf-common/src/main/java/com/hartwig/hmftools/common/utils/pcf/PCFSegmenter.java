@@ -0,0 +1,353 @@
+package com.hartwig.hmftools.common.utils.pcf;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.jetbrains.annotations.Nullable;
+
+// segments values by chromosome arm as copynumber::pcf does, with the penalty scaled by a MAD-based variance estimate
+public class PCFSegmenter
+{
+    private final String mSampleId;
+    private final double mGamma;
+    private final Map<String,ChromosomeValues> mChromosomeValues;
+    private int mValueCount;
+
+    // below this many values the variance is estimated once across all chromosomes, otherwise per arm
+    // segmentation runs the copynumber R package by default until this port's breakpoints are confirmed against its output
+    public static final String NATIVE_PCF = "native_pcf";
+    public static final String NATIVE_PCF_DESC = "Segment with the in-process port of copynumber pcf instead of R";
+
+    private static final int GLOBAL_MAD_MAX_PROBES = 100000;
+    private static final int MAD_FILTER_HALF_WIDTH = 25;
+    private static final double MAD_SCALE_FACTOR = 1.4826;
+
+    private static final char P_ARM = 'p';
+    private static final char Q_ARM = 'q';
+
+    // end of the p-arm centromere band in the GRCh37 cytobands, which copynumber applies regardless of ref genome
+    private static final Map<String,Integer> ARM_BOUNDARIES = Maps.newHashMap();
+
+    static
+    {
+        int[] boundaries = {
+                125000000, 93300000, 91000000, 50400000, 48400000, 61000000, 59900000, 45600000, 49000000, 40200000,
+                53700000, 35800000, 17900000, 17600000, 19000000, 36600000, 24000000, 17200000, 26500000, 27500000,
+                13200000, 14700000 };
+
+        for(int i = 0; i < boundaries.length; ++i)
+        {
+            ARM_BOUNDARIES.put(String.valueOf(i + 1), boundaries[i]);
+        }
+
+        ARM_BOUNDARIES.put("X", 60600000);
+        ARM_BOUNDARIES.put("Y", 12500000);
+    }
+
+    public PCFSegmenter(final String sampleId, double gamma)
+    {
+        mSampleId = sampleId;
+        mGamma = gamma;
+        mChromosomeValues = Maps.newLinkedHashMap();
+        mValueCount = 0;
+    }
+
+    // values must be added in position order within each chromosome
+    public void addValue(final String chromosome, int position, double value)
+    {
+        mChromosomeValues.computeIfAbsent(chromosome, k -> new ChromosomeValues()).add(position, value);
+        ++mValueCount;
+    }
+
+    public int valueCount() { return mValueCount; }
+
+    public List<PCFSegment> segment(@Nullable final ExecutorService executorService)
+    {
+        List<ArmValues> arms = Lists.newArrayList();
+
+        for(Map.Entry<String,ChromosomeValues> entry : mChromosomeValues.entrySet())
+        {
+            arms.addAll(entry.getValue().splitArms(entry.getKey()));
+        }
+
+        double globalSd = Double.NaN;
+
+        if(mValueCount < GLOBAL_MAD_MAX_PROBES)
+        {
+            double[] allValues = new double[mValueCount];
+            int index = 0;
+
+            for(ChromosomeValues chromosomeValues : mChromosomeValues.values())
+            {
+                System.arraycopy(chromosomeValues.Values, 0, allValues, index, chromosomeValues.Count);
+                index += chromosomeValues.Count;
+            }
+
+            globalSd = madStandardDeviation(allValues);
+        }
+
+        final double sd = globalSd;
+        List<PCFSegment> segments = Lists.newArrayList();
+
+        if(executorService == null)
+        {
+            arms.forEach(x -> segments.addAll(segmentArm(x, sd)));
+            return segments;
+        }
+
+        List<Future<List<PCFSegment>>> futures = Lists.newArrayList();
+        arms.forEach(x -> futures.add(executorService.submit(() -> segmentArm(x, sd))));
+
+        try
+        {
+            for(Future<List<PCFSegment>> future : futures)
+            {
+                segments.addAll(future.get());
+            }
+        }
+        catch(InterruptedException | ExecutionException e)
+        {
+            throw new RuntimeException("PCF segmentation failed", e);
+        }
+
+        return segments;
+    }
+
+    private List<PCFSegment> segmentArm(final ArmValues arm, double globalSd)
+    {
+        double sd = mValueCount < GLOBAL_MAD_MAX_PROBES ? globalSd : madStandardDeviation(arm.Values);
+        double gamma = mGamma * (sd * sd);
+
+        int[] segmentLengths = gamma == 0 || Double.isNaN(gamma)
+                ? new int[] { arm.Values.length }
+                : PiecewiseConstantFit.fit(arm.Values, gamma);
+
+        List<PCFSegment> segments = Lists.newArrayListWithCapacity(segmentLengths.length);
+        int startIndex = 0;
+
+        for(int length : segmentLengths)
+        {
+            int endIndex = startIndex + length - 1;
+            double sum = 0;
+
+            for(int i = startIndex; i <= endIndex; ++i)
+            {
+                sum += arm.Values[i];
+            }
+
+            segments.add(new PCFSegment(
+                    mSampleId, arm.Chromosome, arm.Arm, arm.Positions[startIndex], arm.Positions[endIndex], length, sum / length));
+
+            startIndex = endIndex + 1;
+        }
+
+        return segments;
+    }
+
+    // copynumber's getMad: the MAD of residuals from a running median, ignoring zero values
+    static double madStandardDeviation(final double[] values)
+    {
+        double[] nonZeroValues = Arrays.stream(values).filter(x -> x != 0).toArray();
+
+        if(nonZeroValues.length == 0)
+            return Double.NaN;
+
+        double[] runningMedians = runningMedian(nonZeroValues, MAD_FILTER_HALF_WIDTH);
+
+        double[] residuals = new double[nonZeroValues.length];
+
+        for(int i = 0; i < residuals.length; ++i)
+        {
+            residuals[i] = nonZeroValues[i] - runningMedians[i];
+        }
+
+        double center = median(residuals);
+
+        for(int i = 0; i < residuals.length; ++i)
+        {
+            residuals[i] = Math.abs(residuals[i] - center);
+        }
+
+        return MAD_SCALE_FACTOR * median(residuals);
+    }
+
+    // equivalent to R's runmed(endrule = "median") with the window narrowed to fit short inputs
+    static double[] runningMedian(final double[] values, int halfWidth)
+    {
+        int n = values.length;
+        int window = 2 * halfWidth + 1;
+
+        if(window > n)
+            window = n % 2 == 0 ? n - 1 : n;
+
+        int half = window / 2;
+        double[] medians = values.clone();
+
+        if(half < 1)
+            return medians;
+
+        // interior medians from a sorted sliding window, ends are kept and then smoothed
+        double[] sortedWindow = Arrays.copyOf(values, window);
+        Arrays.sort(sortedWindow);
+
+        for(int i = half; i < n - half; ++i)
+        {
+            if(i > half)
+            {
+                removeSorted(sortedWindow, values[i - half - 1]);
+                insertSorted(sortedWindow, values[i + half]);
+            }
+
+            medians[i] = sortedWindow[half];
+        }
+
+        return smoothEnds(medians, half);
+    }
+
+    private static double[] smoothEnds(final double[] y, int half)
+    {
+        int n = y.length;
+        double[] smoothed = y.clone();
+
+        if(half >= 2)
+        {
+            smoothed[1] = median3(y[0], y[1], y[2]);
+            smoothed[n - 2] = median3(y[n - 1], y[n - 2], y[n - 3]);
+
+            for(int i = 3; i <= half; ++i)
+            {
+                if(2 * i > n)
+                    break;
+
+                smoothed[i - 1] = oddMedian(Arrays.copyOfRange(y, 0, 2 * i - 1));
+                smoothed[n - i] = oddMedian(Arrays.copyOfRange(y, n + 1 - 2 * i, n));
+            }
+        }
+
+        // Tukey's end-point rule
+        smoothed[0] = median3(y[0], smoothed[1], 3 * smoothed[1] - 2 * smoothed[2]);
+        smoothed[n - 1] = median3(y[n - 1], smoothed[n - 2], 3 * smoothed[n - 2] - 2 * smoothed[n - 3]);
+
+        return smoothed;
+    }
+
+    private static double median3(double a, double b, double c)
+    {
+        if(a < b)
+            return c < b ? Math.max(a, c) : b;
+
+        return c > b ? Math.min(a, c) : b;
+    }
+
+    private static double oddMedian(final double[] values)
+    {
+        Arrays.sort(values);
+        return values[values.length / 2];
+    }
+
+    private static double median(final double[] values)
+    {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        int half = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[half] : (sorted[half - 1] + sorted[half]) / 2;
+    }
+
+    private static void removeSorted(final double[] sorted, double value)
+    {
+        int index = Arrays.binarySearch(sorted, value);
+        System.arraycopy(sorted, index + 1, sorted, index, sorted.length - index - 1);
+        sorted[sorted.length - 1] = Double.POSITIVE_INFINITY;
+    }
+
+    private static void insertSorted(final double[] sorted, double value)
+    {
+        // the last slot is free after a removal
+        int index = sorted.length - 1;
+
+        while(index > 0 && sorted[index - 1] > value)
+        {
+            sorted[index] = sorted[index - 1];
+            --index;
+        }
+
+        sorted[index] = value;
+    }
+
+    private static String stripChrPrefix(final String chromosome)
+    {
+        return chromosome.regionMatches(true, 0, "chr", 0, 3) ? chromosome.substring(3) : chromosome;
+    }
+
+    private static class ArmValues
+    {
+        public final String Chromosome;
+        public final char Arm;
+        public final int[] Positions;
+        public final double[] Values;
+
+        public ArmValues(final String chromosome, final char arm, final int[] positions, final double[] values)
+        {
+            Chromosome = chromosome;
+            Arm = arm;
+            Positions = positions;
+            Values = values;
+        }
+    }
+
+    private static class ChromosomeValues
+    {
+        public int[] Positions = new int[1024];
+        public double[] Values = new double[1024];
+        public int Count = 0;
+
+        public void add(int position, double value)
+        {
+            if(Count == Positions.length)
+            {
+                Positions = Arrays.copyOf(Positions, Count * 2);
+                Values = Arrays.copyOf(Values, Count * 2);
+            }
+
+            Positions[Count] = position;
+            Values[Count] = value;
+            ++Count;
+        }
+
+        public List<ArmValues> splitArms(final String chromosome)
+        {
+            Integer armBoundary = ARM_BOUNDARIES.get(stripChrPrefix(chromosome));
+
+            int pArmCount = 0;
+
+            while(pArmCount < Count && (armBoundary == null || Positions[pArmCount] <= armBoundary))
+            {
+                ++pArmCount;
+            }
+
+            List<ArmValues> arms = Lists.newArrayListWithCapacity(2);
+
+            if(pArmCount > 0)
+            {
+                arms.add(new ArmValues(chromosome, P_ARM,
+                        Arrays.copyOfRange(Positions, 0, pArmCount), Arrays.copyOfRange(Values, 0, pArmCount)));
+            }
+
+            if(pArmCount < Count)
+            {
+                arms.add(new ArmValues(chromosome, Q_ARM,
+                        Arrays.copyOfRange(Positions, pArmCount, Count), Arrays.copyOfRange(Values, pArmCount, Count)));
+            }
+
+            return arms;
+        }
+    }
+}
@@ -0,0 +1,508 @@
+package com.hartwig.hmftools.common.utils.pcf;
+
+import java.util.Arrays;
+
+// port of the Potts-filter PCF from the R copynumber package (Nilsen et al. 2012), as called by pcf() with kmin = 1
+// working arrays are 1-based to stay aligned with the reference implementation
+final class PiecewiseConstantFit
+{
+    static final int KMIN = 1;
+
+    private static final int EXACT_MAX_PROBES = 400;
+    private static final int FAST_SMALL_MAX_PROBES = 1000;
+    private static final int FAST_MAX_PROBES = 15000;
+    private static final int SUBSET_SIZE = 5000;
+
+    private static final int FILTER_LENGTH = 8;
+    private static final int FILTER_LENGTH_SHORT = 1;
+    private static final double FILTER_THRESHOLD = 0.9;
+
+    // returns the probe count of each fitted segment, in order
+    static int[] fit(final double[] values, double gamma)
+    {
+        if(values.length < EXACT_MAX_PROBES)
+            return exactPcf(values, KMIN, gamma);
+
+        if(values.length < FAST_SMALL_MAX_PROBES)
+            return runFastPcf(values, KMIN, gamma, 0.15, 0.15);
+
+        if(values.length < FAST_MAX_PROBES)
+            return runFastPcf(values, KMIN, gamma, 0.12, 0.05);
+
+        return runPcfSubset(values, KMIN, gamma, 0.12, 0.05);
+    }
+
+    static int[] exactPcf(final double[] values, int kmin, double gamma)
+    {
+        int n = values.length;
+
+        if(n < 2 * kmin)
+            return new int[] { n };
+
+        double[] y = new double[n + 1];
+        System.arraycopy(values, 0, y, 1, n);
+
+        double initSum = 0;
+        double initKvad = 0;
+
+        for(int i = 1; i <= kmin; ++i)
+        {
+            initSum += y[i];
+            initKvad += y[i] * y[i];
+        }
+
+        double initAve = initSum / kmin;
+
+        double[] bestCost = new double[n + 1];
+        int[] bestSplit = new int[n + 1];
+        double[] sum = new double[n + 1];
+        double[] kvad = new double[n + 1];
+        double[] aver = new double[n + 1];
+        double[] cost = new double[n + 1];
+
+        bestCost[kmin] = initKvad - initSum * initAve;
+        int kminP1 = kmin + 1;
+
+        // R evaluates kminP1:(2 * kmin - 1) as a descending sequence when kmin = 1, which folds the first probes into
+        // the running sums a second time - this is reproduced since it decides where short arms are split
+        for(int k : rSequence(kminP1, 2 * kmin - 1))
+        {
+            double yk = y[k];
+
+            for(int j : rSequence(kminP1, k))
+            {
+                sum[j] += yk;
+                kvad[j] += yk * yk;
+            }
+
+            double bestAver = (initSum + sum[kminP1]) / k;
+            bestCost[k] = (initKvad + kvad[kminP1]) - k * (bestAver * bestAver);
+        }
+
+        for(int i = 2 * kmin; i <= n; ++i)
+        {
+            double yi = y[i];
+            double yi2 = yi * yi;
+
+            for(int j = kminP1; j <= i; ++j)
+            {
+                sum[j] += yi;
+                aver[j] = sum[j] / (i - j + 1);
+                kvad[j] += yi2;
+            }
+
+            int lastSplit = i - kmin + 1;
+            int pos = -1;
+
+            for(int j = kminP1; j <= lastSplit; ++j)
+            {
+                cost[j] = bestCost[j - 1] + kvad[j] - sum[j] * aver[j] + gamma;
+
+                if(!Double.isNaN(cost[j]) && (pos < 0 || cost[j] < cost[pos]))
+                    pos = j;
+            }
+
+            double minCost = pos >= 0 ? cost[pos] : Double.NaN;
+
+            double totAver = (sum[kminP1] + initSum) / i;
+            double totCost = (kvad[kminP1] + initKvad) - i * totAver * totAver;
+
+            if(pos < 0 || totCost < minCost)
+            {
+                pos = 1;
+                minCost = totCost;
+            }
+
+            bestCost[i] = minCost;
+            bestSplit[i] = pos - 1;
+        }
+
+        return segmentLengths(bestSplit, n);
+    }
+
+    private static int[] runFastPcf(final double[] values, int kmin, double gamma, double frac1, double frac2)
+    {
+        int n = values.length;
+        double[] cumSums = cumulativeSums(values);
+
+        boolean[] mark = filterMarks(cumSums, n, kmin, frac1, frac2);
+        mark[n] = true;
+
+        CompactValues compact = compact(cumSums, mark, n);
+        return pottsCompact(kmin, gamma, compact);
+    }
+
+    private static int[] runPcfSubset(final double[] values, int kmin, double gamma, double frac1, double frac2)
+    {
+        int n = values.length;
+        double[] cumSums = cumulativeSums(values);
+
+        boolean[] mark = filterMarks(cumSums, n, kmin, frac1, frac2);
+
+        int stepSize = 4 * SUBSET_SIZE / 5;
+
+        boolean[] markSub = Arrays.copyOf(mark, n + 1);
+        markSub[SUBSET_SIZE] = true;
+
+        boolean[] mark2 = new boolean[n + 1];
+        markWithPotts(kmin, gamma, compact(cumSums, markSub, SUBSET_SIZE), mark2);
+        mark2[stepSize] = true;
+
+        int start = stepSize + 1;
+
+        while(start + SUBSET_SIZE < n)
+        {
+            int end = start + SUBSET_SIZE - 1;
+
+            System.arraycopy(mark2, 1, markSub, 1, start - 1);
+            System.arraycopy(mark, start, markSub, start, end - start + 1);
+            markSub[end] = true;
+
+            markWithPotts(kmin, gamma, compact(cumSums, markSub, end), mark2);
+
+            start += stepSize;
+            mark2[start - 1] = true;
+        }
+
+        System.arraycopy(mark2, 1, markSub, 1, start - 1);
+        System.arraycopy(mark, start, markSub, start, n - start + 1);
+        markSub[n] = true;
+
+        return pottsCompact(kmin, gamma, compact(cumSums, markSub, n));
+    }
+
+    // marks potential breakpoints using a long and a short high-pass filter over the cumulative sums
+    private static boolean[] filterMarks(final double[] cumSums, int n, int kmin, double frac1, double frac2)
+    {
+        double[] cost1 = highPassCosts(cumSums, n, FILTER_LENGTH);
+
+        double[] test = new double[n + 1];
+
+        for(int i = 4; i <= n - 3; ++i)
+        {
+            double max = cost1[i - 3];
+
+            for(int j = i - 2; j <= i + 3; ++j)
+            {
+                max = Math.max(max, cost1[j]);
+            }
+
+            test[i] = max;
+        }
+
+        int candidateCount = 0;
+        double[] candidateCosts = new double[n];
+
+        for(int i = 1; i <= n; ++i)
+        {
+            if(cost1[i] >= FILTER_THRESHOLD * test[i])
+                candidateCosts[candidateCount++] = cost1[i];
+        }
+
+        double frac1B = Math.min(0.8, frac1 * n / candidateCount);
+        double limit1 = quantile(Arrays.copyOf(candidateCosts, candidateCount), 1 - frac1B);
+
+        double[] cost2 = highPassCosts(cumSums, n, FILTER_LENGTH_SHORT);
+        int cost2Start = 3 * FILTER_LENGTH_SHORT;
+        int cost2End = n - 3 * FILTER_LENGTH_SHORT;
+        double limit2 = quantile(Arrays.copyOfRange(cost2, cost2Start, cost2End + 1), 1 - frac2);
+
+        boolean[] mark = new boolean[n + 1];
+
+        for(int i = 1; i <= n; ++i)
+        {
+            mark[i] = (cost1[i] > limit1 && cost1[i] > FILTER_THRESHOLD * test[i])
+                    || (i >= cost2Start && i <= cost2End && cost2[i] > limit2);
+        }
+
+        if(3 * FILTER_LENGTH > kmin)
+        {
+            for(int i = kmin; i <= 3 * FILTER_LENGTH - 1; ++i)
+            {
+                mark[i] = true;
+            }
+
+            for(int i = n - 3 * FILTER_LENGTH + 1; i <= n - kmin; ++i)
+            {
+                mark[i] = true;
+            }
+        }
+        else
+        {
+            mark[kmin] = true;
+            mark[n - kmin] = true;
+        }
+
+        return mark;
+    }
+
+    private static double[] highPassCosts(final double[] cumSums, int n, int filterLength)
+    {
+        double[] costs = new double[n + 1];
+
+        for(int i = 3 * filterLength; i <= n - 3 * filterLength; ++i)
+        {
+            costs[i] = Math.abs(4 * cumSums[i] - cumSums[i - 3 * filterLength] - cumSums[i - 2 * filterLength]
+                    - cumSums[i + 2 * filterLength] - cumSums[i + 3 * filterLength]);
+        }
+
+        return costs;
+    }
+
+    private static class CompactValues
+    {
+        public final int[] Counts;
+        public final double[] Sums;
+
+        public CompactValues(final int[] counts, final double[] sums)
+        {
+            Counts = counts;
+            Sums = sums;
+        }
+
+        public int size() { return Counts.length - 1; }
+    }
+
+    // accumulates observation counts and sums between potential breakpoints, up to the given probe
+    private static CompactValues compact(final double[] cumSums, final boolean[] mark, int length)
+    {
+        int markCount = 0;
+
+        for(int i = 1; i <= length; ++i)
+        {
+            if(mark[i])
+                ++markCount;
+        }
+
+        int[] counts = new int[markCount + 1];
+        double[] sums = new double[markCount + 1];
+
+        int index = 0;
+        int prevMark = 0;
+
+        for(int i = 1; i <= length; ++i)
+        {
+            if(!mark[i])
+                continue;
+
+            ++index;
+            counts[index] = i - prevMark;
+            sums[index] = prevMark == 0 ? cumSums[i] : cumSums[i] - cumSums[prevMark];
+            prevMark = i;
+        }
+
+        return new CompactValues(counts, sums);
+    }
+
+    private static int[] pottsCompact(int kmin, double gamma, final CompactValues compact)
+    {
+        int n = compact.size();
+        int totalCount = 0;
+
+        for(int i = 1; i <= n; ++i)
+        {
+            totalCount += compact.Counts[i];
+        }
+
+        if(totalCount < 2 * kmin)
+            return new int[] { totalCount };
+
+        int[] bestSplit = new int[n + 1];
+        runPotts(kmin, gamma, compact, bestSplit, null);
+
+        int[] compactLengths = segmentLengths(bestSplit, n);
+        int[] lengths = new int[compactLengths.length];
+        int compactIndex = 1;
+
+        for(int s = 0; s < compactLengths.length; ++s)
+        {
+            for(int i = 0; i < compactLengths[s]; ++i)
+            {
+                lengths[s] += compact.Counts[compactIndex++];
+            }
+        }
+
+        return lengths;
+    }
+
+    // marks every optimal split seen while filtering, converted back to original probe indices
+    private static void markWithPotts(int kmin, double gamma, final CompactValues compact, final boolean[] mark)
+    {
+        int n = compact.size();
+        boolean[] markSub = new boolean[n + 1];
+
+        runPotts(kmin, gamma, compact, new int[n + 1], markSub);
+
+        int probeCount = 0;
+
+        for(int i = 1; i <= n; ++i)
+        {
+            probeCount += compact.Counts[i];
+        }
+
+        Arrays.fill(mark, 1, probeCount + 1, false);
+        probeCount = 0;
+
+        for(int i = 1; i <= n; ++i)
+        {
+            probeCount += compact.Counts[i];
+            mark[probeCount] = markSub[i];
+        }
+    }
+
+    private static void runPotts(int kmin, double gamma, final CompactValues compact, final int[] bestSplit, final boolean[] markSub)
+    {
+        int n = compact.size();
+        final int[] nr = compact.Counts;
+        final double[] res = compact.Sums;
+
+        int[] ant = new int[n + 1];
+        double[] sum = new double[n + 1];
+        double[] cost = new double[n + 1];
+        double[] bestCost = new double[n + 1];
+
+        int initAnt = nr[1];
+        double initSum = res[1];
+        double initAve = initSum / initAnt;
+        bestCost[1] = -initSum * initAve;
+
+        int k = 2;
+        int prefixCount = nr[1];
+
+        while(k <= n && prefixCount + nr[k] < 2 * kmin)
+        {
+            prefixCount += nr[k];
+
+            for(int j = 2; j <= k; ++j)
+            {
+                ant[j] += nr[k];
+                sum[j] += res[k];
+            }
+
+            double total = initSum + sum[2];
+            bestCost[k] = -(total * total) / (initAnt + ant[2]);
+            ++k;
+        }
+
+        for(int i = k; i <= n; ++i)
+        {
+            for(int j = 2; j <= i; ++j)
+            {
+                ant[j] += nr[i];
+                sum[j] += res[i];
+            }
+
+            int limit = i;
+
+            while(limit > 2 && ant[limit] < kmin)
+            {
+                --limit;
+            }
+
+            int pos = -1;
+
+            for(int j = 2; j <= limit; ++j)
+            {
+                cost[j] = bestCost[j - 1] - sum[j] * sum[j] / ant[j];
+
+                if(!Double.isNaN(cost[j]) && (pos < 0 || cost[j] < cost[pos]))
+                    pos = j;
+            }
+
+            double minCost = pos >= 0 ? cost[pos] + gamma : Double.NaN;
+
+            double total = sum[2] + initSum;
+            double totCost = -(total * total) / (ant[2] + initAnt);
+
+            if(pos < 0 || totCost < minCost)
+            {
+                pos = 1;
+                minCost = totCost;
+            }
+
+            bestCost[i] = minCost;
+            bestSplit[i] = pos - 1;
+
+            if(markSub != null && pos > 1)
+                markSub[pos - 1] = true;
+        }
+    }
+
+    private static int[] segmentLengths(final int[] bestSplit, int n)
+    {
+        int segmentCount = 0;
+
+        for(int i = n; i > 0; i = bestSplit[i])
+        {
+            ++segmentCount;
+        }
+
+        int[] lengths = new int[segmentCount];
+        int index = segmentCount - 1;
+
+        for(int i = n; i > 0; i = bestSplit[i])
+        {
+            lengths[index--] = i - bestSplit[i];
+        }
+
+        return lengths;
+    }
+
+    // running sums with the extended-precision accumulation R uses for cumsum, index 0 holding zero
+    private static double[] cumulativeSums(final double[] values)
+    {
+        double[] cumSums = new double[values.length + 1];
+        double high = 0;
+        double low = 0;
+
+        for(int i = 0; i < values.length; ++i)
+        {
+            double value = values[i];
+            double total = high + value;
+            double adjusted = total - high;
+            low += (high - (total - adjusted)) + (value - adjusted);
+
+            high = total + low;
+            low -= high - total;
+
+            cumSums[i + 1] = high;
+        }
+
+        return cumSums;
+    }
+
+    // R's default (type 7) quantile
+    static double quantile(final double[] values, double probability)
+    {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        // 1-based index as R computes it, so the interpolation fraction rounds identically
+        double index = 1 + (sorted.length - 1) * probability;
+        int lower = (int)Math.floor(index);
+        int upper = (int)Math.ceil(index);
+
+        double quantile = sorted[lower - 1];
+
+        if(index > lower && sorted[upper - 1] != quantile)
+        {
+            double fraction = index - lower;
+            quantile = (1 - fraction) * quantile + fraction * sorted[upper - 1];
+        }
+
+        return quantile;
+    }
+
+    private static int[] rSequence(int from, int to)
+    {
+        int[] sequence = new int[Math.abs(to - from) + 1];
+        int step = from <= to ? 1 : -1;
+
+        for(int i = 0; i < sequence.length; ++i)
+        {
+            sequence[i] = from + i * step;
+        }
+
+        return sequence;
+    }
+}
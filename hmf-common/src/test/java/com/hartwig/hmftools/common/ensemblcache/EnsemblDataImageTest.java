@@ -0,0 +1,229 @@
+package com.hartwig.hmftools.common.ensemblcache;
+
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.ENSEMBL_GENE_DATA_FILE;
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.ENSEMBL_PROTEIN_FEATURE_DATA_FILE;
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.ENSEMBL_TRANS_EXON_DATA_FILE;
+import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataLoader.ENSEMBL_TRANS_SPLICE_DATA_FILE;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.hartwig.hmftools.common.gene.ExonData;
+import com.hartwig.hmftools.common.gene.GeneData;
+import com.hartwig.hmftools.common.gene.TranscriptData;
+import com.hartwig.hmftools.common.gene.TranscriptProteinData;
+import com.hartwig.hmftools.common.genome.refgenome.RefGenomeVersion;
+
+import org.junit.Test;
+
+public class EnsemblDataImageTest
+{
+    @Test
+    public void testImageMatchesCsvData() throws IOException
+    {
+        File csvDir = Files.createTempDirectory("ensembl_csv").toFile();
+        File imageDir = Files.createTempDirectory("ensembl_image").toFile();
+
+        writeDataFiles(csvDir);
+        writeDataFiles(imageDir);
+
+        assertTrue(EnsemblDataImage.writeImage(imageDir.getAbsolutePath()));
+        assertTrue(EnsemblDataImage.hasImage(imageDir.getAbsolutePath()));
+
+        // remove the CSV files so the cache can only be loaded from the image
+        new File(imageDir, ENSEMBL_GENE_DATA_FILE).delete();
+        new File(imageDir, ENSEMBL_TRANS_EXON_DATA_FILE).delete();
+
+        EnsemblDataCache csvCache = createCache(csvDir);
+        EnsemblDataCache imageCache = createCache(imageDir);
+
+        assertTrue(csvCache.load(false));
+        assertTrue(imageCache.load(false));
+
+        assertEquals(geneDataStr(csvCache), geneDataStr(imageCache));
+        assertEquals(transcriptDataStr(csvCache.getTranscriptDataMap()), transcriptDataStr(imageCache.getTranscriptDataMap()));
+        assertEquals(proteinDataStr(csvCache), proteinDataStr(imageCache));
+
+        assertEquals("chr1", imageCache.getGeneDataById("ENSG001").Chromosome);
+        assertEquals("GENE_A;GENE_ALT", imageCache.getGeneDataById("ENSG001").getSynonyms());
+
+        TranscriptData nonCoding = imageCache.getTranscriptDataMap().get("ENSG002").get(1);
+        assertNull(nonCoding.CodingStart);
+        assertEquals(1, nonCoding.exons().size());
+
+        assertEquals(11000, imageCache.findPrecedingGeneSpliceAcceptorPosition(2));
+        assertEquals(csvCache.findPrecedingGeneSpliceAcceptorPosition(2), imageCache.findPrecedingGeneSpliceAcceptorPosition(2));
+
+        // canonical-only and restricted loading of transcripts
+        csvCache = createCache(csvDir);
+        imageCache = createCache(imageDir);
+        csvCache.setRequiredData(false, false, false, true);
+        imageCache.setRequiredData(false, false, false, true);
+
+        assertTrue(csvCache.load(true));
+        assertTrue(imageCache.load(true));
+        assertTrue(csvCache.loadTranscriptData(List.of("ENSG002", "ENSG003")));
+        assertTrue(imageCache.loadTranscriptData(List.of("ENSG002", "ENSG003")));
+
+        assertFalse(imageCache.getTranscriptDataMap().containsKey("ENSG001"));
+        assertEquals(transcriptDataStr(csvCache.getTranscriptDataMap()), transcriptDataStr(imageCache.getTranscriptDataMap()));
+    }
+
+    @Test
+    public void testStaleImageIgnored() throws IOException
+    {
+        File imageDir = Files.createTempDirectory("ensembl_image").toFile();
+        writeDataFiles(imageDir);
+
+        assertTrue(EnsemblDataImage.writeImage(imageDir.getAbsolutePath()));
+
+        EnsemblDataImage image = EnsemblDataImage.open(EnsemblDataImage.imageFile(imageDir.getAbsolutePath()));
+        assertTrue(image.matchesSourceFiles(imageDir.getAbsolutePath()));
+
+        // a changed gene file is loaded in preference to the image written from its earlier version
+        File geneFile = new File(imageDir, ENSEMBL_GENE_DATA_FILE);
+        long lastModified = geneFile.lastModified();
+
+        Files.write(geneFile.toPath(), List.of(
+                "GeneId,GeneName,Chromosome,Strand,GeneStart,GeneEnd,KaryotypeBand,Synonyms",
+                "ENSG001,GENE_A,1,1,1000,11000,p36.33,GENE_A;GENE_ALT",
+                "ENSG002,GENE_B,1,-1,10000,30000,p36.32,",
+                "ENSG003,GENE_C,2,1,5000,8000,q11.1,",
+                "ENSG004,GENE_D,2,1,9000,9500,q11.1,"));
+
+        geneFile.setLastModified(lastModified + 1000);
+
+        assertFalse(image.matchesSourceFiles(imageDir.getAbsolutePath()));
+
+        EnsemblDataCache geneCache = createCache(imageDir);
+        assertTrue(geneCache.load(false));
+        assertEquals("GENE_D", geneCache.getGeneDataById("ENSG004").GeneName);
+
+        // a removed source file leaves the image usable
+        writeDataFiles(imageDir);
+        assertTrue(EnsemblDataImage.writeImage(imageDir.getAbsolutePath()));
+        new File(imageDir, ENSEMBL_TRANS_SPLICE_DATA_FILE).delete();
+
+        image = EnsemblDataImage.open(EnsemblDataImage.imageFile(imageDir.getAbsolutePath()));
+        assertTrue(image.matchesSourceFiles(imageDir.getAbsolutePath()));
+    }
+
+    @Test
+    public void testGeneRegionQueries() throws IOException
+    {
+        File csvDir = Files.createTempDirectory("ensembl_csv").toFile();
+        writeDataFiles(csvDir);
+
+        EnsemblDataCache geneCache = createCache(csvDir);
+        assertTrue(geneCache.load(false));
+
+        assertEquals(List.of("ENSG001"), geneIds(geneCache.findGenesByRegion("chr1", 500, 6000)));
+        assertEquals(List.of("ENSG001", "ENSG002"), geneIds(geneCache.findGenesByRegion("chr1", 500, 50000)));
+        assertTrue(geneCache.findGenesByRegion("chr1", 1500, 6000).isEmpty());
+        assertTrue(geneCache.findGenesByRegion("chr5", 1500, 6000).isEmpty());
+
+        // gene 1 is on the forward strand so takes the upstream distance before its start, gene 2 on the reverse after its end
+        assertEquals(List.of("ENSG001"), geneIds(geneCache.findGeneRegions("chr1", 600, 500)));
+        assertTrue(geneCache.findGeneRegions("chr1", 700, 200).isEmpty());
+        assertEquals(List.of("ENSG002"), geneIds(geneCache.findGeneRegions("chr1", 30100, 200)));
+        assertTrue(geneCache.findGeneRegions("chr2", 8100, 500).isEmpty());
+        assertEquals(List.of("ENSG003"), geneIds(geneCache.findGeneRegions("chr2", 4600, 500)));
+        assertEquals(List.of("ENSG001", "ENSG002"), geneIds(geneCache.findGeneRegions("chr1", 10500, 0)));
+
+        // genes added after a query are included in subsequent queries
+        GeneData newGene = new GeneData("ENSG009", "GENE_I", "chr1", (byte)1, 40000, 41000, "");
+        geneCache.getChrGeneDataMap().get("chr1").add(newGene);
+        assertEquals(List.of("ENSG009"), geneIds(geneCache.findGeneRegions("chr1", 40500, 0)));
+    }
+
+    private static EnsemblDataCache createCache(final File dir)
+    {
+        EnsemblDataCache geneCache = new EnsemblDataCache(dir.getAbsolutePath(), RefGenomeVersion.V38);
+        geneCache.setRequiredData(true, true, true, false);
+        geneCache.setRequireGeneSynonyms();
+        return geneCache;
+    }
+
+    private static void writeDataFiles(final File dir) throws IOException
+    {
+        Files.write(new File(dir, ENSEMBL_GENE_DATA_FILE).toPath(), List.of(
+                "GeneId,GeneName,Chromosome,Strand,GeneStart,GeneEnd,KaryotypeBand,Synonyms",
+                "ENSG001,GENE_A,1,1,1000,11000,p36.33,GENE_A;GENE_ALT",
+                "ENSG002,GENE_B,1,-1,10000,30000,p36.32,",
+                "ENSG003,GENE_C,2,1,5000,8000,q11.1,"));
+
+        Files.write(new File(dir, ENSEMBL_TRANS_EXON_DATA_FILE).toPath(), List.of(
+                "GeneId,CanonicalTranscriptId,Strand,TransId,TransName,BioType,TransStart,TransEnd,"
+                        + "ExonRank,ExonStart,ExonEnd,ExonPhase,ExonEndPhase,CodingStart,CodingEnd",
+                "ENSG001,1,1,1,ENST0001,protein_coding,1000,5000,1,1000,1200,-1,1,1100,4500",
+                "ENSG001,1,1,1,ENST0001,protein_coding,1000,5000,2,4000,5000,1,-1,1100,4500",
+                "ENSG002,2,-1,2,ENST0002,protein_coding,10000,30000,1,25000,30000,-1,2,11000,29000",
+                "ENSG002,2,-1,2,ENST0002,protein_coding,10000,30000,2,10000,12000,2,-1,11000,29000",
+                "ENSG002,2,-1,3,ENST0003,lncRNA,20000,22000,1,20000,22000,-1,-1,NULL,NULL",
+                "ENSG002,2,-1,4,NM_0004,protein_coding,10000,22000,1,10000,22000,-1,-1,11000,21000",
+                "ENSG003,5,1,5,ENST0005,protein_coding,5000,8000,1,5000,8000,-1,-1,5100,7900"));
+
+        Files.write(new File(dir, ENSEMBL_PROTEIN_FEATURE_DATA_FILE).toPath(), List.of(
+                "TranscriptId,TranslationId,ProteinFeatureId,SeqStart,SeqEnd,HitDescription",
+                "1,101,1001,5,50,Domain A",
+                "1,101,1002,60,90,Domain B",
+                "5,105,1005,1,20,Domain C"));
+
+        Files.write(new File(dir, ENSEMBL_TRANS_SPLICE_DATA_FILE).toPath(), List.of(
+                "GeneId,TransId,TransName,TransStartPos,PreSpliceAcceptorPosition,Distance",
+                "ENSG002,2,ENST0002,30000,11000,19000"));
+    }
+
+    private static List<String> geneIds(final List<GeneData> genes)
+    {
+        return genes.stream().map(x -> x.GeneId).collect(Collectors.toList());
+    }
+
+    private static String geneDataStr(final EnsemblDataCache geneCache)
+    {
+        return geneCache.getChrGeneDataMap().entrySet().stream().sorted(Map.Entry.comparingByKey())
+                .flatMap(x -> x.getValue().stream())
+                .map(x -> String.format("%s:%s:%s:%d:%d:%d:%s:%s",
+                        x.GeneId, x.GeneName, x.Chromosome, x.Strand, x.GeneStart, x.GeneEnd, x.KaryotypeBand, x.getSynonyms()))
+                .collect(Collectors.joining("|"));
+    }
+
+    private static String transcriptDataStr(final Map<String,List<TranscriptData>> transcriptDataMap)
+    {
+        return transcriptDataMap.entrySet().stream().sorted(Map.Entry.comparingByKey())
+                .map(x -> x.getKey() + "=" + x.getValue().stream()
+                        .map(t -> String.format("%d:%s:%s:%s:%d:%d:%d:%s:%s:%s:%s",
+                                t.TransId, t.TransName, t.GeneId, t.IsCanonical, t.Strand, t.TransStart, t.TransEnd,
+                                t.CodingStart, t.CodingEnd, t.BioType, exonsStr(t.exons())))
+                        .collect(Collectors.joining(",")))
+                .collect(Collectors.joining("|"));
+    }
+
+    private static String exonsStr(final List<ExonData> exons)
+    {
+        return exons.stream()
+                .map(x -> String.format("%d-%d-%d-%d-%d-%d", x.TransId, x.Start, x.End, x.Rank, x.PhaseStart, x.PhaseEnd))
+                .collect(Collectors.joining(";"));
+    }
+
+    private static String proteinDataStr(final EnsemblDataCache geneCache)
+    {
+        Map<Integer,List<TranscriptProteinData>> proteinDataMap = geneCache.getTranscriptProteinDataMap();
+
+        return proteinDataMap.keySet().stream().sorted()
+                .flatMap(x -> proteinDataMap.getOrDefault(x, Collections.emptyList()).stream())
+                .map(x -> String.format("%d:%d:%d:%d:%d:%s",
+                        x.TranscriptId, x.TranslationId, x.ProteinFeatureId, x.SeqStart, x.SeqEnd, x.HitDescription))
+                .collect(Collectors.joining("|"));
+    }
+}
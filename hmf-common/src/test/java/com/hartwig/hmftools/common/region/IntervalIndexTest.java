@@ -0,0 +1,70 @@
+package com.hartwig.hmftools.common.region;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Test;
+
+public class IntervalIndexTest
+{
+    @Test
+    public void testOverlaps()
+    {
+        int[] starts = { 100, 90, 200, 150, 100, 500 };
+        int[] ends = { 110, 400, 210, 150, 100, 600 };
+
+        IntervalIndex index = new IntervalIndex(starts, ends);
+        assertEquals(6, index.size());
+
+        assertArrayEquals(new int[] { 0, 1, 4 }, index.findOverlapping(95, 105));
+        assertArrayEquals(new int[] { 1, 3 }, index.findOverlapping(150, 150));
+        assertArrayEquals(new int[] { 1, 2, 3 }, index.findOverlapping(111, 210));
+        assertArrayEquals(new int[] { 5 }, index.findOverlapping(401, 1000));
+        assertArrayEquals(new int[] {}, index.findOverlapping(601, 1000));
+        assertArrayEquals(new int[] {}, index.findOverlapping(1, 89));
+
+        assertArrayEquals(new int[] {}, new IntervalIndex(new int[0], new int[0]).findOverlapping(1, 1000));
+    }
+
+    @Test
+    public void testMatchesLinearSearch()
+    {
+        Random random = new Random(1);
+
+        for(int test = 0; test < 20; ++test)
+        {
+            int count = 1 + random.nextInt(500);
+            int[] starts = new int[count];
+            int[] ends = new int[count];
+
+            for(int i = 0; i < count; ++i)
+            {
+                starts[i] = random.nextInt(10000) - 50;
+                ends[i] = starts[i] + (random.nextInt(10) == 0 ? random.nextInt(2000) : random.nextInt(50));
+            }
+
+            IntervalIndex index = new IntervalIndex(starts, ends);
+
+            for(int query = 0; query < 100; ++query)
+            {
+                int queryStart = random.nextInt(10500) - 100;
+                int queryEnd = queryStart + random.nextInt(300);
+
+                List<Integer> expected = Lists.newArrayList();
+
+                for(int i = 0; i < count; ++i)
+                {
+                    if(starts[i] <= queryEnd && ends[i] >= queryStart)
+                        expected.add(i);
+                }
+
+                assertArrayEquals(expected.stream().mapToInt(x -> x).toArray(), index.findOverlapping(queryStart, queryEnd));
+            }
+        }
+    }
+}
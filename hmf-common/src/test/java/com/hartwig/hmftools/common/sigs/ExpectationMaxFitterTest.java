@@ -0,0 +1,201 @@
+package com.hartwig.hmftools.common.sigs;
+
+import static com.hartwig.hmftools.common.sigs.ExpectationMaxFitter.MAX_ITERATIONS;
+import static com.hartwig.hmftools.common.sigs.ExpectationMaxFitter.RESIDUALS_EXIT_PERC;
+import static com.hartwig.hmftools.common.sigs.SigUtils.calcResiduals;
+import static com.hartwig.hmftools.common.sigs.SigUtils.calculateFittedCounts;
+import static com.hartwig.hmftools.common.utils.VectorUtils.sumVector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import com.hartwig.hmftools.common.utils.Matrix;
+
+import org.junit.Test;
+
+public class ExpectationMaxFitterTest
+{
+    @Test
+    public void testSparseFitMatchesDenseFit()
+    {
+        Random random = new Random(42);
+        ExpectationMaxFitter fitter = new ExpectationMaxFitter();
+
+        // fits of differing sizes through the same fitter, largest first so later fits use oversized buffers
+        int[][] dimensions = { {60, 25}, {3, 2}, {12, 6}, {40, 10} };
+
+        for(int[] dims : dimensions)
+        {
+            Matrix definitions = randomDefinitions(random, dims[0], dims[1]);
+            double[] counts = randomCounts(random, definitions);
+
+            double[] expected = denseFit(counts, definitions);
+            double[] allocations = fitter.fit(counts, SparseSigMatrix.from(definitions));
+
+            for(int defId = 0; defId < definitions.Cols; ++defId)
+            {
+                assertEquals(expected[defId], allocations[defId], 1e-9);
+            }
+
+            double[] expectedFitted = calculateFittedCounts(definitions, expected);
+
+            for(int catId = 0; catId < definitions.Rows; ++catId)
+            {
+                assertEquals(expectedFitted[catId], fitter.fittedCounts()[catId], 1e-9);
+            }
+
+            SigResiduals residuals = calcResiduals(counts, expectedFitted, sumVector(counts));
+            assertEquals(residuals.Total, fitter.residuals(), 1e-9);
+            assertEquals(sumVector(expected), fitter.fitTotal(), 1e-9);
+
+            assertArrayEquals(expected, ExpectationMaxFit.performFit(counts, definitions), 1e-9);
+        }
+    }
+
+    @Test
+    public void testWarmStart()
+    {
+        Matrix definitions = new Matrix(3, 2);
+        definitions.setCol(0, new double[] {0.2, 0.8, 0});
+        definitions.setCol(1, new double[] {0.4, 0, 0.6});
+        SparseSigMatrix sparseDefinitions = SparseSigMatrix.from(definitions);
+
+        double[] counts = {5, 4, 6};
+
+        ExpectationMaxFitter fitter = new ExpectationMaxFitter(RESIDUALS_EXIT_PERC, MAX_ITERATIONS);
+        double[] coldAllocations = fitter.fit(counts, sparseDefinitions).clone();
+        int coldIterations = fitter.iterations();
+
+        double[] warmAllocations = fitter.fit(counts, sparseDefinitions, coldAllocations);
+
+        assertEquals(coldAllocations[0], warmAllocations[0], 0.05);
+        assertEquals(coldAllocations[1], warmAllocations[1], 0.05);
+        assertTrue(fitter.iterations() < coldIterations);
+
+        // a definition without a prior allocation can still be fitted
+        double[] allocations = fitter.fit(counts, sparseDefinitions, new double[] {16, 0});
+        assertTrue(allocations[1] > 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMismatchedPriorAllocations()
+    {
+        Matrix definitions = new Matrix(3, 2);
+        definitions.setCol(0, new double[] {0.2, 0.8, 0});
+        definitions.setCol(1, new double[] {0.4, 0, 0.6});
+
+        // a prior for more definitions than are being fitted is rejected
+        new ExpectationMaxFitter().fit(new double[] {5, 4, 6}, SparseSigMatrix.from(definitions), new double[] {8, 4, 2});
+    }
+
+    private static Matrix randomDefinitions(final Random random, int categoryCount, int definitionCount)
+    {
+        // mostly zero, as for transcripts across a gene's categories
+        Matrix definitions = new Matrix(categoryCount, definitionCount);
+
+        for(int defId = 0; defId < definitionCount; ++defId)
+        {
+            double[] ratios = new double[categoryCount];
+            double total = 0;
+
+            for(int catId = 0; catId < categoryCount; ++catId)
+            {
+                if(catId % definitionCount == defId || random.nextDouble() < 0.15)
+                {
+                    ratios[catId] = random.nextDouble();
+                    total += ratios[catId];
+                }
+            }
+
+            for(int catId = 0; catId < categoryCount; ++catId)
+            {
+                ratios[catId] /= total;
+            }
+
+            definitions.setCol(defId, ratios);
+        }
+
+        return definitions;
+    }
+
+    private static double[] randomCounts(final Random random, final Matrix definitions)
+    {
+        double[] allocations = new double[definitions.Cols];
+
+        for(int defId = 0; defId < definitions.Cols; ++defId)
+        {
+            allocations[defId] = random.nextDouble() < 0.3 ? 0 : random.nextInt(1000);
+        }
+
+        double[] counts = calculateFittedCounts(definitions, allocations);
+
+        for(int catId = 0; catId < counts.length; ++catId)
+        {
+            counts[catId] = Math.round(counts[catId] + random.nextInt(5));
+        }
+
+        return counts;
+    }
+
+    private static double[] denseFit(final double[] counts, final Matrix definitions)
+    {
+        // the prior dense implementation, as a reference for the sparse fit
+        int definitionCount = definitions.Cols;
+        int categoryCount = definitions.Rows;
+
+        double totalCounts = sumVector(counts);
+
+        double[] allocations = new double[definitionCount];
+
+        for(int defId = 0; defId < definitionCount; ++defId)
+        {
+            allocations[defId] = 1 / (double)definitionCount;
+        }
+
+        double[] newAllocations = new double[definitionCount];
+
+        for(int iteration = 0; iteration < MAX_ITERATIONS; ++iteration)
+        {
+            double[] allocFactors = new double[categoryCount];
+
+            for(int defId = 0; defId < definitionCount; ++defId)
+            {
+                newAllocations[defId] = 0;
+                final double[] ratios = definitions.getCol(defId);
+
+                for(int catId = 0; catId < categoryCount; ++catId)
+                {
+                    allocFactors[catId] += allocations[defId] * ratios[catId];
+                }
+            }
+
+            for(int defId = 0; defId < definitionCount; ++defId)
+            {
+                final double[] ratios = definitions.getCol(defId);
+
+                for(int catId = 0; catId < categoryCount; ++catId)
+                {
+                    if(allocFactors[catId] == 0)
+                        continue;
+
+                    newAllocations[defId] += counts[catId] * ratios[catId] * allocations[defId] / allocFactors[catId];
+                }
+            }
+
+            double[] fittedCounts = calculateFittedCounts(definitions, newAllocations);
+
+            if(calcResiduals(counts, fittedCounts, totalCounts).Percent < RESIDUALS_EXIT_PERC)
+                break;
+
+            for(int defId = 0; defId < definitionCount; ++defId)
+            {
+                allocations[defId] = newAllocations[defId] / totalCounts;
+            }
+        }
+
+        return newAllocations;
+    }
+}
@@ -0,0 +1,216 @@
+package com.hartwig.hmftools.common.utils.pcf;
+
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedReader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.Resources;
+
+import org.junit.Test;
+
+public class PCFSegmenterTest
+{
+    private static final double EPSILON = 1e-9;
+
+    // copynumber rounds segment means to 4 decimal places
+    private static final double MEAN_EPSILON = 1e-4;
+
+    private static final String REGRESSION_PATH = Resources.getResource("pcf/regression").getPath() + File.separator;
+
+    @Test
+    public void testQuantileMatchesR()
+    {
+        // quantile(c(1, 2, 3, 4, 10), c(0.85, 0.5, 0))
+        double[] values = { 10, 2, 4, 1, 3 };
+        assertEquals(6.4, PiecewiseConstantFit.quantile(values, 0.85), EPSILON);
+        assertEquals(3, PiecewiseConstantFit.quantile(values, 0.5), EPSILON);
+        assertEquals(1, PiecewiseConstantFit.quantile(values, 0), EPSILON);
+    }
+
+    @Test
+    public void testRunningMedian()
+    {
+        // runmed(c(1, 5, 2, 8, 3, 9, 4), 3, endrule = "median")
+        double[] values = { 1, 5, 2, 8, 3, 9, 4 };
+        assertArrayEquals(new double[] { 1, 2, 5, 3, 8, 4, 4 }, PCFSegmenter.runningMedian(values, 1), EPSILON);
+
+        // runmed(c(1, 5, 2, 8, 3, 9, 4), 5, endrule = "median")
+        assertArrayEquals(new double[] { 3, 3, 3, 5, 4, 4, 4 }, PCFSegmenter.runningMedian(values, 2), EPSILON);
+
+        // a window wider than the data is narrowed to the largest odd width
+        assertArrayEquals(new double[] { 1, 2, 3, 4 }, PCFSegmenter.runningMedian(new double[] { 1, 3, 2, 4 }, 25), EPSILON);
+    }
+
+    @Test
+    public void testExactFitSplitsSteps()
+    {
+        double[] values = new double[30];
+
+        for(int i = 0; i < values.length; ++i)
+        {
+            values[i] = i < 20 ? 0.1 * (i % 2) : 2 + 0.1 * (i % 2);
+        }
+
+        assertArrayEquals(new int[] { 20, 10 }, PiecewiseConstantFit.exactPcf(values, PiecewiseConstantFit.KMIN, 1));
+
+        // a large penalty keeps a single segment
+        assertArrayEquals(new int[] { 30 }, PiecewiseConstantFit.exactPcf(values, PiecewiseConstantFit.KMIN, 1000));
+
+        // as in copynumber with kmin = 1, leading probes are split off a flat series away from zero
+        double[] flatValues = new double[50];
+
+        for(int i = 0; i < flatValues.length; ++i)
+        {
+            flatValues[i] = 1 + (i % 2 == 0 ? 0.05 : -0.05);
+        }
+
+        assertArrayEquals(new int[] { 1, 1, 48 }, PiecewiseConstantFit.exactPcf(flatValues, PiecewiseConstantFit.KMIN, 1));
+    }
+
+    @Test
+    public void testFastFitSplitsSteps()
+    {
+        Random random = new Random(1);
+
+        for(int probeCount : new int[] { 600, 8000, 30000 })
+        {
+            double[] values = new double[probeCount];
+            int breakOne = probeCount / 3;
+            int breakTwo = 2 * probeCount / 3;
+
+            for(int i = 0; i < values.length; ++i)
+            {
+                double level = i < breakOne ? 0 : (i < breakTwo ? 1 : -0.5);
+                values[i] = level + 0.1 * random.nextGaussian();
+            }
+
+            int[] lengths = PiecewiseConstantFit.fit(values, 2);
+            assertArrayEquals(new int[] { breakOne, breakTwo - breakOne, probeCount - breakTwo }, lengths);
+        }
+    }
+
+    @Test
+    public void testSegmentsSplitByArm()
+    {
+        Random random = new Random(2);
+        PCFSegmenter segmenter = new PCFSegmenter("S1", 100);
+
+        // chromosome 1 has its arm boundary at 125Mb, the level change at 50Mb
+        for(int i = 0; i < 2000; ++i)
+        {
+            int position = 1 + i * 100000;
+            double level = position < 50000000 ? 0 : 1;
+            segmenter.addValue("chr1", position, level + 0.1 * random.nextGaussian());
+        }
+
+        for(int i = 0; i < 100; ++i)
+        {
+            segmenter.addValue("chr2", 1 + i * 1000, 0.1 * random.nextGaussian());
+        }
+
+        List<PCFSegment> segments = segmenter.segment(null);
+
+        assertEquals(4, segments.size());
+
+        PCFSegment segment = segments.get(0);
+        assertEquals("chr1", segment.Chromosome);
+        assertEquals('p', segment.Arm);
+        assertEquals(1, segment.StartPosition);
+        assertEquals(49900001, segment.EndPosition);
+        assertEquals(500, segment.ProbeCount);
+
+        segment = segments.get(1);
+        assertEquals('p', segment.Arm);
+        assertEquals(50000001, segment.StartPosition);
+        assertEquals(124900001, segment.EndPosition);
+        assertEquals(1, segment.Mean, 0.05);
+
+        segment = segments.get(2);
+        assertEquals('q', segment.Arm);
+        assertEquals(125000001, segment.StartPosition);
+        assertEquals(199900001, segment.EndPosition);
+
+        segment = segments.get(3);
+        assertEquals("chr2", segment.Chromosome);
+        assertEquals(100, segment.ProbeCount);
+    }
+
+    @Test
+    public void testMatchesCopynumberReference() throws IOException
+    {
+        // segments simulated Cobalt ratios and Amber BAFs and compares them with the output of R copynumber::pcf, see the fixture README
+        List<String[]> fixtures = Files.readAllLines(new File(REGRESSION_PATH + "fixtures.tsv").toPath()).stream()
+                .skip(1).map(x -> x.split("\t")).collect(Collectors.toList());
+
+        List<String[]> referencedFixtures = fixtures.stream()
+                .filter(x -> new File(REGRESSION_PATH + x[0] + ".expected.pcf").exists()).collect(Collectors.toList());
+
+        assumeTrue("no copynumber reference output for the PCF fixtures", !referencedFixtures.isEmpty());
+
+        for(String[] fixture : referencedFixtures)
+        {
+            String name = fixture[0];
+            PCFSegmenter segmenter = new PCFSegmenter("S1", Double.parseDouble(fixture[1]));
+
+            try(BufferedReader reader = createBufferedReader(REGRESSION_PATH + name + ".input.tsv.gz"))
+            {
+                reader.readLine();
+
+                String line;
+                while((line = reader.readLine()) != null)
+                {
+                    String[] values = line.split("\t");
+                    segmenter.addValue(values[0], Integer.parseInt(values[1]), Double.parseDouble(values[2]));
+                }
+            }
+
+            List<PCFSegment> segments = segmenter.segment(null);
+            List<PCFSegment> expectedSegments = readSegments(REGRESSION_PATH + name + ".expected.pcf");
+
+            assertEquals(name, expectedSegments.size(), segments.size());
+
+            for(int i = 0; i < expectedSegments.size(); ++i)
+            {
+                PCFSegment expected = expectedSegments.get(i);
+                PCFSegment segment = segments.get(i);
+                String segmentName = name + " " + expected;
+
+                assertEquals(segmentName, expected.Chromosome, segment.Chromosome);
+                assertEquals(segmentName, expected.Arm, segment.Arm);
+                assertEquals(segmentName, expected.StartPosition, segment.StartPosition);
+                assertEquals(segmentName, expected.EndPosition, segment.EndPosition);
+                assertEquals(segmentName, expected.ProbeCount, segment.ProbeCount);
+                assertEquals(segmentName, expected.Mean, segment.Mean, MEAN_EPSILON);
+            }
+        }
+    }
+
+    private static List<PCFSegment> readSegments(final String filename) throws IOException
+    {
+        // sampleID, chrom, arm, start.pos, end.pos, n.probes, mean
+        List<String> lines = Files.readAllLines(new File(filename).toPath());
+        List<PCFSegment> segments = Lists.newArrayList();
+
+        for(String line : lines.subList(1, lines.size()))
+        {
+            String[] values = line.split("\\t");
+
+            segments.add(new PCFSegment(
+                    values[0], values[1], values[2].charAt(0), Integer.parseInt(values[3]), Integer.parseInt(values[4]),
+                    Integer.parseInt(values[5]), Double.parseDouble(values[6])));
+        }
+
+        return segments;
+    }
+}
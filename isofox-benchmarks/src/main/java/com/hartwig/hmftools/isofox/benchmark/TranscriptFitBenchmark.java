@@ -0,0 +1,320 @@
+package com.hartwig.hmftools.isofox.benchmark;
+
+import static com.hartwig.hmftools.common.sigs.ExpectationMaxFitter.MAX_ITERATIONS;
+import static com.hartwig.hmftools.common.sigs.ExpectationMaxFitter.RESIDUALS_EXIT_PERC;
+import static com.hartwig.hmftools.common.sigs.SigUtils.calcResiduals;
+import static com.hartwig.hmftools.common.sigs.SigUtils.calculateFittedCounts;
+import static com.hartwig.hmftools.common.utils.VectorUtils.sumVector;
+import static com.hartwig.hmftools.isofox.expression.ExpectedRatesCommon.EXP_COUNT_LENGTH_HEADER;
+import static com.hartwig.hmftools.isofox.expression.ExpectedRatesCommon.formTranscriptDefinitions;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.sigs.ExpectationMaxFitter;
+import com.hartwig.hmftools.common.sigs.SparseSigMatrix;
+import com.hartwig.hmftools.common.utils.Matrix;
+import com.hartwig.hmftools.isofox.expression.CategoryCountsData;
+import com.hartwig.hmftools.isofox.expression.ExpectedRatesData;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TranscriptFitBenchmark
+{
+    // the transcript expression fit over every gene set, as run once per sample, with categories taken from an Isofox expected counts
+    // file if provided, otherwise generated with a similar spread of transcripts per gene and categories shared between them
+    @Param({""})
+    public String expCountsFile;
+
+    @Param({"DENSE", "SPARSE", "SPARSE_WARM"})
+    public String engine;
+
+    private static final long SEED = 20240601L;
+    private static final int SYNTHETIC_GENE_SETS = 2000;
+
+    private List<Matrix> mDefinitions;
+    private List<SparseSigMatrix> mSparseDefinitions;
+    private List<double[]> mSampleCounts;
+    private List<double[]> mPriorAllocations; // from fitting a prior sample, for a warm start
+    private ExpectationMaxFitter mFitter;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException
+    {
+        Random random = new Random(SEED);
+
+        List<List<CategoryCountsData>> geneSetCategories = expCountsFile.isEmpty()
+                ? generateGeneSetCategories(random) : loadGeneSetCategories(expCountsFile);
+
+        mDefinitions = Lists.newArrayList();
+        mSparseDefinitions = Lists.newArrayList();
+        mSampleCounts = Lists.newArrayList();
+        mPriorAllocations = Lists.newArrayList();
+        mFitter = new ExpectationMaxFitter();
+
+        for(List<CategoryCountsData> categories : geneSetCategories)
+        {
+            ExpectedRatesData expRatesData = new ExpectedRatesData("BENCH");
+            formTranscriptDefinitions(categories, expRatesData);
+
+            if(!expRatesData.validData())
+                continue;
+
+            Matrix definitions = expRatesData.getTranscriptDefinitions();
+            mDefinitions.add(definitions);
+            mSparseDefinitions.add(expRatesData.getSparseDefinitions());
+
+            double[] priorCounts = sampleCounts(random, definitions);
+
+            // the fitter's buffers are sized for the largest gene set fitted so far
+            double[] priorAllocations = mFitter.fit(priorCounts, expRatesData.getSparseDefinitions());
+            mPriorAllocations.add(Arrays.copyOf(priorAllocations, definitions.Cols));
+
+            mSampleCounts.add(perturbCounts(random, priorCounts));
+        }
+    }
+
+    @Benchmark
+    public double fitAllGeneSets()
+    {
+        double fitTotal = 0;
+
+        for(int i = 0; i < mDefinitions.size(); ++i)
+        {
+            switch(engine)
+            {
+                case "DENSE":
+                    fitTotal += sumVector(denseFit(mSampleCounts.get(i), mDefinitions.get(i)));
+                    break;
+
+                case "SPARSE":
+                    mFitter.fit(mSampleCounts.get(i), mSparseDefinitions.get(i));
+                    fitTotal += mFitter.fitTotal();
+                    break;
+
+                default:
+                    mFitter.fit(mSampleCounts.get(i), mSparseDefinitions.get(i), mPriorAllocations.get(i));
+                    fitTotal += mFitter.fitTotal();
+                    break;
+            }
+        }
+
+        return fitTotal;
+    }
+
+    private static List<List<CategoryCountsData>> generateGeneSetCategories(final Random random)
+    {
+        List<List<CategoryCountsData>> geneSetCategories = Lists.newArrayList();
+
+        for(int geneSet = 0; geneSet < SYNTHETIC_GENE_SETS; ++geneSet)
+        {
+            // mostly a few transcripts per gene, with a tail of large genes
+            int transcriptCount = random.nextDouble() < 0.05 ? 30 + random.nextInt(120) : 1 + random.nextInt(10);
+            int firstTransId = geneSet * 1000;
+
+            List<CategoryCountsData> categories = Lists.newArrayList();
+
+            String geneId = String.format("ENSG%011d", geneSet);
+            CategoryCountsData unspliced = new CategoryCountsData(Lists.newArrayList(), Lists.newArrayList(geneId));
+            unspliced.addCounts(100 + random.nextInt(1000));
+            categories.add(unspliced);
+
+            int categoryCount = transcriptCount * 3;
+
+            for(int c = 0; c < categoryCount; ++c)
+            {
+                int sharedCount = c < transcriptCount ? 1 : 1 + random.nextInt(Math.min(transcriptCount, 8));
+
+                List<Integer> transIds = Lists.newArrayList();
+
+                if(c < transcriptCount)
+                    transIds.add(firstTransId + c);
+
+                while(transIds.size() < sharedCount)
+                {
+                    int transId = firstTransId + random.nextInt(transcriptCount);
+
+                    if(!transIds.contains(transId))
+                        transIds.add(transId);
+                }
+
+                List<String> unsplicedGenes = random.nextDouble() < 0.2 ? Lists.newArrayList(geneId) : Lists.newArrayList();
+
+                CategoryCountsData category = new CategoryCountsData(transIds, unsplicedGenes);
+
+                if(categories.stream().anyMatch(x -> x.combinedKey().equals(category.combinedKey())))
+                    continue;
+
+                category.addCounts(1 + random.nextInt(5000));
+                categories.add(category);
+            }
+
+            geneSetCategories.add(categories);
+        }
+
+        return geneSetCategories;
+    }
+
+    private static List<List<CategoryCountsData>> loadGeneSetCategories(final String filename) throws IOException
+    {
+        // GeneSetId,Category and then expected counts for each fragment length
+        BufferedReader fileReader = new BufferedReader(new FileReader(filename));
+
+        String[] headerItems = fileReader.readLine().split(",", -1);
+
+        int geneSetIdIndex = -1;
+        int categoryIndex = -1;
+        List<Integer> lengthIndices = Lists.newArrayList();
+
+        for(int i = 0; i < headerItems.length; ++i)
+        {
+            if(headerItems[i].equals("GeneSetId"))
+                geneSetIdIndex = i;
+            else if(headerItems[i].equals("Category"))
+                categoryIndex = i;
+            else if(headerItems[i].startsWith(EXP_COUNT_LENGTH_HEADER))
+                lengthIndices.add(i);
+        }
+
+        Map<String,List<CategoryCountsData>> geneSetCategories = Maps.newLinkedHashMap();
+        String line;
+
+        while((line = fileReader.readLine()) != null)
+        {
+            String[] items = line.split(",", -1);
+
+            CategoryCountsData catCounts = new CategoryCountsData(items[categoryIndex], lengthIndices.size());
+
+            for(int i = 0; i < lengthIndices.size(); ++i)
+            {
+                catCounts.addFragLengthCounts(Integer.parseInt(items[lengthIndices.get(i)]), i);
+            }
+
+            geneSetCategories.computeIfAbsent(items[geneSetIdIndex], k -> Lists.newArrayList()).add(catCounts);
+        }
+
+        fileReader.close();
+
+        return Lists.newArrayList(geneSetCategories.values());
+    }
+
+    private static double[] sampleCounts(final Random random, final Matrix definitions)
+    {
+        // a sample's observed category counts from random transcript expression, some unexpressed
+        double[] allocations = new double[definitions.Cols];
+
+        for(int transId = 0; transId < definitions.Cols; ++transId)
+        {
+            allocations[transId] = random.nextDouble() < 0.3 ? 0 : random.nextInt(2000);
+        }
+
+        double[] counts = calculateFittedCounts(definitions, allocations);
+
+        for(int catId = 0; catId < counts.length; ++catId)
+        {
+            counts[catId] = Math.round(counts[catId]);
+        }
+
+        counts[0] += 1; // ensure a non-zero total
+        return counts;
+    }
+
+    private static double[] perturbCounts(final Random random, final double[] counts)
+    {
+        // the next sample, with expression similar to the prior sample's
+        double[] newCounts = new double[counts.length];
+
+        for(int catId = 0; catId < counts.length; ++catId)
+        {
+            newCounts[catId] = Math.round(counts[catId] * (0.8 + 0.4 * random.nextDouble()));
+        }
+
+        newCounts[0] += 1;
+        return newCounts;
+    }
+
+    private static double[] denseFit(final double[] transCounts, final Matrix transDefinitions)
+    {
+        // the prior dense implementation, allocating each iteration and copying each definition's column
+        int definitionCount = transDefinitions.Cols;
+        int categoryCount = transDefinitions.Rows;
+
+        double totalCounts = sumVector(transCounts);
+
+        double[] allocations = new double[definitionCount];
+
+        for(int transId = 0; transId < definitionCount; ++transId)
+        {
+            allocations[transId] = 1 / (double)definitionCount;
+        }
+
+        double[] newAllocations = new double[definitionCount];
+
+        for(int iteration = 0; iteration < MAX_ITERATIONS; ++iteration)
+        {
+            double[] allocFactors = new double[categoryCount];
+
+            for(int transId = 0; transId < definitionCount; ++transId)
+            {
+                newAllocations[transId] = 0;
+                final double[] ratios = transDefinitions.getCol(transId);
+
+                for(int catId = 0; catId < categoryCount; ++catId)
+                {
+                    allocFactors[catId] += allocations[transId] * ratios[catId];
+                }
+            }
+
+            for(int transId = 0; transId < definitionCount; ++transId)
+            {
+                final double[] ratios = transDefinitions.getCol(transId);
+                double transAlloc = allocations[transId];
+
+                for(int catId = 0; catId < categoryCount; ++catId)
+                {
+                    if(allocFactors[catId] == 0)
+                        continue;
+
+                    newAllocations[transId] += transCounts[catId] * ratios[catId] * transAlloc / allocFactors[catId];
+                }
+            }
+
+            double[] fittedCounts = calculateFittedCounts(transDefinitions, newAllocations);
+
+            if(calcResiduals(transCounts, fittedCounts, totalCounts).Percent < RESIDUALS_EXIT_PERC)
+                break;
+
+            for(int transId = 0; transId < definitionCount; ++transId)
+            {
+                allocations[transId] = newAllocations[transId] / totalCounts;
+            }
+        }
+
+        return newAllocations;
+    }
+}
@@ -77,6 +77,7 @@ public class IsofoxConfig
     private static final String EXP_COUNTS_FILE = "exp_counts_file";
     private static final String EXP_GC_RATIOS_FILE = "exp_gc_ratios_file";
     private static final String PANEL_TPM_NORM_FILE = "panel_tpm_norm_file";
+    private static final String FIT_WARM_START = "fit_warm_start";
 
     private static final String DROP_DUPLICATES = "drop_dups";
     private static final String SINGLE_MAP_QUAL = "single_map_qual";
@@ -110,6 +111,7 @@ public class IsofoxConfig
     public final String PanelTpmNormFile;
     public final String NeoDir;
     public final boolean ApplyFragmentLengthAdjust;
+    public final boolean FitWarmStart;
     public final List<FragmentSize> FragmentSizeData;
 
     public final boolean WriteExonData;
@@ -206,6 +208,7 @@ public class IsofoxConfig
         PanelTpmNormFile = configBuilder.getValue(PANEL_TPM_NORM_FILE);
 
         ApplyFragmentLengthAdjust = ExpCountsFile != null;
+        FitWarmStart = configBuilder.hasFlag(FIT_WARM_START);
 
         int defaultFragLengthSamplingCount = ApplyFragmentLengthAdjust ? DEFAULT_FRAG_LENGTH_MIN_COUNT : 0;
         FragmentLengthSamplingCount = configBuilder.hasValue(FRAG_LENGTH_MIN_COUNT) ?
@@ -328,6 +331,7 @@ public class IsofoxConfig
         Fusions = new FusionConfig();
 
         ApplyFragmentLengthAdjust = false;
+        FitWarmStart = false;
         OutputIdentifier = null;
         WriteFragmentLengthsByGene = false;
         FragmentLengthSamplingCount = 0;
@@ -365,8 +369,9 @@ public class IsofoxConfig
         configBuilder.addFlag(WRITE_FRAG_LENGTHS, "Write intronic fragment lengths to log");
         configBuilder.addFlag(WRITE_GC_DATA, "Write GC ratio counts from all genic reads");
 
-        configBuilder.addPath(EXP_COUNTS_FILE, false, "File with generated expected expression rates per transcript");
+        configBuilder.addPath(EXP_COUNTS_FILE, false, "File with generated expected expression rates per transcript, or an expected counts store (.bin)");
         configBuilder.addPath(EXP_GC_RATIOS_FILE, false, "File with generated expected GC ratios per transcript");
+        configBuilder.addFlag(FIT_WARM_START, "Start each gene's GC-adjusted transcript fit from its initial fit");
         configBuilder.addPath(NEO_DIR_CFG, false, NEO_DIR_DESC);
         configBuilder.addPath(PANEL_TPM_NORM_FILE, false, "Panel TPM normalisation file");
         configBuilder.addInteger(READ_LENGTH, "Sample sequencing read length, if 0 then is inferred from reads", 0);
@@ -28,17 +28,24 @@ public class ExpectedCountsCache
     // map of chrGeneSetId to category counts data
     private final Map<String,List<CategoryCountsData>> mGeneSetCategoryDataMap;
 
+    // alternatively a store from which gene sets are loaded as required
+    private ExpectedCountsStore mStore;
+
     private boolean mValidData;
 
     public ExpectedCountsCache(final IsofoxConfig config)
     {
         mConfig = config;
         mGeneSetCategoryDataMap = Maps.newHashMap();
+        mStore = null;
         mValidData = true;
 
         if(config.ExpCountsFile != null && Files.exists(Paths.get(mConfig.ExpCountsFile)))
         {
-            mValidData = loadExpCountsFile();
+            if(ExpectedCountsStore.isStoreFile(mConfig.ExpCountsFile))
+                mValidData = openExpCountsStore();
+            else
+                mValidData = loadExpCountsFile();
         }
     }
 
@@ -46,6 +53,12 @@ public class ExpectedCountsCache
 
     public List<CategoryCountsData> getGeneExpectedRatesData(final String chrId, final List<String> geneIds)
     {
+        if(mStore != null)
+        {
+            String geneSetId = mStore.findGeneSet(chrId, geneIds);
+            return geneSetId != null ? mStore.loadGeneSet(geneSetId) : null;
+        }
+
         List<CategoryCountsData> geneSetCountsData = mGeneSetCategoryDataMap.get(chrId);
 
         if (geneSetCountsData == null || !geneSetCountsDataMatches(geneIds, geneSetCountsData))
@@ -77,6 +90,35 @@ public class ExpectedCountsCache
         return null;
     }
 
+    private boolean openExpCountsStore()
+    {
+        mStore = ExpectedCountsStore.open(mConfig.ExpCountsFile);
+
+        if(mStore == null)
+            return false;
+
+        if(mConfig.FragmentSizeData.size() == 0)
+        {
+            StringJoiner sj = new StringJoiner(", ");
+            for(Integer fragmentLength : mStore.FragmentLengths)
+            {
+                // set default of 1 for frequency in case it is not sampled
+                mConfig.FragmentSizeData.add(new FragmentSize(fragmentLength, 1));
+                sj.add(String.valueOf(fragmentLength));
+            }
+
+            ISF_LOGGER.info("fragment lengths({}) set from expected counts store", sj.toString());
+        }
+        else if(mConfig.FragmentSizeData.size() != mStore.FragmentLengths.size())
+        {
+            ISF_LOGGER.error("expected counts store has {} fragment lengths vs configuredCount({})",
+                    mStore.FragmentLengths.size(), mConfig.FragmentSizeData.size());
+            return false;
+        }
+
+        return true;
+    }
+
     // GeneSetId,TransId,Category,Counts for each fragment length
     private boolean loadExpCountsFile()
     {
@@ -0,0 +1,187 @@
+package com.hartwig.hmftools.isofox.expression;
+
+import static com.hartwig.hmftools.isofox.IsofoxConfig.ISF_LOGGER;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+// a binary form of the expected counts file, memory-mapped and indexed by gene set so that only the gene collections a task fits are
+// decoded, each into new category counts since fitting adjusts them by the sample's fragment length distribution
+public class ExpectedCountsStore
+{
+    public static final String EXPECTED_COUNTS_STORE_EXTENSION = ".bin";
+
+    public static final int MAGIC = 0x49534543; // ISEC
+    public static final int FORMAT_VERSION = 1;
+
+    public final String Filename;
+    public final List<Integer> FragmentLengths;
+
+    private final MappedByteBuffer mData;
+    private final Map<String,GeneSetIndex> mGeneSets;
+
+    private ExpectedCountsStore(final String filename, final List<Integer> fragmentLengths, final MappedByteBuffer data)
+    {
+        Filename = filename;
+        FragmentLengths = fragmentLengths;
+        mData = data;
+        mGeneSets = Maps.newHashMap();
+    }
+
+    public static boolean isStoreFile(final String filename) { return filename != null && filename.endsWith(EXPECTED_COUNTS_STORE_EXTENSION); }
+
+    public static ExpectedCountsStore open(final String filename)
+    {
+        try(FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ))
+        {
+            long fileSize = channel.size();
+
+            // gene set offsets are held as ints, limiting the store to a single mapping
+            if(fileSize > Integer.MAX_VALUE)
+            {
+                ISF_LOGGER.error("expected counts store({}) exceeds maximum size", filename);
+                return null;
+            }
+
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+
+            if(data.getInt(0) != MAGIC || data.getInt(Integer.BYTES) != FORMAT_VERSION)
+            {
+                ISF_LOGGER.error("invalid expected counts store({})", filename);
+                return null;
+            }
+
+            int indexOffset = (int)data.getLong((int)fileSize - Long.BYTES);
+
+            byte[] indexBytes = new byte[(int)fileSize - Long.BYTES - indexOffset];
+            ByteBuffer indexBuffer = data.duplicate();
+            indexBuffer.position(indexOffset);
+            indexBuffer.get(indexBytes);
+
+            DataInputStream index = new DataInputStream(new ByteArrayInputStream(indexBytes));
+
+            int fragLengthCount = index.readInt();
+            List<Integer> fragmentLengths = Lists.newArrayListWithCapacity(fragLengthCount);
+
+            for(int i = 0; i < fragLengthCount; ++i)
+            {
+                fragmentLengths.add(index.readInt());
+            }
+
+            ExpectedCountsStore store = new ExpectedCountsStore(filename, fragmentLengths, data);
+
+            int geneSetCount = index.readInt();
+
+            for(int i = 0; i < geneSetCount; ++i)
+            {
+                String geneSetId = index.readUTF();
+                int offset = index.readInt();
+                int categoryCount = index.readInt();
+                int geneCount = index.readInt();
+
+                Set<String> geneIds = Sets.newHashSetWithExpectedSize(geneCount);
+
+                for(int g = 0; g < geneCount; ++g)
+                {
+                    geneIds.add(index.readUTF());
+                }
+
+                store.mGeneSets.put(geneSetId, new GeneSetIndex(offset, categoryCount, geneIds));
+            }
+
+            ISF_LOGGER.info("opened expected counts store({}) with {} gene sets", filename, geneSetCount);
+
+            return store;
+        }
+        catch(IOException e)
+        {
+            ISF_LOGGER.error("failed to open expected counts store({}): {}", filename, e.toString());
+            return null;
+        }
+    }
+
+    public int geneSetCount() { return mGeneSets.size(); }
+
+    // the gene set for a collection's genes, preferring the given ID if it covers them
+    public String findGeneSet(final String geneSetId, final List<String> geneIds)
+    {
+        GeneSetIndex geneSet = mGeneSets.get(geneSetId);
+
+        if(geneSet != null && geneSet.GeneIds.containsAll(geneIds))
+            return geneSetId;
+
+        for(Map.Entry<String,GeneSetIndex> entry : mGeneSets.entrySet())
+        {
+            if(entry.getValue().GeneIds.containsAll(geneIds))
+                return entry.getKey();
+        }
+
+        return null;
+    }
+
+    public List<CategoryCountsData> loadGeneSet(final String geneSetId)
+    {
+        GeneSetIndex geneSet = mGeneSets.get(geneSetId);
+
+        if(geneSet == null)
+            return null;
+
+        // categories: key length and bytes, then the expected count for each fragment length
+        ByteBuffer data = mData.duplicate();
+        data.position(geneSet.Offset);
+
+        int fragLengthCount = FragmentLengths.size();
+        List<CategoryCountsData> categories = Lists.newArrayListWithCapacity(geneSet.CategoryCount);
+        byte[] keyBytes = new byte[64];
+
+        for(int c = 0; c < geneSet.CategoryCount; ++c)
+        {
+            int keyLength = data.getShort() & 0xFFFF;
+
+            if(keyBytes.length < keyLength)
+                keyBytes = new byte[keyLength];
+
+            data.get(keyBytes, 0, keyLength);
+
+            CategoryCountsData catCounts = new CategoryCountsData(
+                    new String(keyBytes, 0, keyLength, StandardCharsets.US_ASCII), fragLengthCount);
+
+            for(int i = 0; i < fragLengthCount; ++i)
+            {
+                catCounts.addFragLengthCounts(data.getInt(), i);
+            }
+
+            categories.add(catCounts);
+        }
+
+        return categories;
+    }
+
+    private static class GeneSetIndex
+    {
+        public final int Offset;
+        public final int CategoryCount;
+        public final Set<String> GeneIds; // the unspliced genes across its categories
+
+        public GeneSetIndex(int offset, int categoryCount, final Set<String> geneIds)
+        {
+            Offset = offset;
+            CategoryCount = categoryCount;
+            GeneIds = geneIds;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.hartwig.hmftools.isofox.expression;
 import java.util.List;
 
 import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.sigs.SparseSigMatrix;
 import com.hartwig.hmftools.common.utils.Matrix;
 
 public class ExpectedRatesData
@@ -16,6 +17,8 @@ public class ExpectedRatesData
     public final List<String> TranscriptIds;
 
     private Matrix mTranscriptDefinitions;
+    private SparseSigMatrix mSparseDefinitions; // formed on first use by the fit
+    private double[] mFitAllocations; // the last fit, for a warm start of any subsequent fit
 
     public ExpectedRatesData(final String id)
     {
@@ -23,10 +26,30 @@ public class ExpectedRatesData
         Categories = Lists.newArrayList();
         TranscriptIds = Lists.newArrayList();
         mTranscriptDefinitions = null;
+        mSparseDefinitions = null;
+        mFitAllocations = null;
     }
 
     public Matrix getTranscriptDefinitions() { return mTranscriptDefinitions; }
 
+    public SparseSigMatrix getSparseDefinitions()
+    {
+        if(mSparseDefinitions == null && mTranscriptDefinitions != null)
+            mSparseDefinitions = SparseSigMatrix.from(mTranscriptDefinitions);
+
+        return mSparseDefinitions;
+    }
+
+    public double[] getFitAllocations() { return mFitAllocations; }
+
+    public void setFitAllocations(final double[] allocations)
+    {
+        if(mFitAllocations == null || mFitAllocations.length != TranscriptIds.size())
+            mFitAllocations = new double[TranscriptIds.size()];
+
+        System.arraycopy(allocations, 0, mFitAllocations, 0, mFitAllocations.length);
+    }
+
     public boolean validData()
     {
         if(Categories.isEmpty() || mTranscriptDefinitions == null)
@@ -47,6 +70,7 @@ public class ExpectedRatesData
             return;
 
         mTranscriptDefinitions = new Matrix(Categories.size(), TranscriptIds.size());
+        mSparseDefinitions = null;
     }
 
     public int getTranscriptIndex(final String trans)
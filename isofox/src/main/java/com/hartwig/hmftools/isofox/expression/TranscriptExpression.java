@@ -4,8 +4,6 @@ import static java.lang.Math.abs;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 
-import static com.hartwig.hmftools.common.sigs.SigUtils.calcResiduals;
-import static com.hartwig.hmftools.common.sigs.SigUtils.calculateFittedCounts;
 import static com.hartwig.hmftools.common.utils.VectorUtils.sumVector;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedWriter;
 import static com.hartwig.hmftools.isofox.IsofoxConfig.ISF_LOGGER;
@@ -21,8 +19,7 @@ import java.util.StringJoiner;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.hartwig.hmftools.common.sigs.ExpectationMaxFit;
-import com.hartwig.hmftools.common.sigs.SigResiduals;
+import com.hartwig.hmftools.common.sigs.ExpectationMaxFitter;
 import com.hartwig.hmftools.isofox.IsofoxConfig;
 import com.hartwig.hmftools.isofox.adjusts.FragmentSize;
 import com.hartwig.hmftools.isofox.adjusts.GcRatioCounts;
@@ -41,6 +38,8 @@ public class TranscriptExpression
 
     private final List<Double> mFragmentFrequencyRates;
 
+    private final ExpectationMaxFitter mFitter; // reuses its buffers across each gene collection's fit
+
     public TranscriptExpression(final IsofoxConfig config, final ExpectedCountsCache cache, final ResultsWriter resultsWriter)
     {
         mConfig = config;
@@ -49,6 +48,7 @@ public class TranscriptExpression
         mCache = cache;
         mExpectedRatesDataMap = Maps.newHashMap();
         mCurrentExpRatesData = null;
+        mFitter = new ExpectationMaxFitter();
 
         // convert fragment distribution counts to rates
         double totalFrequencyFrags = mConfig.FragmentSizeData.stream().mapToDouble(x -> x.Frequency).sum();
@@ -112,16 +112,21 @@ public class TranscriptExpression
 
         final List<String> transcriptIds = mCurrentExpRatesData.TranscriptIds;
 
-        final double[] fitAllocations = ExpectationMaxFit.performFit(transComboCounts, mCurrentExpRatesData.getTranscriptDefinitions());
-        final double[] fittedCounts = calculateFittedCounts(mCurrentExpRatesData.getTranscriptDefinitions(), fitAllocations);
-        double fitTotal = sumVector(fitAllocations);
+        // a repeat fit, after GC adjustment, can start from the initial fit's allocations
+        final double[] priorAllocations = checkCached && mConfig.FitWarmStart ? mCurrentExpRatesData.getFitAllocations() : null;
+
+        final double[] fitAllocations = mFitter.fit(transComboCounts, mCurrentExpRatesData.getSparseDefinitions(), priorAllocations);
+        final double[] fittedCounts = mFitter.fittedCounts();
+        double fitTotal = mFitter.fitTotal();
+        double residuals = mFitter.residuals();
 
-        SigResiduals residuals = calcResiduals(transComboCounts, fittedCounts, totalCounts);
+        ISF_LOGGER.debug(String.format("gene(%s) totalFragments(%.0f) fitTotal(%.0f) residuals(%.0f perc=%.3f) iterations(%d)",
+                geneSummaryData.GeneNames, totalCounts, fitTotal, residuals, residuals / totalCounts, mFitter.iterations()));
 
-        ISF_LOGGER.debug(String.format("gene(%s) totalFragments(%.0f) fitTotal(%.0f) residuals(%.0f perc=%.3f)",
-                geneSummaryData.GeneNames, totalCounts, fitTotal, residuals.Total, residuals.Percent));
+        geneSummaryData.setFitResiduals(residuals);
 
-        geneSummaryData.setFitResiduals(residuals.Total);
+        if(!checkCached && mConfig.FitWarmStart && mConfig.applyGcBiasAdjust())
+            mCurrentExpRatesData.setFitAllocations(fitAllocations);
 
         final Map<String,Double> transAllocations = geneSummaryData.getFitAllocations();
 
@@ -0,0 +1,135 @@
+package com.hartwig.hmftools.isofox.refdata;
+
+import static com.hartwig.hmftools.common.utils.config.ConfigUtils.addLoggingOptions;
+import static com.hartwig.hmftools.common.utils.file.FileReaderUtils.createFieldsIndexMap;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedReader;
+import static com.hartwig.hmftools.isofox.IsofoxConfig.ISF_LOGGER;
+import static com.hartwig.hmftools.isofox.IsofoxConstants.APP_NAME;
+import static com.hartwig.hmftools.isofox.expression.ExpectedCountsStore.EXPECTED_COUNTS_STORE_EXTENSION;
+import static com.hartwig.hmftools.isofox.expression.ExpectedRatesCommon.EXP_COUNT_LENGTH_HEADER;
+import static com.hartwig.hmftools.isofox.results.ResultsWriter.DELIMITER;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.isofox.expression.CategoryCountsData;
+
+import org.jetbrains.annotations.NotNull;
+
+// converts an expected counts file into an expected counts store, read by Isofox in its place
+public class ExpectedCountsStoreBuilder
+{
+    private final String mInputFile;
+    private final String mOutputFile;
+
+    private static final String INPUT_FILE = "input_file";
+    private static final String OUTPUT_FILE = "output_file";
+
+    public ExpectedCountsStoreBuilder(final ConfigBuilder configBuilder)
+    {
+        mInputFile = configBuilder.getValue(INPUT_FILE);
+        mOutputFile = configBuilder.getValue(OUTPUT_FILE);
+    }
+
+    public void run()
+    {
+        if(!mOutputFile.endsWith(EXPECTED_COUNTS_STORE_EXTENSION))
+        {
+            ISF_LOGGER.error("output file({}) requires extension({})", mOutputFile, EXPECTED_COUNTS_STORE_EXTENSION);
+            System.exit(1);
+        }
+
+        ISF_LOGGER.info("building expected counts store from {}", mInputFile);
+
+        try
+        {
+            int geneSetCount = convertFile(mInputFile, mOutputFile);
+            ISF_LOGGER.info("written {} gene sets to store({})", geneSetCount, mOutputFile);
+        }
+        catch(IOException | IllegalArgumentException e)
+        {
+            ISF_LOGGER.error("failed to build expected counts store: {}", e.toString());
+            System.exit(1);
+        }
+    }
+
+    public static int convertFile(final String inputFile, final String outputFile) throws IOException
+    {
+        BufferedReader fileReader = createBufferedReader(inputFile);
+
+        // GeneSetId,Category and then counts for each fragment length
+        String line = fileReader.readLine();
+
+        if(line == null)
+            throw new IOException("empty expected counts file: " + inputFile);
+
+        String[] headerItems = line.split(DELIMITER, -1);
+        final Map<String,Integer> fieldsIndexMap = createFieldsIndexMap(line, DELIMITER);
+        int geneSetIdIndex = fieldsIndexMap.get("GeneSetId");
+        int categoryIndex = fieldsIndexMap.get("Category");
+
+        List<Integer> fragmentLengths = Lists.newArrayList();
+
+        for(int i = categoryIndex + 1; i < headerItems.length; ++i)
+        {
+            fragmentLengths.add(Integer.parseInt(headerItems[i].replaceAll(EXP_COUNT_LENGTH_HEADER, "")));
+        }
+
+        int fragLengths = fragmentLengths.size();
+
+        ExpectedCountsStoreWriter writer = new ExpectedCountsStoreWriter(outputFile, fragmentLengths);
+
+        String currentGeneSetId = "";
+        List<CategoryCountsData> categoryDataList = Lists.newArrayList();
+
+        while((line = fileReader.readLine()) != null)
+        {
+            String[] items = line.split(DELIMITER, -1);
+
+            String geneSetId = items[geneSetIdIndex];
+
+            if(!geneSetId.equals(currentGeneSetId))
+            {
+                if(!categoryDataList.isEmpty())
+                    writer.addGeneSet(currentGeneSetId, categoryDataList);
+
+                currentGeneSetId = geneSetId;
+                categoryDataList = Lists.newArrayList();
+            }
+
+            CategoryCountsData catCounts = new CategoryCountsData(items[categoryIndex], fragLengths);
+            categoryDataList.add(catCounts);
+
+            for(int i = 0; i < fragLengths; ++i)
+            {
+                catCounts.addFragLengthCounts(Integer.parseInt(items[categoryIndex + i + 1]), i);
+            }
+        }
+
+        if(!categoryDataList.isEmpty())
+            writer.addGeneSet(currentGeneSetId, categoryDataList);
+
+        fileReader.close();
+        writer.close();
+
+        return writer.geneSetCount();
+    }
+
+    public static void main(@NotNull final String[] args)
+    {
+        ConfigBuilder configBuilder = new ConfigBuilder(APP_NAME);
+
+        configBuilder.addPath(INPUT_FILE, true, "Expected counts file");
+        configBuilder.addConfigItem(OUTPUT_FILE, true, "Output expected counts store, with extension " + EXPECTED_COUNTS_STORE_EXTENSION);
+        addLoggingOptions(configBuilder);
+
+        configBuilder.checkAndParseCommandLine(args);
+
+        ExpectedCountsStoreBuilder builder = new ExpectedCountsStoreBuilder(configBuilder);
+        builder.run();
+    }
+}
@@ -0,0 +1,125 @@
+package com.hartwig.hmftools.isofox.refdata;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.isofox.expression.ExpectedCountsStore.FORMAT_VERSION;
+import static com.hartwig.hmftools.isofox.expression.ExpectedCountsStore.MAGIC;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.hartwig.hmftools.isofox.expression.CategoryCountsData;
+
+// writes gene sets' expected category counts to an expected counts store, with the gene set index following them
+public class ExpectedCountsStoreWriter
+{
+    private final List<Integer> mFragmentLengths;
+    private final DataOutputStream mOutput;
+    private long mFileOffset;
+
+    private final List<GeneSetEntry> mGeneSets;
+
+    public ExpectedCountsStoreWriter(final String filename, final List<Integer> fragmentLengths) throws IOException
+    {
+        mFragmentLengths = fragmentLengths;
+        mOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)));
+        mGeneSets = Lists.newArrayList();
+
+        mOutput.writeInt(MAGIC);
+        mOutput.writeInt(FORMAT_VERSION);
+        mFileOffset = 2 * Integer.BYTES;
+    }
+
+    public int geneSetCount() { return mGeneSets.size(); }
+
+    public synchronized void addGeneSet(final String geneSetId, final List<CategoryCountsData> categoryCounts) throws IOException
+    {
+        if(mFileOffset > Integer.MAX_VALUE)
+            throw new IOException("expected counts store exceeds maximum size");
+
+        GeneSetEntry geneSet = new GeneSetEntry(geneSetId, (int)mFileOffset);
+
+        for(CategoryCountsData catCounts : categoryCounts)
+        {
+            final double[] lengthCounts = catCounts.fragmentCountsByLength();
+
+            if(lengthCounts == null)
+                continue;
+
+            if(lengthCounts.length != mFragmentLengths.size())
+            {
+                throw new IllegalArgumentException(format("gene set(%s) category(%s) has %d fragment lengths, expected %d",
+                        geneSetId, catCounts.combinedKey(), lengthCounts.length, mFragmentLengths.size()));
+            }
+
+            byte[] keyBytes = catCounts.combinedKey().getBytes(StandardCharsets.US_ASCII);
+            mOutput.writeShort(keyBytes.length);
+            mOutput.write(keyBytes);
+
+            for(double count : lengthCounts)
+            {
+                mOutput.writeInt((int)Math.round(count));
+            }
+
+            mFileOffset += Short.BYTES + keyBytes.length + (long)lengthCounts.length * Integer.BYTES;
+
+            ++geneSet.CategoryCount;
+            geneSet.GeneIds.addAll(catCounts.unsplicedGeneIds());
+        }
+
+        mGeneSets.add(geneSet);
+    }
+
+    public void close() throws IOException
+    {
+        long indexOffset = mFileOffset;
+
+        mOutput.writeInt(mFragmentLengths.size());
+
+        for(Integer fragmentLength : mFragmentLengths)
+        {
+            mOutput.writeInt(fragmentLength);
+        }
+
+        mOutput.writeInt(mGeneSets.size());
+
+        for(GeneSetEntry geneSet : mGeneSets)
+        {
+            mOutput.writeUTF(geneSet.GeneSetId);
+            mOutput.writeInt(geneSet.Offset);
+            mOutput.writeInt(geneSet.CategoryCount);
+            mOutput.writeInt(geneSet.GeneIds.size());
+
+            for(String geneId : geneSet.GeneIds)
+            {
+                mOutput.writeUTF(geneId);
+            }
+        }
+
+        mOutput.writeLong(indexOffset);
+        mOutput.close();
+    }
+
+    private class GeneSetEntry
+    {
+        public final String GeneSetId;
+        public final int Offset;
+        public int CategoryCount;
+        public final Set<String> GeneIds;
+
+        public GeneSetEntry(final String geneSetId, int offset)
+        {
+            GeneSetId = geneSetId;
+            Offset = offset;
+            CategoryCount = 0;
+            GeneIds = Sets.newLinkedHashSet();
+        }
+    }
+}
@@ -9,11 +9,18 @@ import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.SE_END;
 import static com.hartwig.hmftools.common.utils.sv.StartEndIterator.SE_START;
 import static com.hartwig.hmftools.isofox.common.FragmentMatchType.UNSPLICED;
 import static com.hartwig.hmftools.isofox.expression.ExpectedRatesCommon.createTransComboDataMap;
+import static com.hartwig.hmftools.isofox.expression.ExpectedCountsStore.EXPECTED_COUNTS_STORE_EXTENSION;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -26,10 +33,12 @@ import com.hartwig.hmftools.isofox.common.FragmentMatchType;
 import com.hartwig.hmftools.isofox.common.GeneCollection;
 import com.hartwig.hmftools.isofox.common.GeneReadData;
 import com.hartwig.hmftools.isofox.expression.CategoryCountsData;
+import com.hartwig.hmftools.isofox.expression.ExpectedCountsStore;
 import com.hartwig.hmftools.common.sigs.ExpectationMaxFit;
 import com.hartwig.hmftools.isofox.expression.ExpectedRatesData;
 import com.hartwig.hmftools.common.utils.Matrix;
 import com.hartwig.hmftools.isofox.refdata.ExpectedCountsGenerator;
+import com.hartwig.hmftools.isofox.refdata.ExpectedCountsStoreWriter;
 import com.hartwig.hmftools.isofox.refdata.RefDataConfig;
 
 import org.apache.logging.log4j.Level;
@@ -703,4 +712,66 @@ public class ExpectedRatesTest
 
     }
 
+    @Test
+    public void testExpectedCountsStore() throws IOException
+    {
+        List<Integer> fragmentLengths = Lists.newArrayList(50, 100, 200);
+
+        String geneId1 = "ENSG0001";
+        String geneId2 = "ENSG0002";
+        String geneId3 = "ENSG0003";
+
+        CategoryCountsData catCounts1 = new CategoryCountsData("1-2", fragmentLengths.size());
+        catCounts1.addFragLengthCounts(10, 0);
+        catCounts1.addFragLengthCounts(20, 2);
+
+        CategoryCountsData catCounts2 = new CategoryCountsData("2-" + geneId1, fragmentLengths.size());
+        catCounts2.addFragLengthCounts(5, 1);
+
+        CategoryCountsData catCounts3 = new CategoryCountsData(geneId2, fragmentLengths.size());
+        catCounts3.addFragLengthCounts(7, 0);
+
+        CategoryCountsData catCounts4 = new CategoryCountsData("3-" + geneId3, fragmentLengths.size());
+        catCounts4.addFragLengthCounts(3, 2);
+
+        File storeFile = File.createTempFile("exp_counts", EXPECTED_COUNTS_STORE_EXTENSION);
+        storeFile.deleteOnExit();
+
+        ExpectedCountsStoreWriter writer = new ExpectedCountsStoreWriter(storeFile.getPath(), fragmentLengths);
+        writer.addGeneSet("1_1", Lists.newArrayList(catCounts1, catCounts2, catCounts3));
+        writer.addGeneSet("1_2", Lists.newArrayList(catCounts4));
+        writer.close();
+
+        assertTrue(ExpectedCountsStore.isStoreFile(storeFile.getPath()));
+
+        ExpectedCountsStore store = ExpectedCountsStore.open(storeFile.getPath());
+        assertNotNull(store);
+        assertEquals(2, store.geneSetCount());
+        assertEquals(fragmentLengths, store.FragmentLengths);
+
+        // the gene set is found by its ID or otherwise by its genes
+        assertEquals("1_1", store.findGeneSet("1_1", Lists.newArrayList(geneId1, geneId2)));
+        assertEquals("1_2", store.findGeneSet("1_1", Lists.newArrayList(geneId3)));
+        assertEquals("1_2", store.findGeneSet("2_5", Lists.newArrayList(geneId3)));
+        assertNull(store.findGeneSet("1_1", Lists.newArrayList(geneId1, geneId3)));
+
+        List<CategoryCountsData> categories = store.loadGeneSet("1_1");
+        assertEquals(3, categories.size());
+
+        assertEquals("1-2", categories.get(0).combinedKey());
+        assertEquals(Lists.newArrayList(1, 2), categories.get(0).transcriptIds());
+        assertArrayEquals(new double[] {10, 0, 20}, categories.get(0).fragmentCountsByLength(), 0.001);
+        assertEquals(30, categories.get(0).fragmentCount(), 0.001);
+
+        assertEquals(Lists.newArrayList(geneId1), categories.get(1).unsplicedGeneIds());
+        assertArrayEquals(new double[] {0, 5, 0}, categories.get(1).fragmentCountsByLength(), 0.001);
+
+        assertEquals(geneId2, categories.get(2).combinedKey());
+
+        // each load decodes new counts data, which may then be adjusted independently
+        assertNotSame(categories.get(0), store.loadGeneSet("1_1").get(0));
+
+        assertNull(store.loadGeneSet("2_5"));
+    }
+
 }
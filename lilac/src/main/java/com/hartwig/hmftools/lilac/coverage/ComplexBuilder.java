@@ -250,38 +250,24 @@ public class ComplexBuilder
 
     public static List<HlaComplex> combineComplexes(final List<HlaComplex> first, final List<HlaComplex> second)
     {
-        // first produce each unique combo pairing, then combine into a single complex
-        List<List<HlaComplex>> intermediatePairs = cartesianComplexProduct(first, second);
-
+        // combine each unique pairing directly into a single complex
         List<HlaComplex> complexes = Lists.newArrayList();
 
-        for(List<HlaComplex> pairing : intermediatePairs)
-        {
-            List<HlaAllele> combinedAlleles = pairing.get(0).Alleles.stream().collect(Collectors.toList());
-            combinedAlleles.addAll(pairing.get(1).Alleles);
-            complexes.add(new HlaComplex(combinedAlleles));
-        }
-
-        return complexes;
-    }
-
-    private static List<List<HlaComplex>> cartesianComplexProduct(final List<HlaComplex> first, final List<HlaComplex> second)
-    {
-        List<List<HlaComplex>> results = Lists.newArrayList();
-
         for(HlaComplex i : first)
         {
             for(HlaComplex j : second)
             {
-                if(i != j)
-                {
-                    List<HlaComplex> pairing = Lists.newArrayList(i, j);
-                    results.add(pairing);
-                }
+                if(i == j)
+                    continue;
+
+                List<HlaAllele> combinedAlleles = Lists.newArrayListWithCapacity(i.Alleles.size() + j.Alleles.size());
+                combinedAlleles.addAll(i.Alleles);
+                combinedAlleles.addAll(j.Alleles);
+                complexes.add(new HlaComplex(combinedAlleles));
             }
         }
 
-        return results;
+        return complexes;
     }
 
     private static List<HlaComplex> combineAlleles(final List<HlaAllele> first, final List<HlaAllele> second)
@@ -22,6 +22,7 @@ public class CoverageCalcTask implements Callable<Long>
     private final double mTopScorePercDiff;
     private int mMaxFragments;
     private int mLowScoreCount;
+    private int mBoundCullCount;
 
     private final PerformanceCounter mPerfCounter;
 
@@ -39,6 +40,7 @@ public class CoverageCalcTask implements Callable<Long>
         mTopScorePercDiff = min(topScoreThreshold * 5, 0.99);
         mMaxFragments = 0;
         mLowScoreCount = 0;
+        mBoundCullCount = 0;
         mPerfCounter = new PerformanceCounter("CalcCoverage");
     }
 
@@ -57,14 +59,24 @@ public class CoverageCalcTask implements Callable<Long>
         {
             if(checkCull && i > 0 && (i % CULL_COMPLEX_COUNT) == 0)
             {
-                LL_LOGGER.debug(String.format("thread %d: complexes(%d) processed, discard(%d, %.2f%%)",
-                        mId, i, mLowScoreCount, 100.0 * mLowScoreCount / i));
+                LL_LOGGER.debug(String.format("thread %d: complexes(%d) processed, discard(%d, %.2f%%) boundCulled(%d)",
+                        mId, i, mLowScoreCount, 100.0 * mLowScoreCount / i, mBoundCullCount));
 
                 mPerfCounter.stop();
                 mPerfCounter.start();
             }
 
-            List<AlleleCoverage> alleleCoverage = mFragAlleleMatrix.create(mComplexes.get(i));
+            HlaComplex complex = mComplexes.get(i);
+
+            // cull without a full calculation if even the complex's maximum possible coverage would be culled
+            if(checkCull && isLowScore(mFragAlleleMatrix.coverageUpperBound(complex)))
+            {
+                ++mLowScoreCount;
+                ++mBoundCullCount;
+                continue;
+            }
+
+            List<AlleleCoverage> alleleCoverage = mFragAlleleMatrix.create(complex);
             int totalFragments = calcTotalFragments(alleleCoverage);
 
             if(checkCull && canCull(totalFragments)) // result.TotalCoverage
@@ -104,16 +116,25 @@ public class CoverageCalcTask implements Callable<Long>
             return false;
         }
 
-        if(mMaxFragments - totalCoverage < MIN_FRAG_DIFF)
-            return false;
-
-        if(totalCoverage > mMaxFragments * (1 - mTopScorePercDiff))
+        if(!isLowScore(totalCoverage))
             return false;
 
         ++mLowScoreCount;
         return true;
     }
 
+    private boolean isLowScore(final int totalCoverage)
+    {
+        // holds for any lower coverage too, so can be tested with an upper bound on a complex's coverage
+        if(totalCoverage > mMaxFragments)
+            return false;
+
+        if(mMaxFragments - totalCoverage < MIN_FRAG_DIFF)
+            return false;
+
+        return totalCoverage <= mMaxFragments * (1 - mTopScorePercDiff);
+    }
+
     private ComplexCoverage calcCoverage(final HlaComplex complex)
     {
         List<AlleleCoverage> alleleCoverage = mFragAlleleMatrix.create(complex);
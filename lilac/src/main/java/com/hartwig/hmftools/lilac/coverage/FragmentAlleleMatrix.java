@@ -1,7 +1,5 @@
 package com.hartwig.hmftools.lilac.coverage;
 
-import static com.hartwig.hmftools.lilac.LilacConfig.LL_LOGGER;
-
 import java.util.List;
 import java.util.Map;
 
@@ -18,20 +16,11 @@ public class FragmentAlleleMatrix
 
     private final int mAlleleCount;
     private final int mFragCount;
+    private final int mWordCount;
 
-    private final SupportType[][] mMatrix;
-
-    private static int FULL = 0;
-    private static int WILD = 1;
-    private static int ITEMS = WILD + 1;
-
-    private enum SupportType
-    {
-        FULL,
-        WILD,
-        BOTH,
-        NONE;
-    }
+    // each allele's fragment support as bit planes, with a fragment's bit set for full and/or wild support
+    private final long[][] mFullBits;
+    private final long[][] mWildBits;
 
     public FragmentAlleleMatrix(final List<FragmentAlleles> fragmentAlleles, final List<HlaAllele> alleles)
     {
@@ -42,16 +31,10 @@ public class FragmentAlleleMatrix
 
         mAlleleCount = alleles.size();
         mFragCount = fragmentAlleles.size();
+        mWordCount = (mFragCount + Long.SIZE - 1) / Long.SIZE;
 
-        mMatrix = new SupportType[mFragCount][mAlleleCount];
-
-        for(int f = 0; f < mFragCount; ++f)
-        {
-            for(int a = 0; a < mAlleleCount; ++a)
-            {
-                mMatrix[f][a] = SupportType.NONE;
-            }
-        }
+        mFullBits = new long[mAlleleCount][mWordCount];
+        mWildBits = new long[mAlleleCount][mWordCount];
 
         buildAlleleFragmentMatrix();
     }
@@ -68,6 +51,9 @@ public class FragmentAlleleMatrix
         {
             FragmentAlleles fragment = mFragmentAlleles.get(fragIndex);
 
+            int word = fragIndex / Long.SIZE;
+            long fragBit = 1L << (fragIndex % Long.SIZE);
+
             for(HlaAllele allele : fragment.getFull())
             {
                 Integer alleleIndex = mAlleleIndexMap.get(allele);
@@ -75,7 +61,7 @@ public class FragmentAlleleMatrix
                 if(alleleIndex == null)
                     continue;
 
-                mMatrix[fragIndex][alleleIndex] = SupportType.FULL;
+                mFullBits[alleleIndex][word] |= fragBit;
             }
 
             for(HlaAllele allele : fragment.getWild())
@@ -85,28 +71,52 @@ public class FragmentAlleleMatrix
                 if(alleleIndex == null)
                     continue;
 
-                if(mMatrix[fragIndex][alleleIndex] == SupportType.FULL)
-                    mMatrix[fragIndex][alleleIndex] = SupportType.BOTH;
-                else
-                    mMatrix[fragIndex][alleleIndex] = SupportType.WILD;
+                mWildBits[alleleIndex][word] |= fragBit;
             }
         }
     }
 
-    private class AlleleCounts
+    private int[] alleleIndices(final HlaComplex complex)
     {
-        public final int AlleleIndex;
+        int[] alleleIndices = new int[complex.Alleles.size()];
 
-        public boolean Full = false;
-        public boolean Wild = false;
-        public int UniqueCoverage = 0;
-        public double CombinedCoverage = 0;
-        public double WildCoverage = 0;
+        for(int i = 0; i < alleleIndices.length; ++i)
+        {
+            Integer alleleIndex = mAlleleIndexMap.get(complex.Alleles.get(i));
 
-        public AlleleCounts(int alleleIndex)
+            if(alleleIndex == null)
+                return null;
+
+            alleleIndices[i] = alleleIndex;
+        }
+
+        return alleleIndices;
+    }
+
+    public int coverageUpperBound(final HlaComplex complex)
+    {
+        // each fragment supporting any of the complex's alleles contributes 1 to its total coverage, but the shared and wild
+        // totals are each rounded so may gain 1 between them
+        int[] alleleIndices = alleleIndices(complex);
+
+        if(alleleIndices == null)
+            return 0;
+
+        int supportedFragments = 0;
+
+        for(int word = 0; word < mWordCount; ++word)
         {
-            AlleleIndex = alleleIndex;
+            long supported = 0;
+
+            for(int alleleIndex : alleleIndices)
+            {
+                supported |= mFullBits[alleleIndex][word] | mWildBits[alleleIndex][word];
+            }
+
+            supportedFragments += Long.bitCount(supported);
         }
+
+        return supportedFragments + 1;
     }
 
     public List<AlleleCoverage> create(final HlaComplex complex)
@@ -114,65 +124,67 @@ public class FragmentAlleleMatrix
         List<HlaAllele> alleles = complex.Alleles;
         int alleleCount = alleles.size();
 
-        AlleleCounts[] alleleCounts = new AlleleCounts[alleleCount];
+        int[] alleleIndices = alleleIndices(complex);
 
-        for(int i = 0; i < alleleCount; ++i)
-        {
-            Integer alleleIndex = mAlleleIndexMap.get(alleles.get(i));
-            if(alleleIndex == null)
-                return Lists.newArrayList();
+        if(alleleIndices == null)
+            return Lists.newArrayList();
 
-            alleleCounts[i] = new AlleleCounts(alleleIndex);
-        }
+        int[] uniqueCoverage = new int[alleleCount];
+        double[] combinedCoverage = new double[alleleCount];
+        double[] wildCoverage = new double[alleleCount];
 
-        for(int fragIndex = 0; fragIndex < mFragCount; ++fragIndex)
+        for(int word = 0; word < mWordCount; ++word)
         {
-            int fullCount = 0;
-            int fullAlleleIndex = -1;
-            int wildCount = 0;
+            long anyFull = 0;
+            long multipleFull = 0;
+            long anyWild = 0;
 
-            for(int i = 0; i < alleleCount; ++i)
+            for(int alleleIndex : alleleIndices)
             {
-                alleleCounts[i].Full = false;
-                alleleCounts[i].Wild = false;
-
-                int alleleIndex = alleleCounts[i].AlleleIndex;
+                long full = mFullBits[alleleIndex][word];
+                multipleFull |= anyFull & full;
+                anyFull |= full;
+                anyWild |= mWildBits[alleleIndex][word];
+            }
 
-                SupportType supportType = mMatrix[fragIndex][alleleIndex];
+            // a fragment with full support for a single allele and no wild support is unique to it
+            long uniqueFrags = anyFull & ~multipleFull & ~anyWild;
+            long sharedFrags = (anyFull | anyWild) & ~uniqueFrags;
 
-                if(supportType == SupportType.FULL || supportType == SupportType.BOTH)
+            if(uniqueFrags != 0)
+            {
+                for(int i = 0; i < alleleCount; ++i)
                 {
-                    alleleCounts[i].Full = true;
-                    ++fullCount;
-                    fullAlleleIndex = i;
+                    uniqueCoverage[i] += Long.bitCount(mFullBits[alleleIndices[i]][word] & uniqueFrags);
                 }
+            }
+
+            // other fragments split their contribution across the supporting alleles, added in fragment order as before
+            while(sharedFrags != 0)
+            {
+                long fragBit = sharedFrags & -sharedFrags;
+                sharedFrags ^= fragBit;
+
+                int supportCount = 0;
 
-                if(supportType == SupportType.WILD || supportType == SupportType.BOTH)
+                for(int alleleIndex : alleleIndices)
                 {
-                    alleleCounts[i].Wild = true;
-                    ++wildCount;
+                    if((mFullBits[alleleIndex][word] & fragBit) != 0)
+                        ++supportCount;
+
+                    if((mWildBits[alleleIndex][word] & fragBit) != 0)
+                        ++supportCount;
                 }
-            }
 
-            if(fullCount == 1 && wildCount == 0)
-            {
-                ++alleleCounts[fullAlleleIndex].UniqueCoverage;
-            }
-            else if(fullCount > 0 || wildCount > 0)
-            {
-                double contribution = 1.0 / (fullCount + wildCount);
+                double contribution = 1.0 / supportCount;
 
                 for(int i = 0; i < alleleCount; ++i)
                 {
-                    if(alleleCounts[i].Full)
-                    {
-                        alleleCounts[i].CombinedCoverage += contribution;
-                    }
-
-                    if(alleleCounts[i].Wild)
-                    {
-                        alleleCounts[i].WildCoverage += contribution;
-                    }
+                    if((mFullBits[alleleIndices[i]][word] & fragBit) != 0)
+                        combinedCoverage[i] += contribution;
+
+                    if((mWildBits[alleleIndices[i]][word] & fragBit) != 0)
+                        wildCoverage[i] += contribution;
                 }
             }
         }
@@ -181,8 +193,7 @@ public class FragmentAlleleMatrix
 
         for(int i = 0; i < alleleCount; ++i)
         {
-            alleleCoverages.add(new AlleleCoverage(
-                    alleles.get(i), alleleCounts[i].UniqueCoverage, alleleCounts[i].CombinedCoverage, alleleCounts[i].WildCoverage));
+            alleleCoverages.add(new AlleleCoverage(alleles.get(i), uniqueCoverage[i], combinedCoverage[i], wildCoverage[i]));
         }
 
         return alleleCoverages;
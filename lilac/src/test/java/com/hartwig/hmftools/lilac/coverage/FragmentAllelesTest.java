@@ -15,6 +15,7 @@ import static junit.framework.TestCase.assertTrue;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -210,4 +211,63 @@ public class FragmentAllelesTest
         assertEquals(0.33, coverages.get(1).WildCoverage, 0.01);
         assertEquals(0.67, coverages.get(2).WildCoverage, 0.01);
     }
+
+    @Test
+    public void testFragmentAlleleMatrixBitPlanes()
+    {
+        List<HlaAllele> alleles = Lists.newArrayList(
+                HlaAllele.fromString("A*01:01"), HlaAllele.fromString("A*02:01"), HlaAllele.fromString("B*01:01"),
+                HlaAllele.fromString("B*02:01"), HlaAllele.fromString("C*01:01"), HlaAllele.fromString("C*02:01"),
+                HlaAllele.fromString("C*03:01"));
+
+        // enough fragments to span several bit plane words
+        Random random = new Random(1);
+        List<FragmentAlleles> fragmentAlleles = Lists.newArrayList();
+
+        for(int i = 0; i < 200; ++i)
+        {
+            List<HlaAllele> full = alleles.stream().filter(x -> random.nextDouble() < 0.2).collect(Collectors.toList());
+            List<HlaAllele> wild = alleles.stream().filter(x -> random.nextDouble() < 0.1).collect(Collectors.toList());
+            fragmentAlleles.add(new FragmentAlleles(createFragment(String.valueOf(i)), full, wild));
+        }
+
+        FragmentAlleleMatrix matrix = new FragmentAlleleMatrix(fragmentAlleles, alleles);
+
+        List<HlaComplex> complexes = Lists.newArrayList(
+                new HlaComplex(Lists.newArrayList(alleles.get(0), alleles.get(2), alleles.get(4))),
+                new HlaComplex(Lists.newArrayList(alleles.get(0), alleles.get(1), alleles.get(3), alleles.get(5), alleles.get(6))),
+                new HlaComplex(Lists.newArrayList(alleles.get(6))));
+
+        for(HlaComplex complex : complexes)
+        {
+            List<AlleleCoverage> coverages = matrix.create(complex);
+            assertEquals(complex.Alleles.size(), coverages.size());
+
+            // matches the coverage calculated from the complex's fragments directly
+            Map<HlaAllele,AlleleCoverage> expectedCoverages = Maps.newHashMap();
+            AlleleCoverage.proteinCoverage(FragmentAlleles.filter(fragmentAlleles, complex.Alleles))
+                    .forEach(x -> expectedCoverages.put(x.Allele, x));
+
+            for(int i = 0; i < coverages.size(); ++i)
+            {
+                AlleleCoverage coverage = coverages.get(i);
+                assertEquals(complex.Alleles.get(i), coverage.Allele);
+
+                AlleleCoverage expected = expectedCoverages.get(coverage.Allele);
+                assertEquals(expected.UniqueCoverage, coverage.UniqueCoverage);
+                assertEquals(expected.SharedCoverage, coverage.SharedCoverage, 1e-9);
+                assertEquals(expected.WildCoverage, coverage.WildCoverage, 1e-9);
+            }
+
+            ComplexCoverage complexCoverage = ComplexCoverage.create(coverages);
+            int supportedFragments = (int)fragmentAlleles.stream().filter(x -> complex.Alleles.stream().anyMatch(y -> x.contains(y))).count();
+
+            assertEquals(supportedFragments + 1, matrix.coverageUpperBound(complex));
+            assertTrue(complexCoverage.TotalCoverage <= matrix.coverageUpperBound(complex));
+        }
+
+        HlaComplex unknownComplex = new HlaComplex(Lists.newArrayList(alleles.get(0), HlaAllele.fromString("A*99:01")));
+        assertTrue(matrix.create(unknownComplex).isEmpty());
+        assertEquals(0, matrix.coverageUpperBound(unknownComplex));
+    }
 }
@@ -98,12 +98,19 @@ public class ChromosomeTask implements Callable
             System.exit(1);
         }
 
+        // caches are shared with other samples' tasks for this chromosome, so each task takes its own position state
         mGnomadCache = mReferenceData.Gnomad.getChromosomeCache(mChromosomeStr);
         mClinvarCache = mReferenceData.Clinvar.getChromosomeCache(mChromosomeStr);
         mMappability = mReferenceData.VariantMappability.getChromosomeCache(mChromosomeStr);
         mStandardPon = mReferenceData.StandardPon.getChromosomeCache(mChromosomeStr);
         mArtefactsPon = mReferenceData.ArtefactsPon.getChromosomeCache(mChromosomeStr);
 
+        mGnomadCache = mGnomadCache != null ? mGnomadCache.taskCache() : null;
+        mClinvarCache = mClinvarCache != null ? mClinvarCache.taskCache() : null;
+        mMappability = mMappability != null ? mMappability.taskCache() : null;
+        mStandardPon = mStandardPon != null ? mStandardPon.taskCache() : null;
+        mArtefactsPon = mArtefactsPon != null ? mArtefactsPon.taskCache() : null;
+
         RefGenomeCoordinates coordinates = mConfig.RefGenVersion.is37() ? RefGenomeCoordinates.COORDS_37 : RefGenomeCoordinates.COORDS_38;
         ChrBaseRegion chrRegion = new ChrBaseRegion(mChromosomeStr, 1, coordinates.Lengths.get(mChromosome));
 
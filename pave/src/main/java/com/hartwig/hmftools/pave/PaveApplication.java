@@ -35,7 +35,7 @@ public class PaveApplication
 
         mReferenceData = new ReferenceData(mConfig, configBuilder);
 
-        mVcfWriter = initialiseVcfWriter();
+        mVcfWriter = initialiseVcfWriter(mConfig, mReferenceData);
 
         mTranscriptWriter = new TranscriptWriter(mConfig);
 
@@ -106,21 +106,21 @@ public class PaveApplication
         PV_LOGGER.info("Pave complete, mins({})", runTimeMinsStr(startTimeMs));
     }
 
-    private VcfWriter initialiseVcfWriter()
+    public static VcfWriter initialiseVcfWriter(final PaveConfig config, final ReferenceData referenceData)
     {
         // append 'pave' to the input vcf file name if not specified
         String outputVcfFilename;
 
-        if(mConfig.OutputVcfFile != null)
+        if(config.OutputVcfFile != null)
         {
-            outputVcfFilename = mConfig.OutputVcfFile; // assumes includes path
+            outputVcfFilename = config.OutputVcfFile; // assumes includes path
         }
         else
         {
-            String[] fileItems = mConfig.VcfFile.split("/");
+            String[] fileItems = config.VcfFile.split("/");
             String filename = fileItems[fileItems.length - 1];
             int extensionIndex = filename.indexOf(".vcf");
-            outputVcfFilename = mConfig.OutputDir + filename.substring(0, extensionIndex) + ".pave" + filename.substring(extensionIndex);
+            outputVcfFilename = config.OutputDir + filename.substring(0, extensionIndex) + ".pave" + filename.substring(extensionIndex);
 
             if(!outputVcfFilename.endsWith(".gz")) // always writes zipped VCF even if input VCF isn't zipped
                 outputVcfFilename += ".gz";
@@ -128,9 +128,9 @@ public class PaveApplication
 
         PV_LOGGER.info("writing VCF file({})", outputVcfFilename);
 
-        VcfWriter vcfWriter = new VcfWriter(outputVcfFilename, mConfig.VcfFile);
+        VcfWriter vcfWriter = new VcfWriter(outputVcfFilename, config.VcfFile);
 
-        vcfWriter.writeHeader(mReferenceData, mConfig.SetReportable);
+        vcfWriter.writeHeader(referenceData, config.SetReportable);
 
         return vcfWriter;
     }
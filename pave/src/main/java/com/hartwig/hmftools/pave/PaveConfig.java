@@ -54,6 +54,9 @@ public class PaveConfig
     public final List<ChrBaseRegion> SpecificRegions;
     public final int Threads;
 
+    private final String mConfiguredOutputDir;
+    private final boolean mWriteTranscriptData;
+
     public static final String VCF_FILE = "vcf_file";
     private static final String OUTPUT_VCF_FILE = "output_vcf_file";
 
@@ -79,7 +82,8 @@ public class PaveConfig
 
         OutputVcfFile = configBuilder.getValue(OUTPUT_VCF_FILE);
 
-        WriteTranscriptFile = SampleId != null && configBuilder.hasFlag(WRITE_TRANSCRIPT_DATA);
+        mWriteTranscriptData = configBuilder.hasFlag(WRITE_TRANSCRIPT_DATA);
+        WriteTranscriptFile = SampleId != null && mWriteTranscriptData;
         OnlyCanonical = configBuilder.hasFlag(ONLY_CANONCIAL);
         ReadPassOnly = configBuilder.hasFlag(READ_PASS_ONLY);
         WritePassOnly = configBuilder.hasFlag(WRITE_PASS_ONLY);
@@ -97,16 +101,43 @@ public class PaveConfig
             PV_LOGGER.error("failed to load specific regions");
         }
 
-        if(configBuilder.hasValue(OUTPUT_DIR))
-        {
-            OutputDir = parseOutputDir(configBuilder);
-        }
-        else
-        {
-            String vcfFile = OutputVcfFile != null ? OutputVcfFile : VcfFile;
-            Path vcfDir = Paths.get(vcfFile).getParent();
-            OutputDir = vcfDir != null ? checkAddDirSeparator(vcfDir.toString()) : "./";
-        }
+        mConfiguredOutputDir = configBuilder.hasValue(OUTPUT_DIR) ? parseOutputDir(configBuilder) : null;
+        OutputDir = mConfiguredOutputDir != null ? mConfiguredOutputDir : vcfOutputDir(OutputVcfFile != null ? OutputVcfFile : VcfFile);
+    }
+
+    // config for annotating a sample's VCF in service mode, otherwise taking the service's settings
+    public PaveConfig forSample(final String sampleId, final String vcfFile)
+    {
+        return new PaveConfig(this, sampleId, vcfFile);
+    }
+
+    private PaveConfig(final PaveConfig other, final String sampleId, final String vcfFile)
+    {
+        SampleId = sampleId;
+        VcfFile = vcfFile;
+        RefGenVersion = other.RefGenVersion;
+        OutputVcfFile = null;
+
+        mWriteTranscriptData = other.mWriteTranscriptData;
+        WriteTranscriptFile = mWriteTranscriptData;
+        OnlyCanonical = other.OnlyCanonical;
+        ReadPassOnly = other.ReadPassOnly;
+        WritePassOnly = other.WritePassOnly;
+        SetReportable = other.SetReportable;
+        Threads = other.Threads;
+        SpecificRegions = other.SpecificRegions;
+
+        mConfiguredOutputDir = other.mConfiguredOutputDir;
+        OutputDir = mConfiguredOutputDir != null ? mConfiguredOutputDir : vcfOutputDir(vcfFile);
+    }
+
+    private static String vcfOutputDir(final String vcfFile)
+    {
+        if(vcfFile == null)
+            return "./";
+
+        Path vcfDir = Paths.get(vcfFile).getParent();
+        return vcfDir != null ? checkAddDirSeparator(vcfDir.toString()) : "./";
     }
 
     public boolean isValid()
@@ -119,8 +150,13 @@ public class PaveConfig
 
     public static void addConfig(final ConfigBuilder configBuilder)
     {
-        configBuilder.addConfigItem(SAMPLE, true, SAMPLE_DESC);
-        configBuilder.addPath(VCF_FILE, true, "VCF input file");
+        addConfig(configBuilder, true);
+    }
+
+    public static void addConfig(final ConfigBuilder configBuilder, boolean requireSample)
+    {
+        configBuilder.addConfigItem(SAMPLE, requireSample, SAMPLE_DESC);
+        configBuilder.addPath(VCF_FILE, requireSample, "VCF input file");
         configBuilder.addConfigItem(
                 OUTPUT_VCF_FILE, false, "Option VCF output file, otherwise will append 'pave' suffix to input filename");
 
@@ -0,0 +1,400 @@
+package com.hartwig.hmftools.pave;
+
+import static java.lang.Math.max;
+
+import static com.hartwig.hmftools.common.utils.PerformanceCounter.runTimeMinsStr;
+import static com.hartwig.hmftools.common.utils.file.FileDelimiters.CSV_DELIM;
+import static com.hartwig.hmftools.pave.PaveConfig.PV_LOGGER;
+import static com.hartwig.hmftools.pave.PaveConstants.APP_NAME;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.utils.TaskExecutor;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.common.variant.VcfFileReader;
+import com.hartwig.hmftools.pave.annotation.ReferenceData;
+
+import org.jetbrains.annotations.NotNull;
+
+// annotates many samples' VCFs with the reference data loaded once and kept resident - VCFs are taken from a list, a watched
+// directory or requests on a local socket, and samples are annotated in bounded batches, each running its chromosome tasks for
+// the batch's samples concurrently
+public class PaveService
+{
+    private final PaveConfig mConfig;
+    private final ReferenceData mReferenceData;
+
+    private final String mSampleVcfsFile;
+    private final String mWatchDir;
+    private final int mWatchIntervalSecs;
+    private final int mListenPort;
+    private final int mSampleBatchSize;
+    private final boolean mRetainChromosomeData;
+
+    private final Set<String> mProcessedVcfs;
+
+    private static final String SAMPLE_VCFS_FILE = "sample_vcfs";
+    private static final String WATCH_DIR = "watch_dir";
+    private static final String WATCH_INTERVAL = "watch_interval";
+    private static final String LISTEN_PORT = "listen_port";
+    private static final String SAMPLE_BATCH_SIZE = "sample_batch_size";
+
+    private static final int DEFAULT_WATCH_INTERVAL_SECS = 30;
+
+    private static final String SHUTDOWN_REQUEST = "SHUTDOWN";
+    private static final String REPLY_OK = "OK";
+    private static final String REPLY_FAILED = "FAILED";
+
+    public PaveService(final ConfigBuilder configBuilder)
+    {
+        mConfig = new PaveConfig(configBuilder);
+
+        mSampleVcfsFile = configBuilder.getValue(SAMPLE_VCFS_FILE);
+        mWatchDir = configBuilder.getValue(WATCH_DIR);
+        mWatchIntervalSecs = configBuilder.getInteger(WATCH_INTERVAL);
+        mListenPort = configBuilder.getInteger(LISTEN_PORT);
+
+        int sampleBatchSize = configBuilder.getInteger(SAMPLE_BATCH_SIZE);
+        mSampleBatchSize = sampleBatchSize > 0 ? sampleBatchSize : max(mConfig.Threads, 1);
+
+        // a service running indefinitely keeps each chromosome's data once loaded where it cannot be reloaded, since the streamed
+        // PON and mappability files cannot be re-read, whereas a single list of VCFs releases each chromosome after its last task
+        mRetainChromosomeData = mSampleVcfsFile == null;
+
+        mReferenceData = new ReferenceData(mConfig, configBuilder);
+        mProcessedVcfs = Sets.newHashSet();
+    }
+
+    public void run()
+    {
+        if(!mReferenceData.isValid())
+        {
+            PV_LOGGER.error("invalid reference data, exiting");
+            System.exit(1);
+        }
+
+        List<String> initialRefChromosomes = Lists.newArrayList();
+
+        for(HumanChromosome chromosome : HumanChromosome.values())
+        {
+            String chrStr = mConfig.RefGenVersion.versionedChromosome(chromosome.toString());
+
+            if(processChromosome(chrStr) && initialRefChromosomes.size() < max(mConfig.Threads, 1))
+                initialRefChromosomes.add(chrStr);
+        }
+
+        mReferenceData.initialiseChromosomeData(initialRefChromosomes, mConfig.Threads);
+
+        if(mSampleVcfsFile != null)
+        {
+            List<SampleVcf> sampleVcfs = loadSampleVcfs(mSampleVcfsFile);
+
+            if(sampleVcfs == null || !annotateSamples(sampleVcfs))
+                System.exit(1);
+        }
+        else if(mWatchDir != null)
+        {
+            watchDirectory();
+        }
+        else if(mListenPort > 0)
+        {
+            listenForRequests();
+        }
+        else
+        {
+            PV_LOGGER.error("service requires one of {}, {} or {}", SAMPLE_VCFS_FILE, WATCH_DIR, LISTEN_PORT);
+            System.exit(1);
+        }
+
+        PV_LOGGER.info("Pave service complete");
+    }
+
+    private boolean processChromosome(final String chrStr)
+    {
+        return mConfig.SpecificRegions.isEmpty() || mConfig.SpecificRegions.stream().anyMatch(x -> x.Chromosome.equals(chrStr));
+    }
+
+    public boolean annotateSamples(final List<SampleVcf> sampleVcfs)
+    {
+        long startTimeMs = System.currentTimeMillis();
+
+        List<SampleVcf> validSampleVcfs = Lists.newArrayList();
+
+        for(SampleVcf sampleVcf : sampleVcfs)
+        {
+            VcfFileReader vcfFileReader = new VcfFileReader(sampleVcf.VcfFile, true);
+
+            if(vcfFileReader.fileValid())
+            {
+                vcfFileReader.close();
+                validSampleVcfs.add(sampleVcf);
+            }
+            else
+            {
+                PV_LOGGER.error("sample({}) invalid VCF file({})", sampleVcf.SampleId, sampleVcf.VcfFile);
+            }
+        }
+
+        if(validSampleVcfs.isEmpty())
+            return false;
+
+        List<List<SampleVcf>> sampleBatches = Lists.partition(validSampleVcfs, mSampleBatchSize);
+        boolean success = true;
+
+        for(int i = 0; i < sampleBatches.size(); ++i)
+        {
+            // data which cannot be reloaded is kept until the final batch's tasks for each chromosome are complete
+            boolean finalBatch = i == sampleBatches.size() - 1;
+            mReferenceData.setRetainChromosomeData(mRetainChromosomeData || !finalBatch);
+
+            if(!annotateSampleBatch(sampleBatches.get(i)))
+                success = false;
+        }
+
+        PV_LOGGER.info("annotated {} samples' VCFs, mins({})", validSampleVcfs.size(), runTimeMinsStr(startTimeMs));
+
+        return success && validSampleVcfs.size() == sampleVcfs.size();
+    }
+
+    private boolean annotateSampleBatch(final List<SampleVcf> sampleVcfs)
+    {
+        List<SampleWriters> sampleWriters = Lists.newArrayList();
+
+        for(SampleVcf sampleVcf : sampleVcfs)
+        {
+            PaveConfig sampleConfig = mConfig.forSample(sampleVcf.SampleId, sampleVcf.VcfFile);
+
+            sampleWriters.add(new SampleWriters(
+                    sampleConfig, PaveApplication.initialiseVcfWriter(sampleConfig, mReferenceData), new TranscriptWriter(sampleConfig)));
+        }
+
+        // chromosome-major order so that samples' tasks for the same chromosome share its cached reference data while it is loaded
+        List<Callable> callableList = Lists.newArrayList();
+
+        for(HumanChromosome chromosome : HumanChromosome.values())
+        {
+            String chrStr = mConfig.RefGenVersion.versionedChromosome(chromosome.toString());
+
+            if(!processChromosome(chrStr))
+            {
+                sampleWriters.forEach(x -> x.Vcf.onChromosomeComplete(chromosome));
+                continue;
+            }
+
+            mReferenceData.registerChromosomeUsers(chrStr, sampleWriters.size());
+
+            for(SampleWriters writers : sampleWriters)
+            {
+                callableList.add(new ChromosomeTask(chromosome, writers.Config, mReferenceData, writers.Vcf, writers.Transcripts));
+            }
+        }
+
+        PV_LOGGER.info("processing {} samples' VCFs", sampleWriters.size());
+
+        boolean success = TaskExecutor.executeTasks(callableList, mConfig.Threads);
+
+        for(SampleWriters writers : sampleWriters)
+        {
+            writers.Transcripts.close();
+            writers.Vcf.close();
+        }
+
+        return success;
+    }
+
+    private void watchDirectory()
+    {
+        PV_LOGGER.info("watching directory({}) for VCFs", mWatchDir);
+
+        while(true)
+        {
+            List<SampleVcf> sampleVcfs = findNewVcfs();
+
+            if(!sampleVcfs.isEmpty())
+            {
+                sampleVcfs.forEach(x -> mProcessedVcfs.add(x.VcfFile));
+                annotateSamples(sampleVcfs);
+            }
+
+            try
+            {
+                Thread.sleep(mWatchIntervalSecs * 1000L);
+            }
+            catch(InterruptedException e)
+            {
+                return;
+            }
+        }
+    }
+
+    private List<SampleVcf> findNewVcfs()
+    {
+        List<SampleVcf> sampleVcfs = Lists.newArrayList();
+
+        File[] files = new File(mWatchDir).listFiles();
+
+        if(files == null)
+            return sampleVcfs;
+
+        Arrays.sort(files);
+
+        for(File file : files)
+        {
+            String filename = file.getName();
+
+            // a VCF is ready once its index has been written, and Pave's own output is skipped
+            if(!filename.endsWith(".vcf.gz") || filename.contains(".pave."))
+                continue;
+
+            if(!new File(file.getPath() + ".tbi").exists() || mProcessedVcfs.contains(file.getPath()))
+                continue;
+
+            String sampleId = filename.substring(0, filename.indexOf('.'));
+            sampleVcfs.add(new SampleVcf(sampleId, file.getPath()));
+        }
+
+        return sampleVcfs;
+    }
+
+    private void listenForRequests()
+    {
+        // each connection sends one request of 'SampleId VcfFile' and receives OK or FAILED once annotation is complete
+        try(ServerSocket serverSocket = new ServerSocket(mListenPort, 50, InetAddress.getLoopbackAddress()))
+        {
+            PV_LOGGER.info("listening for requests on port({})", mListenPort);
+
+            while(true)
+            {
+                try(Socket socket = serverSocket.accept();
+                        BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                        PrintWriter writer = new PrintWriter(socket.getOutputStream(), true))
+                {
+                    String request = reader.readLine();
+
+                    if(request == null)
+                        continue;
+
+                    request = request.trim();
+
+                    if(request.equals(SHUTDOWN_REQUEST))
+                    {
+                        writer.println(REPLY_OK);
+                        return;
+                    }
+
+                    String[] values = request.split("\\s+");
+
+                    if(values.length != 2)
+                    {
+                        PV_LOGGER.error("invalid request({})", request);
+                        writer.println(REPLY_FAILED);
+                        continue;
+                    }
+
+                    boolean success = annotateSamples(List.of(new SampleVcf(values[0], values[1])));
+                    writer.println(success ? REPLY_OK : REPLY_FAILED);
+                }
+                catch(IOException e)
+                {
+                    PV_LOGGER.error("failed to process request: {}", e.toString());
+                }
+            }
+        }
+        catch(IOException e)
+        {
+            PV_LOGGER.error("failed to listen on port({}): {}", mListenPort, e.toString());
+            System.exit(1);
+        }
+    }
+
+    public static List<SampleVcf> loadSampleVcfs(final String filename)
+    {
+        try
+        {
+            List<SampleVcf> sampleVcfs = Lists.newArrayList();
+
+            for(String line : Files.readAllLines(Paths.get(filename)))
+            {
+                if(line.isEmpty() || line.startsWith("#") || line.startsWith("SampleId"))
+                    continue;
+
+                String[] values = line.split(CSV_DELIM, -1);
+
+                if(values.length < 2)
+                {
+                    PV_LOGGER.error("invalid sample VCFs line: {}", line);
+                    return null;
+                }
+
+                sampleVcfs.add(new SampleVcf(values[0], values[1]));
+            }
+
+            PV_LOGGER.info("loaded {} sample VCFs from file({})", sampleVcfs.size(), filename);
+            return sampleVcfs;
+        }
+        catch(IOException e)
+        {
+            PV_LOGGER.error("failed to read sample VCFs file({}): {}", filename, e.toString());
+            return null;
+        }
+    }
+
+    public static class SampleVcf
+    {
+        public final String SampleId;
+        public final String VcfFile;
+
+        public SampleVcf(final String sampleId, final String vcfFile)
+        {
+            SampleId = sampleId;
+            VcfFile = vcfFile;
+        }
+    }
+
+    private class SampleWriters
+    {
+        public final PaveConfig Config;
+        public final VcfWriter Vcf;
+        public final TranscriptWriter Transcripts;
+
+        public SampleWriters(final PaveConfig config, final VcfWriter vcfWriter, final TranscriptWriter transcriptWriter)
+        {
+            Config = config;
+            Vcf = vcfWriter;
+            Transcripts = transcriptWriter;
+        }
+    }
+
+    public static void main(@NotNull final String[] args)
+    {
+        ConfigBuilder configBuilder = new ConfigBuilder(APP_NAME);
+        PaveConfig.addConfig(configBuilder, false);
+
+        configBuilder.addPath(SAMPLE_VCFS_FILE, false, "CSV file of SampleId,VcfFile to annotate");
+        configBuilder.addPath(WATCH_DIR, false, "Directory polled for indexed sample VCFs, named with their sample ID");
+        configBuilder.addInteger(WATCH_INTERVAL, "Watch directory polling interval in seconds", DEFAULT_WATCH_INTERVAL_SECS);
+        configBuilder.addInteger(LISTEN_PORT, "Local port for annotation requests of 'SampleId VcfFile'", 0);
+        configBuilder.addInteger(SAMPLE_BATCH_SIZE, "Samples annotated concurrently, default is the thread count", 0);
+
+        configBuilder.checkAndParseCommandLine(args);
+
+        PaveService paveService = new PaveService(configBuilder);
+        paveService.run();
+    }
+}
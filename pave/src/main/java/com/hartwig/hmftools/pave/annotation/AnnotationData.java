@@ -14,6 +14,9 @@ public abstract class AnnotationData
 
     public abstract boolean hasValidData();
 
+    // whether a chromosome's data can be loaded again once released, which streamed files cannot
+    public boolean canReloadChromosome() { return false; }
+
     protected final List<String> mInitialChromosomes = Lists.newArrayList();
 
     public void registerInitialChromosomes(final List<String> chromosomes) { mInitialChromosomes.addAll(chromosomes); }
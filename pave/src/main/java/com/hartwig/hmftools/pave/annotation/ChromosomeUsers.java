@@ -0,0 +1,61 @@
+package com.hartwig.hmftools.pave.annotation;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Maps;
+
+public class ChromosomeUsers
+{
+    private final List<AnnotationData> mAnnotators;
+
+    // tasks yet to complete per chromosome, with its data released once the last completes - when data is retained for later
+    // tasks, only annotators which can reload a chromosome release it
+    private final Map<String,Integer> mChromosomeUsers;
+    private boolean mRetainData;
+
+    public ChromosomeUsers(final List<AnnotationData> annotators)
+    {
+        mAnnotators = annotators;
+        mChromosomeUsers = Maps.newHashMap();
+        mRetainData = false;
+    }
+
+    public synchronized void setRetainData(boolean retain) { mRetainData = retain; }
+
+    public synchronized void register(final String chromosome, int users)
+    {
+        mChromosomeUsers.merge(chromosome, users, Integer::sum);
+    }
+
+    public synchronized int users(final String chromosome) { return mChromosomeUsers.getOrDefault(chromosome, 0); }
+
+    public void onChromosomeComplete(final String chromosome)
+    {
+        boolean retainData;
+
+        synchronized(this)
+        {
+            Integer users = mChromosomeUsers.get(chromosome);
+
+            if(users != null)
+            {
+                if(users > 1)
+                {
+                    mChromosomeUsers.put(chromosome, users - 1);
+                    return;
+                }
+
+                mChromosomeUsers.remove(chromosome);
+            }
+
+            retainData = mRetainData;
+        }
+
+        for(AnnotationData annotationData : mAnnotators)
+        {
+            if(!retainData || annotationData.canReloadChromosome())
+                annotationData.onChromosomeComplete(chromosome);
+        }
+    }
+}
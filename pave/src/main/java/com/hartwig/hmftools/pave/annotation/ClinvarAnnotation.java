@@ -25,6 +25,9 @@ public class ClinvarAnnotation extends AnnotationData implements Callable
     private final StringCache mStringCache;
     private boolean mHasValidData;
     private final String mFilename;
+    private VariantStore mStore;
+
+    public static final String CLINVAR_STORE_TYPE = "CLINVAR";
 
     private static final String CLINVAR_VCF = "clinvar_vcf";
 
@@ -41,6 +44,13 @@ public class ClinvarAnnotation extends AnnotationData implements Callable
 
         mHasValidData = true;
         mFilename = configBuilder.getValue(CLINVAR_VCF);
+        mStore = null;
+
+        if(VariantStore.isStoreFile(mFilename))
+        {
+            mStore = VariantStore.open(mFilename, CLINVAR_STORE_TYPE);
+            mHasValidData = mStore != null;
+        }
     }
 
     @Override
@@ -52,9 +62,21 @@ public class ClinvarAnnotation extends AnnotationData implements Callable
     @Override
     public boolean hasValidData() { return mHasValidData; }
 
+    @Override
+    public boolean canReloadChromosome() { return mStore != null; }
+
     public synchronized ClinvarChrCache getChromosomeCache(final String chromosome)
     {
-        return mChrCacheMap.get(RefGenomeFunctions.stripChrPrefix(chromosome));
+        String chrStr = RefGenomeFunctions.stripChrPrefix(chromosome);
+        ClinvarChrCache chrCache = mChrCacheMap.get(chrStr);
+
+        if(chrCache == null && mStore != null && mStore.hasChromosome(chrStr))
+        {
+            chrCache = new ClinvarChrCache(chrStr, mStore.chromosomeReader(chrStr));
+            mChrCacheMap.put(chrStr, chrCache);
+        }
+
+        return chrCache;
     }
 
     @Override
@@ -72,7 +94,7 @@ public class ClinvarAnnotation extends AnnotationData implements Callable
     @Override
     public Long call()
     {
-        if(mFilename != null)
+        if(mFilename != null && mStore == null)
         {
             loadEntries(mFilename);
         }
@@ -88,7 +110,7 @@ public class ClinvarAnnotation extends AnnotationData implements Callable
 
     public static void addConfig(final ConfigBuilder configBuilder)
     {
-        configBuilder.addPath(CLINVAR_VCF, false, "Clinvar annotation VCF");
+        configBuilder.addPath(CLINVAR_VCF, false, "Clinvar annotation VCF or variant store");
     }
 
     private void loadEntries(final String filename)
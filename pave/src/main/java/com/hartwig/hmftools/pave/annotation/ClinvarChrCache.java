@@ -16,6 +16,11 @@ public class ClinvarChrCache
     private int mCurrentIndex;
     private final List<ClinvarEntry> mEntries;
     private final StringCache mStringCache;
+    private final VariantStoreReader mStoreReader; // set when read from a variant store rather than loaded into the list
+
+    public static final int STORE_SIGNIFICANCE = 0;
+    public static final int STORE_CONFLICT = 1;
+    public static final int STORE_VALUE_COUNT = 2;
 
     public ClinvarChrCache(final String chromosome, final StringCache stringCache)
     {
@@ -23,8 +28,30 @@ public class ClinvarChrCache
         mCurrentIndex = 0;
         mEntries = Lists.newArrayList();
         mStringCache = stringCache;
+        mStoreReader = null;
+    }
+
+    public ClinvarChrCache(final String chromosome, final VariantStoreReader storeReader)
+    {
+        Chromosome = chromosome;
+        mCurrentIndex = 0;
+        mEntries = Lists.newArrayList();
+        mStringCache = null;
+        mStoreReader = storeReader;
     }
 
+    private ClinvarChrCache(final ClinvarChrCache other)
+    {
+        Chromosome = other.Chromosome;
+        mCurrentIndex = 0;
+        mEntries = other.mEntries;
+        mStringCache = other.mStringCache;
+        mStoreReader = other.mStoreReader != null ? other.mStoreReader.store().chromosomeReader(Chromosome) : null;
+    }
+
+    // a cache for a single task's use, sharing the loaded entries but with its own position index and store reader
+    public ClinvarChrCache taskCache() { return new ClinvarChrCache(this); }
+
     public void addEntry(final int position, final String ref, final String alt, final String significance, final String conflict)
     {
         mEntries.add(new ClinvarEntry(
@@ -33,7 +60,7 @@ public class ClinvarChrCache
 
     public void clear() { mEntries.clear(); }
 
-    private static String stripBrackets(final String clinvarStr)
+    public static String stripBrackets(final String clinvarStr)
     {
         return clinvarStr.replaceAll(
                 "\\[", "").replaceAll("\\]", "").replaceAll(" ", "");
@@ -41,6 +68,20 @@ public class ClinvarChrCache
 
     public void annotateVariant(final VariantData variant)
     {
+        if(mStoreReader != null)
+        {
+            int recordIndex = mStoreReader.find(variant.Position, variant.Ref, variant.Alt);
+
+            if(recordIndex >= 0)
+            {
+                setAnnotation(
+                        variant, mStoreReader.stringValue(recordIndex, STORE_SIGNIFICANCE),
+                        mStoreReader.stringValue(recordIndex, STORE_CONFLICT));
+            }
+
+            return;
+        }
+
         if(mEntries.isEmpty() || mEntries.get(mEntries.size() - 1).Position < variant.Position)
             return;
 
@@ -62,11 +103,7 @@ public class ClinvarChrCache
 
             if(entry.matches(variant))
             {
-                variant.context().getCommonInfo().putAttribute(CLNSIG, entry.Significance);
-
-                if(!entry.Conflict.isEmpty())
-                    variant.context().getCommonInfo().putAttribute(CLNSIGCONF, entry.Conflict);
-
+                setAnnotation(variant, entry.Significance, entry.Conflict);
                 break;
             }
         }
@@ -78,6 +115,14 @@ public class ClinvarChrCache
             --mCurrentIndex;
     }
 
+    private static void setAnnotation(final VariantData variant, final String significance, final String conflict)
+    {
+        variant.context().getCommonInfo().putAttribute(CLNSIG, significance);
+
+        if(!conflict.isEmpty())
+            variant.context().getCommonInfo().putAttribute(CLNSIGCONF, conflict);
+    }
+
     private class ClinvarEntry
     {
         public final int Position;
@@ -5,6 +5,7 @@ import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBuffe
 import static com.hartwig.hmftools.common.variant.PaveVcfTags.GNOMAD_FREQ;
 import static com.hartwig.hmftools.common.variant.PaveVcfTags.GNOMAD_FREQ_DESC;
 import static com.hartwig.hmftools.pave.PaveConfig.PV_LOGGER;
+import static com.hartwig.hmftools.pave.annotation.VariantStore.VARIANT_STORE_EXTENSION;
 import static com.hartwig.hmftools.pave.resources.GnomadCacheBuilder.GNOMAD_FILE_ID;
 import static com.hartwig.hmftools.pave.resources.GnomadCacheBuilder.formFileId;
 
@@ -41,6 +42,9 @@ public class GnomadAnnotation extends AnnotationData implements Callable
     private final boolean mEnabled;
     private final String mGnomadFilename;
     private final StringCache mStringCache;
+    private VariantStore mStore;
+
+    public static final String GNOMAD_STORE_TYPE = "GNOMAD";
 
     public static final String GNOMAD_FREQUENCY_FILE = "gnomad_freq_file";
     public static final String GNOMAD_FREQUENCY_DIR = "gnomad_freq_dir";
@@ -54,6 +58,7 @@ public class GnomadAnnotation extends AnnotationData implements Callable
         mChromosomeFiles = Maps.newHashMap();
         mHasValidData = true;
         mStringCache = new StringCache();
+        mStore = null;
 
         mRefGenomeVersion = RefGenomeVersion.from(configBuilder);
 
@@ -61,6 +66,9 @@ public class GnomadAnnotation extends AnnotationData implements Callable
         {
             mEnabled = true;
             mGnomadFilename = configBuilder.getValue(GNOMAD_FREQUENCY_FILE);
+
+            if(VariantStore.isStoreFile(mGnomadFilename))
+                openStore(mGnomadFilename);
         }
         else if(configBuilder.hasValue(GNOMAD_FREQUENCY_DIR))
         {
@@ -80,11 +88,14 @@ public class GnomadAnnotation extends AnnotationData implements Callable
     public String type() { return "Gnomad frequency"; }
 
     @Override
-    public boolean enabled() { return mGnomadFilename != null || !mChromosomeFiles.isEmpty(); }
+    public boolean enabled() { return mGnomadFilename != null || !mChromosomeFiles.isEmpty() || mStore != null; }
 
     @Override
     public boolean hasValidData() { return mHasValidData; }
 
+    @Override
+    public boolean canReloadChromosome() { return mStore != null || !mChromosomeFiles.isEmpty(); }
+
     public void annotateVariant(final VariantData variant, final GnomadChrCache chrCache)
     {
         Double gnomadFreq = chrCache.getFrequency(variant);
@@ -105,6 +116,13 @@ public class GnomadAnnotation extends AnnotationData implements Callable
         if(chrCache != null)
             return chrCache;
 
+        if(mStore != null)
+        {
+            chrCache = new GnomadChrCache(chromosome, mStore.chromosomeReader(chromosome));
+            mChrCacheMap.put(chromosome, chrCache);
+            return chrCache;
+        }
+
         String chrFilename = mChromosomeFiles.get(chromosome);
 
         if(chrFilename == null)
@@ -132,6 +150,10 @@ public class GnomadAnnotation extends AnnotationData implements Callable
     @Override
     public Long call()
     {
+        // variants are read from a store on demand so there is nothing to pre-load
+        if(mStore != null)
+            return (long)0;
+
         if(mGnomadFilename != null)
         {
             loadChromosomeEntries(mGnomadFilename, null);
@@ -208,6 +230,14 @@ public class GnomadAnnotation extends AnnotationData implements Callable
         }
     }
 
+    private void openStore(final String filename)
+    {
+        mStore = VariantStore.open(filename, GNOMAD_STORE_TYPE);
+
+        if(mStore == null)
+            mHasValidData = false;
+    }
+
     private void loadAllFrequencyFiles(final String gnomadDir)
     {
         try
@@ -219,6 +249,15 @@ public class GnomadAnnotation extends AnnotationData implements Callable
                     .filter(x -> x.contains(GNOMAD_FILE_ID))
                     .collect(Collectors.toList());
 
+            // a variant store covering all chromosomes is used in place of the per-chromosome files
+            String storeFile = files.stream().filter(x -> x.endsWith(VARIANT_STORE_EXTENSION)).findFirst().orElse(null);
+
+            if(storeFile != null)
+            {
+                openStore(storeFile);
+                return;
+            }
+
             for(HumanChromosome humanChr : HumanChromosome.values())
             {
                 String fileChrStrNoId = formFileId(gnomadDir, humanChr.toString(), null);
@@ -250,7 +289,7 @@ public class GnomadAnnotation extends AnnotationData implements Callable
 
     public static void addConfig(final ConfigBuilder configBuilder)
     {
-        configBuilder.addPath(GNOMAD_FREQUENCY_FILE, false, "Gnomad frequency file");
+        configBuilder.addPath(GNOMAD_FREQUENCY_FILE, false, "Gnomad frequency file or variant store");
         configBuilder.addPath(GNOMAD_FREQUENCY_DIR, false, "Gnomad frequency directory");
     }
 
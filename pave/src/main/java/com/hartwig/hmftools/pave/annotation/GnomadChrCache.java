@@ -16,12 +16,25 @@ public class GnomadChrCache
 
     private final Map<Integer,List<GnomadVariant>> mFrequencies;
     private final StringCache mStringCache;
+    private final VariantStoreReader mStoreReader; // set when read from a variant store rather than loaded into the map
+
+    public static final int STORE_FREQUENCY = 0;
+    public static final int STORE_VALUE_COUNT = 1;
 
     public GnomadChrCache(final String chromosome, final StringCache stringCache)
     {
         Chromosome = chromosome;
         mFrequencies = Maps.newHashMap();
         mStringCache = stringCache;
+        mStoreReader = null;
+    }
+
+    public GnomadChrCache(final String chromosome, final VariantStoreReader storeReader)
+    {
+        Chromosome = chromosome;
+        mFrequencies = Maps.newHashMap();
+        mStringCache = null;
+        mStoreReader = storeReader;
     }
 
     public void addEntry(final int position, final String ref, final String alt, final double frequency)
@@ -37,6 +50,12 @@ public class GnomadChrCache
         posList.add(new GnomadVariant(mStringCache.intern(ref), mStringCache.intern(alt), frequency));
     }
 
+    // a cache for a single task's use, sharing the loaded frequencies but with its own store reader
+    public GnomadChrCache taskCache()
+    {
+        return mStoreReader != null ? new GnomadChrCache(Chromosome, mStoreReader.store().chromosomeReader(Chromosome)) : this;
+    }
+
     public void clear() { mFrequencies.clear(); }
     public int entryCount() { return mFrequencies.size(); }
 
@@ -85,6 +104,12 @@ public class GnomadChrCache
 
     public Double getFrequency(int position, final String ref, final String alt)
     {
+        if(mStoreReader != null)
+        {
+            int recordIndex = mStoreReader.find(position, ref, alt);
+            return recordIndex >= 0 ? mStoreReader.doubleValue(recordIndex, STORE_FREQUENCY) : null;
+        }
+
         List<GnomadVariant> posList = mFrequencies.get(position);
 
         if(posList == null)
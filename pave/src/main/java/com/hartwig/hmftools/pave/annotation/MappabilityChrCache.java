@@ -24,6 +24,17 @@ public class MappabilityChrCache
         mComplete = false;
     }
 
+    private MappabilityChrCache(final MappabilityChrCache other)
+    {
+        Chromosome = other.Chromosome;
+        mCurrentIndex = 0;
+        mEntries = other.mEntries;
+        mComplete = other.mComplete;
+    }
+
+    // a cache for a single task's use, sharing the loaded entries but with its own position index
+    public MappabilityChrCache taskCache() { return new MappabilityChrCache(this); }
+
     public void addEntry(final int posStart, final int posEnd, final double mappability)
     {
         mEntries.add(new MapEntry(new BaseRegion(posStart, posEnd), mappability));
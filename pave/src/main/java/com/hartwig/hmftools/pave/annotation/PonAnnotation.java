@@ -43,6 +43,9 @@ public class PonAnnotation extends AnnotationData implements Callable
     private final Map<VariantTier,PonFilters> mPonFilters;
     private final Map<String,PonChrCache> mChrCacheMap;
     private final StringCache mStringCache;
+    private VariantStore mStore;
+
+    public static final String PON_STORE_TYPE = "PON";
 
     public static final String PON_COUNT = "PON_COUNT";
     public static final String PON_MAX = "PON_MAX";
@@ -57,8 +60,14 @@ public class PonAnnotation extends AnnotationData implements Callable
         mHasValidData = true;
         mChrCacheMap = Maps.newHashMap();
         mStringCache = new StringCache();
+        mStore = null;
 
-        if(filename != null && !filename.isEmpty())
+        if(VariantStore.isStoreFile(filename))
+        {
+            mStore = VariantStore.open(filename, PON_STORE_TYPE);
+            mHasValidData = mStore != null;
+        }
+        else if(filename != null && !filename.isEmpty())
         {
             initialiseFile(filename, loadOnDemand);
         }
@@ -80,6 +89,9 @@ public class PonAnnotation extends AnnotationData implements Callable
     @Override
     public boolean hasValidData() { return mHasValidData; }
 
+    @Override
+    public boolean canReloadChromosome() { return mStore != null; }
+
     public boolean loadFilters(final String filtersConfig)
     {
         if(filtersConfig == null)
@@ -120,6 +132,13 @@ public class PonAnnotation extends AnnotationData implements Callable
         if(chrCache != null && chrCache.isComplete())
             return chrCache;
 
+        if(mStore != null)
+        {
+            chrCache = new PonChrCache(chromosome, mStore.chromosomeReader(chromosome));
+            mChrCacheMap.put(chromosome, chrCache);
+            return chrCache;
+        }
+
         loadPonEntries(chromosome);
         return mChrCacheMap.get(chromosome);
     }
@@ -168,7 +187,7 @@ public class PonAnnotation extends AnnotationData implements Callable
 
     public boolean hasEntry(final String chromosome, final int position, final String ref, final String alt)
     {
-        PonChrCache chrCache = mChrCacheMap.get(chromosome);
+        PonChrCache chrCache = mStore != null ? getChromosomeCache(chromosome) : mChrCacheMap.get(chromosome);
         return chrCache != null ? chrCache.hasEntry(position, ref, alt) : false;
     }
 
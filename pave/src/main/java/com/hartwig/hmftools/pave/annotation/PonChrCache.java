@@ -16,16 +16,32 @@ public class PonChrCache
 
     private final Map<Integer,List<PonVariantData>> mPositionMap;
     private final StringCache mStringCache;
+    private final VariantStoreReader mStoreReader; // set when read from a variant store rather than loaded into the map
     private boolean mComplete;
 
+    public static final int STORE_SAMPLES = 0;
+    public static final int STORE_MAX_SAMPLE_READS = 1;
+    public static final int STORE_TOTAL_SAMPLE_READS = 2;
+    public static final int STORE_VALUE_COUNT = 3;
+
     public PonChrCache(final String chromosome, final StringCache stringCache)
     {
         Chromosome = chromosome;
         mPositionMap = Maps.newHashMap();
         mStringCache = stringCache;
+        mStoreReader = null;
         mComplete = false;
     }
 
+    public PonChrCache(final String chromosome, final VariantStoreReader storeReader)
+    {
+        Chromosome = chromosome;
+        mPositionMap = Maps.newHashMap();
+        mStringCache = null;
+        mStoreReader = storeReader;
+        mComplete = true;
+    }
+
     public void addEntry(
             final int position, final String ref, final String alt, final int samples, final int maxSampleReads, final int totalSampleReads)
     {
@@ -40,6 +56,12 @@ public class PonChrCache
         posList.add(new PonVariantData(mStringCache.intern(ref), mStringCache.intern(alt), samples, maxSampleReads, totalSampleReads));
     }
 
+    // a cache for a single task's use, sharing the loaded entries but with its own store reader
+    public PonChrCache taskCache()
+    {
+        return mStoreReader != null ? new PonChrCache(Chromosome, mStoreReader.store().chromosomeReader(Chromosome)) : this;
+    }
+
     public boolean isComplete() { return mComplete; }
     public void setComplete() { mComplete = true; }
     public void clear() { mPositionMap.clear(); }
@@ -52,11 +74,27 @@ public class PonChrCache
 
     public boolean hasEntry(final int position, final String ref, final String alt)
     {
+        if(mStoreReader != null)
+            return mStoreReader.find(position, ref, alt) >= 0;
+
         return getPonData(position, ref, alt) != null;
     }
 
     private PonVariantData getPonData(final int position, final String ref, final String alt)
     {
+        if(mStoreReader != null)
+        {
+            int recordIndex = mStoreReader.find(position, ref, alt);
+
+            if(recordIndex < 0)
+                return null;
+
+            return new PonVariantData(
+                    ref, alt, (int)mStoreReader.value(recordIndex, STORE_SAMPLES),
+                    (int)mStoreReader.value(recordIndex, STORE_MAX_SAMPLE_READS),
+                    (int)mStoreReader.value(recordIndex, STORE_TOTAL_SAMPLE_READS));
+        }
+
         List<PonVariantData> posList = mPositionMap.get(position);
 
         if(posList == null)
@@ -65,6 +103,12 @@ public class PonChrCache
         return posList.stream().filter(x -> x.matches(ref, alt)).findFirst().orElse(null);
     }
 
-    public String cacheDetailsStr() { return format("chr(%s) entries(%d) strCache(%d)", Chromosome, entryCount(), mStringCache.size()); }
+    public String cacheDetailsStr()
+    {
+        if(mStoreReader != null)
+            return mStoreReader.toString();
+
+        return format("chr(%s) entries(%d) strCache(%d)", Chromosome, entryCount(), mStringCache.size());
+    }
 
 }
@@ -34,6 +34,8 @@ public class ReferenceData
     public final RefGenomeInterface RefGenome;
     public final Reportability ReportableClassifier;
 
+    private final ChromosomeUsers mChromosomeUsers;
+
     public ReferenceData(final PaveConfig config, final ConfigBuilder configBuilder)
     {
         GeneDataCache = new GeneDataCache(
@@ -70,8 +72,14 @@ public class ReferenceData
         Annotators.add(BlacklistedVariants);
 
         RefGenome = loadRefGenome(configBuilder.getValue(REF_GENOME));
+
+        mChromosomeUsers = new ChromosomeUsers(Annotators);
     }
 
+    public void setRetainChromosomeData(boolean retain) { mChromosomeUsers.setRetainData(retain); }
+
+    public void registerChromosomeUsers(final String chromosome, int users) { mChromosomeUsers.register(chromosome, users); }
+
     public boolean isValid()
     {
         boolean allValid = true;
@@ -107,11 +115,5 @@ public class ReferenceData
         TaskExecutor.executeTasks(callableList, threads);
     }
 
-    public void onChromosomeComplete(final String chromosome)
-    {
-        for(AnnotationData annotationData : Annotators)
-        {
-            annotationData.onChromosomeComplete(chromosome);
-        }
-    }
+    public void onChromosomeComplete(final String chromosome) { mChromosomeUsers.onChromosomeComplete(chromosome); }
 }
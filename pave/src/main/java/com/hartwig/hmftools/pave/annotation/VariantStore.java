@@ -0,0 +1,170 @@
+package com.hartwig.hmftools.pave.annotation;
+
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeFunctions.stripChrPrefix;
+import static com.hartwig.hmftools.pave.PaveConfig.PV_LOGGER;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+// a position-sorted binary store of variants and their annotation values, written per chromosome in blocks of records which are
+// compressed individually and located by a sparse index of each block's position range, with the file memory-mapped for reading
+public class VariantStore
+{
+    public static final String VARIANT_STORE_EXTENSION = ".pvs";
+
+    public static final int MAGIC = 0x50415653; // PAVS
+    public static final int FORMAT_VERSION = 1;
+    public static final int HEADER_LENGTH = 2 * Integer.BYTES;
+
+    public final String Filename;
+    public final String Type; // the source of the annotation values, eg Gnomad
+    public final int ValueCount; // values per variant
+
+    private final List<String> mStrings; // shared string values referenced by index
+    private final Map<String,ChromosomeBlocks> mChromosomeBlocks;
+
+    private VariantStore(final String filename, final String type, int valueCount, final List<String> strings)
+    {
+        Filename = filename;
+        Type = type;
+        ValueCount = valueCount;
+        mStrings = strings;
+        mChromosomeBlocks = Maps.newHashMap();
+    }
+
+    public static boolean isStoreFile(final String filename) { return filename != null && filename.endsWith(VARIANT_STORE_EXTENSION); }
+
+    public static VariantStore open(final String filename, final String requiredType)
+    {
+        try(FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ))
+        {
+            long fileSize = channel.size();
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_LENGTH);
+
+            if(header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION)
+            {
+                PV_LOGGER.error("invalid variant store file({})", filename);
+                return null;
+            }
+
+            MappedByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, fileSize - Long.BYTES, Long.BYTES);
+            long indexOffset = trailer.getLong();
+
+            MappedByteBuffer indexBuffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY, indexOffset, fileSize - Long.BYTES - indexOffset);
+
+            byte[] indexBytes = new byte[indexBuffer.remaining()];
+            indexBuffer.get(indexBytes);
+
+            DataInputStream index = new DataInputStream(new ByteArrayInputStream(indexBytes));
+
+            String type = index.readUTF();
+
+            if(requiredType != null && !type.equals(requiredType))
+            {
+                PV_LOGGER.error("variant store file({}) has type({}) not required type({})", filename, type, requiredType);
+                return null;
+            }
+
+            int valueCount = index.readInt();
+
+            int stringCount = index.readInt();
+            List<String> strings = Lists.newArrayListWithCapacity(stringCount);
+
+            for(int i = 0; i < stringCount; ++i)
+            {
+                strings.add(index.readUTF());
+            }
+
+            VariantStore store = new VariantStore(filename, type, valueCount, strings);
+
+            int chromosomeCount = index.readInt();
+
+            for(int c = 0; c < chromosomeCount; ++c)
+            {
+                String chromosome = index.readUTF();
+                int blockCount = index.readInt();
+
+                ChromosomeBlocks blocks = new ChromosomeBlocks(blockCount);
+
+                for(int b = 0; b < blockCount; ++b)
+                {
+                    blocks.FirstPositions[b] = index.readInt();
+                    blocks.LastPositions[b] = index.readInt();
+                    blocks.Offsets[b] = index.readLong();
+                    blocks.CompressedLengths[b] = index.readInt();
+                    blocks.Lengths[b] = index.readInt();
+                    blocks.RecordCounts[b] = index.readInt();
+                }
+
+                // each chromosome is mapped separately, keeping every mapping within the limits of a single buffer
+                if(blockCount > 0)
+                {
+                    long chrStart = blocks.Offsets[0];
+                    long chrEnd = blocks.Offsets[blockCount - 1] + blocks.CompressedLengths[blockCount - 1];
+                    blocks.Data = channel.map(FileChannel.MapMode.READ_ONLY, chrStart, chrEnd - chrStart);
+                    blocks.DataOffset = chrStart;
+                }
+
+                store.mChromosomeBlocks.put(chromosome, blocks);
+            }
+
+            PV_LOGGER.debug("opened variant store({}) type({}) chromosomes({})", filename, type, chromosomeCount);
+
+            return store;
+        }
+        catch(IOException e)
+        {
+            PV_LOGGER.error("failed to open variant store file({}): {}", filename, e.toString());
+            return null;
+        }
+    }
+
+    public String string(int index) { return mStrings.get(index); }
+
+    public boolean hasChromosome(final String chromosome) { return mChromosomeBlocks.containsKey(stripChrPrefix(chromosome)); }
+
+    public VariantStoreReader chromosomeReader(final String chromosome)
+    {
+        ChromosomeBlocks blocks = mChromosomeBlocks.get(stripChrPrefix(chromosome));
+        return new VariantStoreReader(this, chromosome, blocks != null ? blocks : new ChromosomeBlocks(0));
+    }
+
+    protected static class ChromosomeBlocks
+    {
+        public final int[] FirstPositions;
+        public final int[] LastPositions;
+        public final long[] Offsets;
+        public final int[] CompressedLengths;
+        public final int[] Lengths;
+        public final int[] RecordCounts;
+
+        public MappedByteBuffer Data;
+        public long DataOffset;
+
+        public ChromosomeBlocks(int blockCount)
+        {
+            FirstPositions = new int[blockCount];
+            LastPositions = new int[blockCount];
+            Offsets = new long[blockCount];
+            CompressedLengths = new int[blockCount];
+            Lengths = new int[blockCount];
+            RecordCounts = new int[blockCount];
+            Data = null;
+            DataOffset = 0;
+        }
+
+        public int blockCount() { return FirstPositions.length; }
+    }
+}
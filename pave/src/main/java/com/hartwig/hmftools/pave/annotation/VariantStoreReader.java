@@ -0,0 +1,248 @@
+package com.hartwig.hmftools.pave.annotation;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.pave.PaveConfig.PV_LOGGER;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+// finds variants in a chromosome's blocks of a variant store, decompressing one block at a time into buffers reused across blocks,
+// so that successive look-ups in position order decompress each block once and matching allocates nothing
+// not thread-safe - each chromosome's reader is used by a single task
+public class VariantStoreReader
+{
+    public final String Chromosome;
+
+    private final VariantStore mStore;
+    private final VariantStore.ChromosomeBlocks mBlocks;
+    private final Inflater mInflater;
+
+    private int mCurrentBlock;
+    private int mRecordCount;
+
+    private byte[] mCompressed;
+    private byte[] mBlockData;
+    private int[] mPositions;
+    private int[] mRefOffsets;
+    private int[] mRefLengths;
+    private int[] mAltOffsets;
+    private int[] mAltLengths;
+    private long[] mValues; // by value then record
+
+    private int mDecompressedBlocks;
+
+    public VariantStoreReader(final VariantStore store, final String chromosome, final VariantStore.ChromosomeBlocks blocks)
+    {
+        Chromosome = chromosome;
+        mStore = store;
+        mBlocks = blocks;
+        mInflater = new Inflater();
+
+        mCurrentBlock = -1;
+        mRecordCount = 0;
+
+        mCompressed = new byte[0];
+        mBlockData = new byte[0];
+        mPositions = new int[0];
+        mRefOffsets = new int[0];
+        mRefLengths = new int[0];
+        mAltOffsets = new int[0];
+        mAltLengths = new int[0];
+        mValues = new long[0];
+        mDecompressedBlocks = 0;
+    }
+
+    public VariantStore store() { return mStore; }
+    public int decompressedBlocks() { return mDecompressedBlocks; }
+
+    public boolean isEmpty() { return mBlocks.blockCount() == 0; }
+
+    // returns the index of the matching record in the current block, or -1 if not present
+    public int find(int position, final String ref, final String alt)
+    {
+        if(!loadBlock(position))
+            return -1;
+
+        // first record at the position, then check each variant there
+        int low = 0;
+        int high = mRecordCount;
+
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if(mPositions[mid] < position)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        for(int i = low; i < mRecordCount && mPositions[i] == position; ++i)
+        {
+            if(allelesMatch(mRefOffsets[i], mRefLengths[i], ref) && allelesMatch(mAltOffsets[i], mAltLengths[i], alt))
+                return i;
+        }
+
+        return -1;
+    }
+
+    public long value(int recordIndex, int valueIndex) { return mValues[valueIndex * mRecordCount + recordIndex]; }
+
+    public String stringValue(int recordIndex, int valueIndex) { return mStore.string((int)value(recordIndex, valueIndex)); }
+
+    public double doubleValue(int recordIndex, int valueIndex) { return Double.longBitsToDouble(value(recordIndex, valueIndex)); }
+
+    private boolean allelesMatch(int offset, int length, final String allele)
+    {
+        if(allele.length() != length)
+            return false;
+
+        for(int i = 0; i < length; ++i)
+        {
+            if(mBlockData[offset + i] != (byte)allele.charAt(i))
+                return false;
+        }
+
+        return true;
+    }
+
+    private boolean loadBlock(int position)
+    {
+        if(mCurrentBlock >= 0
+        && position >= mBlocks.FirstPositions[mCurrentBlock] && position <= mBlocks.LastPositions[mCurrentBlock])
+        {
+            return true;
+        }
+
+        // find the last block starting at or before the position - a position's variants are never split across blocks
+        int low = 0;
+        int high = mBlocks.blockCount() - 1;
+        int blockIndex = -1;
+
+        while(low <= high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if(mBlocks.FirstPositions[mid] <= position)
+            {
+                blockIndex = mid;
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid - 1;
+            }
+        }
+
+        if(blockIndex < 0 || position > mBlocks.LastPositions[blockIndex])
+            return false;
+
+        return decompressBlock(blockIndex);
+    }
+
+    private boolean decompressBlock(int blockIndex)
+    {
+        int compressedLength = mBlocks.CompressedLengths[blockIndex];
+        int length = mBlocks.Lengths[blockIndex];
+
+        if(mCompressed.length < compressedLength)
+            mCompressed = new byte[compressedLength];
+
+        if(mBlockData.length < length)
+            mBlockData = new byte[length];
+
+        ByteBuffer source = mBlocks.Data.duplicate();
+        source.position((int)(mBlocks.Offsets[blockIndex] - mBlocks.DataOffset));
+        source.get(mCompressed, 0, compressedLength);
+
+        try
+        {
+            mInflater.reset();
+            mInflater.setInput(mCompressed, 0, compressedLength);
+
+            int inflated = 0;
+
+            while(inflated < length && !mInflater.finished())
+            {
+                inflated += mInflater.inflate(mBlockData, inflated, length - inflated);
+            }
+
+            if(inflated != length)
+                throw new DataFormatException(format("inflated %d of %d bytes", inflated, length));
+        }
+        catch(DataFormatException e)
+        {
+            PV_LOGGER.error("store({}) chr({}) block({}) invalid: {}", mStore.Filename, Chromosome, blockIndex, e.toString());
+            mCurrentBlock = -1;
+            return false;
+        }
+
+        decodeBlock(mBlocks.RecordCounts[blockIndex]);
+
+        mCurrentBlock = blockIndex;
+        ++mDecompressedBlocks;
+        return true;
+    }
+
+    private void decodeBlock(int recordCount)
+    {
+        // columns: position deltas, ref lengths, alt lengths, allele bases, then each value for all records
+        mRecordCount = recordCount;
+
+        if(mPositions.length < recordCount)
+        {
+            mPositions = new int[recordCount];
+            mRefOffsets = new int[recordCount];
+            mRefLengths = new int[recordCount];
+            mAltOffsets = new int[recordCount];
+            mAltLengths = new int[recordCount];
+        }
+
+        if(mValues.length < recordCount * mStore.ValueCount)
+            mValues = new long[recordCount * mStore.ValueCount];
+
+        ByteBuffer data = ByteBuffer.wrap(mBlockData);
+
+        int position = 0;
+
+        for(int i = 0; i < recordCount; ++i)
+        {
+            position += data.getInt();
+            mPositions[i] = position;
+        }
+
+        for(int i = 0; i < recordCount; ++i)
+        {
+            mRefLengths[i] = data.getInt();
+        }
+
+        for(int i = 0; i < recordCount; ++i)
+        {
+            mAltLengths[i] = data.getInt();
+        }
+
+        int alleleOffset = data.position();
+
+        for(int i = 0; i < recordCount; ++i)
+        {
+            mRefOffsets[i] = alleleOffset;
+            alleleOffset += mRefLengths[i];
+            mAltOffsets[i] = alleleOffset;
+            alleleOffset += mAltLengths[i];
+        }
+
+        data.position(alleleOffset);
+
+        for(int i = 0; i < recordCount * mStore.ValueCount; ++i)
+        {
+            mValues[i] = data.getLong();
+        }
+    }
+
+    public String toString()
+    {
+        return format("store(%s) chr(%s) blocks(%d) current(%d)", mStore.Type, Chromosome, mBlocks.blockCount(), mCurrentBlock);
+    }
+}
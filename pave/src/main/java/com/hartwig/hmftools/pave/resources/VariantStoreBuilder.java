@@ -0,0 +1,237 @@
+package com.hartwig.hmftools.pave.resources;
+
+import static com.hartwig.hmftools.common.utils.config.ConfigUtils.addLoggingOptions;
+import static com.hartwig.hmftools.common.utils.file.FileDelimiters.CSV_DELIM;
+import static com.hartwig.hmftools.common.utils.file.FileDelimiters.TSV_DELIM;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.createBufferedReader;
+import static com.hartwig.hmftools.pave.PaveConfig.PV_LOGGER;
+import static com.hartwig.hmftools.pave.PaveConstants.APP_NAME;
+import static com.hartwig.hmftools.pave.annotation.ClinvarAnnotation.CLINVAR_STORE_TYPE;
+import static com.hartwig.hmftools.pave.annotation.ClinvarAnnotation.CLNSIG;
+import static com.hartwig.hmftools.pave.annotation.ClinvarAnnotation.CLNSIGCONF;
+import static com.hartwig.hmftools.pave.annotation.ClinvarChrCache.stripBrackets;
+import static com.hartwig.hmftools.pave.annotation.GnomadAnnotation.GNOMAD_STORE_TYPE;
+import static com.hartwig.hmftools.pave.annotation.PonAnnotation.PON_STORE_TYPE;
+import static com.hartwig.hmftools.pave.annotation.VariantStore.VARIANT_STORE_EXTENSION;
+import static com.hartwig.hmftools.pave.resources.GnomadCacheBuilder.GNOMAD_FILE_ID;
+import static com.hartwig.hmftools.pave.resources.VariantStoreWriter.doubleValue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.common.variant.VcfFileReader;
+import com.hartwig.hmftools.pave.annotation.ClinvarChrCache;
+import com.hartwig.hmftools.pave.annotation.GnomadChrCache;
+import com.hartwig.hmftools.pave.annotation.PonChrCache;
+
+import org.jetbrains.annotations.NotNull;
+
+import htsjdk.variant.variantcontext.VariantContext;
+
+// converts the Gnomad frequency, PON and Clinvar resource files into variant stores, read by Pave in place of the source files
+public class VariantStoreBuilder
+{
+    private final String mStoreType;
+    private final String mInputFile;
+    private final String mOutputFile;
+
+    private static final String STORE_TYPE = "store_type";
+    private static final String INPUT_FILE = "input_file";
+    private static final String OUTPUT_FILE = "output_file";
+
+    public VariantStoreBuilder(final ConfigBuilder configBuilder)
+    {
+        mStoreType = configBuilder.getValue(STORE_TYPE);
+        mInputFile = configBuilder.getValue(INPUT_FILE);
+        mOutputFile = configBuilder.getValue(OUTPUT_FILE);
+    }
+
+    public void run()
+    {
+        if(!mOutputFile.endsWith(VARIANT_STORE_EXTENSION))
+        {
+            PV_LOGGER.error("output file({}) requires extension({})", mOutputFile, VARIANT_STORE_EXTENSION);
+            System.exit(1);
+        }
+
+        PV_LOGGER.info("building {} variant store from {}", mStoreType, mInputFile);
+
+        try
+        {
+            VariantStoreWriter writer;
+
+            switch(mStoreType)
+            {
+                case GNOMAD_STORE_TYPE:
+                    writer = new VariantStoreWriter(mOutputFile, GNOMAD_STORE_TYPE, GnomadChrCache.STORE_VALUE_COUNT);
+                    writeGnomadEntries(writer);
+                    break;
+
+                case PON_STORE_TYPE:
+                    writer = new VariantStoreWriter(mOutputFile, PON_STORE_TYPE, PonChrCache.STORE_VALUE_COUNT);
+                    writePonEntries(writer, mInputFile);
+                    break;
+
+                case CLINVAR_STORE_TYPE:
+                    writer = new VariantStoreWriter(mOutputFile, CLINVAR_STORE_TYPE, ClinvarChrCache.STORE_VALUE_COUNT);
+                    writeClinvarEntries(writer, mInputFile);
+                    break;
+
+                default:
+                    PV_LOGGER.error("invalid store type({})", mStoreType);
+                    System.exit(1);
+                    return;
+            }
+
+            writer.close();
+
+            PV_LOGGER.info("written {} variants to store({})", writer.variantCount(), mOutputFile);
+        }
+        catch(IOException | IllegalArgumentException e)
+        {
+            PV_LOGGER.error("failed to build variant store: {}", e.toString());
+            System.exit(1);
+        }
+    }
+
+    private void writeGnomadEntries(final VariantStoreWriter writer) throws IOException
+    {
+        if(!new File(mInputFile).isDirectory())
+        {
+            writeGnomadFile(writer, mInputFile, null);
+            return;
+        }
+
+        // per-chromosome files, as produced by the Gnomad cache builder, named with their chromosome
+        List<String> files = Files.list(Paths.get(mInputFile))
+                .map(x -> x.toString())
+                .filter(x -> x.contains(GNOMAD_FILE_ID) && !x.endsWith(VARIANT_STORE_EXTENSION))
+                .collect(Collectors.toList());
+
+        for(HumanChromosome humanChr : HumanChromosome.values())
+        {
+            String chrId = "_chr" + humanChr;
+
+            String chrFile = files.stream()
+                    .filter(x -> x.contains(chrId + "_") || x.contains(chrId + "."))
+                    .findFirst().orElse(null);
+
+            if(chrFile == null)
+            {
+                PV_LOGGER.warn("missing Gnomad chromosome({}) file", humanChr);
+                continue;
+            }
+
+            writeGnomadFile(writer, chrFile, humanChr.toString());
+        }
+    }
+
+    private static void writeGnomadFile(final VariantStoreWriter writer, final String filename, final String fileChromosome)
+            throws IOException
+    {
+        BufferedReader fileReader = createBufferedReader(filename);
+
+        String line = fileReader.readLine(); // skip header
+
+        int index = fileChromosome != null ? 0 : 1;
+        int posIndex = index++;
+        int refIndex = index++;
+        int altIndex = index++;
+        int freqIndex = index;
+
+        while((line = fileReader.readLine()) != null)
+        {
+            final String[] values = line.split(CSV_DELIM, -1);
+
+            String chromosome = fileChromosome != null ? fileChromosome : values[0];
+
+            writer.addVariant(
+                    chromosome, Integer.parseInt(values[posIndex]), values[refIndex], values[altIndex],
+                    doubleValue(Double.parseDouble(values[freqIndex])));
+        }
+
+        fileReader.close();
+    }
+
+    private static void writePonEntries(final VariantStoreWriter writer, final String filename) throws IOException
+    {
+        BufferedReader fileReader = createBufferedReader(filename);
+
+        String line = fileReader.readLine();
+        int columnCount = line.split(TSV_DELIM, -1).length;
+
+        while((line = fileReader.readLine()) != null)
+        {
+            final String[] values = line.split(TSV_DELIM, -1);
+
+            int colIndex = 0;
+            String chromosome = values[colIndex++];
+            int position = Integer.parseInt(values[colIndex++]);
+            String ref = values[colIndex++];
+            String alt = values[colIndex++];
+
+            long[] counts = new long[PonChrCache.STORE_VALUE_COUNT];
+
+            for(int i = 0; i < counts.length && colIndex < columnCount; ++i)
+            {
+                counts[i] = Integer.parseInt(values[colIndex++]);
+            }
+
+            writer.addVariant(chromosome, position, ref, alt, counts);
+        }
+
+        fileReader.close();
+    }
+
+    private static void writeClinvarEntries(final VariantStoreWriter writer, final String filename) throws IOException
+    {
+        VcfFileReader vcfFileReader = new VcfFileReader(filename);
+
+        if(!vcfFileReader.fileValid())
+            throw new IOException("invalid Clinvar VCF: " + filename);
+
+        for(VariantContext context : vcfFileReader.iterator())
+        {
+            if(context.getAlleles().size() < 2)
+                continue;
+
+            if(!HumanChromosome.contains(context.getContig()))
+                continue;
+
+            String significance = context.getAttributeAsString(CLNSIG, "");
+            String conflict = context.getAttributeAsString(CLNSIGCONF, "");
+
+            if(significance.isEmpty() && conflict.isEmpty())
+                continue;
+
+            writer.addVariant(
+                    context.getContig(), context.getStart(), context.getReference().getBaseString(),
+                    context.getAlternateAlleles().get(0).toString(),
+                    writer.stringIndex(stripBrackets(significance)), writer.stringIndex(stripBrackets(conflict)));
+        }
+    }
+
+    public static void main(@NotNull final String[] args)
+    {
+        ConfigBuilder configBuilder = new ConfigBuilder(APP_NAME);
+
+        configBuilder.addConfigItem(
+                STORE_TYPE, true, "Store type: " + String.join(", ", GNOMAD_STORE_TYPE, PON_STORE_TYPE, CLINVAR_STORE_TYPE));
+
+        configBuilder.addPath(INPUT_FILE, true, "Gnomad frequency file or directory, PON file or Clinvar VCF");
+        configBuilder.addConfigItem(OUTPUT_FILE, true, "Output variant store file, with extension " + VARIANT_STORE_EXTENSION);
+        addLoggingOptions(configBuilder);
+
+        configBuilder.checkAndParseCommandLine(args);
+
+        VariantStoreBuilder builder = new VariantStoreBuilder(configBuilder);
+        builder.run();
+    }
+}
@@ -0,0 +1,270 @@
+package com.hartwig.hmftools.pave.resources;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.common.genome.refgenome.RefGenomeFunctions.stripChrPrefix;
+import static com.hartwig.hmftools.pave.annotation.VariantStore.FORMAT_VERSION;
+import static com.hartwig.hmftools.pave.annotation.VariantStore.MAGIC;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Deflater;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+// writes variants in position order to a variant store, cutting a block once it holds the required records and the position changes
+public class VariantStoreWriter
+{
+    private final String mType;
+    private final int mValueCount;
+    private final int mBlockRecords;
+
+    private final DataOutputStream mOutput;
+    private final Deflater mDeflater;
+    private long mFileOffset;
+
+    private final Map<String,Integer> mStringIndices;
+    private final List<String> mStrings;
+
+    private final List<String> mChromosomes;
+    private final Set<String> mCompletedChromosomes;
+    private final Map<String,List<BlockIndex>> mChromosomeBlocks;
+
+    // the current block's records
+    private String mCurrentChromosome;
+    private final List<Integer> mPositions;
+    private final List<String> mRefs;
+    private final List<String> mAlts;
+    private final List<long[]> mValues;
+
+    private int mVariantCount;
+
+    public static final int DEFAULT_BLOCK_RECORDS = 4096;
+
+    public VariantStoreWriter(final String filename, final String type, int valueCount) throws IOException
+    {
+        this(filename, type, valueCount, DEFAULT_BLOCK_RECORDS);
+    }
+
+    public VariantStoreWriter(final String filename, final String type, int valueCount, int blockRecords) throws IOException
+    {
+        mType = type;
+        mValueCount = valueCount;
+        mBlockRecords = blockRecords;
+
+        mOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)));
+        mDeflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+
+        mStringIndices = Maps.newHashMap();
+        mStrings = Lists.newArrayList();
+        mChromosomes = Lists.newArrayList();
+        mCompletedChromosomes = Sets.newHashSet();
+        mChromosomeBlocks = Maps.newHashMap();
+
+        mCurrentChromosome = null;
+        mPositions = Lists.newArrayList();
+        mRefs = Lists.newArrayList();
+        mAlts = Lists.newArrayList();
+        mValues = Lists.newArrayList();
+        mVariantCount = 0;
+
+        mOutput.writeInt(MAGIC);
+        mOutput.writeInt(FORMAT_VERSION);
+        mFileOffset = 2 * Integer.BYTES;
+    }
+
+    public int variantCount() { return mVariantCount; }
+
+    public int stringIndex(final String value)
+    {
+        return mStringIndices.computeIfAbsent(value, k -> { mStrings.add(k); return mStrings.size() - 1; });
+    }
+
+    public static long doubleValue(double value) { return Double.doubleToLongBits(value); }
+
+    public void addVariant(final String chromosome, int position, final String ref, final String alt, final long... values)
+            throws IOException
+    {
+        if(values.length != mValueCount)
+            throw new IllegalArgumentException(format("variant(%s:%d) has %d values, expected %d", chromosome, position, values.length, mValueCount));
+
+        String storeChromosome = stripChrPrefix(chromosome);
+
+        if(!storeChromosome.equals(mCurrentChromosome))
+        {
+            if(mCompletedChromosomes.contains(storeChromosome))
+                throw new IllegalArgumentException(format("chromosome(%s) variants are not contiguous", chromosome));
+
+            flushBlock();
+
+            if(mCurrentChromosome != null)
+                mCompletedChromosomes.add(mCurrentChromosome);
+
+            mCurrentChromosome = storeChromosome;
+            mChromosomes.add(storeChromosome);
+            mChromosomeBlocks.put(storeChromosome, Lists.newArrayList());
+        }
+        else if(!mPositions.isEmpty())
+        {
+            int lastPosition = mPositions.get(mPositions.size() - 1);
+
+            if(position < lastPosition)
+            {
+                throw new IllegalArgumentException(format("chromosome(%s) variant position(%d) before prior(%d)",
+                        chromosome, position, lastPosition));
+            }
+
+            if(position > lastPosition && mPositions.size() >= mBlockRecords)
+                flushBlock();
+        }
+
+        mPositions.add(position);
+        mRefs.add(ref);
+        mAlts.add(alt);
+        mValues.add(values);
+        ++mVariantCount;
+    }
+
+    private void flushBlock() throws IOException
+    {
+        if(mPositions.isEmpty())
+            return;
+
+        int recordCount = mPositions.size();
+
+        ByteArrayOutputStream blockBytes = new ByteArrayOutputStream();
+        DataOutputStream block = new DataOutputStream(blockBytes);
+
+        int priorPosition = 0;
+
+        for(int position : mPositions)
+        {
+            block.writeInt(position - priorPosition);
+            priorPosition = position;
+        }
+
+        for(String ref : mRefs)
+        {
+            block.writeInt(ref.length());
+        }
+
+        for(String alt : mAlts)
+        {
+            block.writeInt(alt.length());
+        }
+
+        for(int i = 0; i < recordCount; ++i)
+        {
+            block.write(mRefs.get(i).getBytes(StandardCharsets.US_ASCII));
+            block.write(mAlts.get(i).getBytes(StandardCharsets.US_ASCII));
+        }
+
+        for(int v = 0; v < mValueCount; ++v)
+        {
+            for(long[] values : mValues)
+            {
+                block.writeLong(values[v]);
+            }
+        }
+
+        block.flush();
+        byte[] data = blockBytes.toByteArray();
+
+        mDeflater.reset();
+        mDeflater.setInput(data);
+        mDeflater.finish();
+
+        ByteArrayOutputStream compressedBytes = new ByteArrayOutputStream(data.length / 2 + 64);
+        byte[] buffer = new byte[8192];
+
+        while(!mDeflater.finished())
+        {
+            int length = mDeflater.deflate(buffer);
+            compressedBytes.write(buffer, 0, length);
+        }
+
+        byte[] compressed = compressedBytes.toByteArray();
+
+        mChromosomeBlocks.get(mCurrentChromosome).add(new BlockIndex(
+                mPositions.get(0), mPositions.get(recordCount - 1), mFileOffset, compressed.length, data.length, recordCount));
+
+        mOutput.write(compressed);
+        mFileOffset += compressed.length;
+
+        mPositions.clear();
+        mRefs.clear();
+        mAlts.clear();
+        mValues.clear();
+    }
+
+    public void close() throws IOException
+    {
+        flushBlock();
+
+        // the index follows the blocks, with its offset as the last value in the file
+        long indexOffset = mFileOffset;
+
+        mOutput.writeUTF(mType);
+        mOutput.writeInt(mValueCount);
+
+        mOutput.writeInt(mStrings.size());
+
+        for(String value : mStrings)
+        {
+            mOutput.writeUTF(value);
+        }
+
+        mOutput.writeInt(mChromosomes.size());
+
+        for(String chromosome : mChromosomes)
+        {
+            List<BlockIndex> blocks = mChromosomeBlocks.get(chromosome);
+
+            mOutput.writeUTF(chromosome);
+            mOutput.writeInt(blocks.size());
+
+            for(BlockIndex block : blocks)
+            {
+                mOutput.writeInt(block.FirstPosition);
+                mOutput.writeInt(block.LastPosition);
+                mOutput.writeLong(block.Offset);
+                mOutput.writeInt(block.CompressedLength);
+                mOutput.writeInt(block.Length);
+                mOutput.writeInt(block.RecordCount);
+            }
+        }
+
+        mOutput.writeLong(indexOffset);
+        mOutput.close();
+        mDeflater.end();
+    }
+
+    private class BlockIndex
+    {
+        public final int FirstPosition;
+        public final int LastPosition;
+        public final long Offset;
+        public final int CompressedLength;
+        public final int Length;
+        public final int RecordCount;
+
+        public BlockIndex(int firstPosition, int lastPosition, long offset, int compressedLength, int length, int recordCount)
+        {
+            FirstPosition = firstPosition;
+            LastPosition = lastPosition;
+            Offset = offset;
+            CompressedLength = compressedLength;
+            Length = length;
+            RecordCount = recordCount;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.hartwig.hmftools.pave;
+
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.pave.annotation.AnnotationData;
+import com.hartwig.hmftools.pave.annotation.ChromosomeUsers;
+
+import org.junit.Test;
+
+public class PaveServiceTest
+{
+    @Test
+    public void testChromosomeReleasedAfterLastTask()
+    {
+        TestAnnotation reloadable = new TestAnnotation(true);
+        TestAnnotation streamed = new TestAnnotation(false);
+        ChromosomeUsers chromosomeUsers = new ChromosomeUsers(List.of(reloadable, streamed));
+
+        chromosomeUsers.register(CHR_1, 3);
+        chromosomeUsers.register(CHR_2, 1);
+
+        chromosomeUsers.onChromosomeComplete(CHR_1);
+        chromosomeUsers.onChromosomeComplete(CHR_1);
+        assertEquals(1, chromosomeUsers.users(CHR_1));
+        assertTrue(reloadable.Released.isEmpty());
+        assertTrue(streamed.Released.isEmpty());
+
+        chromosomeUsers.onChromosomeComplete(CHR_1);
+        assertEquals(0, chromosomeUsers.users(CHR_1));
+        assertEquals(List.of(CHR_1), reloadable.Released);
+        assertEquals(List.of(CHR_1), streamed.Released);
+
+        chromosomeUsers.onChromosomeComplete(CHR_2);
+        assertEquals(List.of(CHR_1, CHR_2), reloadable.Released);
+        assertEquals(List.of(CHR_1, CHR_2), streamed.Released);
+    }
+
+    @Test
+    public void testStreamedDataRetainedUntilFinalBatch()
+    {
+        TestAnnotation reloadable = new TestAnnotation(true);
+        TestAnnotation streamed = new TestAnnotation(false);
+        ChromosomeUsers chromosomeUsers = new ChromosomeUsers(List.of(reloadable, streamed));
+
+        // a first batch of 2 samples, with data which cannot be reloaded kept for the next batch
+        chromosomeUsers.setRetainData(true);
+        chromosomeUsers.register(CHR_1, 2);
+
+        chromosomeUsers.onChromosomeComplete(CHR_1);
+        assertTrue(reloadable.Released.isEmpty());
+
+        chromosomeUsers.onChromosomeComplete(CHR_1);
+        assertEquals(List.of(CHR_1), reloadable.Released);
+        assertTrue(streamed.Released.isEmpty());
+
+        // the final batch releases all data after its last task
+        chromosomeUsers.setRetainData(false);
+        chromosomeUsers.register(CHR_1, 2);
+
+        chromosomeUsers.onChromosomeComplete(CHR_1);
+        assertTrue(streamed.Released.isEmpty());
+
+        chromosomeUsers.onChromosomeComplete(CHR_1);
+        assertEquals(List.of(CHR_1, CHR_1), reloadable.Released);
+        assertEquals(List.of(CHR_1), streamed.Released);
+    }
+
+    @Test
+    public void testLoadSampleVcfs() throws IOException
+    {
+        File sampleVcfsFile = File.createTempFile("pave_sample_vcfs", ".csv");
+        sampleVcfsFile.deleteOnExit();
+
+        Files.write(sampleVcfsFile.toPath(), List.of(
+                "SampleId,VcfFile", "# comment", "SAMPLE_01,/data/SAMPLE_01.vcf.gz", "", "SAMPLE_02,/data/SAMPLE_02.vcf.gz"));
+
+        List<PaveService.SampleVcf> sampleVcfs = PaveService.loadSampleVcfs(sampleVcfsFile.getPath());
+
+        assertNotNull(sampleVcfs);
+        assertEquals(2, sampleVcfs.size());
+        assertEquals("SAMPLE_01", sampleVcfs.get(0).SampleId);
+        assertEquals("/data/SAMPLE_02.vcf.gz", sampleVcfs.get(1).VcfFile);
+
+        Files.write(sampleVcfsFile.toPath(), List.of("SAMPLE_01"));
+        assertNull(PaveService.loadSampleVcfs(sampleVcfsFile.getPath()));
+    }
+
+    private static class TestAnnotation extends AnnotationData
+    {
+        public final List<String> Released;
+        private final boolean mCanReload;
+
+        public TestAnnotation(boolean canReload)
+        {
+            Released = Lists.newArrayList();
+            mCanReload = canReload;
+        }
+
+        @Override
+        public String type() { return "Test"; }
+
+        @Override
+        public void onChromosomeComplete(final String chromosome) { Released.add(chromosome); }
+
+        @Override
+        public boolean enabled() { return true; }
+
+        @Override
+        public boolean hasValidData() { return true; }
+
+        @Override
+        public boolean canReloadChromosome() { return mCanReload; }
+    }
+}
@@ -1,11 +1,23 @@
 package com.hartwig.hmftools.pave;
 
 import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_2;
+import static com.hartwig.hmftools.pave.annotation.ClinvarAnnotation.CLINVAR_STORE_TYPE;
 import static com.hartwig.hmftools.pave.annotation.ClinvarAnnotation.CLNSIG;
+import static com.hartwig.hmftools.pave.annotation.ClinvarAnnotation.CLNSIGCONF;
+import static com.hartwig.hmftools.pave.annotation.GnomadAnnotation.GNOMAD_STORE_TYPE;
+import static com.hartwig.hmftools.pave.annotation.PonAnnotation.PON_STORE_TYPE;
+import static com.hartwig.hmftools.pave.resources.VariantStoreWriter.doubleValue;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -13,6 +25,12 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.hartwig.hmftools.pave.annotation.ClinvarChrCache;
 import com.hartwig.hmftools.common.utils.StringCache;
+import com.hartwig.hmftools.pave.annotation.GnomadChrCache;
+import com.hartwig.hmftools.pave.annotation.PonChrCache;
+import com.hartwig.hmftools.pave.annotation.PonVariantData;
+import com.hartwig.hmftools.pave.annotation.VariantStore;
+import com.hartwig.hmftools.pave.annotation.VariantStoreReader;
+import com.hartwig.hmftools.pave.resources.VariantStoreWriter;
 
 import org.junit.Test;
 
@@ -49,6 +67,122 @@ public class ResourcesTest
         assertFalse(var3.context().hasAttribute(CLNSIG));
     }
 
+    @Test
+    public void testGnomadVariantStore() throws IOException
+    {
+        File storeFile = File.createTempFile("gnomad", VariantStore.VARIANT_STORE_EXTENSION);
+        storeFile.deleteOnExit();
+
+        // small blocks so look-ups cross them, with a position's variants kept in the same block
+        VariantStoreWriter writer = new VariantStoreWriter(storeFile.getAbsolutePath(), GNOMAD_STORE_TYPE, 1, 3);
+
+        for(int position = 100; position < 200; position += 10)
+        {
+            writer.addVariant("chr1", position, "A", "G", doubleValue(position / 1000.0));
+        }
+
+        writer.addVariant("chr1", 200, "A", "C", doubleValue(0.1));
+        writer.addVariant("chr1", 200, "A", "T", doubleValue(0.2));
+        writer.addVariant("chr1", 200, "A", "AT", doubleValue(0.3));
+        writer.addVariant("chr1", 200, "AG", "A", doubleValue(0.4));
+        writer.addVariant("chr1", 201, "G", "T", doubleValue(0.5));
+        writer.addVariant("chr2", 50, "C", "T", doubleValue(0.6));
+
+        try
+        {
+            writer.addVariant("chr2", 40, "C", "T", doubleValue(0.6));
+            fail();
+        }
+        catch(IllegalArgumentException e) {}
+
+        writer.close();
+
+        VariantStore store = VariantStore.open(storeFile.getAbsolutePath(), GNOMAD_STORE_TYPE);
+        assertNotNull(store);
+        assertNull(VariantStore.open(storeFile.getAbsolutePath(), PON_STORE_TYPE));
+
+        VariantStoreReader reader = store.chromosomeReader("chr1");
+        GnomadChrCache chrCache = new GnomadChrCache("chr1", reader);
+
+        assertEquals(0.1, chrCache.getFrequency(100, "A", "G"), 1e-10);
+        assertEquals(0.15, chrCache.getFrequency(150, "A", "G"), 1e-10);
+        assertNull(chrCache.getFrequency(150, "A", "C"));
+        assertNull(chrCache.getFrequency(155, "A", "G"));
+        assertNull(chrCache.getFrequency(50, "A", "G"));
+        assertNull(chrCache.getFrequency(300, "A", "G"));
+
+        assertEquals(0.2, chrCache.getFrequency(200, "A", "T"), 1e-10);
+        assertEquals(0.4, chrCache.getFrequency(200, "AG", "A"), 1e-10);
+        assertNull(chrCache.getFrequency(200, "A", "A"));
+
+        // MNVs take the lowest frequency of each base
+        assertEquals(0.4, chrCache.getFrequency(new VariantData(CHR_1, 200, "AG", "A")), 1e-10);
+        assertEquals(0.2, chrCache.getFrequency(new VariantData(CHR_1, 200, "AG", "TT")), 1e-10);
+
+        // look-ups in position order decompress each block once
+        reader = store.chromosomeReader("2");
+        assertEquals(0, reader.decompressedBlocks());
+        assertTrue(reader.find(50, "C", "T") >= 0);
+        assertTrue(reader.find(50, "C", "G") < 0);
+        assertEquals(1, reader.decompressedBlocks());
+
+        assertTrue(store.chromosomeReader("3").isEmpty());
+
+        // tasks sharing a chromosome's cache each read with their own block state
+        GnomadChrCache taskCache1 = chrCache.taskCache();
+        GnomadChrCache taskCache2 = chrCache.taskCache();
+        assertEquals(0.19, taskCache1.getFrequency(190, "A", "G"), 1e-10);
+        assertEquals(0.1, taskCache2.getFrequency(100, "A", "G"), 1e-10);
+        assertEquals(0.5, taskCache1.getFrequency(201, "G", "T"), 1e-10);
+        assertEquals(0.11, taskCache2.getFrequency(110, "A", "G"), 1e-10);
+    }
+
+    @Test
+    public void testPonAndClinvarVariantStores() throws IOException
+    {
+        File ponFile = File.createTempFile("pon", VariantStore.VARIANT_STORE_EXTENSION);
+        ponFile.deleteOnExit();
+
+        VariantStoreWriter writer = new VariantStoreWriter(ponFile.getAbsolutePath(), PON_STORE_TYPE, PonChrCache.STORE_VALUE_COUNT);
+        writer.addVariant(CHR_1, 100, "A", "G", 5, 10, 30);
+        writer.addVariant(CHR_2, 100, "A", "G", 2, 3, 4);
+        writer.close();
+
+        VariantStore store = VariantStore.open(ponFile.getAbsolutePath(), PON_STORE_TYPE);
+        PonChrCache ponCache = new PonChrCache(CHR_1, store.chromosomeReader(CHR_1));
+
+        PonVariantData ponData = ponCache.getPonData(createVariant(CHR_1, 100, "A", "G"));
+        assertNotNull(ponData);
+        assertEquals(5, ponData.Samples);
+        assertEquals(10, ponData.MaxSampleReads);
+        assertEquals(6, ponData.meanReadCount());
+        assertFalse(ponCache.hasEntry(100, "A", "T"));
+
+        File clinvarFile = File.createTempFile("clinvar", VariantStore.VARIANT_STORE_EXTENSION);
+        clinvarFile.deleteOnExit();
+
+        writer = new VariantStoreWriter(clinvarFile.getAbsolutePath(), CLINVAR_STORE_TYPE, ClinvarChrCache.STORE_VALUE_COUNT);
+        writer.addVariant(CHR_1, 100, "A", "C", writer.stringIndex("pathogenic"), writer.stringIndex(""));
+        writer.addVariant(CHR_1, 100, "A", "G", writer.stringIndex("benign"), writer.stringIndex("conflict"));
+        writer.close();
+
+        store = VariantStore.open(clinvarFile.getAbsolutePath(), CLINVAR_STORE_TYPE);
+        ClinvarChrCache clinvarCache = new ClinvarChrCache(CHR_1, store.chromosomeReader(CHR_1));
+
+        VariantData var1 = createVariant(CHR_1, 100, "A", "C");
+        VariantData var2 = createVariant(CHR_1, 100, "A", "G");
+        VariantData var3 = createVariant(CHR_1, 100, "A", "T");
+
+        clinvarCache.annotateVariant(var1);
+        clinvarCache.annotateVariant(var2);
+        clinvarCache.annotateVariant(var3);
+
+        assertEquals("pathogenic", var1.context().getAttribute(CLNSIG));
+        assertFalse(var1.context().hasAttribute(CLNSIGCONF));
+        assertEquals("conflict", var2.context().getAttribute(CLNSIGCONF));
+        assertFalse(var3.context().hasAttribute(CLNSIG));
+    }
+
     public static VariantData createVariant( final String chromosome, int position, final String ref, final String alt)
     {
         VariantContext context = buildContext(chromosome, position, ref, alt);
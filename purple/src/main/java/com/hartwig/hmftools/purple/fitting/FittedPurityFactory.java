@@ -79,7 +79,7 @@ public class FittedPurityFactory
             {
                 variantSelector.select(region, filteredVariants::add);
 
-                ObservedRegionData observedRegion = new ObservedRegionData(region);
+                ObservedRegionData observedRegion = new ObservedRegionData(region, regionFitCalculator.regionFitTerms(region));
                 mFilteredObservedRegions.add(observedRegion);
 
                 accumulatedBafCount += region.bafCount();
@@ -165,11 +165,14 @@ public class FittedPurityFactory
         int somaticVariantCount = 0;
         final SomaticDeviation somaticDeviation = SomaticDeviation.INSTANCE;
         PurityAdjuster purityAdjuster = new PurityAdjuster(mObservedRatioMap, purity, normFactor);
+        double standardDeviationsPerPloidy = mRegionFitCalculator.standardDeviationsPerPloidy(purity, normFactor);
 
         for(ObservedRegionData regionData : mFilteredObservedRegions)
         {
             ObservedRegion region = regionData.Region;
-            RegionFitCalcs regionFitCalcs = mRegionFitCalculator.calculateRegionFit(purity, normFactor, region);
+
+            RegionFitCalcs regionFitCalcs = mRegionFitCalculator.calculateRegionFit(
+                    purityAdjuster, standardDeviationsPerPloidy, region, regionData.FitTerms);
 
             int bafCount = region.bafCount();
             eventPenalty += weightWithBaf(regionFitCalcs.EventPenalty, bafCount);
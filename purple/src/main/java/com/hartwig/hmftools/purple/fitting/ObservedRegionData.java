@@ -9,11 +9,13 @@ import com.hartwig.hmftools.purple.somatic.SomaticVariant;
 public class ObservedRegionData
 {
     public final ObservedRegion Region;
+    public final RegionFitTerms FitTerms;
     public final List<SomaticVariant> Variants;
 
-    public ObservedRegionData(final ObservedRegion region)
+    public ObservedRegionData(final ObservedRegion region, final RegionFitTerms fitTerms)
     {
         Region = region;
+        FitTerms = fitTerms;
         Variants = Lists.newArrayListWithExpectedSize(2);
     }
 
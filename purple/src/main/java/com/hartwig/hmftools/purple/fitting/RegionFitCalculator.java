@@ -80,23 +80,30 @@ public class RegionFitCalculator
     {
         final PurityAdjuster purityAdjuster = new PurityAdjuster(purity, normFactor, mCobaltChromosomes);
 
-        double observedTumorRatio = observedRegion.observedTumorRatio();
-
-        double impliedCopyNumber = purityAdjuster.purityAdjustedCopyNumber(observedRegion.chromosome(), observedTumorRatio);
-        double observedBAF = observedRegion.observedBAF();
-        double impliedBAF = impliedBaf(purityAdjuster, observedRegion.chromosome(), impliedCopyNumber, observedBAF);
-
-        double refNormalisedCopyNumber = purityAdjuster.purityAdjustedCopyNumber(observedTumorRatio, observedRegion.observedNormalRatio());
+        return calculateRegionFit(
+                purityAdjuster, mPloidyDeviation.standardDeviationsPerPloidy(purity, normFactor), observedRegion,
+                regionFitTerms(observedRegion));
+    }
 
-        double majorAllelePloidy = impliedBAF * impliedCopyNumber;
-        double minorAllelePloidy = impliedCopyNumber - majorAllelePloidy;
+    public double standardDeviationsPerPloidy(final double purity, final double normFactor)
+    {
+        return mPloidyDeviation.standardDeviationsPerPloidy(purity, normFactor);
+    }
 
-        double majorAllelePloidyDeviation = mPloidyDeviation.majorAlleleDeviation(purity, normFactor, majorAllelePloidy);
-        double minorAllelePloidyDeviation = mPloidyDeviation.minorAlleleDeviation(purity, normFactor, minorAllelePloidy);
+    public RegionFitTerms regionFitTerms(final ObservedRegion observedRegion)
+    {
+        String chromosome = observedRegion.chromosome();
+        double germlineRatio = 0;
+        boolean useImpliedBaf = false;
 
-        double eventPenalty = calculateEventPenalty(mFitScoreConfig.PloidyPenaltyFactor, majorAllelePloidy, minorAllelePloidy);
+        if(mCobaltChromosomes.hasChromosome(chromosome))
+        {
+            CobaltChromosome cobaltChromosome = mCobaltChromosomes.get(chromosome);
+            germlineRatio = cobaltChromosome.actualRatio();
+            useImpliedBaf = cobaltChromosome.isNormal() && cobaltChromosome.isDiploid();
+        }
 
-        double deviationPenalty = (minorAllelePloidyDeviation + majorAllelePloidyDeviation) * observedBAF;
+        double deviationPenaltyDenom = 1;
 
         if(mFitScoreConfig.GcRatioExponent > 0 || mFitScoreConfig.DeviationPenaltyGcMinAdjust > 0)
         {
@@ -104,13 +111,43 @@ public class RegionFitCalculator
             // deviationPenalty = (minorAllelePloidyDeviation + majorAllelePloidyDeviation) * observedBAF
             //  / max(DeviationPenaltyGcMinAdjust, observedTumorRatio^GcRatioExponent)
 
-            double adjTumorRatio = mFitScoreConfig.GcRatioExponent > 0 ? pow(observedTumorRatio, mFitScoreConfig.GcRatioExponent) : 1;
-
-            double deviationPenaltyDenom = max(mFitScoreConfig.DeviationPenaltyGcMinAdjust, adjTumorRatio);
+            double adjTumorRatio = mFitScoreConfig.GcRatioExponent > 0
+                    ? pow(observedRegion.observedTumorRatio(), mFitScoreConfig.GcRatioExponent) : 1;
 
-            deviationPenalty /= deviationPenaltyDenom;
+            deviationPenaltyDenom = max(mFitScoreConfig.DeviationPenaltyGcMinAdjust, adjTumorRatio);
         }
 
+        return new RegionFitTerms(germlineRatio, useImpliedBaf, deviationPenaltyDenom);
+    }
+
+    // the purity adjuster and standard deviations per ploidy are shared by all regions for a candidate fit
+    public RegionFitCalcs calculateRegionFit(
+            final PurityAdjuster purityAdjuster, final double standardDeviationsPerPloidy, final ObservedRegion observedRegion,
+            final RegionFitTerms regionFitTerms)
+    {
+        double observedTumorRatio = observedRegion.observedTumorRatio();
+
+        double impliedCopyNumber = purityAdjuster.purityAdjustedCopyNumber(observedTumorRatio, regionFitTerms.GermlineRatio);
+        double observedBAF = observedRegion.observedBAF();
+
+        double impliedBAF = regionFitTerms.UseImpliedBaf
+                ? impliedBaf(purityAdjuster, standardDeviationsPerPloidy, observedRegion.chromosome(), impliedCopyNumber, observedBAF)
+                : 1;
+
+        double refNormalisedCopyNumber = purityAdjuster.purityAdjustedCopyNumber(observedTumorRatio, observedRegion.observedNormalRatio());
+
+        double majorAllelePloidy = impliedBAF * impliedCopyNumber;
+        double minorAllelePloidy = impliedCopyNumber - majorAllelePloidy;
+
+        double majorAllelePloidyDeviation = mPloidyDeviation.majorAlleleDeviation(standardDeviationsPerPloidy, majorAllelePloidy);
+        double minorAllelePloidyDeviation = mPloidyDeviation.minorAlleleDeviation(standardDeviationsPerPloidy, minorAllelePloidy);
+
+        double eventPenalty = calculateEventPenalty(mFitScoreConfig.PloidyPenaltyFactor, majorAllelePloidy, minorAllelePloidy);
+
+        // the denominator is 1 unless GC adjustment of the penalty is enabled
+        double deviationPenalty = (minorAllelePloidyDeviation + majorAllelePloidyDeviation) * observedBAF
+                / regionFitTerms.DeviationPenaltyDenominator;
+
         return new RegionFitCalcs(
                 impliedCopyNumber, impliedBAF, Doubles.replaceNaNWithZero(refNormalisedCopyNumber),
                 minorAllelePloidyDeviation, majorAllelePloidyDeviation, eventPenalty, deviationPenalty);
@@ -126,24 +163,29 @@ public class RegionFitCalculator
 
     private static final double MIN_CN_THRESHOLD = 0.1;
 
-    private double impliedBaf(final PurityAdjuster purityAdjuster, final String chromosome, double copyNumber, double observedBAF)
+    private double impliedBaf(
+            final PurityAdjuster purityAdjuster, final double standardDeviationsPerPloidy, final String chromosome,
+            double copyNumber, double observedBAF)
     {
-        if(!mCobaltChromosomes.hasChromosome(chromosome))
-            return 1;
-
-        CobaltChromosome cobaltChromosome = mCobaltChromosomes.get(chromosome);
-
-        if(!cobaltChromosome.isNormal() || !cobaltChromosome.isDiploid() || Doubles.lessOrEqual(copyNumber, MIN_CN_THRESHOLD))
+        if(Doubles.lessOrEqual(copyNumber, MIN_CN_THRESHOLD))
             return 1;
 
         if(Doubles.lessOrEqual(observedBAF, mAmbiguousBaf))
-            return bafToMinimiseDeviation(purityAdjuster, chromosome, copyNumber, observedBAF);
+            return bafToMinimiseDeviation(purityAdjuster, standardDeviationsPerPloidy, chromosome, copyNumber, observedBAF);
         else
             return purityAdjuster.purityAdjustedBAFSimple(chromosome, copyNumber, observedBAF);
     }
 
     @VisibleForTesting
     public double bafToMinimiseDeviation(final PurityAdjuster purityAdjuster, final String chromosome, double copyNumber, double observedBAF)
+    {
+        double standardDeviationsPerPloidy = mPloidyDeviation.standardDeviationsPerPloidy(purityAdjuster.purity(), purityAdjuster.normFactor());
+        return bafToMinimiseDeviation(purityAdjuster, standardDeviationsPerPloidy, chromosome, copyNumber, observedBAF);
+    }
+
+    private double bafToMinimiseDeviation(
+            final PurityAdjuster purityAdjuster, final double standardDeviationsPerPloidy, final String chromosome,
+            double copyNumber, double observedBAF)
     {
         double minBAF = max(0, min(1, purityAdjuster.purityAdjustedBAFSimple(chromosome, copyNumber, BAF_PNT_5)));
         double maxBAF = max(0, min(1, purityAdjuster.purityAdjustedBAFSimple(chromosome, copyNumber, observedBAF)));
@@ -158,15 +200,12 @@ public class RegionFitCalculator
         double minorAcnMin = copyNumber - majorAcnMin;
         double minorAcnMax = copyNumber - majorAcnMax;
 
-        double purity = purityAdjuster.purity();
-        double normFactor = purityAdjuster.normFactor();
-
         // minimise
-        double minBAFTotalDeviation = mPloidyDeviation.majorAlleleDeviation(purity, normFactor, majorAcnMin)
-                        + mPloidyDeviation.minorAlleleDeviation(purity, normFactor, minorAcnMin);
+        double minBAFTotalDeviation = mPloidyDeviation.majorAlleleDeviation(standardDeviationsPerPloidy, majorAcnMin)
+                        + mPloidyDeviation.minorAlleleDeviation(standardDeviationsPerPloidy, minorAcnMin);
 
-        double maxBAFTotalDeviation = mPloidyDeviation.majorAlleleDeviation(purity, normFactor, majorAcnMax)
-                        + mPloidyDeviation.minorAlleleDeviation(purity,normFactor, minorAcnMax);
+        double maxBAFTotalDeviation = mPloidyDeviation.majorAlleleDeviation(standardDeviationsPerPloidy, majorAcnMax)
+                        + mPloidyDeviation.minorAlleleDeviation(standardDeviationsPerPloidy, minorAcnMax);
 
         return Doubles.lessThan(minBAFTotalDeviation, maxBAFTotalDeviation) ? BAF_PNT_5 : observedBAF;
     }
@@ -0,0 +1,16 @@
+package com.hartwig.hmftools.purple.fitting;
+
+// region values used in every fit calculation which don't depend on the candidate purity or norm factor
+public class RegionFitTerms
+{
+    public final double GermlineRatio;
+    public final boolean UseImpliedBaf; // chromosome is present, normal and diploid
+    public final double DeviationPenaltyDenominator;
+
+    public RegionFitTerms(final double germlineRatio, final boolean useImpliedBaf, final double deviationPenaltyDenominator)
+    {
+        GermlineRatio = germlineRatio;
+        UseImpliedBaf = useImpliedBaf;
+        DeviationPenaltyDenominator = deviationPenaltyDenominator;
+    }
+}
@@ -29,28 +29,43 @@ public class PloidyDeviation
     }
 
     public double majorAlleleDeviation(double purity, double normFactor, double ploidy)
+    {
+        return majorAlleleDeviation(standardDeviationsPerPloidy(purity, normFactor), ploidy);
+    }
+
+    public double minorAlleleDeviation(double purity, double normFactor, double ploidy)
+    {
+        return minorAlleleDeviation(standardDeviationsPerPloidy(purity, normFactor), ploidy);
+    }
+
+    // depends only on the candidate purity and norm factor, so can be computed once per candidate
+    public double standardDeviationsPerPloidy(double purity, double normFactor)
+    {
+        return max(mMinStandardDeviationPerPloidyPoint, purity * normFactor / 2 / mStandardDeviation);
+    }
+
+    public double majorAlleleDeviation(double standardDeviationsPerPloidy, double ploidy)
     {
         final double majorAlleleDeviationMultiplier = Doubles.greaterThan(ploidy, 0) && Doubles.lessThan(ploidy, 1)
                 ? max(1, mMajorAlleleSubOnePenaltyMultiplier * (1 - ploidy)) : 1;
 
-        final double deviation = majorAlleleDeviationMultiplier * alleleDeviation(purity, normFactor, ploidy)
+        final double deviation = majorAlleleDeviationMultiplier * alleleDeviation(standardDeviationsPerPloidy, ploidy)
                 + subMinAdditionalPenalty(1, ploidy);
 
         return max(deviation, mMinDeviation);
     }
 
-    public double minorAlleleDeviation(double purity, double normFactor, double ploidy)
+    public double minorAlleleDeviation(double standardDeviationsPerPloidy, double ploidy)
     {
-        final double deviation = alleleDeviation(purity, normFactor, ploidy) + subMinAdditionalPenalty(0, ploidy);
+        final double deviation = alleleDeviation(standardDeviationsPerPloidy, ploidy) + subMinAdditionalPenalty(0, ploidy);
         return max(deviation, mMinDeviation);
     }
 
-    private double alleleDeviation(double purity, double normFactor, double ploidy)
+    private double alleleDeviation(double standardDeviationsPerPloidy, double ploidy)
     {
         final double ploidyDistanceFromInteger = Doubles.lessThan(ploidy, -0.5)
                 ? 0.5 : Doubles.absDistanceFromInteger(ploidy);
 
-        double standardDeviationsPerPloidy = max(mMinStandardDeviationPerPloidyPoint, purity * normFactor / 2 / mStandardDeviation);
         double deviationValue = ploidyDistanceFromInteger * standardDeviationsPerPloidy;
 
         return calcDeviationProbability(deviationValue, ploidy);
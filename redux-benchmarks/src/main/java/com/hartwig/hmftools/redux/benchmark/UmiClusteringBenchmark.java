@@ -0,0 +1,151 @@
+package com.hartwig.hmftools.redux.benchmark;
+
+import static com.hartwig.hmftools.common.test.SamRecordTestUtils.createSamRecord;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.hartwig.hmftools.redux.common.DuplicateGroup;
+import com.hartwig.hmftools.redux.common.Fragment;
+import com.hartwig.hmftools.redux.umi.UmiClusterer;
+import com.hartwig.hmftools.redux.umi.UmiGroupBuilder;
+import com.hartwig.hmftools.redux.umi.UmiUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UmiClusteringBenchmark
+{
+    // UMI collapsing at a single deep-panel position: molecules with distinct UMIs, each read a varying number of times, plus UMIs
+    // carrying a sequencing error which should collapse into their molecule's group
+    @Param({"1000", "10000"})
+    public int umiCount;
+
+    @Param({"EXHAUSTIVE", "INDEXED"})
+    public String engine;
+
+    private static final long SEED = 20240601L;
+    private static final int UMI_LENGTH = 12;
+    private static final int PERMITTED_BASE_DIFF = 1;
+    private static final double ERROR_UMI_FRACTION = 0.3;
+    private static final String READ_ID_PREFIX = "123:ABC:1:4455:";
+    private static final String READ_BASES = "A".repeat(100);
+    private static final char[] BASES = { 'A', 'C', 'G', 'T' };
+
+    private List<String> mUmis;
+    private List<List<Fragment>> mUmiFragments;
+    private List<DuplicateGroup> mOrderedGroups;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        Random random = new Random(SEED);
+
+        int moleculeCount = (int)(umiCount * (1 - ERROR_UMI_FRACTION));
+        List<String> moleculeUmis = Lists.newArrayListWithCapacity(moleculeCount);
+        Set<String> allUmis = Sets.newHashSet();
+
+        while(moleculeUmis.size() < moleculeCount)
+        {
+            String umi = randomUmi(random);
+
+            if(allUmis.add(umi))
+                moleculeUmis.add(umi);
+        }
+
+        mUmis = Lists.newArrayList(moleculeUmis);
+        List<Integer> umiCounts = Lists.newArrayList();
+        moleculeUmis.forEach(x -> umiCounts.add(1 + random.nextInt(8)));
+
+        while(mUmis.size() < umiCount)
+        {
+            char[] umi = moleculeUmis.get(random.nextInt(moleculeCount)).toCharArray();
+            umi[random.nextInt(UMI_LENGTH)] = BASES[random.nextInt(BASES.length)];
+            String errorUmi = new String(umi);
+
+            if(allUmis.add(errorUmi))
+            {
+                mUmis.add(errorUmi);
+                umiCounts.add(1);
+            }
+        }
+
+        mUmiFragments = Lists.newArrayListWithCapacity(umiCount);
+
+        for(int i = 0; i < mUmis.size(); ++i)
+        {
+            List<Fragment> fragments = Lists.newArrayList();
+
+            for(int f = 0; f < umiCounts.get(i); ++f)
+            {
+                fragments.add(new Fragment(createSamRecord(
+                        READ_ID_PREFIX + mUmis.get(i), "1", 100, READ_BASES, "100M", "1", 300,
+                        false, false, null)));
+            }
+
+            mUmiFragments.add(fragments);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void buildGroups()
+    {
+        // collapsing merges groups' fragments, so each invocation starts from fresh groups
+        mOrderedGroups = Lists.newArrayListWithCapacity(mUmis.size());
+
+        for(int i = 0; i < mUmis.size(); ++i)
+        {
+            List<Fragment> fragments = mUmiFragments.get(i);
+            DuplicateGroup group = new DuplicateGroup(mUmis.get(i), fragments.get(0));
+
+            for(int f = 1; f < fragments.size(); ++f)
+            {
+                group.fragments().add(fragments.get(f));
+            }
+
+            mOrderedGroups.add(group);
+        }
+
+        mOrderedGroups.sort(new UmiUtils.SizeComparator());
+    }
+
+    @Benchmark
+    public List<DuplicateGroup> collapseUmiGroups()
+    {
+        return engine.equals("INDEXED")
+                ? UmiClusterer.collapseGroups(mOrderedGroups, PERMITTED_BASE_DIFF)
+                : UmiGroupBuilder.collapseGroups(mOrderedGroups, PERMITTED_BASE_DIFF);
+    }
+
+    private static String randomUmi(final Random random)
+    {
+        char[] umi = new char[UMI_LENGTH];
+
+        for(int b = 0; b < UMI_LENGTH; ++b)
+        {
+            umi[b] = BASES[random.nextInt(BASES.length)];
+        }
+
+        return new String(umi);
+    }
+}
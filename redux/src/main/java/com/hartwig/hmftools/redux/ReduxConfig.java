@@ -1,5 +1,6 @@
 package com.hartwig.hmftools.redux;
 
+import static java.lang.Math.max;
 import static java.lang.String.format;
 
 import static com.hartwig.hmftools.common.bam.BamToolName.BAMTOOL_PATH;
@@ -34,6 +35,8 @@ import static com.hartwig.hmftools.redux.common.Constants.DEFAULT_DUPLEX_UMI_DEL
 import static com.hartwig.hmftools.redux.common.Constants.DEFAULT_PARTITION_SIZE;
 import static com.hartwig.hmftools.redux.common.Constants.DEFAULT_POS_BUFFER_SIZE;
 import static com.hartwig.hmftools.redux.common.Constants.DEFAULT_READ_LENGTH;
+import static com.hartwig.hmftools.redux.common.Constants.DEFAULT_SORT_MEMORY_HEAP_FRACTION;
+import static com.hartwig.hmftools.redux.common.Constants.MAX_SORT_MEMORY_HEAP_FRACTION;
 import static com.hartwig.hmftools.redux.common.Constants.UNMAP_MIN_HIGH_DEPTH;
 import static com.hartwig.hmftools.redux.write.ReadOutput.NONE;
 
@@ -93,6 +96,8 @@ public class ReduxConfig
     public final int Threads;
 
     public final String BamToolPath;
+    public final boolean InternalSort;
+    public final int SortMemoryMb;
 
     // debug
     public final boolean KeepInterimBams;
@@ -137,6 +142,8 @@ public class ReduxConfig
     private static final String LOG_FINAL_CACHE = "log_final_cache";
     private static final String SPECIFIC_REGION_FILTER_TYPE = "specific_region_filter";
     private static final String WRITE_READ_BASE_LENGTH = "write_read_base_length";
+    private static final String INTERNAL_SORT = "internal_sort";
+    private static final String SORT_MEMORY = "sort_memory";
 
     public ReduxConfig(final ConfigBuilder configBuilder)
     {
@@ -197,6 +204,8 @@ public class ReduxConfig
         mReadLength = configBuilder.getInteger(READ_LENGTH);
 
         BamToolPath = configBuilder.getValue(BAMTOOL_PATH);
+        InternalSort = configBuilder.hasFlag(INTERNAL_SORT);
+        SortMemoryMb = sortMemoryMb(configBuilder.getInteger(SORT_MEMORY));
 
         NoMateCigar = configBuilder.hasFlag(NO_MATE_CIGAR);
         UMIs = UmiConfig.from(configBuilder);
@@ -277,6 +286,24 @@ public class ReduxConfig
         return filename;
     }
 
+    private static int sortMemoryMb(int configMemoryMb)
+    {
+        // bound the sort's buffered reads by the heap, leaving room for the rest of the read processing
+        long maxHeapMb = Runtime.getRuntime().maxMemory() / (1024L * 1024L);
+        int maxMemoryMb = (int)max(maxHeapMb * MAX_SORT_MEMORY_HEAP_FRACTION, 1);
+
+        if(configMemoryMb <= 0)
+            return (int)max(maxHeapMb * DEFAULT_SORT_MEMORY_HEAP_FRACTION, 1);
+
+        if(configMemoryMb > maxMemoryMb)
+        {
+            RD_LOGGER.warn("sort memory({}MB) reduced to half the max heap({}MB)", configMemoryMb, maxHeapMb);
+            return maxMemoryMb;
+        }
+
+        return configMemoryMb;
+    }
+
     public static void registerConfig(final ConfigBuilder configBuilder)
     {
         configBuilder.addConfigItem(SAMPLE, true, SAMPLE_DESC);
@@ -297,6 +324,9 @@ public class ReduxConfig
         configBuilder.addFlag(KEEP_INTERIM_BAMS, "Do no delete per-thread BAMs");
 
         BamToolName.addConfig(configBuilder);
+        configBuilder.addFlag(INTERNAL_SORT, "Sort, merge and index the output BAM in-process, without an external BAM tool");
+        configBuilder.addInteger(
+                SORT_MEMORY, "Memory bound in MB for reads buffered by the in-process sort, default is a quarter of the max heap", 0);
 
         configBuilder.addFlag(FORM_CONSENSUS, "Form consensus reads from duplicate groups without UMIs");
         configBuilder.addFlag(NO_MATE_CIGAR, "Mate CIGAR not set by aligner, make no attempt to use it");
@@ -349,6 +379,8 @@ public class ReduxConfig
         SpecificRegionsFilterType = FilterReadsType.MATE_AND_SUPP;
 
         BamToolPath = null;
+        InternalSort = false;
+        SortMemoryMb = sortMemoryMb(0);
 
         UnmapRegions = new ReadUnmapper(Maps.newHashMap());
 
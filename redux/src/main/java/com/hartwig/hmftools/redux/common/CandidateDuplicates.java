@@ -2,7 +2,7 @@ package com.hartwig.hmftools.redux.common;
 
 import static java.lang.String.format;
 
-import static com.hartwig.hmftools.redux.common.FragmentCoordinates.formCoordinate;
+import static com.hartwig.hmftools.redux.common.CoordinateKey.packCoordinate;
 import static com.hartwig.hmftools.redux.common.FragmentStatus.DUPLICATE;
 import static com.hartwig.hmftools.redux.common.FragmentStatus.NONE;
 import static com.hartwig.hmftools.redux.common.FragmentUtils.calcFragmentStatus;
@@ -16,12 +16,12 @@ import htsjdk.samtools.SAMRecord;
 public class CandidateDuplicates
 {
     // incomplete fragments (ie missing a mate read) with a matching fragment coordinate, and so candidates for being duplicates
-    private final String mKey;
+    private final CoordinateKey mKey;
     private final List<Fragment> mFragments;
 
     private boolean mFinalised;
 
-    public CandidateDuplicates(final String key, final Fragment fragment)
+    public CandidateDuplicates(final CoordinateKey key, final Fragment fragment)
     {
         mKey = key;
         mFragments = Lists.newArrayList();
@@ -34,13 +34,15 @@ public class CandidateDuplicates
         final SAMRecord read = fragment.reads().get(0);
         boolean mateForwardStrand = !read.getMateNegativeStrandFlag();
 
-        String key = format("%d_%s",
-                fragment.initialPosition(), formCoordinate(read.getMateReferenceName(), read.getMateAlignmentStart(), mateForwardStrand));
+        // the initial position is strand-signed so is packed as is
+        CoordinateKey key = new CoordinateKey(
+                packCoordinate(read.getReferenceIndex(), fragment.initialPosition(), true),
+                packCoordinate(read.getMateReferenceIndex(), read.getMateAlignmentStart(), mateForwardStrand));
 
         return new CandidateDuplicates(key, fragment);
     }
 
-    public String key() { return mKey; }
+    public CoordinateKey key() { return mKey; }
 
     public List<Fragment> fragments() { return mFragments; }
     public int fragmentCount() { return mFragments.size(); }
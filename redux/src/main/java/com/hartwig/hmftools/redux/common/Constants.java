@@ -8,11 +8,24 @@ public class Constants
 
     public static final int DEFAULT_READ_LENGTH = 151;
 
+    // in-process BAM sorting
+    public static final double DEFAULT_SORT_MEMORY_HEAP_FRACTION = 0.25;
+    public static final double MAX_SORT_MEMORY_HEAP_FRACTION = 0.5;
+
+    // heap bytes per buffered read, measured for reads with decoded CIGARs and attributes: a fixed overhead, plus 2 per base for
+    // bases and quals, 1 per read name character, and per CIGAR element and attribute
+    public static final int SORT_READ_BASE_BYTES = 320;
+    public static final int SORT_READ_CIGAR_ELEMENT_BYTES = 30;
+    public static final int SORT_READ_ATTRIBUTE_BYTES = 40;
+
     // UMIs
     public static final int DEFAULT_MAX_UMI_BASE_DIFF = 1;
     public static final int MAX_IMBALANCED_UMI_BASE_DIFF = 4;
     public static final int MAX_IMBALANCED_UMI_COUNT = 25;
 
+    // UMI groups at a position above which neighbouring UMIs are found from an index rather than by comparing all pairs
+    public static final int UMI_INDEX_MIN_GROUPS = 32;
+
     public static final char DEFAULT_DUPLEX_UMI_DELIM = '_';
 
     public static final String CONSENSUS_PREFIX = "CNS_";
@@ -0,0 +1,90 @@
+package com.hartwig.hmftools.redux.common;
+
+import static java.lang.Math.abs;
+import static java.lang.String.format;
+
+import org.jetbrains.annotations.Nullable;
+
+import htsjdk.samtools.SAMFileHeader;
+
+public class CoordinateKey
+{
+    // fragment coordinates packed into primitives, so grouping and matching fragments neither builds nor hashes strings
+    public final long Lower; // packed coordinate of the lower read
+    public final long Upper; // packed coordinate of the upper read, the fragment length if unpaired, or none if not yet known
+
+    public static final long NO_COORD = -1;
+
+    // a packed coordinate has the chromosome index in the upper bits, then the 5' unclipped position and a reverse-strand bit
+    private static final int POSITION_SHIFT = 1;
+    private static final int CHROMOSOME_SHIFT = 33;
+    private static final long POSITION_MASK = 0xFFFFFFFFL;
+    private static final long REVERSE_FLAG = 1;
+
+    // fragment lengths are distinguished from coordinates by the sign bit
+    private static final long FRAGMENT_LENGTH_FLAG = Long.MIN_VALUE;
+
+    public CoordinateKey(long lower, long upper)
+    {
+        Lower = lower;
+        Upper = upper;
+    }
+
+    public static long packCoordinate(int chromosomeIndex, int position, boolean isForward)
+    {
+        // unmapped reads have a chromosome index of -1
+        return ((long)(chromosomeIndex + 1) << CHROMOSOME_SHIFT)
+                | (((long)position & POSITION_MASK) << POSITION_SHIFT)
+                | (isForward ? 0 : REVERSE_FLAG);
+    }
+
+    public static long packFragmentLength(int insertSize) { return FRAGMENT_LENGTH_FLAG | abs(insertSize); }
+
+    public static int chromosomeIndex(long packedCoord) { return (int)(packedCoord >>> CHROMOSOME_SHIFT) - 1; }
+    public static int position(long packedCoord) { return (int)((packedCoord >>> POSITION_SHIFT) & POSITION_MASK); }
+    public static boolean isForward(long packedCoord) { return (packedCoord & REVERSE_FLAG) == 0; }
+
+    @Override
+    public boolean equals(final Object other)
+    {
+        if(this == other)
+            return true;
+
+        if(!(other instanceof CoordinateKey))
+            return false;
+
+        CoordinateKey otherKey = (CoordinateKey)other;
+        return Lower == otherKey.Lower && Upper == otherKey.Upper;
+    }
+
+    @Override
+    public int hashCode() { return 31 * Long.hashCode(Lower) + Long.hashCode(Upper); }
+
+    public String toString(@Nullable final SAMFileHeader header)
+    {
+        // matches the original string form of the key, using chromosome names if a header is available
+        String lowerStr = coordinateStr(Lower, header);
+
+        if(Upper == NO_COORD)
+            return lowerStr;
+
+        if((Upper & FRAGMENT_LENGTH_FLAG) != 0)
+            return format("%s_%d", lowerStr, Upper & ~FRAGMENT_LENGTH_FLAG);
+
+        return format("%s_%s", lowerStr, coordinateStr(Upper, header));
+    }
+
+    public String toString() { return toString(null); }
+
+    private static String coordinateStr(long packedCoord, @Nullable final SAMFileHeader header)
+    {
+        int chromosomeIndex = chromosomeIndex(packedCoord);
+
+        String chromosome = header != null && chromosomeIndex >= 0 && chromosomeIndex < header.getSequenceDictionary().size()
+                ? header.getSequence(chromosomeIndex).getSequenceName() : String.valueOf(chromosomeIndex);
+
+        int position = position(packedCoord);
+
+        return isForward(packedCoord) ? format("%s_%d", chromosome, position) : format("%s_%d_R", chromosome, position);
+    }
+}
@@ -31,6 +31,7 @@ import com.hartwig.hmftools.common.bam.UmiReadType;
 import com.hartwig.hmftools.redux.consensus.ConsensusReadInfo;
 import com.hartwig.hmftools.redux.consensus.ConsensusReads;
 
+import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMRecord;
 
 public class DuplicateGroup
@@ -44,7 +45,8 @@ public class DuplicateGroup
     private final List<SAMRecord>[] mReadGroups;
     private final boolean[] mReadGroupComplete;
     private final ReadTypeId[] mPrimaryReadTypeIndex; // details for primary and mate reads
-    private final String mCoordinatesKey;
+    private final FragmentCoordinates mCoordinates;
+    private final SAMFileHeader mHeader;
 
     private SAMRecord mPrimaryTemplateRead; // read on which the primary consensus read is based
     private String mGroupReadId;
@@ -62,7 +64,8 @@ public class DuplicateGroup
         mReadGroupComplete = new boolean[MAX_READ_TYPES];
         mPrimaryReadTypeIndex = new ReadTypeId[PRIMARY_READ_TYPES];
         mFragmentCount = 0;
-        mCoordinatesKey = fragment.coordinates().keyOriented();
+        mCoordinates = fragment.coordinates();
+        mHeader = fragment.reads().get(0).getHeader();
         mPrimaryTemplateRead = null;
         mGroupReadId = null;
         mDualStrand = false;
@@ -72,7 +75,7 @@ public class DuplicateGroup
     public void addFragment(final Fragment fragment) { mFragments.add(fragment); }
     public int fragmentCount() { return mFragmentCount > 0 ? mFragmentCount : mFragments.size(); }
 
-    public String coordinatesKey() { return mCoordinatesKey; }
+    public String coordinatesKey() { return mCoordinates.keyOriented(mHeader); }
     public FragmentCoordinates fragmentCoordinates() { return !mFragments.isEmpty() ? mFragments.get(0).coordinates() : null; }
 
     public String umiId() { return mUmiId; }
@@ -447,7 +450,7 @@ public class DuplicateGroup
     public String toString()
     {
         if(mFragmentCount == 0)
-            return format("id(%s) fragments(%d) coords(%s)", mUmiId, mFragments.size(), mCoordinatesKey);
+            return format("id(%s) fragments(%d) coords(%s)", mUmiId, mFragments.size(), coordinatesKey());
 
         StringJoiner sj = new StringJoiner(", ");
         for(ReadType readType : ReadType.values())
@@ -464,6 +467,6 @@ public class DuplicateGroup
             sj.add(format("%s=%d %s", readType, readGroup.size(), state));
         }
 
-        return format("id(%s) fragments(%d) coords(%s) readCounts(%s)", mUmiId, mFragmentCount, mCoordinatesKey, sj);
+        return format("id(%s) fragments(%d) coords(%s) readCounts(%s)", mUmiId, mFragmentCount, coordinatesKey(), sj);
     }
 }
@@ -35,7 +35,7 @@ public class Fragment
 
     // duplicate read info
     private double mAverageBaseQual;
-    private String mCandidateDupKey;
+    private CoordinateKey mCandidateDupKey;
     private String mUmi;
 
     public Fragment(final SAMRecord read)
@@ -120,8 +120,8 @@ public class Fragment
     public double averageBaseQual() { return mAverageBaseQual; }
     public void setAverageBaseQual(double qual) { mAverageBaseQual = qual; }
 
-    public String candidateDupKey() { return mCandidateDupKey; }
-    public void setCandidateDupKey(final String key) { mCandidateDupKey = key; }
+    public CoordinateKey candidateDupKey() { return mCandidateDupKey; }
+    public void setCandidateDupKey(final CoordinateKey key) { mCandidateDupKey = key; }
 
     public String umi() { return mUmi; }
     public void setUmi(final String umi) { mUmi = umi; }
@@ -253,7 +253,7 @@ public class Fragment
     public String toString()
     {
         return String.format("id(%s) reads(%d) status(%s) coords(%s) present(%s)", //  mate(%s:%d)
-                id(), mReads.size(), mStatus, mCoordinates.keyOriented(),
+                id(), mReads.size(), mStatus, mCoordinates.keyOriented(mReads.get(0).getHeader()),
                 mAllReadsPresent ? "all" : (mAllPrimaryReadsPresent ? "primary" : "incomplete"));
     }
 }
@@ -1,25 +1,30 @@
 package com.hartwig.hmftools.redux.common;
 
-import static java.lang.Math.abs;
 import static java.lang.String.format;
 
+import static com.hartwig.hmftools.redux.common.CoordinateKey.NO_COORD;
+
+import org.jetbrains.annotations.Nullable;
+
+import htsjdk.samtools.SAMFileHeader;
+
 public class FragmentCoordinates
 {
-    public final String Key;
+    public final CoordinateKey Key;
     public final int InitialPosition; // negative/reverse strand positions are negated
     public final boolean IsForward; // forward = F1R2, reverse is F2R1 - relates to collapsing and dual-strand classification
     public final boolean Incomplete;
 
-    public static final FragmentCoordinates NO_COORDS = new FragmentCoordinates("", 0, true, true);
+    public static final FragmentCoordinates NO_COORDS = new FragmentCoordinates(new CoordinateKey(NO_COORD, NO_COORD), 0, true, true);
 
     public static final char FRAGMENT_REVERSED_ID = 'N';
 
-    public FragmentCoordinates(final String key, final int initialPosition, boolean isForward)
+    public FragmentCoordinates(final CoordinateKey key, final int initialPosition, boolean isForward)
     {
         this(key, initialPosition, isForward, false);
     }
 
-    public FragmentCoordinates(final String key, int initialPosition, boolean isForward, boolean incomplete)
+    public FragmentCoordinates(final CoordinateKey key, int initialPosition, boolean isForward, boolean incomplete)
     {
         Key = key;
         InitialPosition = initialPosition;
@@ -27,30 +32,20 @@ public class FragmentCoordinates
         Incomplete = incomplete;
     }
 
-    public String keyOriented() { return IsForward ? Key : format("%s_%c", Key, FRAGMENT_REVERSED_ID); }
+    public String keyString(@Nullable final SAMFileHeader header) { return Key.toString(header); }
 
-    public String toString()
+    public String keyOriented(@Nullable final SAMFileHeader header)
     {
-        return Incomplete ? format("%s incomplete", keyOriented()) : keyOriented();
+        return IsForward ? Key.toString(header) : format("%s_%c", Key.toString(header), FRAGMENT_REVERSED_ID);
     }
 
-    public boolean matches(final FragmentCoordinates other, boolean requireOrientation)
-    {
-        return Key.equals(other.Key) && (!requireOrientation || IsForward == other.IsForward);
-    }
-
-    public static String formCoordinate(final String chromosome, final int position, final boolean isForward)
-    {
-        return isForward ? format("%s_%d", chromosome, position) : format("%s_%d_R", chromosome, position);
-    }
-
-    public static String formKey(final String firstCoord, final String secondCoord)
+    public String toString()
     {
-        return format("%s_%s", firstCoord, secondCoord);
+        return Incomplete ? format("%s incomplete", keyOriented(null)) : keyOriented(null);
     }
 
-    public static String formKey(final String readCoord, final int insertSize)
+    public boolean matches(final FragmentCoordinates other, boolean requireOrientation)
     {
-        return format("%s_%d", readCoord, abs(insertSize));
+        return Key.equals(other.Key) && (!requireOrientation || IsForward == other.IsForward);
     }
 }
@@ -5,8 +5,9 @@ import static java.lang.String.format;
 
 import static com.hartwig.hmftools.common.region.BaseRegion.positionsOverlap;
 import static com.hartwig.hmftools.common.bam.SamRecordUtils.getFivePrimeUnclippedPosition;
-import static com.hartwig.hmftools.redux.common.FragmentCoordinates.formCoordinate;
-import static com.hartwig.hmftools.redux.common.FragmentCoordinates.formKey;
+import static com.hartwig.hmftools.redux.common.CoordinateKey.NO_COORD;
+import static com.hartwig.hmftools.redux.common.CoordinateKey.packCoordinate;
+import static com.hartwig.hmftools.redux.common.CoordinateKey.packFragmentLength;
 import static com.hartwig.hmftools.redux.common.FragmentStatus.DUPLICATE;
 import static com.hartwig.hmftools.redux.common.FragmentStatus.NONE;
 import static com.hartwig.hmftools.redux.common.FragmentStatus.CANDIDATE;
@@ -56,12 +57,13 @@ public class FragmentUtils
                 getFivePrimeUnclippedPosition(firstRead.getAlignmentStart(), firstRead.getCigarString(), readForwardStrand);
 
         int readStrandPosition = readForwardStrand ? readCoordinate : -readCoordinate;
-        String readCoordStr = formCoordinate(firstRead.getReferenceName(), readCoordinate, readForwardStrand);
+        long readCoord = packCoordinate(firstRead.getReferenceIndex(), readCoordinate, readForwardStrand);
 
         if(!firstRead.getReadPairedFlag() || firstRead.getReadUnmappedFlag() || firstRead.getMateUnmappedFlag())
         {
             // include the fragment length
-            return new FragmentCoordinates(formKey(readCoordStr, firstRead.getInferredInsertSize()), readStrandPosition, true);
+            CoordinateKey key = new CoordinateKey(readCoord, packFragmentLength(firstRead.getInferredInsertSize()));
+            return new FragmentCoordinates(key, readStrandPosition, true);
         }
 
         if(mateRead == null)
@@ -69,7 +71,8 @@ public class FragmentUtils
             if(!useMateCigar || !firstRead.hasAttribute(MATE_CIGAR_ATTRIBUTE))
             {
                 // the fragment orientation will  be accurately set once both reads are collated
-                return new FragmentCoordinates(readCoordStr, readStrandPosition, firstRead.getFirstOfPairFlag(), true);
+                return new FragmentCoordinates(
+                        new CoordinateKey(readCoord, NO_COORD), readStrandPosition, firstRead.getFirstOfPairFlag(), true);
             }
         }
 
@@ -91,7 +94,7 @@ public class FragmentUtils
         }
 
         int mateStrandPosition = mateForwardStrand ? mateCoordinate : -mateCoordinate;
-        String mateCoordStr = formCoordinate(firstRead.getMateReferenceName(), mateCoordinate, mateForwardStrand);
+        long mateCoord = packCoordinate(firstRead.getMateReferenceIndex(), mateCoordinate, mateForwardStrand);
 
         boolean readLowerPos;
         if(firstRead.getReferenceIndex() == firstRead.getMateReferenceIndex())
@@ -106,8 +109,8 @@ public class FragmentUtils
         boolean lowerReadFirst = readLowerPos ? firstRead.getFirstOfPairFlag() : !firstRead.getFirstOfPairFlag();
 
         return readLowerPos ?
-                new FragmentCoordinates(formKey(readCoordStr, mateCoordStr), readStrandPosition, lowerReadFirst)
-                : new FragmentCoordinates(formKey(mateCoordStr, readCoordStr), mateStrandPosition, lowerReadFirst);
+                new FragmentCoordinates(new CoordinateKey(readCoord, mateCoord), readStrandPosition, lowerReadFirst)
+                : new FragmentCoordinates(new CoordinateKey(mateCoord, readCoord), mateStrandPosition, lowerReadFirst);
     }
 
     public static FragmentStatus calcFragmentStatus(final Fragment first, final Fragment second, boolean requireOrientationMatch)
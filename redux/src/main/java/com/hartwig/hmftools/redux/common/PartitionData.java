@@ -43,7 +43,7 @@ public class PartitionData
     private final Map<String,Fragment> mIncompleteFragments;
 
     // positions with candidate duplicate fragments, keyed by a unique position-based key for the group
-    private final Map<String,CandidateDuplicates> mCandidateDuplicatesMap;
+    private final Map<CoordinateKey,CandidateDuplicates> mCandidateDuplicatesMap;
 
     private final DuplicateGroupBuilder mDuplicateGroupBuilder;
 
@@ -568,7 +568,7 @@ public class PartitionData
     public Map<String,Fragment> incompleteFragmentMap() { return mIncompleteFragments; }
 
     @VisibleForTesting
-    public Map<String,CandidateDuplicates> candidateDuplicatesMap() { return mCandidateDuplicatesMap; }
+    public Map<CoordinateKey,CandidateDuplicates> candidateDuplicatesMap() { return mCandidateDuplicatesMap; }
 
     @VisibleForTesting
     public Map<String,ResolvedFragmentState> resolvedFragmentStateMap() { return mFragmentStatus; }
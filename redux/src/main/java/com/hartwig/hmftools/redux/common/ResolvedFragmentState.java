@@ -9,14 +9,14 @@ import htsjdk.samtools.SAMRecord;
 public class ResolvedFragmentState
 {
     public final FragmentStatus Status;
-    public final String Coordinates;
+    public final FragmentCoordinates Coordinates;
 
     public boolean MateReceived;
     public int ExpectedSupplementaries;
     public int ProcessedSupplementaries;
 
     public ResolvedFragmentState(
-            final FragmentStatus status, final String coordinates,
+            final FragmentStatus status, final FragmentCoordinates coordinates,
             final int expectedSupplementaries, final int processedSupplementaries, final boolean mateReceived)
     {
         Status = status;
@@ -52,7 +52,7 @@ public class ResolvedFragmentState
         }
 
         return new ResolvedFragmentState(
-                fragment.status(), fragment.coordinates().Key,
+                fragment.status(), fragment.coordinates(),
                 expectedSuppCount, processedSuppCount, nonSuppCount > 1 || fragment.unpaired());
     }
 
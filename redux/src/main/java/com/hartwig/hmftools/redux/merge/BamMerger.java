@@ -10,20 +10,31 @@ import static com.hartwig.hmftools.common.utils.file.FileDelimiters.BAM_EXTENSIO
 import static com.hartwig.hmftools.common.utils.file.FileDelimiters.BAM_INDEX_EXTENSION;
 import static com.hartwig.hmftools.redux.ReduxConfig.RD_LOGGER;
 
+import java.io.File;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.bam.BamOperations;
 import com.hartwig.hmftools.common.bam.BamToolName;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource;
 
+import htsjdk.samtools.BAMIndex;
+import htsjdk.samtools.BAMIndexer;
+import htsjdk.samtools.BamFileIoUtils;
 import htsjdk.samtools.QueryInterval;
 import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.SamFiles;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.util.IOUtil;
 
 public class BamMerger
 {
@@ -151,16 +162,11 @@ public class BamMerger
 
     private void buildIndexFiles()
     {
-        if(mBamToolPath == null)
-            return;
-
         List<String> bamMissingIndexFiles = Lists.newArrayList();
 
         for(String inputBam : mInputBams)
         {
-            String indexFile = inputBam + BAM_INDEX_EXTENSION;
-
-            if(!Files.exists(Paths.get(indexFile)))
+            if(SamFiles.findIndex(new File(inputBam)) == null)
                 bamMissingIndexFiles.add(inputBam);
         }
 
@@ -169,6 +175,17 @@ public class BamMerger
 
         RD_LOGGER.debug("building index files for {} files", bamMissingIndexFiles.size());
 
+        if(mBamToolPath == null)
+        {
+            for(String inputBam : bamMissingIndexFiles)
+            {
+                if(!indexBam(inputBam))
+                    System.exit(1);
+            }
+
+            return;
+        }
+
         BamToolName bamToolName = BamToolName.fromPath(mBamToolPath);
 
         for(String inputBam : bamMissingIndexFiles)
@@ -201,11 +218,18 @@ public class BamMerger
         String unmappedBam = formBamFilename(mOutputBamPrefix, UNMAPPED_READS);
         interimBams.add(unmappedBam);
 
-        BamToolName bamToolName = BamToolName.fromPath(mBamToolPath);
-        BamOperations.concatenateBams(bamToolName, mBamToolPath, finalBam, interimBams, mThreads);
+        if(mBamToolPath != null)
+        {
+            BamToolName bamToolName = BamToolName.fromPath(mBamToolPath);
+            BamOperations.concatenateBams(bamToolName, mBamToolPath, finalBam, interimBams, mThreads);
 
-        if(!BamOperations.indexBam(bamToolName, mBamToolPath, finalBam, mThreads))
+            if(!BamOperations.indexBam(bamToolName, mBamToolPath, finalBam, mThreads))
+                System.exit(1);
+        }
+        else if(!concatenateBams(finalBam, interimBams))
+        {
             System.exit(1);
+        }
 
         if(!mKeepInterimBams)
         {
@@ -221,4 +245,47 @@ public class BamMerger
             }
         }
     }
+
+    private static boolean indexBam(final String bamFile)
+    {
+        try(SamReader samReader = SamReaderFactory.makeDefault().enable(SamReaderFactory.Option.INCLUDE_SOURCE_IN_RECORDS)
+                .open(new File(bamFile)))
+        {
+            BAMIndexer.createIndex(samReader, new File(bamFile + BAM_INDEX_EXTENSION));
+            return true;
+        }
+        catch(Exception e)
+        {
+            RD_LOGGER.error("failed to index BAM({}): {}", bamFile, e.toString());
+            return false;
+        }
+    }
+
+    private static boolean concatenateBams(final String finalBam, final List<String> interimBams)
+    {
+        // without a BAM tool, copy the interim BAMs' compressed blocks in order and build the index as the blocks are written
+        RD_LOGGER.debug("concatenating {} bams", interimBams.size());
+
+        File finalBamFile = new File(finalBam);
+        List<File> interimBamFiles = interimBams.stream().map(File::new).collect(Collectors.toList());
+
+        try
+        {
+            BamFileIoUtils.gatherWithBlockCopying(interimBamFiles, finalBamFile, true, false);
+
+            // the index is written without the BAM extension, so rename it to match the other index files
+            Path indexFile = Paths.get(IOUtil.basename(finalBamFile) + BAMIndex.BAI_INDEX_SUFFIX);
+
+            if(finalBamFile.getParent() != null)
+                indexFile = Paths.get(finalBamFile.getParent(), indexFile.toString());
+
+            Files.move(indexFile, Paths.get(finalBam + BAM_INDEX_EXTENSION), StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        }
+        catch(Exception e)
+        {
+            RD_LOGGER.error("failed to concatenate BAMs into {}: {}", finalBam, e.toString());
+            return false;
+        }
+    }
 }
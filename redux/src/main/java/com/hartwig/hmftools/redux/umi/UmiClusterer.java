@@ -0,0 +1,195 @@
+package com.hartwig.hmftools.redux.umi;
+
+import static com.hartwig.hmftools.redux.common.Constants.MAX_IMBALANCED_UMI_BASE_DIFF;
+import static com.hartwig.hmftools.redux.common.Constants.MAX_IMBALANCED_UMI_COUNT;
+import static com.hartwig.hmftools.redux.umi.UmiUtils.exceedsUmiIdDiff;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.redux.common.DuplicateGroup;
+
+public final class UmiClusterer
+{
+    // applies the same collapsing rules as the exhaustive comparisons in UmiGroupBuilder, with the same resulting groups and fragment
+    // order, but finds each group's neighbours from a UMI index rather than comparing against every other group
+
+    public static List<DuplicateGroup> collapseGroups(final List<DuplicateGroup> orderedGroups, int permittedDiff)
+    {
+        List<DuplicateGroup> groups = collapseDirectional(orderedGroups, permittedDiff);
+
+        // allow collapsing of UMIs with 2-base differences
+        if(groups.size() > 1)
+            groups = collapseWithinDiff(groups, permittedDiff + 1, false);
+
+        // allow collapsing of UMIs with 4-base differences where significant imbalance exists
+        boolean hasLargeGroups = groups.stream().anyMatch(x -> x.fragmentCount() >= MAX_IMBALANCED_UMI_COUNT);
+
+        if(groups.size() > 1 && hasLargeGroups)
+            groups = collapseWithinDiff(groups, MAX_IMBALANCED_UMI_BASE_DIFF, true);
+
+        return groups;
+    }
+
+    private static List<DuplicateGroup> collapseDirectional(final List<DuplicateGroup> orderedGroups, int permittedDiff)
+    {
+        // groups, ordered by descending fragment count, each form a cluster from all remaining groups reachable through a chain of
+        // groups within the permitted difference and no larger than the group they are reached from, added lowest index first
+        int groupCount = orderedGroups.size();
+        String[] umis = new String[groupCount];
+        int[] fragmentCounts = new int[groupCount];
+
+        for(int i = 0; i < groupCount; ++i)
+        {
+            umis[i] = orderedGroups.get(i).umiId();
+            fragmentCounts[i] = orderedGroups.get(i).fragmentCount();
+        }
+
+        UmiIndex umiIndex = new UmiIndex(umis, permittedDiff);
+
+        boolean[] assigned = new boolean[groupCount];
+        PriorityQueue<Integer> clusterCandidates = new PriorityQueue<>();
+        List<DuplicateGroup> clusters = Lists.newArrayList();
+
+        for(int i = 0; i < groupCount; ++i)
+        {
+            if(assigned[i])
+                continue;
+
+            assigned[i] = true;
+
+            DuplicateGroup first = orderedGroups.get(i);
+            clusters.add(first);
+
+            addClusterCandidates(i, umis, fragmentCounts, assigned, umiIndex, permittedDiff, clusterCandidates);
+
+            while(!clusterCandidates.isEmpty())
+            {
+                int next = clusterCandidates.poll();
+
+                if(assigned[next])
+                    continue;
+
+                assigned[next] = true;
+                first.fragments().addAll(orderedGroups.get(next).fragments());
+
+                addClusterCandidates(next, umis, fragmentCounts, assigned, umiIndex, permittedDiff, clusterCandidates);
+            }
+        }
+
+        return clusters;
+    }
+
+    private static void addClusterCandidates(
+            int index, final String[] umis, final int[] fragmentCounts, final boolean[] assigned, final UmiIndex umiIndex,
+            int permittedDiff, final PriorityQueue<Integer> clusterCandidates)
+    {
+        for(int candidate : umiIndex.candidates(umis[index]))
+        {
+            if(assigned[candidate] || fragmentCounts[candidate] > fragmentCounts[index])
+                continue;
+
+            if(!exceedsUmiIdDiff(umis[index], umis[candidate], permittedDiff))
+                clusterCandidates.add(candidate);
+        }
+    }
+
+    private static List<DuplicateGroup> collapseWithinDiff(final List<DuplicateGroup> orderedGroups, int permittedDiff, boolean requireImbalance)
+    {
+        // each remaining group in turn absorbs all later groups within the permitted difference of it
+        int groupCount = orderedGroups.size();
+        String[] umis = new String[groupCount];
+
+        for(int i = 0; i < groupCount; ++i)
+        {
+            umis[i] = orderedGroups.get(i).umiId();
+        }
+
+        UmiIndex umiIndex = new UmiIndex(umis, permittedDiff);
+
+        boolean[] merged = new boolean[groupCount];
+        List<DuplicateGroup> groups = Lists.newArrayList();
+
+        // a group's count only changes once it has absorbed another, and a group below the imbalance count can only first absorb a
+        // group at least that large, so these are checked first rather than every candidate from the index
+        List<Integer> largeGroups = Lists.newArrayList();
+
+        if(requireImbalance)
+        {
+            for(int i = 0; i < groupCount; ++i)
+            {
+                if(orderedGroups.get(i).fragmentCount() >= MAX_IMBALANCED_UMI_COUNT)
+                    largeGroups.add(i);
+            }
+        }
+
+        for(int i = 0; i < groupCount; ++i)
+        {
+            if(merged[i])
+                continue;
+
+            DuplicateGroup first = orderedGroups.get(i);
+            groups.add(first);
+
+            // candidates are merged in the order of the groups, as the exhaustive comparisons do, since the imbalance test uses the
+            // group's count so far
+            if(requireImbalance && first.fragmentCount() < MAX_IMBALANCED_UMI_COUNT
+            && !hasImbalancedMatch(orderedGroups, umis, i, largeGroups, merged, permittedDiff))
+            {
+                continue;
+            }
+
+            List<Integer> matches = Lists.newArrayList();
+
+            for(int candidate : umiIndex.candidates(umis[i]))
+            {
+                if(candidate > i && !merged[candidate] && !exceedsUmiIdDiff(umis[i], umis[candidate], permittedDiff))
+                    matches.add(candidate);
+            }
+
+            Collections.sort(matches);
+
+            for(int match : matches)
+            {
+                DuplicateGroup second = orderedGroups.get(match);
+
+                if(requireImbalance && !isImbalanced(first.fragmentCount(), second.fragmentCount()))
+                    continue;
+
+                first.fragments().addAll(second.fragments());
+                merged[match] = true;
+            }
+        }
+
+        return groups;
+    }
+
+    private static boolean hasImbalancedMatch(
+            final List<DuplicateGroup> orderedGroups, final String[] umis, int index, final List<Integer> largeGroups,
+            final boolean[] merged, int permittedDiff)
+    {
+        int fragmentCount = orderedGroups.get(index).fragmentCount();
+
+        for(int largeIndex : largeGroups)
+        {
+            if(largeIndex <= index || merged[largeIndex])
+                continue;
+
+            if(isImbalanced(fragmentCount, orderedGroups.get(largeIndex).fragmentCount())
+            && !exceedsUmiIdDiff(umis[index], umis[largeIndex], permittedDiff))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isImbalanced(int firstCount, int secondCount)
+    {
+        double maxCountRatio = firstCount >= secondCount ? firstCount / (double)secondCount : secondCount / (double)firstCount;
+        return maxCountRatio >= MAX_IMBALANCED_UMI_COUNT;
+    }
+}
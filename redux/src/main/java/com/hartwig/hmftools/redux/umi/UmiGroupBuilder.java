@@ -4,6 +4,7 @@ import static java.lang.Math.max;
 
 import static com.hartwig.hmftools.redux.common.Constants.MAX_IMBALANCED_UMI_BASE_DIFF;
 import static com.hartwig.hmftools.redux.common.Constants.MAX_IMBALANCED_UMI_COUNT;
+import static com.hartwig.hmftools.redux.common.Constants.UMI_INDEX_MIN_GROUPS;
 import static com.hartwig.hmftools.redux.common.FragmentStatus.NONE;
 import static com.hartwig.hmftools.redux.umi.UmiUtils.exceedsUmiIdDiff;
 
@@ -15,6 +16,7 @@ import java.util.stream.Collectors;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.hartwig.hmftools.redux.common.CoordinateKey;
 import com.hartwig.hmftools.redux.common.DuplicateGroup;
 import com.hartwig.hmftools.redux.common.Fragment;
 import com.hartwig.hmftools.redux.common.FragmentStatus;
@@ -75,6 +77,15 @@ public class UmiGroupBuilder
         List<DuplicateGroup> orderedGroups = groups.values().stream().sorted(new UmiUtils.SizeComparator()).collect(Collectors.toList());
 
         // then apply the directional model, where smaller groups are merged into larger ones
+        if(orderedGroups.size() >= UMI_INDEX_MIN_GROUPS)
+            return UmiClusterer.collapseGroups(orderedGroups, config.PermittedBaseDiff);
+
+        return collapseGroups(orderedGroups, config.PermittedBaseDiff);
+    }
+
+    @VisibleForTesting
+    public static List<DuplicateGroup> collapseGroups(final List<DuplicateGroup> orderedGroups, int permittedDiff)
+    {
         int i = 0;
         while(i < orderedGroups.size() - 1)
         {
@@ -91,7 +102,7 @@ public class UmiGroupBuilder
 
                 for(DuplicateGroup existing : cluster)
                 {
-                    if(existing.fragmentCount() >= second.fragmentCount() && !exceedsUmiIdDiff(existing.umiId(), second.umiId(), config.PermittedBaseDiff))
+                    if(existing.fragmentCount() >= second.fragmentCount() && !exceedsUmiIdDiff(existing.umiId(), second.umiId(), permittedDiff))
                     {
                         merged = true;
                         break;
@@ -133,7 +144,7 @@ public class UmiGroupBuilder
                 {
                     DuplicateGroup second = orderedGroups.get(j);
 
-                    if(!exceedsUmiIdDiff(first.umiId(), second.umiId(), config.PermittedBaseDiff + 1))
+                    if(!exceedsUmiIdDiff(first.umiId(), second.umiId(), permittedDiff + 1))
                     {
                         first.fragments().addAll(second.fragments());
                         orderedGroups.remove(j);
@@ -186,13 +197,13 @@ public class UmiGroupBuilder
 
     private class CoordinateGroup
     {
-        public final String CoordKey;
+        public final CoordinateKey CoordKey;
 
         // store any mix of duplicate groups or single fragments
         public List<Object> ForwardGroups;
         public List<Object> ReverseGroups;
 
-        public CoordinateGroup(final String coordKey)
+        public CoordinateGroup(final CoordinateKey coordKey)
         {
             CoordKey = coordKey;
             ForwardGroups = null;
@@ -366,7 +377,7 @@ public class UmiGroupBuilder
         return finalUmiGroups;
     }
 
-    private CoordinateGroup getOrCreateCoordGroup(final List<CoordinateGroup> coordinateGroups, final String coordKey)
+    private CoordinateGroup getOrCreateCoordGroup(final List<CoordinateGroup> coordinateGroups, final CoordinateKey coordKey)
     {
         for(CoordinateGroup coordinateGroup : coordinateGroups)
         {
@@ -404,6 +415,12 @@ public class UmiGroupBuilder
             return;
         }
 
+        if(mUmiConfig.Duplex && coordGroup.ReverseGroups.size() >= UMI_INDEX_MIN_GROUPS)
+        {
+            collapseDuplexIndexed(allUmiGroups, coordGroup);
+            return;
+        }
+
         for(Object first : coordGroup.ForwardGroups)
         {
             DuplicateGroup firstGroup = null;
@@ -487,6 +504,83 @@ public class UmiGroupBuilder
         }
     }
 
+    private void collapseDuplexIndexed(final List<DuplicateGroup> allUmiGroups, final CoordinateGroup coordGroup)
+    {
+        // as above, each forward fragment or group collapses with the first matching reverse one, but with reverse candidates found
+        // from an index of their second UMI part, which must match the forward first part
+        List<Object> reverseGroups = coordGroup.ReverseGroups;
+        String[] reverseUmis = new String[reverseGroups.size()];
+        String[] reverseSecondParts = new String[reverseGroups.size()];
+
+        for(int i = 0; i < reverseGroups.size(); ++i)
+        {
+            reverseUmis[i] = umiId(reverseGroups.get(i));
+            reverseSecondParts[i] = splitUmi(reverseUmis[i], mUmiConfig.DuplexDelim)[1];
+        }
+
+        UmiIndex umiIndex = new UmiIndex(reverseSecondParts, mUmiConfig.PermittedBaseDiff);
+        boolean[] collapsed = new boolean[reverseGroups.size()];
+
+        for(Object first : coordGroup.ForwardGroups)
+        {
+            String firstUmi = umiId(first);
+            DuplicateGroup firstGroup = first instanceof DuplicateGroup ? (DuplicateGroup)first : null;
+
+            int matchIndex = -1;
+
+            for(int candidate : umiIndex.candidates(splitUmi(firstUmi, mUmiConfig.DuplexDelim)[0]))
+            {
+                if(collapsed[candidate] || (matchIndex >= 0 && candidate > matchIndex))
+                    continue;
+
+                if(hasDuplexUmiMatch(firstUmi, reverseUmis[candidate], mUmiConfig.DuplexDelim, mUmiConfig.PermittedBaseDiff))
+                    matchIndex = candidate;
+            }
+
+            if(matchIndex >= 0)
+            {
+                collapsed[matchIndex] = true;
+
+                if(firstGroup == null)
+                    firstGroup = new DuplicateGroup(firstUmi, (Fragment)first);
+
+                Object second = reverseGroups.get(matchIndex);
+
+                if(second instanceof DuplicateGroup)
+                    ((DuplicateGroup)second).fragments().forEach(firstGroup::addFragment);
+                else
+                    firstGroup.addFragment((Fragment)second);
+
+                firstGroup.registerDualStrand();
+            }
+
+            if(firstGroup != null)
+                allUmiGroups.add(firstGroup);
+        }
+
+        List<Object> remainingReverseGroups = Lists.newArrayListWithCapacity(reverseGroups.size());
+
+        for(int i = 0; i < reverseGroups.size(); ++i)
+        {
+            if(collapsed[i])
+                continue;
+
+            Object fragGroup = reverseGroups.get(i);
+            remainingReverseGroups.add(fragGroup);
+
+            if(fragGroup instanceof DuplicateGroup)
+                allUmiGroups.add((DuplicateGroup)fragGroup);
+        }
+
+        coordGroup.ReverseGroups = remainingReverseGroups;
+    }
+
+    private String umiId(final Object fragGroup)
+    {
+        return fragGroup instanceof DuplicateGroup ?
+                ((DuplicateGroup)fragGroup).umiId() : mUmiConfig.extractUmiId(((Fragment)fragGroup).id());
+    }
+
     @VisibleForTesting
     public static boolean hasDuplexUmiMatch(final String first, final String second, final String duplexDelim, int permittedDiff)
     {
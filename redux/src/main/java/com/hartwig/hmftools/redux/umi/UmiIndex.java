@@ -0,0 +1,106 @@
+package com.hartwig.hmftools.redux.umi;
+
+import java.util.Arrays;
+
+public class UmiIndex
+{
+    // a pigeonhole index over UMIs: two UMIs of the same length which differ by at most N bases must match exactly on at least one
+    // of N + 1 segments, so only UMIs sharing a segment need to be compared
+    private final int mSegments;
+    private final long[][] mSegmentEntries; // per segment, the segment hash in the upper bits and the UMI index in the lower bits
+
+    // marks UMIs already returned by the current query
+    private final int[] mQueryIds;
+    private int mQueryId;
+
+    public UmiIndex(final String[] umis, int permittedDiff)
+    {
+        mSegments = permittedDiff + 1;
+        mSegmentEntries = new long[mSegments][umis.length];
+
+        for(int s = 0; s < mSegments; ++s)
+        {
+            long[] entries = mSegmentEntries[s];
+
+            for(int i = 0; i < umis.length; ++i)
+            {
+                entries[i] = ((long)segmentHash(umis[i], s) << 32) | i;
+            }
+
+            Arrays.sort(entries);
+        }
+
+        mQueryIds = new int[umis.length];
+        mQueryId = 0;
+    }
+
+    public int[] candidates(final String umi)
+    {
+        // returns the indices, in no particular order, of all UMIs which share a segment with this UMI, so including any within the
+        // permitted difference, and hash collisions are harmless since callers test each candidate's difference
+        ++mQueryId;
+
+        int[] candidates = new int[16];
+        int candidateCount = 0;
+
+        for(int s = 0; s < mSegments; ++s)
+        {
+            long[] entries = mSegmentEntries[s];
+            int hash = segmentHash(umi, s);
+
+            for(int e = firstEntry(entries, hash); e < entries.length && (int)(entries[e] >> 32) == hash; ++e)
+            {
+                int index = (int)entries[e];
+
+                if(mQueryIds[index] == mQueryId)
+                    continue;
+
+                mQueryIds[index] = mQueryId;
+
+                if(candidateCount == candidates.length)
+                    candidates = Arrays.copyOf(candidates, candidateCount * 2);
+
+                candidates[candidateCount++] = index;
+            }
+        }
+
+        return Arrays.copyOf(candidates, candidateCount);
+    }
+
+    private static int firstEntry(final long[] entries, int hash)
+    {
+        long key = (long)hash << 32;
+
+        int low = 0;
+        int high = entries.length;
+
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if(entries[mid] < key)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low;
+    }
+
+    private int segmentHash(final String umi, int segment)
+    {
+        // segment boundaries depend only on the UMI length, and UMIs of different lengths never match
+        int length = umi.length();
+        int segmentStart = segment * length / mSegments;
+        int segmentEnd = (segment + 1) * length / mSegments;
+
+        int hash = 31 * length + segment;
+
+        for(int i = segmentStart; i < segmentEnd; ++i)
+        {
+            hash = 31 * hash + umi.charAt(i);
+        }
+
+        return hash;
+    }
+}
@@ -0,0 +1,191 @@
+package com.hartwig.hmftools.redux.write;
+
+import static java.lang.Math.max;
+
+import static com.hartwig.hmftools.common.utils.file.FileDelimiters.BAM_EXTENSION;
+import static com.hartwig.hmftools.redux.ReduxConfig.RD_LOGGER;
+import static com.hartwig.hmftools.redux.common.Constants.SORT_READ_ATTRIBUTE_BYTES;
+import static com.hartwig.hmftools.redux.common.Constants.SORT_READ_BASE_BYTES;
+import static com.hartwig.hmftools.redux.common.Constants.SORT_READ_CIGAR_ELEMENT_BYTES;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.jetbrains.annotations.Nullable;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMFileWriter;
+import htsjdk.samtools.SAMFileWriterFactory;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMRecordCoordinateComparator;
+import htsjdk.samtools.util.ProgressLoggerInterface;
+
+public class BamSorter implements SAMFileWriter
+{
+    // sorts reads in-process as they are written: reads are buffered up to a memory bound, and each full buffer is sorted and
+    // written on a worker thread as a compressed, indexed run BAM, ready to be merged with other coordinate-sorted BAMs
+    // reads must not be modified once added, and calls to add them must not overlap
+    private final SAMFileHeader mHeader;
+    private final String mRunBamPrefix;
+    private final long mBufferBytes;
+
+    private final ExecutorService mExecutor;
+    private final Semaphore mBufferPermits;
+
+    private final List<String> mRunBams;
+    private final List<Future<?>> mRunTasks;
+
+    private List<SAMRecord> mBuffer;
+    private long mBufferedBytes;
+    private long mReadCount;
+    private boolean mFailed;
+    private boolean mClosed;
+
+    private static final SAMRecordCoordinateComparator READ_COMPARATOR = new SAMRecordCoordinateComparator();
+
+    public BamSorter(final SAMFileHeader header, final String runBamPrefix, final int threads, final int memoryMb)
+    {
+        mHeader = header.clone();
+        mHeader.setSortOrder(SAMFileHeader.SortOrder.coordinate);
+
+        mRunBamPrefix = runBamPrefix;
+
+        int workerThreads = max(threads, 1);
+
+        // each worker holds a buffer while sorting and writing it, and one more is being filled
+        mBufferBytes = max(memoryMb * 1024L * 1024L / (workerThreads + 1), 1);
+
+        mExecutor = Executors.newFixedThreadPool(
+                workerThreads, new ThreadFactoryBuilder().setNameFormat("BamSorter-%d").setDaemon(true).build());
+
+        // limits the buffers in flight, and so memory, to one per worker
+        mBufferPermits = new Semaphore(workerThreads);
+
+        mRunBams = Lists.newArrayList();
+        mRunTasks = Lists.newArrayList();
+
+        mBuffer = Lists.newArrayList();
+        mBufferedBytes = 0;
+        mReadCount = 0;
+        mFailed = false;
+        mClosed = false;
+    }
+
+    public static String formRunBamFilename(final String runBamPrefix, int runIndex)
+    {
+        return runBamPrefix + ".run_" + runIndex + BAM_EXTENSION;
+    }
+
+    @Override
+    public void addAlignment(final SAMRecord record)
+    {
+        mBuffer.add(record);
+        mBufferedBytes += estimateReadBytes(record);
+        ++mReadCount;
+
+        if(mBufferedBytes >= mBufferBytes)
+            submitRun();
+    }
+
+    public static long estimateReadBytes(final SAMRecord record)
+    {
+        return SORT_READ_BASE_BYTES + 2L * record.getReadLength() + record.getReadName().length()
+                + (long)SORT_READ_CIGAR_ELEMENT_BYTES * record.getCigarLength()
+                + (long)SORT_READ_ATTRIBUTE_BYTES * record.getAttributes().size();
+    }
+
+    @Override
+    public SAMFileHeader getFileHeader() { return mHeader; }
+
+    @Override
+    public void setProgressLogger(final ProgressLoggerInterface progress) {}
+
+    @Override
+    public void close()
+    {
+        // sort and write any remaining reads, and wait for all runs to complete
+        if(mClosed)
+            return;
+
+        mClosed = true;
+
+        if(!mBuffer.isEmpty() || mRunBams.isEmpty())
+            submitRun();
+
+        try
+        {
+            for(Future<?> runTask : mRunTasks)
+            {
+                runTask.get();
+            }
+
+            RD_LOGGER.debug("sorted {} reads into {} run BAMs", mReadCount, mRunBams.size());
+        }
+        catch(Exception e)
+        {
+            RD_LOGGER.error("failed to write sorted run BAM: {}", e.toString());
+            mFailed = true;
+        }
+        finally
+        {
+            mExecutor.shutdownNow();
+        }
+    }
+
+    @Nullable
+    public List<String> runBams()
+    {
+        // returns the run BAMs once closed, or null if sorting failed
+        return mClosed && !mFailed ? mRunBams : null;
+    }
+
+    private void submitRun()
+    {
+        String runBam = formRunBamFilename(mRunBamPrefix, mRunBams.size());
+        List<SAMRecord> reads = mBuffer;
+
+        mRunBams.add(runBam);
+        mBuffer = Lists.newArrayList();
+        mBufferedBytes = 0;
+
+        try
+        {
+            mBufferPermits.acquire();
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            RD_LOGGER.error("interrupted writing sorted run BAM({})", runBam);
+            mFailed = true;
+            return;
+        }
+
+        mRunTasks.add(mExecutor.submit(() ->
+        {
+            try
+            {
+                writeSortedRun(mHeader, reads, runBam);
+            }
+            finally
+            {
+                mBufferPermits.release();
+            }
+        }));
+    }
+
+    private static void writeSortedRun(final SAMFileHeader header, final List<SAMRecord> reads, final String runBam)
+    {
+        reads.sort(READ_COMPARATOR);
+
+        SAMFileWriter writer = new SAMFileWriterFactory().setCreateIndex(true).makeBAMWriter(header, true, new File(runBam));
+        reads.forEach(writer::addAlignment);
+        writer.close();
+    }
+}
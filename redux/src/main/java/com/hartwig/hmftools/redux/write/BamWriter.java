@@ -84,7 +84,8 @@ public abstract class BamWriter
                 processRecord(read);
                 mConsensusReadCount.incrementAndGet();
 
-                mReadDataWriter.writeReadData(read, PRIMARY, group.coordinatesKey(), 0, group.umiId());
+                if(mReadDataWriter.enabled())
+                    mReadDataWriter.writeReadData(read, PRIMARY, group.coordinatesKey(), 0, group.umiId());
 
                 continue;
             }
@@ -92,7 +93,7 @@ public abstract class BamWriter
             if(mConfig.UMIs.Enabled)
                 read.setAttribute(UMI_ATTRIBUTE, group.umiId());
 
-            writeRead(read, DUPLICATE, group.coordinatesKey(), 0, group.umiId());
+            writeRead(read, DUPLICATE, mReadDataWriter.enabled() ? group.coordinatesKey() : "", 0, group.umiId());
         }
     }
 
@@ -129,7 +130,7 @@ public abstract class BamWriter
     {
         writeRead(
                 read, fragmentStatus,
-                fragment != null ? fragment.coordinates().Key : "",
+                fragment != null && mReadDataWriter.enabled() ? fragment.coordinates().keyString(read.getHeader()) : "",
                 fragment != null ? fragment.averageBaseQual() : 0,
                 fragment != null ? fragment.umi() : "");
     }
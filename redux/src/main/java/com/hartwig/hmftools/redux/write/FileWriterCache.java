@@ -1,5 +1,6 @@
 package com.hartwig.hmftools.redux.write;
 
+import static com.hartwig.hmftools.common.utils.file.FileDelimiters.BAM_EXTENSION;
 import static com.hartwig.hmftools.common.utils.file.FileDelimiters.BAM_INDEX_EXTENSION;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.filenamePart;
 import static com.hartwig.hmftools.redux.ReduxConfig.RD_LOGGER;
@@ -8,6 +9,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.concurrent.Callable;
 
@@ -25,6 +27,7 @@ import htsjdk.samtools.SAMFileWriter;
 import htsjdk.samtools.SAMFileWriterFactory;
 import htsjdk.samtools.SAMProgramRecord;
 import htsjdk.samtools.SAMReadGroupRecord;
+import htsjdk.samtools.SamFiles;
 import htsjdk.samtools.SamReader;
 import htsjdk.samtools.SamReaderFactory;
 
@@ -35,6 +38,7 @@ public class FileWriterCache
 
     private final List<BamWriter> mBamWriters;
     private final BamWriter mSharedUnsortedWriter;
+    private BamSorter mBamSorter; // sorts the shared writer's reads as they are written when sorting in-process
 
     private final JitterAnalyser mJitterAnalyser;
 
@@ -50,6 +54,7 @@ public class FileWriterCache
         mReadDataWriter = new ReadDataWriter(mConfig);
 
         mBamWriters = Lists.newArrayList();
+        mBamSorter = null;
 
         // create a shared BAM writer if either no multi-threading or using the sorted BAM writer
         if(!mConfig.WriteBam)
@@ -109,8 +114,18 @@ public class FileWriterCache
                 RD_LOGGER.debug("writing temp BAM file: {}", filenamePart(filename));
             }
 
-            // no option to use library-based sorting
-            samFileWriter = initialiseSamFileWriter(filename, isSorted);
+            if(!isSorted && mConfig.InternalSort)
+            {
+                // the shared writer's reads are sorted into run BAMs as they are written, with no unsorted BAM
+                String runBamPrefix = filename.substring(0, filename.length() - BAM_EXTENSION.length());
+                mBamSorter = new BamSorter(buildFileHeader(false), runBamPrefix, mConfig.Threads, mConfig.SortMemoryMb);
+                samFileWriter = mBamSorter;
+            }
+            else
+            {
+                // no option to use library-based sorting
+                samFileWriter = initialiseSamFileWriter(filename, isSorted);
+            }
         }
 
         // initiate the applicable type of BAM writer - synchronised or not
@@ -152,6 +167,20 @@ public class FileWriterCache
     }
 
     private SAMFileWriter initialiseSamFileWriter(final String filename, boolean isSorted)
+    {
+        SAMFileHeader fileHeader = buildFileHeader(isSorted);
+
+        // note that while the sort order may be set to coordinate, the BAM writer is marked as presorted so
+        // the BAM will not actually be sorted by the SAMTools library
+        boolean presorted = isSorted;
+
+        // sorted BAMs are indexed as they are written, ready for the in-process merge
+        boolean createIndex = isSorted && mConfig.InternalSort;
+
+        return new SAMFileWriterFactory().setCreateIndex(createIndex).makeBAMWriter(fileHeader, presorted, new File(filename));
+    }
+
+    private SAMFileHeader buildFileHeader(boolean isSorted)
     {
         SamReader samReader = SamReaderFactory.makeDefault().referenceSequence(new File(mConfig.RefGenomeFile))
                 .open(new File(mConfig.BamFiles.get(0)));
@@ -178,18 +207,15 @@ public class FileWriterCache
             }
         }
 
-        // note that while the sort order may be set to coordinate, the BAM writer is marked as presorted so
-        // the BAM will not actually be sorted by the SAMTools library
         if(isSorted)
             fileHeader.setSortOrder(SAMFileHeader.SortOrder.coordinate);
         else
             fileHeader.setSortOrder(SAMFileHeader.SortOrder.unsorted);
 
-        boolean presorted = isSorted;
-        return new SAMFileWriterFactory().makeBAMWriter(fileHeader, presorted, new File(filename));
+        return fileHeader;
     }
 
-    public boolean runSortMergeIndex() { return mConfig.BamToolPath != null; }
+    public boolean runSortMergeIndex() { return mConfig.BamToolPath != null || mConfig.InternalSort; }
 
     private BamToolName bamToolName() { return BamToolName.fromPath(mConfig.BamToolPath); }
     private String bamToolPath() { return mConfig.BamToolPath; }
@@ -203,6 +229,9 @@ public class FileWriterCache
 
         // MD_LOGGER.info("sorting, merging and indexing final BAM");
 
+        if(mConfig.InternalSort)
+            return mergeSortedRuns(finalBamFilename);
+
         String unsortedBamFilename = mBamWriters.get(0).filename();
 
         // collect up interim BAM files to delete and BAMs to merge
@@ -276,6 +305,55 @@ public class FileWriterCache
         return bamMerger.merge();
     }
 
+    private boolean mergeSortedRuns(final String finalBamFilename)
+    {
+        // merge the shared writer's sorted runs, written as its reads arrived, with the sorted thread BAMs
+        List<String> runBams = mBamSorter != null ? mBamSorter.runBams() : null;
+
+        if(runBams == null)
+            return false;
+
+        List<String> bamsToMerge = Lists.newArrayList(runBams);
+
+        for(BamWriter bamWriter : mBamWriters)
+        {
+            if(bamWriter.isSorted())
+                bamsToMerge.add(bamWriter.filename());
+        }
+
+        List<String> interimBams = Lists.newArrayList(bamsToMerge);
+
+        if(bamsToMerge.size() == 1)
+        {
+            String sortedBamFilename = bamsToMerge.get(0);
+
+            try
+            {
+                Files.move(Paths.get(sortedBamFilename), Paths.get(finalBamFilename), StandardCopyOption.REPLACE_EXISTING);
+                Files.move(SamFiles.findIndex(new File(sortedBamFilename)).toPath(),
+                        Paths.get(finalBamFilename + BAM_INDEX_EXTENSION), StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch(IOException e)
+            {
+                RD_LOGGER.error("failed to move sorted BAM({}): {}", sortedBamFilename, e.toString());
+                return false;
+            }
+        }
+        else
+        {
+            BamMerger bamMerger = new BamMerger(
+                    finalBamFilename, bamsToMerge, mConfig.RefGenomeFile, null, mConfig.Threads, false);
+
+            if(!bamMerger.merge())
+                return false;
+        }
+
+        if(!mConfig.KeepInterimBams)
+            deleteInterimBams(interimBams);
+
+        return true;
+    }
+
     private void deleteInterimBams(final List<String> interimBams)
     {
         try
@@ -284,6 +362,10 @@ public class FileWriterCache
             {
                 Files.deleteIfExists(Paths.get(filename));
                 Files.deleteIfExists(Paths.get(filename + BAM_INDEX_EXTENSION));
+
+                // indices written by the BAM library replace the BAM extension
+                if(filename.endsWith(BAM_EXTENSION))
+                    Files.deleteIfExists(Paths.get(filename.substring(0, filename.length() - BAM_EXTENSION.length()) + BAM_INDEX_EXTENSION));
             }
         }
         catch(IOException e)
@@ -79,6 +79,8 @@ public class ReadDataWriter
         return null;
     }
 
+    public boolean enabled() { return mWriter != null; }
+
     public synchronized void writeReadData(
             final SAMRecord read, final FragmentStatus fragmentStatus, final String fragmentCoordinates,
             final double avgBaseQual, final String umiId)
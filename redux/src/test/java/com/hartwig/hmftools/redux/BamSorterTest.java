@@ -0,0 +1,181 @@
+package com.hartwig.hmftools.redux;
+
+import static com.hartwig.hmftools.common.test.MockRefGenome.generateRandomBases;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.redux.merge.BamMerger;
+import com.hartwig.hmftools.redux.write.BamSorter;
+
+import org.junit.Test;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMRecordCoordinateComparator;
+import htsjdk.samtools.SAMRecordIterator;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+
+public class BamSorterTest
+{
+    private static final int SEQUENCE_LENGTH = 10000;
+    private static final String READ_BASES = generateRandomBases(100);
+
+    @Test
+    public void testSortAndMerge() throws IOException
+    {
+        File tempDir = Files.createTempDirectory("redux_sort").toFile();
+        tempDir.deleteOnExit();
+
+        String refGenomeFile = writeRefGenome(tempDir);
+
+        SAMFileHeader header = new SAMFileHeader();
+        header.setSequenceDictionary(new SAMSequenceDictionary(Lists.newArrayList(
+                new SAMSequenceRecord("1", SEQUENCE_LENGTH), new SAMSequenceRecord("2", SEQUENCE_LENGTH))));
+        header.setSortOrder(SAMFileHeader.SortOrder.unsorted);
+
+        // enough reads for several runs given the minimum memory bound
+        int mappedReadCount = 3000;
+        int unmappedReadCount = 20;
+
+        // reads are sorted into runs as they are written, with no intermediate unsorted BAM
+        String runBamPrefix = tempDir.getPath() + File.separator + "sample.redux.unsorted";
+        BamSorter bamSorter = new BamSorter(header, runBamPrefix, 2, 1);
+
+        Random random = new Random(0);
+
+        for(int i = 0; i < mappedReadCount + unmappedReadCount; ++i)
+        {
+            SAMRecord record = new SAMRecord(header);
+            record.setReadName("READ_" + i);
+            record.setReadString(READ_BASES);
+            record.setBaseQualityString("F".repeat(READ_BASES.length()));
+
+            if(i < mappedReadCount)
+            {
+                record.setReferenceName(random.nextBoolean() ? "1" : "2");
+                record.setAlignmentStart(random.nextInt(SEQUENCE_LENGTH - READ_BASES.length()) + 1);
+                record.setCigarString(READ_BASES.length() + "M");
+                record.setMappingQuality(60);
+            }
+            else
+            {
+                record.setReadUnmappedFlag(true);
+            }
+
+            bamSorter.addAlignment(record);
+        }
+
+        bamSorter.close();
+
+        List<String> runBams = bamSorter.runBams();
+
+        assertNotNull(runBams);
+        assertTrue(runBams.size() > 1);
+
+        String finalBam = tempDir.getPath() + File.separator + "sample.redux.bam";
+        BamMerger bamMerger = new BamMerger(finalBam, runBams, refGenomeFile, null, 2, false);
+        assertTrue(bamMerger.merge());
+
+        assertTrue(new File(finalBam + ".bai").exists());
+
+        SAMRecordCoordinateComparator comparator = new SAMRecordCoordinateComparator();
+
+        try(SamReader samReader = SamReaderFactory.makeDefault().open(new File(finalBam)))
+        {
+            int readCount = 0;
+            SAMRecord previousRecord = null;
+
+            try(SAMRecordIterator iterator = samReader.iterator())
+            {
+                while(iterator.hasNext())
+                {
+                    SAMRecord record = iterator.next();
+
+                    if(previousRecord != null)
+                        assertTrue(comparator.fileOrderCompare(previousRecord, record) <= 0);
+
+                    previousRecord = record;
+                    ++readCount;
+                }
+            }
+
+            assertEquals(mappedReadCount + unmappedReadCount, readCount);
+
+            // the index supports queries
+            int indexedCount = 0;
+
+            try(SAMRecordIterator iterator = samReader.queryOverlapping("2", 1, SEQUENCE_LENGTH))
+            {
+                while(iterator.hasNext())
+                {
+                    assertEquals("2", iterator.next().getReferenceName());
+                    ++indexedCount;
+                }
+            }
+
+            assertTrue(indexedCount > 0);
+        }
+
+        for(File file : tempDir.listFiles())
+        {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReadByteEstimate()
+    {
+        SAMRecord record = new SAMRecord(new SAMFileHeader());
+        record.setReadName("READ_001");
+        record.setReadString(READ_BASES);
+        record.setBaseQualityString("F".repeat(READ_BASES.length()));
+        record.setCigarString(READ_BASES.length() + "M");
+
+        long baseBytes = BamSorter.estimateReadBytes(record);
+        assertTrue(baseBytes > 2 * READ_BASES.length());
+
+        // each CIGAR element and attribute adds to the read's heap use
+        record.setCigarString("10S80M2I8M");
+        record.setAttribute("MC", "100M");
+        record.setAttribute("NM", 2);
+
+        assertTrue(BamSorter.estimateReadBytes(record) > baseBytes);
+    }
+
+    private static String writeRefGenome(final File tempDir) throws IOException
+    {
+        String fastaFile = tempDir.getPath() + File.separator + "ref.fasta";
+
+        StringBuilder fasta = new StringBuilder();
+        StringBuilder fastaIndex = new StringBuilder();
+        StringBuilder dictionary = new StringBuilder("@HD\tVN:1.6\n");
+
+        for(String chromosome : List.of("1", "2"))
+        {
+            fasta.append('>').append(chromosome).append('\n');
+            long offset = fasta.length();
+            fasta.append("A".repeat(SEQUENCE_LENGTH)).append('\n');
+
+            fastaIndex.append(String.format("%s\t%d\t%d\t%d\t%d\n", chromosome, SEQUENCE_LENGTH, offset, SEQUENCE_LENGTH, SEQUENCE_LENGTH + 1));
+            dictionary.append(String.format("@SQ\tSN:%s\tLN:%d\n", chromosome, SEQUENCE_LENGTH));
+        }
+
+        Files.writeString(new File(fastaFile).toPath(), fasta.toString());
+        Files.writeString(new File(fastaFile + ".fai").toPath(), fastaIndex.toString());
+        Files.writeString(new File(tempDir, "ref.dict").toPath(), dictionary.toString());
+
+        return fastaFile;
+    }
+}
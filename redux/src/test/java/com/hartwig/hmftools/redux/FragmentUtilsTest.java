@@ -5,6 +5,9 @@ import static com.hartwig.hmftools.common.test.SamRecordTestUtils.createSamRecor
 import static com.hartwig.hmftools.redux.TestUtils.REF_BASES;
 import static com.hartwig.hmftools.redux.common.DuplicateGroupBuilder.calcBaseQualAverage;
 import static com.hartwig.hmftools.redux.common.DuplicateGroupBuilder.findPrimaryFragment;
+import static com.hartwig.hmftools.redux.common.CoordinateKey.NO_COORD;
+import static com.hartwig.hmftools.redux.common.CoordinateKey.packCoordinate;
+import static com.hartwig.hmftools.redux.common.CoordinateKey.packFragmentLength;
 import static com.hartwig.hmftools.redux.common.FragmentCoordinates.NO_COORDS;
 import static com.hartwig.hmftools.redux.common.FragmentUtils.formChromosomePartition;
 import static com.hartwig.hmftools.redux.TestUtils.DEFAULT_QUAL;
@@ -15,6 +18,7 @@ import static com.hartwig.hmftools.redux.TestUtils.createFragment;
 
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.test.MockRefGenome;
+import com.hartwig.hmftools.redux.common.CoordinateKey;
 import com.hartwig.hmftools.redux.common.DuplicateGroup;
 import com.hartwig.hmftools.redux.common.Fragment;
 import com.hartwig.hmftools.redux.common.FragmentCoordinates;
@@ -28,6 +32,7 @@ import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_2;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.util.List;
@@ -79,7 +84,7 @@ public class FragmentUtilsTest
 
         fragment.addRead(mateRead);
 
-        assertEquals("1_100_100", fragment.coordinates().Key);
+        assertEquals("1_100_100", fragment.coordinates().keyString(mateRead.getHeader()));
         assertFalse(fragment.coordinates().Incomplete);
     }
 
@@ -118,7 +123,7 @@ public class FragmentUtilsTest
         read.setAttribute(MATE_CIGAR_ATTRIBUTE, "100M");
 
         FragmentCoordinates fragmentCoords = getFragmentCoordinates(read);
-        assertEquals("1_100_1_299_R", fragmentCoords.Key);
+        assertEquals("1_100_1_299_R", fragmentCoords.keyString(read.getHeader()));
         assertEquals(100, fragmentCoords.InitialPosition);
 
         // mate on earlier chromosome
@@ -128,7 +133,7 @@ public class FragmentUtilsTest
         read.setAttribute(MATE_CIGAR_ATTRIBUTE, "100M");
 
         fragmentCoords = getFragmentCoordinates(read);
-        assertEquals("1_200_2_100_N", fragmentCoords.keyOriented());
+        assertEquals("1_200_2_100_N", fragmentCoords.keyOriented(read.getHeader()));
         assertEquals(200, fragmentCoords.InitialPosition);
 
         // mate in earlier position, and fragment reversed
@@ -140,7 +145,7 @@ public class FragmentUtilsTest
         read.setAttribute(MATE_CIGAR_ATTRIBUTE, "100M");
 
         fragmentCoords = getFragmentCoordinates(read);
-        assertEquals("1_199_R_1_200", fragmentCoords.Key);
+        assertEquals("1_199_R_1_200", fragmentCoords.keyString(read.getHeader()));
         assertEquals(-199, fragmentCoords.InitialPosition);
 
         // unmapped mate
@@ -149,7 +154,7 @@ public class FragmentUtilsTest
         read.setInferredInsertSize(400);
 
         fragmentCoords = getFragmentCoordinates(read);
-        assertEquals("1_100_400", fragmentCoords.Key);
+        assertEquals("1_100_400", fragmentCoords.keyString(read.getHeader()));
         assertEquals(100, fragmentCoords.InitialPosition);
 
         // fragment reversed
@@ -158,7 +163,7 @@ public class FragmentUtilsTest
         read.setInferredInsertSize(400);
 
         fragmentCoords = getFragmentCoordinates(read);
-        assertEquals("1_199_R_400", fragmentCoords.Key);
+        assertEquals("1_199_R_400", fragmentCoords.keyString(read.getHeader()));
         assertEquals(-199, fragmentCoords.InitialPosition);
 
         // missing mate CIGAR attribute
@@ -166,10 +171,40 @@ public class FragmentUtilsTest
                 false, false, null);
 
         fragmentCoords = getFragmentCoordinates(read);
-        assertEquals("1_200", fragmentCoords.Key);
+        assertEquals("1_200", fragmentCoords.keyString(read.getHeader()));
         assertTrue(fragmentCoords.Incomplete);
     }
 
+    @Test
+    public void testPackedCoordinateKeys()
+    {
+        long coord = packCoordinate(0, 100, true);
+        assertEquals(0, CoordinateKey.chromosomeIndex(coord));
+        assertEquals(100, CoordinateKey.position(coord));
+        assertTrue(CoordinateKey.isForward(coord));
+
+        // unclipped positions can precede the chromosome start
+        coord = packCoordinate(24, -5, false);
+        assertEquals(24, CoordinateKey.chromosomeIndex(coord));
+        assertEquals(-5, CoordinateKey.position(coord));
+        assertFalse(CoordinateKey.isForward(coord));
+
+        assertEquals(-1, CoordinateKey.chromosomeIndex(packCoordinate(-1, 0, true)));
+
+        // keys differ by strand, chromosome and position, and fragment lengths are distinct from coordinates
+        CoordinateKey key = new CoordinateKey(packCoordinate(0, 100, true), packCoordinate(0, 300, false));
+        assertEquals(key, new CoordinateKey(packCoordinate(0, 100, true), packCoordinate(0, 300, false)));
+        assertEquals(key.hashCode(), new CoordinateKey(packCoordinate(0, 100, true), packCoordinate(0, 300, false)).hashCode());
+        assertNotEquals(key, new CoordinateKey(packCoordinate(0, 100, true), packCoordinate(0, 300, true)));
+        assertNotEquals(key, new CoordinateKey(packCoordinate(0, 100, true), packCoordinate(1, 300, false)));
+        assertNotEquals(key, new CoordinateKey(packCoordinate(0, 100, true), packCoordinate(0, 301, false)));
+        assertNotEquals(key, new CoordinateKey(packCoordinate(0, 100, true), NO_COORD));
+
+        assertNotEquals(packFragmentLength(300), packCoordinate(0, 150, false));
+        assertEquals(packFragmentLength(-300), packFragmentLength(300));
+        assertEquals("0_100_300", new CoordinateKey(packCoordinate(0, 100, true), packFragmentLength(300)).toString());
+    }
+
     @Test
     public void testPrimaryDuplicateIdentification()
     {
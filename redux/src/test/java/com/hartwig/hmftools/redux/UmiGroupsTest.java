@@ -1,10 +1,12 @@
 package com.hartwig.hmftools.redux;
 
+import static com.hartwig.hmftools.redux.TestUtils.TEST_READ_CIGAR;
 import static com.hartwig.hmftools.redux.TestUtils.createFragment;
 import static com.hartwig.hmftools.redux.common.Constants.DEFAULT_DUPLEX_UMI_DELIM;
 import static com.hartwig.hmftools.redux.umi.UmiConfig.extractUmiIdFromReadId;
 import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
 import static com.hartwig.hmftools.redux.umi.UmiGroupBuilder.buildUmiGroups;
+import static com.hartwig.hmftools.redux.umi.UmiGroupBuilder.collapseGroups;
 import static com.hartwig.hmftools.redux.umi.UmiGroupBuilder.hasDuplexUmiMatch;
 import static com.hartwig.hmftools.redux.umi.UmiUtils.exceedsUmiIdDiff;
 
@@ -13,11 +15,16 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.List;
+import java.util.Random;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.hartwig.hmftools.redux.common.Fragment;
+import com.hartwig.hmftools.redux.umi.UmiClusterer;
 import com.hartwig.hmftools.redux.umi.UmiConfig;
+import com.hartwig.hmftools.redux.umi.UmiGroupBuilder;
+import com.hartwig.hmftools.redux.umi.UmiStatistics;
+import com.hartwig.hmftools.redux.umi.UmiUtils;
 import com.hartwig.hmftools.redux.common.DuplicateGroup;
 
 import org.junit.Test;
@@ -186,6 +193,143 @@ public class UmiGroupsTest
         assertEquals(3, groups.size());
     }
 
+    @Test
+    public void testIndexedUmiClustering()
+    {
+        // the indexed clustering gives the same groups, with fragments in the same order, as comparing all pairs
+        Random random = new Random(0);
+        char[] bases = { 'A', 'C', 'G', 'T' };
+
+        for(int test = 0; test < 20; ++test)
+        {
+            // UMIs drawn from a few seeds with some bases changed, to form chains of similar UMIs
+            List<String> seedUmis = Lists.newArrayList();
+
+            for(int i = 0; i < 5; ++i)
+            {
+                char[] umi = new char[6];
+
+                for(int b = 0; b < umi.length; ++b)
+                {
+                    umi[b] = bases[random.nextInt(bases.length)];
+                }
+
+                seedUmis.add(new String(umi));
+            }
+
+            List<String> umis = Lists.newArrayList();
+            List<Integer> umiCounts = Lists.newArrayList();
+
+            for(int i = 0; i < 200; ++i)
+            {
+                char[] umi = seedUmis.get(random.nextInt(seedUmis.size())).toCharArray();
+
+                for(int b = random.nextInt(4); b > 0; --b)
+                {
+                    umi[random.nextInt(umi.length)] = bases[random.nextInt(bases.length)];
+                }
+
+                String umiId = new String(umi);
+
+                if(umis.contains(umiId))
+                    continue;
+
+                umis.add(umiId);
+                umiCounts.add(random.nextInt(10) == 0 ? 30 + random.nextInt(30) : 1 + random.nextInt(4));
+            }
+
+            List<List<Fragment>> umiFragments = Lists.newArrayList();
+
+            for(int i = 0; i < umis.size(); ++i)
+            {
+                List<Fragment> fragments = Lists.newArrayList();
+
+                for(int f = 0; f < umiCounts.get(i); ++f)
+                {
+                    fragments.add(createFragment(FIXED_READ_ID + umis.get(i), CHR_1, 100));
+                }
+
+                umiFragments.add(fragments);
+            }
+
+            List<DuplicateGroup> expectedGroups = collapseGroups(orderedUmiGroups(umis, umiFragments), UMI_CONFIG.PermittedBaseDiff);
+
+            List<DuplicateGroup> actualGroups = UmiClusterer.collapseGroups(
+                    orderedUmiGroups(umis, umiFragments), UMI_CONFIG.PermittedBaseDiff);
+
+            assertEquals(expectedGroups.size(), actualGroups.size());
+
+            for(int i = 0; i < expectedGroups.size(); ++i)
+            {
+                assertEquals(expectedGroups.get(i).umiId(), actualGroups.get(i).umiId());
+                assertEquals(expectedGroups.get(i).fragments(), actualGroups.get(i).fragments());
+            }
+        }
+    }
+
+    private static List<DuplicateGroup> orderedUmiGroups(final List<String> umis, final List<List<Fragment>> umiFragments)
+    {
+        List<DuplicateGroup> groups = Lists.newArrayList();
+
+        for(int i = 0; i < umis.size(); ++i)
+        {
+            List<Fragment> fragments = umiFragments.get(i);
+            DuplicateGroup group = new DuplicateGroup(umis.get(i), fragments.get(0));
+            fragments.stream().skip(1).forEach(x -> group.fragments().add(x));
+            groups.add(group);
+        }
+
+        groups.sort(new UmiUtils.SizeComparator());
+        return groups;
+    }
+
+    @Test
+    public void testIndexedDuplexCollapse()
+    {
+        UmiConfig umiConfig = new UmiConfig(true, true, String.valueOf(DEFAULT_DUPLEX_UMI_DELIM), false);
+        UmiGroupBuilder umiGroupBuilder = new UmiGroupBuilder(umiConfig, new UmiStatistics());
+
+        // enough opposite-orientation fragments for their duplex UMIs to be matched from an index
+        Random random = new Random(0);
+        char[] bases = { 'A', 'C', 'G', 'T' };
+
+        List<Fragment> singleFragments = Lists.newArrayList();
+        int pairCount = 50;
+
+        for(int i = 0; i < pairCount; ++i)
+        {
+            char[] umiParts = new char[12];
+
+            for(int b = 0; b < umiParts.length; ++b)
+            {
+                umiParts[b] = bases[random.nextInt(bases.length)];
+            }
+
+            String first = new String(umiParts, 0, 6);
+            String second = new String(umiParts, 6, 6);
+
+            singleFragments.add(createFragment(
+                    FIXED_READ_ID + first + DEFAULT_DUPLEX_UMI_DELIM + second, CHR_1, 100, TEST_READ_CIGAR, false,
+                    CHR_1, 200, true, TEST_READ_CIGAR));
+
+            Fragment reverseFragment = createFragment(
+                    FIXED_READ_ID + second + DEFAULT_DUPLEX_UMI_DELIM + first, CHR_1, 100, TEST_READ_CIGAR, false,
+                    CHR_1, 200, true, TEST_READ_CIGAR);
+
+            reverseFragment.reads().get(0).setFirstOfPairFlag(false);
+            reverseFragment.reads().get(0).setSecondOfPairFlag(true);
+            reverseFragment.intialiseCoordinates(true);
+            singleFragments.add(reverseFragment);
+        }
+
+        singleFragments.forEach(x -> x.intialiseCoordinates(true));
+
+        List<DuplicateGroup> groups = umiGroupBuilder.processUmiGroups(Lists.newArrayList(), singleFragments, false);
+
+        assertEquals(pairCount, groups.size());
+        assertTrue(groups.stream().allMatch(x -> x.fragmentCount() == 2 && x.hasDualStrand()));
+    }
+
     /*
     @Test
     public void testPerfUmiIdExtraction()
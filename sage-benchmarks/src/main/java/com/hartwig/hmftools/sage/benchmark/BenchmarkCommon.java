@@ -0,0 +1,7 @@
+package com.hartwig.hmftools.sage.benchmark;
+
+public final class BenchmarkCommon
+{
+    // a fixed seed for all synthetic fixtures so each run, and each commit, scores the same data
+    public static final long SEED = 20240601L;
+}
@@ -0,0 +1,103 @@
+package com.hartwig.hmftools.sage.benchmark;
+
+import static com.hartwig.hmftools.common.codon.Nucleotides.DNA_BASE_BYTES;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.qual.BqrKey;
+import com.hartwig.hmftools.common.qual.BqrReadType;
+import com.hartwig.hmftools.common.qual.BqrRecord;
+import com.hartwig.hmftools.sage.bqr.BqrRecordMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BqrLookupBenchmark
+{
+    // recalibrated quality lookups across a full set of BQR records, drawing on a shared set of contexts as reads would
+    private static final byte[] QUALS = { 11, 25, 37, 40, 93 };
+    private static final int LOOKUP_COUNT = 1_000_000;
+
+    private BqrRecordMap mRecordMap;
+    private byte[][] mContexts;
+    private byte[] mAlts;
+    private byte[] mQuals;
+
+    @Setup
+    public void setup()
+    {
+        List<BqrRecord> records = Lists.newArrayList();
+        Random random = new Random(BenchmarkCommon.SEED);
+
+        for(BqrReadType readType : new BqrReadType[] { BqrReadType.NONE, BqrReadType.DUAL })
+        {
+            for(byte qual : QUALS)
+            {
+                for(byte ref : DNA_BASE_BYTES)
+                {
+                    for(byte alt : DNA_BASE_BYTES)
+                    {
+                        for(byte prev : DNA_BASE_BYTES)
+                        {
+                            for(byte next : DNA_BASE_BYTES)
+                            {
+                                BqrKey key = new BqrKey(ref, alt, new byte[] { prev, ref, next }, qual, readType);
+                                records.add(new BqrRecord(key, 1000, qual - random.nextDouble() * 10));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        mRecordMap = new BqrRecordMap(records);
+
+        byte[][] allContexts = new byte[64][];
+
+        for(int i = 0; i < allContexts.length; ++i)
+        {
+            allContexts[i] = new byte[] { DNA_BASE_BYTES[i >> 4], DNA_BASE_BYTES[(i >> 2) & 3], DNA_BASE_BYTES[i & 3] };
+        }
+
+        mContexts = new byte[LOOKUP_COUNT][];
+        mAlts = new byte[LOOKUP_COUNT];
+        mQuals = new byte[LOOKUP_COUNT];
+
+        for(int i = 0; i < LOOKUP_COUNT; ++i)
+        {
+            mContexts[i] = allContexts[random.nextInt(allContexts.length)];
+            mAlts[i] = DNA_BASE_BYTES[random.nextInt(4)];
+            mQuals[i] = QUALS[random.nextInt(QUALS.length)];
+        }
+    }
+
+    @Benchmark
+    public double qualityAdjustment()
+    {
+        double total = 0;
+
+        for(int i = 0; i < LOOKUP_COUNT; ++i)
+        {
+            total += mRecordMap.getQualityAdjustment(mContexts[i][1], mAlts[i], mContexts[i], mQuals[i], BqrReadType.NONE);
+        }
+
+        return total;
+    }
+}
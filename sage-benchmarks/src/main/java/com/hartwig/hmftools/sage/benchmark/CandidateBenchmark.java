@@ -0,0 +1,96 @@
+package com.hartwig.hmftools.sage.benchmark;
+
+import static com.hartwig.hmftools.sage.benchmark.SyntheticReads.CHROMOSOME;
+import static com.hartwig.hmftools.sage.benchmark.SyntheticReads.REGION_LENGTH;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
+import com.hartwig.hmftools.sage.candidate.AltContext;
+import com.hartwig.hmftools.sage.candidate.EvictingArray;
+import com.hartwig.hmftools.sage.candidate.RefContext;
+import com.hartwig.hmftools.sage.candidate.RefContextCache;
+import com.hartwig.hmftools.sage.candidate.RefContextConsumer;
+import com.hartwig.hmftools.sage.common.SimpleVariant;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import htsjdk.samtools.SAMRecord;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CandidateBenchmark
+{
+    // candidate accumulation over a synthetic region: each read is run through RefContextConsumer and its alt and ref
+    // contexts are held in the EvictingArray until evicted into candidates
+    @Param({"30", "100"})
+    public int depth;
+
+    private SyntheticReads mReads;
+    private List<SAMRecord> mRecords;
+    private ChrBaseRegion mRegion;
+
+    @Setup
+    public void setup()
+    {
+        mReads = new SyntheticReads(BenchmarkCommon.SEED);
+
+        List<SimpleVariant> variants = mReads.buildVariants(200);
+        mRecords = mReads.buildTiledReads(depth, variants, 0.3);
+        mRegion = new ChrBaseRegion(CHROMOSOME, 1, REGION_LENGTH);
+    }
+
+    @Benchmark
+    public void refContextConsumer(final Blackhole blackhole)
+    {
+        RefContextCache refContextCache = new RefContextCache(mReads.Config, Collections.emptyList(), Collections.emptyList());
+
+        RefContextConsumer refContextConsumer = new RefContextConsumer(
+                mReads.Config, mRegion, mReads.RefSequence, refContextCache, Collections.emptyList());
+
+        for(SAMRecord record : mRecords)
+        {
+            refContextConsumer.processRead(record);
+        }
+
+        List<AltContext> altContexts = refContextCache.altContexts();
+        blackhole.consume(altContexts);
+    }
+
+    @Benchmark
+    public void evictingArray(final Blackhole blackhole)
+    {
+        // the ring-buffer access pattern of the consumer, one ref context per aligned base
+        int[] evictedCount = {0};
+        EvictingArray evictingArray = new EvictingArray(SyntheticReads.READ_LENGTH, x -> ++evictedCount[0]);
+
+        for(SAMRecord record : mRecords)
+        {
+            for(int position = record.getAlignmentStart(); position <= record.getAlignmentEnd(); ++position)
+            {
+                RefContext refContext = evictingArray.getOrCreateRefContext(position, x -> new RefContext(CHROMOSOME, x));
+                blackhole.consume(refContext);
+            }
+        }
+
+        evictingArray.evictAll();
+        blackhole.consume(evictedCount[0]);
+    }
+}
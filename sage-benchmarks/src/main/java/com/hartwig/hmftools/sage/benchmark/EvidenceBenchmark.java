@@ -0,0 +1,147 @@
+package com.hartwig.hmftools.sage.benchmark;
+
+import static com.hartwig.hmftools.sage.benchmark.SyntheticReads.READ_LENGTH;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.bam.CigarUtils;
+import com.hartwig.hmftools.sage.common.NumberEvents;
+import com.hartwig.hmftools.sage.common.ReadContextMatcher;
+import com.hartwig.hmftools.sage.common.SimpleVariant;
+import com.hartwig.hmftools.sage.common.VariantReadContext;
+import com.hartwig.hmftools.sage.common.VariantTier;
+import com.hartwig.hmftools.sage.evidence.JitterMatch;
+import com.hartwig.hmftools.sage.evidence.ReadContextCounter;
+import com.hartwig.hmftools.sage.evidence.Realignment;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import htsjdk.samtools.SAMRecord;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EvidenceBenchmark
+{
+    // per-read evidence scoring for a single variant against a mix of alt, ref, jittered and soft-clipped reads
+    public enum VariantType { SNV, REPEAT_INSERT }
+
+    @Param({"SNV", "REPEAT_INSERT"})
+    public VariantType variantType;
+
+    private static final int READ_COUNT = 200;
+    private static final int MAX_COVERAGE = 100_000;
+
+    private SyntheticReads mReads;
+    private VariantReadContext mReadContext;
+    private ReadContextMatcher mMatcher;
+
+    private List<SAMRecord> mRecords;
+    private int[] mReadVarIndices;
+    private int[] mNumberOfEvents;
+
+    @Setup
+    public void setup()
+    {
+        mReads = new SyntheticReads(BenchmarkCommon.SEED);
+
+        SimpleVariant variant = variantType == VariantType.SNV ? mReads.snv(5_000) : mReads.repeatInsert();
+
+        mReadContext = mReads.buildReadContext(variant);
+        mMatcher = new ReadContextMatcher(mReadContext, true, false);
+
+        mRecords = Lists.newArrayListWithCapacity(READ_COUNT);
+
+        for(int i = 0; i < READ_COUNT; ++i)
+        {
+            // read starts spread across the variant so the variant's read index varies
+            int readStart = variant.Position - 20 - mReads.random().nextInt(READ_LENGTH - 60);
+            int readType = i % 5;
+
+            if(readType == 0 || readType == 1)
+                mRecords.add(mReads.buildAltRead(variant, readStart));
+            else if(readType == 2)
+                mRecords.add(mReads.buildRefRead(readStart));
+            else if(readType == 3 && variant.isInsert())
+                mRecords.add(mReads.buildJitterRead(variant, readStart));
+            else
+                mRecords.add(mReads.buildSoftClippedAltRead(variant, readStart, 10));
+        }
+
+        mReadVarIndices = new int[READ_COUNT];
+        mNumberOfEvents = new int[READ_COUNT];
+
+        for(int i = 0; i < READ_COUNT; ++i)
+        {
+            SAMRecord record = mRecords.get(i);
+            int unclippedStart = record.getAlignmentStart() - CigarUtils.leftSoftClipLength(record);
+            mReadVarIndices[i] = variant.Position - unclippedStart;
+            mNumberOfEvents[i] = NumberEvents.calc(record, mReads.RefSequence);
+        }
+    }
+
+    @Benchmark
+    public void readContextCounter(final Blackhole blackhole)
+    {
+        ReadContextCounter readCounter = new ReadContextCounter(
+                0, mReadContext, VariantTier.LOW_CONFIDENCE, MAX_COVERAGE, 1, mReads.Config, mReads.QualityCalculator,
+                "SAMPLE", false);
+
+        for(int i = 0; i < mRecords.size(); ++i)
+        {
+            blackhole.consume(readCounter.processRead(mRecords.get(i), mNumberOfEvents[i], null));
+        }
+
+        blackhole.consume(readCounter.depth());
+    }
+
+    @Benchmark
+    public void readContextMatcher(final Blackhole blackhole)
+    {
+        for(int i = 0; i < mRecords.size(); ++i)
+        {
+            blackhole.consume(mMatcher.determineReadMatch(mRecords.get(i), mReadVarIndices[i]));
+        }
+    }
+
+    @Benchmark
+    public void jitterMatch(final Blackhole blackhole)
+    {
+        for(int i = 0; i < mRecords.size(); ++i)
+        {
+            blackhole.consume(JitterMatch.checkJitter(mReadContext, mMatcher, mRecords.get(i), mReadVarIndices[i]));
+        }
+    }
+
+    @Benchmark
+    public void realignment(final Blackhole blackhole)
+    {
+        for(int i = 0; i < mRecords.size(); ++i)
+        {
+            SAMRecord record = mRecords.get(i);
+            int realignedReadIndex = Realignment.realignedReadIndexPosition(mReadContext, record);
+
+            if(realignedReadIndex == Realignment.INVALID_INDEX)
+                continue;
+
+            blackhole.consume(Realignment.checkRealignment(
+                    mReadContext, mMatcher, record, mReadVarIndices[i], realignedReadIndex, null));
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.hartwig.hmftools.sage.benchmark;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.common.bam.SamRecordUtils.NUM_MUTATONS_ATTRIBUTE;
+import static com.hartwig.hmftools.common.codon.Nucleotides.DNA_BASES;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.test.MockRefGenome;
+import com.hartwig.hmftools.sage.SageConfig;
+import com.hartwig.hmftools.sage.bqr.BqrRecordMap;
+import com.hartwig.hmftools.sage.common.RefSequence;
+import com.hartwig.hmftools.sage.common.SimpleVariant;
+import com.hartwig.hmftools.sage.common.VariantReadContext;
+import com.hartwig.hmftools.sage.common.VariantReadContextBuilder;
+import com.hartwig.hmftools.sage.quality.MsiJitterCalcs;
+import com.hartwig.hmftools.sage.quality.QualityCalculator;
+
+import htsjdk.samtools.SAMRecord;
+
+public class SyntheticReads
+{
+    // deterministic reference, variants and reads so benchmark results are comparable across commits without any external data
+    public static final String CHROMOSOME = "1";
+    public static final int READ_LENGTH = 151;
+    public static final int REGION_LENGTH = 20_000;
+    public static final int MAP_QUAL = 60;
+    public static final byte BASE_QUAL = 37;
+
+    // a dinucleotide repeat placed mid-region to exercise jitter and realignment
+    public static final int REPEAT_POSITION = 10_000;
+    public static final String REPEAT_UNIT = "AT";
+    public static final int REPEAT_COUNT = 8;
+
+    public final String RefBases; // from position 1
+    public final RefSequence RefSequence;
+    public final MockRefGenome RefGenome;
+    public final SageConfig Config;
+    public final QualityCalculator QualityCalculator;
+    public final VariantReadContextBuilder ReadContextBuilder;
+
+    private final Random mRandom;
+    private int mReadCounter;
+
+    public SyntheticReads(long seed)
+    {
+        mRandom = new Random(seed);
+        mReadCounter = 0;
+
+        StringBuilder refBases = new StringBuilder(REGION_LENGTH);
+
+        for(int i = 0; i < REGION_LENGTH; ++i)
+        {
+            refBases.append(DNA_BASES[mRandom.nextInt(DNA_BASES.length)]);
+        }
+
+        String repeat = REPEAT_UNIT.repeat(REPEAT_COUNT);
+        refBases.replace(REPEAT_POSITION, REPEAT_POSITION + repeat.length(), repeat);
+
+        RefBases = refBases.toString();
+        RefSequence = new RefSequence(1, RefBases.getBytes());
+
+        RefGenome = new MockRefGenome(true);
+        RefGenome.RefGenomeMap.put(CHROMOSOME, RefBases);
+
+        Config = new SageConfig(false);
+        Config.setReadLength(READ_LENGTH);
+
+        QualityCalculator = new QualityCalculator(
+                Config, new BqrRecordMap(Collections.emptyList()), RefSequence, RefGenome, new MsiJitterCalcs());
+
+        ReadContextBuilder = new VariantReadContextBuilder(Config.ReadContextFlankLength);
+    }
+
+    public Random random() { return mRandom; }
+
+    public String refBases(int posStart, int posEnd) { return RefBases.substring(posStart - 1, posEnd); }
+
+    public char refBase(int position) { return RefBases.charAt(position - 1); }
+
+    public char altBase(int position)
+    {
+        char ref = refBase(position);
+        char alt = DNA_BASES[mRandom.nextInt(DNA_BASES.length)];
+        return alt != ref ? alt : DNA_BASES[(new String(DNA_BASES).indexOf(ref) + 1) % DNA_BASES.length];
+    }
+
+    public SimpleVariant snv(int position)
+    {
+        return new SimpleVariant(CHROMOSOME, position, String.valueOf(refBase(position)), String.valueOf(altBase(position)));
+    }
+
+    public SimpleVariant repeatInsert()
+    {
+        // inserts an extra repeat unit at the end of the repeat
+        int position = REPEAT_POSITION + REPEAT_UNIT.length() * REPEAT_COUNT;
+        String ref = String.valueOf(refBase(position));
+        return new SimpleVariant(CHROMOSOME, position, ref, ref + REPEAT_UNIT);
+    }
+
+    public SimpleVariant delete(int position, int length)
+    {
+        return new SimpleVariant(CHROMOSOME, position, refBases(position, position + length), String.valueOf(refBase(position)));
+    }
+
+    public SAMRecord buildRead(int alignmentStart, final String cigar, final String readBases)
+    {
+        SAMRecord record = new SAMRecord(null);
+        record.setReadName(format("READ_%06d", mReadCounter++));
+        record.setReferenceName(CHROMOSOME);
+        record.setAlignmentStart(alignmentStart);
+        record.setCigarString(cigar);
+        record.setReadString(readBases);
+
+        byte[] quals = new byte[readBases.length()];
+
+        for(int i = 0; i < quals.length; ++i)
+        {
+            quals[i] = BASE_QUAL;
+        }
+
+        record.setBaseQualities(quals);
+        record.setMappingQuality(MAP_QUAL);
+        record.setReadPairedFlag(true);
+        record.setProperPairFlag(true);
+        record.setFirstOfPairFlag(mReadCounter % 2 == 0);
+        record.setReadNegativeStrandFlag(mReadCounter % 3 == 0);
+        record.setMateReferenceName(CHROMOSOME);
+        record.setMateAlignmentStart(alignmentStart + 300);
+        record.setInferredInsertSize(450);
+        record.setAttribute(NUM_MUTATONS_ATTRIBUTE, 0);
+        return record;
+    }
+
+    public SAMRecord buildRefRead(int alignmentStart)
+    {
+        return buildRead(alignmentStart, format("%dM", READ_LENGTH), refBases(alignmentStart, alignmentStart + READ_LENGTH - 1));
+    }
+
+    public SAMRecord buildAltRead(final SimpleVariant variant, int alignmentStart)
+    {
+        // a read carrying the variant, starting at the specified position
+        int leftLength = variant.Position - alignmentStart + 1; // up to and including the variant's first ref base
+        String leftBases = refBases(alignmentStart, variant.Position - 1) + variant.Alt;
+
+        int refLength = variant.Ref.length();
+        int remainingLength = READ_LENGTH - leftBases.length();
+        int rightStart = variant.Position + refLength;
+        String rightBases = refBases(rightStart, rightStart + remainingLength - 1);
+
+        String cigar;
+
+        if(variant.isInsert())
+            cigar = format("%dM%dI%dM", leftLength, variant.Alt.length() - 1, remainingLength);
+        else if(variant.isDelete())
+            cigar = format("%dM%dD%dM", leftLength, refLength - 1, remainingLength);
+        else
+            cigar = format("%dM", READ_LENGTH);
+
+        return buildRead(alignmentStart, cigar, leftBases + rightBases);
+    }
+
+    public SAMRecord buildJitterRead(final SimpleVariant insert, int alignmentStart)
+    {
+        // the insert plus an extra repeat unit, as from polymerase slippage
+        SimpleVariant jitterVariant = new SimpleVariant(CHROMOSOME, insert.Position, insert.Ref, insert.Alt + REPEAT_UNIT);
+        return buildAltRead(jitterVariant, alignmentStart);
+    }
+
+    public SAMRecord buildSoftClippedAltRead(final SimpleVariant variant, int alignmentStart, int softClipLength)
+    {
+        // an alt read whose left side is soft-clipped, so the variant must be found through realignment
+        SAMRecord altRead = buildAltRead(variant, alignmentStart);
+        String readBases = altRead.getReadString();
+        int alignedLength = readBases.length() - softClipLength;
+        return buildRead(alignmentStart + softClipLength, format("%dS%dM", softClipLength, alignedLength), readBases);
+    }
+
+    public VariantReadContext buildReadContext(final SimpleVariant variant)
+    {
+        int alignmentStart = variant.Position - READ_LENGTH / 2;
+        SAMRecord altRead = buildAltRead(variant, alignmentStart);
+        return ReadContextBuilder.createContext(variant, altRead, variant.Position - alignmentStart, RefSequence);
+    }
+
+    public List<SAMRecord> buildTiledReads(int depth, final List<SimpleVariant> variants, double altFraction)
+    {
+        // reads tiled across the region to the required depth, with a proportion carrying any variant they cover
+        List<SAMRecord> reads = Lists.newArrayList();
+        int readSpacing = Math.max(READ_LENGTH / depth, 1);
+        int variantIndex = 0;
+
+        for(int readStart = 1; readStart + READ_LENGTH + 10 < REGION_LENGTH; readStart += readSpacing)
+        {
+            while(variantIndex < variants.size() && variants.get(variantIndex).Position < readStart + 10)
+            {
+                ++variantIndex;
+            }
+
+            SimpleVariant variant = variantIndex < variants.size() ? variants.get(variantIndex) : null;
+
+            if(variant != null && variant.Position < readStart + READ_LENGTH - 20 && mRandom.nextDouble() < altFraction)
+                reads.add(buildAltRead(variant, readStart));
+            else
+                reads.add(buildRefRead(readStart));
+        }
+
+        return reads;
+    }
+
+    public List<SimpleVariant> buildVariants(int spacing)
+    {
+        // mostly SNVs with an occasional delete, excluding the repeat region
+        List<SimpleVariant> variants = Lists.newArrayList();
+
+        for(int position = spacing; position < REGION_LENGTH - READ_LENGTH; position += spacing)
+        {
+            if(Math.abs(position - REPEAT_POSITION) < READ_LENGTH)
+                continue;
+
+            variants.add(variants.size() % 5 == 4 ? delete(position, 2) : snv(position));
+        }
+
+        return variants;
+    }
+}
@@ -0,0 +1,98 @@
+package com.hartwig.hmftools.sage.benchmark;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.sage.candidate.Candidate;
+import com.hartwig.hmftools.sage.common.SageVariant;
+import com.hartwig.hmftools.sage.common.SimpleVariant;
+import com.hartwig.hmftools.sage.common.VariantReadContext;
+import com.hartwig.hmftools.sage.common.VariantTier;
+import com.hartwig.hmftools.sage.dedup.VariantDeduper;
+import com.hartwig.hmftools.sage.evidence.ReadContextCounter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VariantDeduperBenchmark
+{
+    // dedup of a partition's variants, with clusters of phased SNVs, MNVs and indels which the dedup routines must compare
+    @Param({"100", "1000"})
+    public int variantCount;
+
+    private static final int CLUSTER_SIZE = 4;
+
+    private SyntheticReads mReads;
+    private VariantDeduper mDeduper;
+    private List<SageVariant> mVariants;
+
+    @Setup
+    public void setup()
+    {
+        mReads = new SyntheticReads(BenchmarkCommon.SEED);
+        mDeduper = new VariantDeduper(Collections.emptyList(), mReads.RefGenome, SyntheticReads.READ_LENGTH, mReads.Config.Filter);
+        mVariants = Lists.newArrayListWithCapacity(variantCount);
+
+        int clusterCount = variantCount / CLUSTER_SIZE;
+        int clusterSpacing = (SyntheticReads.REGION_LENGTH - 2 * SyntheticReads.READ_LENGTH) / clusterCount;
+
+        for(int c = 0; c < clusterCount; ++c)
+        {
+            int position = SyntheticReads.READ_LENGTH + c * clusterSpacing;
+            int localPhaseSet = c + 1;
+
+            // an MNV with its constituent SNVs, and a nearby delete, all in the same phase set
+            String mnvRef = mReads.refBases(position, position + 1);
+            String mnvAlt = String.valueOf(mReads.altBase(position)) + mReads.altBase(position + 1);
+
+            addVariant(new SimpleVariant(SyntheticReads.CHROMOSOME, position, mnvRef, mnvAlt), localPhaseSet, 20);
+            addVariant(new SimpleVariant(SyntheticReads.CHROMOSOME, position, mnvRef.substring(0, 1), mnvAlt.substring(0, 1)), localPhaseSet, 18);
+            addVariant(new SimpleVariant(SyntheticReads.CHROMOSOME, position + 1, mnvRef.substring(1), mnvAlt.substring(1)), localPhaseSet, 18);
+            addVariant(mReads.delete(position + 5, 2), localPhaseSet, 10);
+        }
+    }
+
+    private void addVariant(final SimpleVariant variant, int localPhaseSet, int support)
+    {
+        VariantReadContext readContext = mReads.buildReadContext(variant);
+
+        ReadContextCounter readCounter = new ReadContextCounter(
+                0, readContext, VariantTier.LOW_CONFIDENCE, 1000, 1, mReads.Config, mReads.QualityCalculator, "SAMPLE", false);
+
+        readCounter.readSupportCounts().Full = support;
+        readCounter.readSupportQualityCounts().Full = support * 37;
+        readCounter.addLocalPhaseSet(localPhaseSet, support, 0);
+
+        Candidate candidate = new Candidate(VariantTier.HIGH_CONFIDENCE, readContext, 1, support);
+        mVariants.add(new SageVariant(candidate, Collections.emptyList(), Lists.newArrayList(readCounter)));
+    }
+
+    @Benchmark
+    public void processVariants(final Blackhole blackhole)
+    {
+        // dedup only adds filters, so clearing them restores the initial state
+        mVariants.forEach(x -> x.filters().clear());
+
+        mDeduper.processVariants(mVariants);
+
+        blackhole.consume(mVariants.stream().filter(SageVariant::isPassing).count());
+    }
+}
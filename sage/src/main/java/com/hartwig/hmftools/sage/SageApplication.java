@@ -18,6 +18,7 @@ import com.hartwig.hmftools.sage.coverage.Coverage;
 import com.hartwig.hmftools.sage.evidence.FragmentLengths;
 import com.hartwig.hmftools.sage.phase.PhaseSetCounter;
 import com.hartwig.hmftools.sage.pipeline.ChromosomePipeline;
+import com.hartwig.hmftools.sage.pipeline.GenomePipeline;
 import com.hartwig.hmftools.sage.bqr.BaseQualityRecalibration;
 import com.hartwig.hmftools.sage.bqr.BqrRecordMap;
 import com.hartwig.hmftools.sage.quality.MsiJitterCalcs;
@@ -93,17 +94,35 @@ public class SageApplication implements AutoCloseable
         MsiJitterCalcs msiJitterCalcs = MsiJitterCalcs.build(combinedSampleIds, mConfig.Common.JitterParamsDir);
 
         final SAMSequenceDictionary dictionary = dictionary();
+        List<String> chromosomes = Lists.newArrayList();
+
         for(final SAMSequenceRecord samSequenceRecord : dictionary.getSequences())
         {
             final String chromosome = samSequenceRecord.getSequenceName();
 
-            if(!mConfig.Common.processChromosome(chromosome))
-                continue;
-
-            final ChromosomePipeline pipeline = new ChromosomePipeline(
-                    chromosome, mConfig, mRefData, recalibrationMap, msiJitterCalcs, coverage, mPhaseSetCounter, mVcfWriter, mFragmentLengths);
+            if(mConfig.Common.processChromosome(chromosome))
+                chromosomes.add(chromosome);
+        }
 
-            pipeline.process();
+        if(mConfig.AdaptivePartitions)
+        {
+            try(GenomePipeline pipeline = new GenomePipeline(
+                    chromosomes, mConfig, mRefData, recalibrationMap, msiJitterCalcs, coverage, mPhaseSetCounter, mVcfWriter,
+                    mFragmentLengths))
+            {
+                pipeline.process();
+            }
+        }
+        else
+        {
+            for(String chromosome : chromosomes)
+            {
+                final ChromosomePipeline pipeline = new ChromosomePipeline(
+                        chromosome, mConfig, mRefData, recalibrationMap, msiJitterCalcs, coverage, mPhaseSetCounter, mVcfWriter,
+                        mFragmentLengths);
+
+                pipeline.process();
+            }
         }
 
         coverage.writeFiles(mConfig.Common.OutputFile);
@@ -1,21 +1,34 @@
 package com.hartwig.hmftools.sage;
 
 import static com.hartwig.hmftools.common.ensemblcache.EnsemblDataCache.addEnsemblDir;
+import static com.hartwig.hmftools.common.utils.TaskExecutor.THREADS;
+import static com.hartwig.hmftools.common.utils.config.CommonConfig.REFERENCE;
+import static com.hartwig.hmftools.common.utils.config.CommonConfig.REFERENCE_BAM;
 import static com.hartwig.hmftools.common.utils.config.CommonConfig.TUMOR;
 import static com.hartwig.hmftools.common.utils.config.CommonConfig.TUMOR_BAM;
 import static com.hartwig.hmftools.common.utils.config.CommonConfig.TUMOR_BAMS_DESC;
 import static com.hartwig.hmftools.common.utils.config.CommonConfig.TUMOR_IDS_DESC;
+import static com.hartwig.hmftools.common.utils.config.ConfigUtils.LOG_DEBUG;
+import static com.hartwig.hmftools.common.utils.config.ConfigUtils.LOG_LEVEL;
 import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.checkAddDirSeparator;
+import static com.hartwig.hmftools.common.utils.file.FileWriterUtils.checkCreateOutputDir;
 import static com.hartwig.hmftools.sage.SageCommon.SAMPLE_DELIM;
 import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
+import static com.hartwig.hmftools.sage.SageConfig.OUTPUT_VCF;
+import static com.hartwig.hmftools.sage.SageConfig.PERF_WARN_TIME;
 import static com.hartwig.hmftools.sage.SageConfig.registerCommonConfig;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
 import com.hartwig.hmftools.common.utils.config.ConfigBuilder;
+import com.hartwig.hmftools.common.utils.config.ConfigItem;
 
 import org.apache.logging.log4j.util.Strings;
 
@@ -30,6 +43,13 @@ public class SageCallConfig
     public final String PanelBed;
     public final String Hotspots;
     public final boolean PanelOnly;
+    public final boolean PrefetchEvidenceReads;
+    public final boolean AdaptivePartitions;
+    public final String CheckpointDir;
+
+    // identify the config and input files which checkpoints were written with, so a checkpoint from another setup is not reused
+    public final long CandidateCheckpointHash;
+    public final long ResultsCheckpointHash;
 
     private final String mResourceDir;
 
@@ -39,6 +59,13 @@ public class SageCallConfig
     private static final String PANEL_BED = "panel_bed";
     private static final String HOTSPOTS = "hotspots";
     private static final String PANEL_ONLY = "panel_only";
+    private static final String PREFETCH_EVIDENCE_READS = "prefetch_evidence_reads";
+    private static final String ADAPTIVE_PARTITIONS = "adaptive_partitions";
+    private static final String CHECKPOINT_DIR = "checkpoint_dir";
+
+    // config which has no bearing on the variants called
+    private static final Set<String> CHECKPOINT_IGNORED_CONFIG = Sets.newHashSet(
+            CHECKPOINT_DIR, PREFETCH_EVIDENCE_READS, THREADS, LOG_DEBUG, LOG_LEVEL, OUTPUT_VCF, PERF_WARN_TIME);
 
     public SageCallConfig(final String version, final ConfigBuilder configBuilder)
     {
@@ -65,6 +92,52 @@ public class SageCallConfig
         Hotspots = getReferenceFile(configBuilder, HOTSPOTS);
 
         PanelOnly = configBuilder.hasFlag(PANEL_ONLY);
+        PrefetchEvidenceReads = configBuilder.hasFlag(PREFETCH_EVIDENCE_READS);
+        AdaptivePartitions = configBuilder.hasFlag(ADAPTIVE_PARTITIONS);
+        CheckpointDir = configBuilder.hasValue(CHECKPOINT_DIR) ? checkAddDirSeparator(configBuilder.getValue(CHECKPOINT_DIR)) : null;
+
+        if(CheckpointDir != null)
+        {
+            // candidates don't depend on the reference samples, so can be reused when these change
+            List<String> candidateFiles = Lists.newArrayList(Common.RefGenomeFile, PanelBed, Hotspots, HighConfidenceBed, CoverageBed);
+            candidateFiles.addAll(TumorBams);
+
+            Set<String> candidateIgnored = Sets.newHashSet(CHECKPOINT_IGNORED_CONFIG);
+            candidateIgnored.add(REFERENCE);
+            candidateIgnored.add(REFERENCE_BAM);
+
+            CandidateCheckpointHash = checkpointHash(configBuilder, candidateIgnored, candidateFiles);
+
+            List<String> resultsFiles = Lists.newArrayList(candidateFiles);
+            resultsFiles.addAll(Common.ReferenceBams);
+
+            ResultsCheckpointHash = checkpointHash(configBuilder, CHECKPOINT_IGNORED_CONFIG, resultsFiles);
+        }
+        else
+        {
+            CandidateCheckpointHash = 0;
+            ResultsCheckpointHash = 0;
+        }
+    }
+
+    private long checkpointHash(final ConfigBuilder configBuilder, final Set<String> ignoredConfig, final List<String> inputFiles)
+    {
+        // hash the version, config values and the size and modified time of each input file
+        StringBuilder sb = new StringBuilder(Common.Version);
+
+        for(ConfigItem item : configBuilder.items())
+        {
+            if(!ignoredConfig.contains(item.Name))
+                sb.append(';').append(item.Name).append('=').append(item.value());
+        }
+
+        for(String inputFile : inputFiles)
+        {
+            File file = new File(inputFile);
+            sb.append(';').append(inputFile).append(':').append(file.length()).append(':').append(file.lastModified());
+        }
+
+        return Hashing.murmur3_128().hashString(sb, StandardCharsets.UTF_8).asLong();
     }
 
     public boolean isValid()
@@ -93,6 +166,12 @@ public class SageCallConfig
             return false;
         }
 
+        if(CheckpointDir != null && !checkCreateOutputDir(CheckpointDir))
+        {
+            SG_LOGGER.error("failed to create checkpoint directory({})", CheckpointDir);
+            return false;
+        }
+
         return true;
     }
 
@@ -119,6 +198,18 @@ public class SageCallConfig
         configBuilder.addPrefixedPath(COVERAGE_BED, false, "Coverage is calculated for optionally supplied bed", RESOURCE_DIR);
         configBuilder.addFlag(PANEL_ONLY, "Only examine panel for variants");
 
+        configBuilder.addFlag(
+                PREFETCH_EVIDENCE_READS,
+                "Prefetch each evidence pass's BAM reads on a background thread, overlapping decoding with evidence collection");
+
+        configBuilder.addFlag(
+                ADAPTIVE_PARTITIONS,
+                "Size partitions from BAM index read density, splitting deep regions, and process all chromosomes' partitions from one queue");
+
+        configBuilder.addConfigItem(
+                CHECKPOINT_DIR, false,
+                "Directory for per-partition checkpoints, reused by a rerun with the same config to skip completed partitions");
+
         registerCommonConfig(configBuilder);
         addEnsemblDir(configBuilder);
     }
@@ -133,6 +224,11 @@ public class SageCallConfig
         PanelBed = "panel";
         Hotspots = "hotspots";
         PanelOnly = false;
+        PrefetchEvidenceReads = false;
+        AdaptivePartitions = false;
+        CheckpointDir = null;
+        CandidateCheckpointHash = 0;
+        ResultsCheckpointHash = 0;
         mResourceDir = "";
     }
 }
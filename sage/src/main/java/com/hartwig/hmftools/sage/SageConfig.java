@@ -99,7 +99,7 @@ public class SageConfig
     // allow Sage to auto-adjust to the longest observed read length
     private int mReadLength;
 
-    private static final String OUTPUT_VCF = "output_vcf";
+    public static final String OUTPUT_VCF = "output_vcf";
     private static final String MIN_MAP_QUALITY = "min_map_quality";
     private static final String MAX_READ_DEPTH = "max_read_depth";
     private static final String MAX_READ_DEPTH_PANEL = "max_read_depth_panel";
@@ -115,7 +115,7 @@ public class SageConfig
     private static final String SPECIFIC_POSITIONS = "specific_positions";
     private static final String LOG_EVIDENCE_READS = "log_evidence_reads";
     private static final String LOG_LPS_DATA = "log_lps_data";
-    private static final String PERF_WARN_TIME = "perf_warn_time";
+    public static final String PERF_WARN_TIME = "perf_warn_time";
 
     public SageConfig(final String version, final ConfigBuilder configBuilder)
     {
@@ -16,6 +16,12 @@ public class SageConstants
     public static final int REGION_BLOCK_SIZE = 100;
     public static final int DEFAULT_MAX_PARTITION_SLICES = 10;
 
+    // adaptive partitioning - read density is estimated in units of a quarter slice, which combine up to 4 slices in sparse regions
+    // and split down to 5KB in deep regions
+    public static final int ADAPTIVE_PARTITION_UNITS = 4;
+    public static final int ADAPTIVE_PARTITION_MAX_SLICES = 4;
+    public static final int ADAPTIVE_PARTITION_MIN_SIZE = 5_000;
+
     public static final int DEFAULT_READ_LENGTH = 151;
 
     // read context building
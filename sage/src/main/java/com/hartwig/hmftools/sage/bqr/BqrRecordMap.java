@@ -1,7 +1,9 @@
 package com.hartwig.hmftools.sage.bqr;
 
+import static com.hartwig.hmftools.common.codon.Nucleotides.DNA_BASE_BYTES;
 import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -12,32 +14,114 @@ import com.hartwig.hmftools.common.qual.BqrRecord;
 
 public class BqrRecordMap
 {
-    // recalibration results per sampleId
-    private final Map<BqrKey, BqrRecord> mMap;
+    // recalibration results for a sample, held in a dense table indexed by read type, quality, ref, alt and trinucleotide context
+    // so lookups require no allocation - the table is immutable once built and so is shared across threads
+    private final double[] mRecalibratedQuals; // NaN where no record exists
+    private final int[] mQualIndex; // index into the table for each raw quality, or -1 if no record has that quality
+    private final int mQualCount;
+
+    // records with a non-standard base or context, not expected in practice
+    private final Map<BqrKey,BqrRecord> mOtherRecords;
+
+    private static final int BASE_COUNT = 4;
+    private static final int QUAL_ENTRIES = BASE_COUNT * BASE_COUNT * BASE_COUNT * BASE_COUNT * BASE_COUNT; // ref, alt and 3 context bases
+    private static final int READ_TYPE_COUNT = BqrReadType.values().length;
+    private static final int NO_INDEX = -1;
+
+    private static final int[] BASE_INDEX = new int[256];
+
+    static
+    {
+        Arrays.fill(BASE_INDEX, NO_INDEX);
+
+        for(int i = 0; i < DNA_BASE_BYTES.length; ++i)
+        {
+            BASE_INDEX[DNA_BASE_BYTES[i]] = i;
+        }
+    }
 
     public BqrRecordMap(final List<BqrRecord> records)
     {
-        mMap = Maps.newHashMap();
+        mQualIndex = new int[256];
+        Arrays.fill(mQualIndex, NO_INDEX);
+
+        int qualCount = 0;
+
+        for(BqrRecord record : records)
+        {
+            int qualKey = Byte.toUnsignedInt(record.Key.Quality);
+
+            if(mQualIndex[qualKey] == NO_INDEX)
+                mQualIndex[qualKey] = qualCount++;
+        }
+
+        mQualCount = qualCount;
+        mRecalibratedQuals = new double[READ_TYPE_COUNT * mQualCount * QUAL_ENTRIES];
+        Arrays.fill(mRecalibratedQuals, Double.NaN);
+
+        mOtherRecords = Maps.newHashMap();
 
         for(BqrRecord record : records)
         {
-            if(mMap.containsKey(record.Key))
+            BqrKey key = record.Key;
+
+            int index = tableIndex(key.Ref, key.Alt, key.TrinucleotideContext, key.Quality, key.ReadType);
+
+            if(index == NO_INDEX)
+            {
+                BqrRecord existing = mOtherRecords.get(key);
+
+                if(existing != null)
+                    SG_LOGGER.error("duplicate key({}) with existing key({}) count({})", key, existing.Key, existing.Count);
+                else
+                    mOtherRecords.put(key, record);
+            }
+            else if(!Double.isNaN(mRecalibratedQuals[index]))
             {
-                BqrRecord existing = mMap.get(record.Key);
-                SG_LOGGER.error("duplicate key({}) with existing key({}) count({})", record.Key, existing.Key, existing.Count);
+                SG_LOGGER.error("duplicate key({}) with existing recalibrated qual({})", key, mRecalibratedQuals[index]);
             }
             else
             {
-                mMap.put(record.Key, record);
+                mRecalibratedQuals[index] = record.RecalibratedQuality;
             }
         }
     }
 
     public double getQualityAdjustment(byte ref, byte alt, byte[] trinucleotideContext, byte qual, BqrReadType readType)
     {
-        final BqrKey key = new BqrKey(ref, alt, trinucleotideContext, qual, readType);
+        int index = tableIndex(ref, alt, trinucleotideContext, qual, readType);
+
+        if(index == NO_INDEX)
+        {
+            if(mOtherRecords.isEmpty())
+                return qual;
+
+            BqrRecord record = mOtherRecords.get(new BqrKey(ref, alt, trinucleotideContext, qual, readType));
+            return record != null ? record.RecalibratedQuality : qual;
+        }
+
+        double recalibratedQual = mRecalibratedQuals[index];
+        return Double.isNaN(recalibratedQual) ? qual : recalibratedQual;
+    }
+
+    private int tableIndex(byte ref, byte alt, final byte[] trinucleotideContext, byte qual, final BqrReadType readType)
+    {
+        int qualIndex = mQualIndex[Byte.toUnsignedInt(qual)];
+
+        if(qualIndex == NO_INDEX || trinucleotideContext == null || trinucleotideContext.length != 3)
+            return NO_INDEX;
+
+        int refIndex = BASE_INDEX[Byte.toUnsignedInt(ref)];
+        int altIndex = BASE_INDEX[Byte.toUnsignedInt(alt)];
+        int prevIndex = BASE_INDEX[Byte.toUnsignedInt(trinucleotideContext[0])];
+        int midIndex = BASE_INDEX[Byte.toUnsignedInt(trinucleotideContext[1])];
+        int nextIndex = BASE_INDEX[Byte.toUnsignedInt(trinucleotideContext[2])];
+
+        // any non-standard base makes the combined bits negative
+        if((refIndex | altIndex | prevIndex | midIndex | nextIndex) < 0)
+            return NO_INDEX;
 
-        BqrRecord record = mMap.get(key);
-        return record != null ? record.RecalibratedQuality : qual;
+        int index = (readType.ordinal() * mQualCount + qualIndex) * QUAL_ENTRIES;
+        return index + (refIndex << 8 | altIndex << 6 | prevIndex << 4 | midIndex << 2 | nextIndex);
     }
 }
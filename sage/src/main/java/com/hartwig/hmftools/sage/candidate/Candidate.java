@@ -40,6 +40,7 @@ public class Candidate
     public SimpleVariant variant() { return mReadContext.variant(); }
     public VariantReadContext readContext() { return mReadContext; }
     public int minNumberOfEvents() { return mMinNumberOfEvents; }
+    public int readContextSupport() { return mReadContextSupport; }
     public String chromosome() { return mReadContext.variant().Chromosome; }
     public int position() { return mReadContext.variant().Position; }
 
@@ -0,0 +1,190 @@
+package com.hartwig.hmftools.sage.candidate;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.sage.SageCommon.SAMPLE_DELIM;
+import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
+import com.hartwig.hmftools.sage.common.RefSequence;
+import com.hartwig.hmftools.sage.common.SimpleVariant;
+import com.hartwig.hmftools.sage.common.VariantReadContext;
+import com.hartwig.hmftools.sage.common.VariantReadContextBuilder;
+import com.hartwig.hmftools.sage.common.VariantTier;
+
+import org.jetbrains.annotations.Nullable;
+
+import htsjdk.samtools.SAMRecord;
+
+public class CandidateCheckpoint
+{
+    // a partition's candidates written once candidate discovery completes, so a rerun can skip discovery for that partition
+    // read contexts are stored as their read bases, cigar and variant index, and rebuilt against the ref sequence as from the VCF
+    public final List<Candidate> Candidates;
+    public final int TotalReadsProcessed;
+
+    private static final int FORMAT_VERSION = 2;
+    private static final String FILE_EXTENSION = ".sage.candidates.bin";
+
+    public CandidateCheckpoint(final List<Candidate> candidates, int totalReadsProcessed)
+    {
+        Candidates = candidates;
+        TotalReadsProcessed = totalReadsProcessed;
+    }
+
+    public static String checkpointFilename(final String checkpointDir, final ChrBaseRegion region)
+    {
+        return format("%s%s_%d_%d%s", checkpointDir, region.Chromosome, region.start(), region.end(), FILE_EXTENSION);
+    }
+
+    public static void write(
+            final String filename, final ChrBaseRegion region, final List<String> tumorIds, long configHash,
+            final List<Candidate> candidates, int totalReadsProcessed)
+    {
+        // write to a temporary file and then move it into place, so an interrupted write never leaves a partial checkpoint
+        File tempFile = new File(filename + ".tmp");
+
+        try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))
+        {
+            output.writeInt(FORMAT_VERSION);
+            output.writeLong(configHash);
+            output.writeUTF(String.join(SAMPLE_DELIM, tumorIds));
+            output.writeUTF(region.Chromosome);
+            output.writeInt(region.start());
+            output.writeInt(region.end());
+            output.writeInt(totalReadsProcessed);
+            output.writeInt(candidates.size());
+
+            for(Candidate candidate : candidates)
+            {
+                VariantReadContext readContext = candidate.readContext();
+                SimpleVariant variant = candidate.variant();
+
+                output.writeByte(candidate.tier().ordinal());
+                output.writeInt(candidate.minNumberOfEvents());
+                output.writeInt(candidate.readContextSupport());
+                output.writeInt(variant.Position);
+                output.writeUTF(variant.Ref);
+                output.writeUTF(variant.Alt);
+                output.writeInt(readContext.AlignmentStart);
+                output.writeInt(readContext.VarIndex);
+                output.writeInt(readContext.ReadBases.length);
+                output.write(readContext.ReadBases);
+                output.writeUTF(readContext.readCigar());
+            }
+        }
+        catch(IOException e)
+        {
+            SG_LOGGER.error("region({}) failed to write candidate checkpoint: {}", region, e.toString());
+            tempFile.delete();
+            return;
+        }
+
+        try
+        {
+            Files.move(tempFile.toPath(), new File(filename).toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch(IOException e)
+        {
+            SG_LOGGER.error("region({}) failed to complete candidate checkpoint: {}", region, e.toString());
+            tempFile.delete();
+        }
+    }
+
+    @Nullable
+    public static CandidateCheckpoint read(
+            final String filename, final ChrBaseRegion region, final List<String> tumorIds, long configHash,
+            final RefSequence refSequence, int flankLength)
+    {
+        // returns null if there is no checkpoint or it doesn't match the config, region and samples
+        File file = new File(filename);
+
+        if(!file.exists())
+            return null;
+
+        try(DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+        {
+            int version = input.readInt();
+
+            if(version != FORMAT_VERSION)
+            {
+                SG_LOGGER.warn("region({}) ignoring candidate checkpoint with version({})", region, version);
+                return null;
+            }
+
+            long checkpointConfigHash = input.readLong();
+            String checkpointTumorIds = input.readUTF();
+            String chromosome = input.readUTF();
+            int regionStart = input.readInt();
+            int regionEnd = input.readInt();
+
+            if(checkpointConfigHash != configHash || !checkpointTumorIds.equals(String.join(SAMPLE_DELIM, tumorIds))
+            || !region.matches(new ChrBaseRegion(chromosome, regionStart, regionEnd)))
+            {
+                SG_LOGGER.warn("region({}) ignoring candidate checkpoint with differing config({}) tumors({}) region({}:{}-{})",
+                        region, checkpointConfigHash != configHash ? "changed" : "unchanged", checkpointTumorIds,
+                        chromosome, regionStart, regionEnd);
+                return null;
+            }
+
+            int totalReadsProcessed = input.readInt();
+            int candidateCount = input.readInt();
+            List<Candidate> candidates = Lists.newArrayListWithCapacity(candidateCount);
+
+            VariantReadContextBuilder builder = new VariantReadContextBuilder(flankLength);
+
+            for(int i = 0; i < candidateCount; ++i)
+            {
+                VariantTier tier = VariantTier.values()[input.readByte()];
+                int minNumberOfEvents = input.readInt();
+                int readContextSupport = input.readInt();
+                int position = input.readInt();
+                String ref = input.readUTF();
+                String alt = input.readUTF();
+                int alignmentStart = input.readInt();
+                int varIndex = input.readInt();
+                byte[] readBases = new byte[input.readInt()];
+                input.readFully(readBases);
+                String cigar = input.readUTF();
+
+                SimpleVariant variant = new SimpleVariant(chromosome, position, ref, alt);
+
+                SAMRecord record = new SAMRecord(null);
+                record.setAlignmentStart(alignmentStart);
+                record.setCigarString(cigar);
+                record.setReadBases(readBases);
+                record.setReadName("CANDIDATE");
+
+                VariantReadContext readContext = builder.createContext(variant, record, varIndex, refSequence);
+
+                if(readContext == null)
+                {
+                    SG_LOGGER.warn("region({}) variant({}) failed to recreate read context from checkpoint", region, variant);
+                    return null;
+                }
+
+                candidates.add(new Candidate(tier, readContext, minNumberOfEvents, readContextSupport));
+            }
+
+            return new CandidateCheckpoint(candidates, totalReadsProcessed);
+        }
+        catch(IOException | RuntimeException e)
+        {
+            SG_LOGGER.warn("region({}) failed to read candidate checkpoint: {}", region, e.toString());
+            return null;
+        }
+    }
+}
@@ -86,6 +86,34 @@ public class ReadContextEvidence implements FragmentSyncReadHandler
         if(candidates.isEmpty())
             return Collections.emptyList();
 
+        List<ChrBaseRegion> sliceRegions = buildSliceRegions(candidates);
+
+        initialiseEvidence(candidates, sample, sliceRegions, variantPhaser);
+
+        final SamSlicerInterface samSlicer = samSlicerFactory.getSamSlicer(sample, sliceRegions, false);
+        samSlicer.slice(this::processReadRecord);
+
+        return completeEvidence(sliceRegions);
+    }
+
+    public List<ReadContextCounter> collectEvidence(
+            final List<Candidate> candidates, final String sample, final SamSlicerInterface sampleReads, final VariantPhaser variantPhaser)
+    {
+        // as above but with the sample's reads already being decoded over the candidates' slice regions
+        if(candidates.isEmpty())
+            return Collections.emptyList();
+
+        List<ChrBaseRegion> sliceRegions = buildSliceRegions(candidates);
+
+        initialiseEvidence(candidates, sample, sliceRegions, variantPhaser);
+
+        sampleReads.slice(this::processReadRecord);
+
+        return completeEvidence(sliceRegions);
+    }
+
+    public List<ChrBaseRegion> buildSliceRegions(final List<Candidate> candidates)
+    {
         List<ChrBaseRegion> sliceRegions = buildCandidateRegions(candidates);
 
         // add a buffer around each slice to support variants in soft-clip regions
@@ -95,13 +123,24 @@ public class ReadContextEvidence implements FragmentSyncReadHandler
             sliceRegion.setEnd(sliceRegion.end() + SLICE_SOFT_CLIP_BUFFER);
         }
 
+        return sliceRegions;
+    }
+
+    private static ChrBaseRegion regionBounds(final List<ChrBaseRegion> sliceRegions)
+    {
+        int sliceRegionStart = sliceRegions.get(0).start();
+        int sliceRegionEnd = sliceRegions.get(sliceRegions.size() - 1).end();
+        return new ChrBaseRegion(sliceRegions.get(0).chromosome(), sliceRegionStart, sliceRegionEnd);
+    }
+
+    private void initialiseEvidence(
+            final List<Candidate> candidates, final String sample, final List<ChrBaseRegion> sliceRegions, final VariantPhaser variantPhaser)
+    {
         ++mStats.PartitionCount;
         mStats.SliceCount += sliceRegions.size();
         mStats.SliceLength += sliceRegions.stream().mapToInt(x -> x.baseLength()).sum();
 
-        int sliceRegionStart = sliceRegions.get(0).start();
-        int sliceRegionEnd = sliceRegions.get(sliceRegions.size() - 1).end();
-        ChrBaseRegion regionBounds = new ChrBaseRegion(sliceRegions.get(0).chromosome(), sliceRegionStart, sliceRegionEnd);
+        ChrBaseRegion regionBounds = regionBounds(sliceRegions);
 
         mVariantPhaser = variantPhaser;
 
@@ -129,15 +168,15 @@ public class ReadContextEvidence implements FragmentSyncReadHandler
             if(maxCloseDel >= 5)
                 readContextCounter.setMaxCandidateDeleteLength(maxCloseDel);
         }
+    }
 
-        final SamSlicerInterface samSlicer = samSlicerFactory.getSamSlicer(sample, sliceRegions, false);
-        samSlicer.slice(this::processReadRecord);
-
+    private List<ReadContextCounter> completeEvidence(final List<ChrBaseRegion> sliceRegions)
+    {
         mFragmentSync.emptyCachedReads();
 
         if(mConfig.PerfWarnTime > 0)
         {
-            SG_LOGGER.trace("region({}) evidence stats: {}", regionBounds, mStats);
+            SG_LOGGER.trace("region({}) evidence stats: {}", regionBounds(sliceRegions), mStats);
         }
 
         if(mConfig.Quality.MapQualityRatioFactor > 0)
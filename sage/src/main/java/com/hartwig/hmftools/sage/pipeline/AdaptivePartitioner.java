@@ -0,0 +1,211 @@
+package com.hartwig.hmftools.sage.pipeline;
+
+import static java.lang.Math.ceil;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
+import static com.hartwig.hmftools.sage.SageConstants.ADAPTIVE_PARTITION_MAX_SLICES;
+import static com.hartwig.hmftools.sage.SageConstants.ADAPTIVE_PARTITION_MIN_SIZE;
+import static com.hartwig.hmftools.sage.SageConstants.ADAPTIVE_PARTITION_UNITS;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
+import com.hartwig.hmftools.sage.SageCallConfig;
+
+import org.jetbrains.annotations.Nullable;
+
+import htsjdk.samtools.BAMFileSpan;
+import htsjdk.samtools.BAMIndex;
+import htsjdk.samtools.Chunk;
+import htsjdk.samtools.SamReader;
+import htsjdk.samtools.SamReaderFactory;
+import htsjdk.samtools.cram.ref.ReferenceSource;
+import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+
+public class AdaptivePartitioner
+{
+    // sizes partitions from the read density recorded in the BAM indices, so sparse regions are combined into fewer partitions and
+    // deep regions such as centromeric repeats and amplifications are split, giving threads similar amounts of work per partition
+    private final SageCallConfig mConfig;
+    private final IndexedFastaSequenceFile mRefGenome;
+    private final int mUnitSize;
+
+    public AdaptivePartitioner(final SageCallConfig config, final IndexedFastaSequenceFile refGenome)
+    {
+        mConfig = config;
+        mRefGenome = refGenome;
+        mUnitSize = max(config.Common.RegionSliceSize / ADAPTIVE_PARTITION_UNITS, ADAPTIVE_PARTITION_MIN_SIZE);
+    }
+
+    @Nullable
+    public Map<String,List<ChrBaseRegion>> partition(final List<String> chromosomes)
+    {
+        // returns null if any BAM lacks an index with read density information
+        Map<String,long[]> chromosomeUnitCosts = Maps.newHashMap();
+
+        List<String> allBams = Lists.newArrayList(mConfig.TumorBams);
+        allBams.addAll(mConfig.Common.ReferenceBams);
+
+        for(String bamFile : allBams)
+        {
+            if(!addUnitCosts(bamFile, chromosomes, chromosomeUnitCosts))
+                return null;
+        }
+
+        long[] allCosts = chromosomeUnitCosts.values().stream().flatMapToLong(Arrays::stream).filter(x -> x > 0).sorted().toArray();
+
+        if(allCosts.length == 0)
+        {
+            SG_LOGGER.warn("BAM indices have no read density information, using fixed partitions");
+            return null;
+        }
+
+        // a partition with typical depth has the configured slice size
+        long targetCost = allCosts[allCosts.length / 2] * ADAPTIVE_PARTITION_UNITS;
+        int maxPartitionSize = mConfig.Common.RegionSliceSize * ADAPTIVE_PARTITION_MAX_SLICES;
+
+        Map<String,List<ChrBaseRegion>> chromosomePartitions = Maps.newHashMap();
+        int totalPartitions = 0;
+
+        for(String chromosome : chromosomes)
+        {
+            int chromosomeLength = chromosomeLength(chromosome);
+
+            List<ChrBaseRegion> partitions = buildPartitions(
+                    chromosome, chromosomeLength, chromosomeUnitCosts.get(chromosome), mUnitSize, targetCost,
+                    maxPartitionSize, ADAPTIVE_PARTITION_MIN_SIZE);
+
+            chromosomePartitions.put(chromosome, partitions);
+            totalPartitions += partitions.size();
+        }
+
+        SG_LOGGER.debug("adaptive partitioning: chromosomes({}) partitions({}) unitSize({}) targetCost({})",
+                chromosomes.size(), totalPartitions, mUnitSize, targetCost);
+
+        return chromosomePartitions;
+    }
+
+    private int chromosomeLength(final String chromosome)
+    {
+        return mRefGenome.getSequenceDictionary().getSequence(chromosome).getSequenceLength();
+    }
+
+    private boolean addUnitCosts(final String bamFile, final List<String> chromosomes, final Map<String,long[]> chromosomeUnitCosts)
+    {
+        try(SamReader samReader = SamReaderFactory.makeDefault()
+                .validationStringency(mConfig.Common.BamStringency)
+                .referenceSource(new ReferenceSource(mRefGenome))
+                .open(new File(bamFile)))
+        {
+            if(!samReader.hasIndex())
+            {
+                SG_LOGGER.warn("BAM({}) has no index, using fixed partitions", bamFile);
+                return false;
+            }
+
+            BAMIndex index = samReader.indexing().getIndex();
+
+            for(String chromosome : chromosomes)
+            {
+                int refIndex = samReader.getFileHeader().getSequenceIndex(chromosome);
+
+                int chromosomeLength = chromosomeLength(chromosome);
+                int unitCount = (chromosomeLength - 1) / mUnitSize + 1;
+                long[] unitCosts = chromosomeUnitCosts.computeIfAbsent(chromosome, k -> new long[unitCount]);
+
+                if(refIndex < 0)
+                    continue;
+
+                for(int i = 0; i < unitCount; ++i)
+                {
+                    int unitStart = i * mUnitSize + 1;
+                    int unitEnd = min(unitStart + mUnitSize - 1, chromosomeLength);
+                    unitCosts[i] += indexedBytes(index.getSpanOverlapping(refIndex, unitStart, unitEnd));
+                }
+            }
+
+            return true;
+        }
+        catch(IOException | RuntimeException e)
+        {
+            SG_LOGGER.warn("BAM({}) index read failed, using fixed partitions: {}", bamFile, e.toString());
+            return false;
+        }
+    }
+
+    private static long indexedBytes(@Nullable final BAMFileSpan span)
+    {
+        // the compressed size of the file chunks holding a region's reads, taken from their virtual file offsets
+        if(span == null)
+            return 0;
+
+        long total = 0;
+
+        for(Chunk chunk : span.getChunks())
+        {
+            total += (chunk.getChunkEnd() >>> 16) - (chunk.getChunkStart() >>> 16);
+        }
+
+        return total;
+    }
+
+    public static List<ChrBaseRegion> buildPartitions(
+            final String chromosome, int chromosomeLength, final long[] unitCosts, int unitSize, long targetCost,
+            int maxPartitionSize, int minPartitionSize)
+    {
+        // combine consecutive units until the target cost or maximum size is reached, and split any unit above the target cost
+        List<ChrBaseRegion> partitions = Lists.newArrayList();
+
+        int partitionStart = 1;
+        long partitionCost = 0;
+
+        for(int i = 0; i < unitCosts.length; ++i)
+        {
+            int unitStart = i * unitSize + 1;
+            int unitEnd = min(unitStart + unitSize - 1, chromosomeLength);
+            long unitCost = unitCosts[i];
+
+            if(unitCost > targetCost)
+            {
+                if(partitionStart < unitStart)
+                    partitions.add(new ChrBaseRegion(chromosome, partitionStart, unitStart - 1));
+
+                int unitLength = unitEnd - unitStart + 1;
+                int splitCount = (int)min(ceil(unitCost / (double)targetCost), max(unitLength / minPartitionSize, 1));
+                int splitSize = (int)ceil(unitLength / (double)splitCount);
+
+                for(int splitStart = unitStart; splitStart <= unitEnd; splitStart += splitSize)
+                {
+                    partitions.add(new ChrBaseRegion(chromosome, splitStart, min(splitStart + splitSize - 1, unitEnd)));
+                }
+
+                partitionStart = unitEnd + 1;
+                partitionCost = 0;
+                continue;
+            }
+
+            if(partitionStart < unitStart
+            && (partitionCost + unitCost > targetCost || unitEnd - partitionStart + 1 > maxPartitionSize))
+            {
+                partitions.add(new ChrBaseRegion(chromosome, partitionStart, unitStart - 1));
+                partitionStart = unitStart;
+                partitionCost = 0;
+            }
+
+            partitionCost += unitCost;
+        }
+
+        if(partitionStart <= chromosomeLength)
+            partitions.add(new ChrBaseRegion(chromosome, partitionStart, chromosomeLength));
+
+        return partitions;
+    }
+}
@@ -0,0 +1,228 @@
+package com.hartwig.hmftools.sage.pipeline;
+
+import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
+import com.hartwig.hmftools.common.utils.PerformanceCounter;
+import com.hartwig.hmftools.sage.common.SamSlicerFactory;
+import com.hartwig.hmftools.sage.common.SamSlicerInterface;
+
+import htsjdk.samtools.SAMRecord;
+import htsjdk.samtools.SAMTag;
+
+public class EvidenceReadPrefetch
+{
+    private final ExecutorService mExecutor;
+    private final SamSlicerFactory mSamSlicerFactory;
+    private final PerformanceCounter mPerfCounter; // time the evidence thread waits for decoded reads, only used by that thread
+
+    // decoded reads are handed over in batches through a bounded queue, with an empty batch marking the end of each sample
+    private final BlockingQueue<List<SAMRecord>> mReadBatches;
+
+    private List<String> mSamples;
+    private int mNextSampleIndex;
+    private Future<?> mSweep;
+    private CountDownLatch mSweepDone;
+    private AtomicBoolean mSweepStarted;
+    private volatile Throwable mSweepError;
+
+    private List<SAMRecord> mReadBatch; // only used by the decoding thread
+
+    public static final int READ_BATCH_SIZE = 256;
+    public static final int MAX_QUEUED_BATCHES = 16;
+
+    private static final long SWEEP_POLL_MS = 100;
+
+    private static final List<SAMRecord> SAMPLE_END = Collections.emptyList();
+
+    public EvidenceReadPrefetch(
+            final ExecutorService executor, final SamSlicerFactory samSlicerFactory, final PerformanceCounter perfCounter)
+    {
+        mExecutor = executor;
+        mSamSlicerFactory = samSlicerFactory;
+        mPerfCounter = perfCounter;
+        mReadBatches = new ArrayBlockingQueue<>(MAX_QUEUED_BATCHES);
+
+        mSamples = null;
+        mNextSampleIndex = 0;
+        mSweep = null;
+        mSweepDone = null;
+        mSweepStarted = null;
+        mSweepError = null;
+        mReadBatch = null;
+    }
+
+    public void startSweep(final List<String> samples, final List<ChrBaseRegion> sliceRegions)
+    {
+        // decode each sample's reads over the slice regions in turn on the background thread, which runs ahead of the evidence
+        // thread by at most the queue's capacity
+        cancel();
+
+        mSamples = samples;
+        mNextSampleIndex = 0;
+        mSweepError = null;
+        mSweepDone = new CountDownLatch(1);
+        mSweepStarted = new AtomicBoolean(false);
+
+        CountDownLatch sweepDone = mSweepDone;
+        AtomicBoolean sweepStarted = mSweepStarted;
+        mSweep = mExecutor.submit(() -> decodeSamples(samples, sliceRegions, sweepStarted, sweepDone));
+    }
+
+    public SamSlicerInterface sampleReads(final String sample)
+    {
+        // samples' reads must be taken in the order they were decoded
+        if(mSweep == null || mNextSampleIndex >= mSamples.size() || !mSamples.get(mNextSampleIndex).equals(sample))
+            throw new IllegalStateException("sample(" + sample + ") not next in read prefetch sweep");
+
+        ++mNextSampleIndex;
+        return this::takeSampleReads;
+    }
+
+    private void takeSampleReads(final Consumer<SAMRecord> consumer)
+    {
+        try
+        {
+            while(true)
+            {
+                mPerfCounter.start();
+                List<SAMRecord> readBatch = mReadBatches.poll(SWEEP_POLL_MS, TimeUnit.MILLISECONDS);
+                mPerfCounter.stop();
+
+                if(readBatch == null)
+                {
+                    // the sweep has stopped without completing this sample
+                    if(mSweepDone.getCount() == 0 && mReadBatches.isEmpty())
+                    {
+                        Throwable cause = mSweepError != null ? mSweepError : new IllegalStateException("sweep ended early");
+                        SG_LOGGER.error("read prefetch failed: {}", cause.toString());
+                        throw new IllegalStateException(cause);
+                    }
+
+                    continue;
+                }
+
+                if(readBatch == SAMPLE_END)
+                    break;
+
+                readBatch.forEach(consumer);
+            }
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("read prefetch interrupted", e);
+        }
+    }
+
+    public void cancel()
+    {
+        // interrupt any decode still running and wait for it to stop, so the BAM readers are free for the next sweep
+        if(mSweep == null)
+            return;
+
+        mSweep.cancel(true);
+
+        try
+        {
+            // a sweep cancelled before it started never runs, otherwise wait for it to finish
+            if(!mSweepStarted.compareAndSet(false, true))
+                mSweepDone.await();
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        mReadBatches.clear();
+        mSweep = null;
+        mSamples = null;
+    }
+
+    private void decodeSamples(
+            final List<String> samples, final List<ChrBaseRegion> sliceRegions, final AtomicBoolean sweepStarted,
+            final CountDownLatch sweepDone)
+    {
+        if(!sweepStarted.compareAndSet(false, true))
+            return;
+
+        try
+        {
+            for(String sample : samples)
+            {
+                decodeSampleReads(sample, sliceRegions);
+            }
+        }
+        catch(SweepCancelledException e)
+        {
+            // stopped by the evidence thread
+        }
+        catch(Throwable e)
+        {
+            mSweepError = e;
+        }
+        finally
+        {
+            sweepDone.countDown();
+        }
+    }
+
+    private void decodeSampleReads(final String sample, final List<ChrBaseRegion> sliceRegions)
+    {
+        mReadBatch = Lists.newArrayListWithCapacity(READ_BATCH_SIZE);
+
+        SamSlicerInterface samSlicer = mSamSlicerFactory.getSamSlicer(sample, sliceRegions, false);
+
+        samSlicer.slice(record ->
+        {
+            // complete the lazy decoding of variable-length fields here rather than on the evidence thread
+            record.getCigar();
+            record.getReadBases();
+            record.getBaseQualities();
+            record.hasAttribute(SAMTag.NM.name());
+
+            mReadBatch.add(record);
+
+            if(mReadBatch.size() >= READ_BATCH_SIZE)
+            {
+                putBatch(mReadBatch);
+                mReadBatch = Lists.newArrayListWithCapacity(READ_BATCH_SIZE);
+            }
+        });
+
+        if(!mReadBatch.isEmpty())
+            putBatch(mReadBatch);
+
+        mReadBatch = null;
+
+        putBatch(SAMPLE_END);
+    }
+
+    private void putBatch(final List<SAMRecord> readBatch)
+    {
+        try
+        {
+            mReadBatches.put(readBatch);
+        }
+        catch(InterruptedException e)
+        {
+            throw new SweepCancelledException();
+        }
+    }
+
+    private static class SweepCancelledException extends RuntimeException
+    {
+    }
+}
@@ -5,6 +5,8 @@ import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
 import java.util.List;
 import java.util.Map;
 
+import javax.annotation.Nullable;
+
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeInterface;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
 import com.hartwig.hmftools.sage.candidate.Candidate;
@@ -26,13 +28,23 @@ public class EvidenceStage
 
     private final ReadContextEvidence mReadContextEvidence;
     private final VariantPhaser mVariantPhaser;
+    private final EvidenceReadPrefetch mReadPrefetch;
 
     public EvidenceStage(
             final SageConfig config, final RefGenomeInterface refGenome, final Map<String, BqrRecordMap> qualityRecalibrationMap,
             final MsiJitterCalcs msiJitterCalcs, final PhaseSetCounter phaseSetCounter, final SamSlicerFactory samSlicerFactory)
+    {
+        this(config, refGenome, qualityRecalibrationMap, msiJitterCalcs, phaseSetCounter, samSlicerFactory, null);
+    }
+
+    public EvidenceStage(
+            final SageConfig config, final RefGenomeInterface refGenome, final Map<String, BqrRecordMap> qualityRecalibrationMap,
+            final MsiJitterCalcs msiJitterCalcs, final PhaseSetCounter phaseSetCounter, final SamSlicerFactory samSlicerFactory,
+            @Nullable final EvidenceReadPrefetch readPrefetch)
     {
         mConfig = config;
         mSamSlicerFactory = samSlicerFactory;
+        mReadPrefetch = readPrefetch;
 
         mReadContextEvidence = new ReadContextEvidence(config, refGenome, qualityRecalibrationMap, msiJitterCalcs);
         mVariantPhaser = new VariantPhaser(phaseSetCounter);
@@ -48,16 +60,34 @@ public class EvidenceStage
         int sampleCount = samples.size();
         final ReadContextCounters readContextCounters = new ReadContextCounters(mConfig, candidates);
 
-        for(int i = 0; i < samples.size(); i++)
+        // with read prefetch the samples' BAMs are decoded in turn over the candidates' slice regions on a background thread,
+        // streamed to this thread as their evidence is collected
+        boolean useReadPrefetch = mReadPrefetch != null && !candidates.isEmpty();
+
+        if(useReadPrefetch)
+            mReadPrefetch.startSweep(samples, mReadContextEvidence.buildSliceRegions(candidates));
+
+        try
         {
-            final String sample = samples.get(i);
+            for(int i = 0; i < samples.size(); i++)
+            {
+                final String sample = samples.get(i);
+
+                boolean collectPhasingGroups = checkPhasing && (i == 0);
 
-            boolean collectPhasingGroups = checkPhasing && (i == 0);
+                VariantPhaser variantPhaser = collectPhasingGroups ? mVariantPhaser : null;
 
-            List<ReadContextCounter> readCounters = mReadContextEvidence.collectEvidence(
-                    candidates, sample, mSamSlicerFactory, collectPhasingGroups ? mVariantPhaser : null);
+                List<ReadContextCounter> readCounters = useReadPrefetch ?
+                        mReadContextEvidence.collectEvidence(candidates, sample, mReadPrefetch.sampleReads(sample), variantPhaser) :
+                        mReadContextEvidence.collectEvidence(candidates, sample, mSamSlicerFactory, variantPhaser);
 
-            readContextCounters.addCounters(readCounters, sampleCount);
+                readContextCounters.addCounters(readCounters, sampleCount);
+            }
+        }
+        finally
+        {
+            if(useReadPrefetch)
+                mReadPrefetch.cancel(); // completes immediately once all samples are read
         }
 
         SG_LOGGER.trace("region({}) gathered {} evidence for {} variants",
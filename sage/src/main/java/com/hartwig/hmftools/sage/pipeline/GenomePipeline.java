@@ -0,0 +1,142 @@
+package com.hartwig.hmftools.sage.pipeline;
+
+import static java.lang.Math.min;
+
+import static com.hartwig.hmftools.common.region.BaseRegion.positionsOverlap;
+import static com.hartwig.hmftools.common.utils.TaskExecutor.runThreadTasks;
+import static com.hartwig.hmftools.sage.ReferenceData.loadRefGenome;
+import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.genome.chromosome.MitochondrialChromosome;
+import com.hartwig.hmftools.common.region.BaseRegion;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
+import com.hartwig.hmftools.sage.ReferenceData;
+import com.hartwig.hmftools.sage.SageCallConfig;
+import com.hartwig.hmftools.sage.bqr.BqrRecordMap;
+import com.hartwig.hmftools.sage.common.PartitionTask;
+import com.hartwig.hmftools.sage.coverage.Coverage;
+import com.hartwig.hmftools.sage.evidence.FragmentLengths;
+import com.hartwig.hmftools.sage.phase.PhaseSetCounter;
+import com.hartwig.hmftools.sage.quality.MsiJitterCalcs;
+import com.hartwig.hmftools.sage.vcf.VcfWriter;
+
+import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+
+public class GenomePipeline implements AutoCloseable
+{
+    // processes all chromosomes' partitions from one queue in genome order, so threads move on to the next chromosome's partitions
+    // rather than waiting for a chromosome's last partitions to complete, and task IDs run across the genome so the VCF writer
+    // still writes variants in order
+    private final SageCallConfig mConfig;
+    private final ReferenceData mRefData;
+    private final IndexedFastaSequenceFile mRefGenome;
+
+    private final Map<String,BqrRecordMap> mQualityRecalibrationMap;
+    private final MsiJitterCalcs mMsiJitterCalcs;
+    private final Coverage mCoverage;
+    private final PhaseSetCounter mPhaseSetCounter;
+
+    private final VcfWriter mVcfWriter;
+    private final FragmentLengths mFragmentLengths;
+    private final Queue<PartitionTask> mPartitions;
+    private final RegionResults mRegionResults;
+
+    public GenomePipeline(
+            final List<String> chromosomes, final SageCallConfig config,
+            final ReferenceData refData, final Map<String,BqrRecordMap> qualityRecalibrationMap, final MsiJitterCalcs msiJitterCalcs,
+            final Coverage coverage, final PhaseSetCounter phaseSetCounter, final VcfWriter vcfWriter, final FragmentLengths fragmentLengths)
+    {
+        mConfig = config;
+        mRefData = refData;
+        mRefGenome = loadRefGenome(config.Common.RefGenomeFile);
+        mQualityRecalibrationMap = qualityRecalibrationMap;
+        mMsiJitterCalcs = msiJitterCalcs;
+        mCoverage = coverage;
+        mPhaseSetCounter = phaseSetCounter;
+
+        mVcfWriter = vcfWriter;
+        mFragmentLengths = fragmentLengths;
+
+        mPartitions = new ConcurrentLinkedQueue<>();
+        mRegionResults = new RegionResults(vcfWriter);
+
+        // specific regions keep their fixed partitioning, otherwise partitions are sized from read density where the BAMs allow
+        Map<String,List<ChrBaseRegion>> adaptivePartitions = mConfig.Common.SpecificChrRegions.Regions.isEmpty()
+                ? new AdaptivePartitioner(config, mRefGenome).partition(chromosomes) : null;
+
+        ChromosomePartition chrPartition = new ChromosomePartition(config.Common, mRefGenome);
+
+        int taskId = 0;
+
+        for(String chromosome : chromosomes)
+        {
+            List<ChrBaseRegion> partitionedRegions = adaptivePartitions != null
+                    ? adaptivePartitions.get(chromosome) : chrPartition.partition(chromosome);
+
+            final Chromosome chr = HumanChromosome.contains(chromosome)
+                    ? HumanChromosome.fromString(chromosome) : MitochondrialChromosome.fromString(chromosome);
+
+            List<BaseRegion> panelRegions = refData.PanelWithHotspots.get(chr);
+
+            for(ChrBaseRegion region : partitionedRegions)
+            {
+                if(mConfig.PanelOnly && (panelRegions == null || panelRegions.stream()
+                        .noneMatch(x -> positionsOverlap(region.start(), region.end(), x.start(), x.end()))))
+                {
+                    continue;
+                }
+
+                mPartitions.add(new PartitionTask(region, taskId++));
+            }
+        }
+    }
+
+    public void process()
+    {
+        int regionCount = mPartitions.size();
+        SG_LOGGER.info("executing {} regions across all chromosomes", regionCount);
+
+        List<Thread> workers = new ArrayList<>();
+
+        for(int i = 0; i < min(mPartitions.size(), mConfig.Common.Threads); ++i)
+        {
+            workers.add(new RegionThread(
+                    mConfig, mRefData, mQualityRecalibrationMap, mMsiJitterCalcs, mCoverage, mPhaseSetCounter,
+                    mPartitions, mRegionResults, mFragmentLengths));
+        }
+
+        if(!runThreadTasks(workers))
+            System.exit(1);
+
+        SG_LOGGER.debug("{} regions complete, initial candidates({}) final variants({}) reads({})",
+                regionCount, mRegionResults.totalCandidates(), mRegionResults.totalVariants(), mRegionResults.totalReads());
+
+        mVcfWriter.flushChromosome();
+
+        if(mConfig.Common.logPerfStats())
+        {
+            mRegionResults.logPerfCounters();
+            SG_LOGGER.debug("evidence stats: {}", mRegionResults.evidenceStats().toString());
+        }
+
+        if(mConfig.Common.SyncFragments)
+            mRegionResults.logSynCounts();
+
+        SG_LOGGER.info("all chromosomes analysis complete");
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        mRefGenome.close();
+    }
+}
@@ -15,6 +15,8 @@ import com.hartwig.hmftools.sage.evidence.EvidenceStats;
 import com.hartwig.hmftools.sage.sync.FragmentSyncType;
 import com.hartwig.hmftools.sage.vcf.VcfWriter;
 
+import htsjdk.variant.variantcontext.VariantContext;
+
 public class RegionResults
 {
     private final VcfWriter mVcfWriter;
@@ -49,6 +51,14 @@ public class RegionResults
             mVcfWriter.writeVariants(taskId, variants);
     }
 
+    public synchronized void addFinalVariantContexts(final int taskId, final List<VariantContext> variants)
+    {
+        mTotaVariants += variants.size();
+
+        if(mVcfWriter != null)
+            mVcfWriter.writeVariantContexts(taskId, variants);
+    }
+
     public synchronized void addTotalReads(int totalReads)
     {
         mTotalReads += totalReads;
@@ -8,8 +8,11 @@ import static com.hartwig.hmftools.sage.common.RepeatInfo.setReferenceMaxRepeatI
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
+import javax.annotation.Nullable;
+
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.hartwig.hmftools.common.gene.TranscriptData;
@@ -20,6 +23,7 @@ import com.hartwig.hmftools.common.utils.PerformanceCounter;
 import com.hartwig.hmftools.sage.SageCallConfig;
 import com.hartwig.hmftools.sage.bqr.BqrRecordMap;
 import com.hartwig.hmftools.sage.candidate.Candidate;
+import com.hartwig.hmftools.sage.candidate.CandidateCheckpoint;
 import com.hartwig.hmftools.sage.common.RefSequence;
 import com.hartwig.hmftools.sage.common.SageVariant;
 import com.hartwig.hmftools.sage.common.SamSlicerFactory;
@@ -34,8 +38,12 @@ import com.hartwig.hmftools.sage.filter.VariantFilters;
 import com.hartwig.hmftools.sage.phase.PhaseSetCounter;
 import com.hartwig.hmftools.sage.phase.VariantPhaser;
 import com.hartwig.hmftools.sage.quality.MsiJitterCalcs;
+import com.hartwig.hmftools.sage.vcf.VariantContextFactory;
 import com.hartwig.hmftools.sage.vis.VariantVis;
 
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFHeader;
+
 public class RegionTask
 {
     private final ChrBaseRegion mRegion; // region to slice and analyse for this task
@@ -53,11 +61,18 @@ public class RegionTask
     private final List<SageVariant> mSageVariants;
     private final Set<Integer> mPassingPhaseSets;
 
+    private final PhaseSetCounter mPhaseSetCounter;
+    private final boolean mCheckpointResults;
+    private int mTotalReadsProcessed;
+    private int mReportedCandidates;
+    private int mReportedTotalReads;
+
     private final List<PerformanceCounter> mPerfCounters;
 
     public static final int PC_CANDIDATES = 0;
     public static final int PC_EVIDENCE = 1;
     public static final int PC_VARIANTS = 2;
+    public static final int PC_EVIDENCE_PREFETCH_WAIT = 3;
 
     public RegionTask(
             final int taskId, final ChrBaseRegion region, final RegionResults results, final SageCallConfig config,
@@ -65,6 +80,18 @@ public class RegionTask
             final List<TranscriptData> transcripts, final List<BaseRegion> highConfidenceRegions,
             final Map<String, BqrRecordMap> qualityRecalibrationMap, final MsiJitterCalcs msiJitterCalcs, final PhaseSetCounter phaseSetCounter,
             final Coverage coverage, final SamSlicerFactory samSlicerFactory, final FragmentLengths fragmentLengths)
+    {
+        this(taskId, region, results, config, refGenome, hotspots, panelRegions, transcripts, highConfidenceRegions,
+                qualityRecalibrationMap, msiJitterCalcs, phaseSetCounter, coverage, samSlicerFactory, fragmentLengths, null);
+    }
+
+    public RegionTask(
+            final int taskId, final ChrBaseRegion region, final RegionResults results, final SageCallConfig config,
+            final RefGenomeInterface refGenome, final List<SimpleVariant> hotspots, final List<BaseRegion> panelRegions,
+            final List<TranscriptData> transcripts, final List<BaseRegion> highConfidenceRegions,
+            final Map<String, BqrRecordMap> qualityRecalibrationMap, final MsiJitterCalcs msiJitterCalcs, final PhaseSetCounter phaseSetCounter,
+            final Coverage coverage, final SamSlicerFactory samSlicerFactory, final FragmentLengths fragmentLengths,
+            @Nullable final ExecutorService prefetchExecutor)
     {
         mTaskId = taskId;
         mRegion = region;
@@ -73,48 +100,104 @@ public class RegionTask
         mRefGenome = refGenome;
         mFragmentLengths = fragmentLengths;
 
+        mPerfCounters = Lists.newArrayList();
+        mPerfCounters.add(new PerformanceCounter("Candidates"));
+        mPerfCounters.add(new PerformanceCounter("Evidence"));
+        mPerfCounters.add(new PerformanceCounter("Variants"));
+        mPerfCounters.add(new PerformanceCounter("EvidencePrefetchWait", false)); // time spent waiting on prefetched reads
+
         mCandidateState = new CandidateStage(config, hotspots, panelRegions, highConfidenceRegions, coverage, samSlicerFactory);
 
+        // with read prefetch each evidence pass decodes its samples' BAMs on a background thread
+        EvidenceReadPrefetch readPrefetch = prefetchExecutor != null ?
+                new EvidenceReadPrefetch(prefetchExecutor, samSlicerFactory, mPerfCounters.get(PC_EVIDENCE_PREFETCH_WAIT)) : null;
+
         mEvidenceStage = new EvidenceStage(
-                config.Common, refGenome, qualityRecalibrationMap, msiJitterCalcs, phaseSetCounter, samSlicerFactory);
+                config.Common, refGenome, qualityRecalibrationMap, msiJitterCalcs, phaseSetCounter, samSlicerFactory, readPrefetch);
 
         mVariantDeduper = new VariantDeduper(transcripts, mRefGenome, mConfig.Common.getReadLength(), mConfig.Common.Filter);
 
         mSageVariants = Lists.newArrayList();
         mPassingPhaseSets = Sets.newHashSet();
 
-        mPerfCounters = Lists.newArrayList();
-        mPerfCounters.add(new PerformanceCounter("Candidates"));
-        mPerfCounters.add(new PerformanceCounter("Evidence"));
-        mPerfCounters.add(new PerformanceCounter("Variants"));
+        mPhaseSetCounter = phaseSetCounter;
+
+        // a partition's final variants can only stand in for rerunning it if it has no other outputs
+        mCheckpointResults = config.CheckpointDir != null && config.CoverageBed.isEmpty()
+                && !config.Common.WriteFragmentLengths && !config.Common.Visualiser.Enabled;
+
+        mTotalReadsProcessed = 0;
+        mReportedCandidates = 0;
+        mReportedTotalReads = 0;
     }
 
     public final List<SageVariant> getVariants() { return mSageVariants; }
 
     public void run()
     {
+        VCFHeader checkpointHeader = mCheckpointResults ? ResultsCheckpoint.checkpointHeader(mConfig) : null;
+
+        if(checkpointHeader != null && loadResultsCheckpoint(checkpointHeader))
+            return;
+
+        List<VariantContext> finalVariants = processRegion();
+
+        if(checkpointHeader != null)
+        {
+            ResultsCheckpoint results = new ResultsCheckpoint(mReportedCandidates, mReportedTotalReads, finalVariants);
+            ResultsCheckpoint.write(
+                    ResultsCheckpoint.checkpointFilename(mConfig.CheckpointDir, mRegion), mRegion, mConfig.ResultsCheckpointHash,
+                    checkpointHeader, results);
+        }
+    }
+
+    private boolean loadResultsCheckpoint(final VCFHeader checkpointHeader)
+    {
+        ResultsCheckpoint results = ResultsCheckpoint.read(
+                ResultsCheckpoint.checkpointFilename(mConfig.CheckpointDir, mRegion), mRegion, mConfig.ResultsCheckpointHash,
+                checkpointHeader);
+
+        if(results == null)
+            return false;
+
+        SG_LOGGER.trace("{}: region({}) loaded {} variants from checkpoint", mTaskId, mRegion, results.Variants.size());
+
+        if(results.CandidateCount > 0)
+            mResults.addCandidates(results.CandidateCount);
+
+        if(!results.Variants.isEmpty())
+            mResults.addFinalVariantContexts(mTaskId, ResultsCheckpoint.renumberPhaseSets(results.Variants, mPhaseSetCounter));
+
+        mResults.addTotalReads(results.TotalReads);
+        return true;
+    }
+
+    private List<VariantContext> processRegion()
+    {
+        // returns the partition's final variants as written to the VCF, for its results checkpoint
         SG_LOGGER.trace("{}: region({}) finding candidates", mTaskId, mRegion);
 
         final RefSequence refSequence = new RefSequence(mRegion, mRefGenome);
 
         mPerfCounters.get(PC_CANDIDATES).start();
-        List<Candidate> initialCandidates = mCandidateState.findCandidates(mRegion, refSequence);
+        List<Candidate> initialCandidates = findCandidates(refSequence);
         mPerfCounters.get(PC_CANDIDATES).stop();
 
         if(mConfig.Common.PerfWarnTime > 0 && mPerfCounters.get(PC_CANDIDATES).getLastTime() > mConfig.Common.PerfWarnTime)
         {
             SG_LOGGER.warn("region({}) candidate({}) reads({}) processing time({})",
-                    mRegion, initialCandidates.size(), mCandidateState.totalReadsProcessed(),
+                    mRegion, initialCandidates.size(), mTotalReadsProcessed,
                     String.format("%.3f", mPerfCounters.get(PC_CANDIDATES).getLastTime()));
         }
 
         if(initialCandidates.isEmpty())
         {
             SG_LOGGER.trace("{}: region({}) complete with no candidates", mTaskId, mRegion);
-            return;
+            return Lists.newArrayList();
         }
 
         mResults.addCandidates(initialCandidates.size());
+        mReportedCandidates = initialCandidates.size();
 
         SG_LOGGER.trace("{}: region({}) building evidence for {} candidates", mTaskId, mRegion, initialCandidates.size());
 
@@ -134,13 +217,16 @@ public class RegionTask
 
         if(mConfig.Common.PerfWarnTime > 0 && mPerfCounters.get(PC_EVIDENCE).getLastTime() > mConfig.Common.PerfWarnTime)
         {
-            SG_LOGGER.warn("region({}) evidence candidates({}) phasing(g={} c={}) hardFilter({}) processing time({})",
+            SG_LOGGER.warn("region({}) evidence candidates({}) phasing(g={} c={}) hardFilter({}) processing time({}) prefetchWait({})",
                     mRegion, finalCandidates.size(),  variantPhaser.getPhasingGroupCount(), variantPhaser.getPhasedCollections().size(),
-                    tumorEvidence.variantFilters().filterCountsStr(), String.format("%.3f", mPerfCounters.get(PC_EVIDENCE).getLastTime()));
+                    tumorEvidence.variantFilters().filterCountsStr(), String.format("%.3f", mPerfCounters.get(PC_EVIDENCE).getLastTime()),
+                    String.format("%.3f", mPerfCounters.get(PC_EVIDENCE_PREFETCH_WAIT).getTotalTime()));
         }
 
         variantPhaser.signalPhaseReadsEnd();
 
+        List<VariantContext> finalVariants = Lists.newArrayList();
+
         if(!finalCandidates.isEmpty())
         {
             mPerfCounters.get(PC_VARIANTS).start();
@@ -184,13 +270,49 @@ public class RegionTask
 
             mPerfCounters.get(PC_VARIANTS).stop();
 
-            finaliseResults();
+            finalVariants = finaliseResults();
         }
 
         SG_LOGGER.trace("{}: region({}) complete", mTaskId, mRegion);
+        return finalVariants;
+    }
+
+    private List<Candidate> findCandidates(final RefSequence refSequence)
+    {
+        if(mConfig.CheckpointDir == null)
+        {
+            List<Candidate> candidates = mCandidateState.findCandidates(mRegion, refSequence);
+            mTotalReadsProcessed = mCandidateState.totalReadsProcessed();
+            return candidates;
+        }
+
+        String checkpointFile = CandidateCheckpoint.checkpointFilename(mConfig.CheckpointDir, mRegion);
+
+        // coverage is accumulated during candidate discovery, so checkpointed candidates can only be used without it
+        if(mConfig.CoverageBed.isEmpty())
+        {
+            CandidateCheckpoint checkpoint = CandidateCheckpoint.read(
+                    checkpointFile, mRegion, mConfig.TumorIds, mConfig.CandidateCheckpointHash, refSequence,
+                    mConfig.Common.ReadContextFlankLength);
+
+            if(checkpoint != null)
+            {
+                SG_LOGGER.trace("{}: region({}) loaded {} candidates from checkpoint", mTaskId, mRegion, checkpoint.Candidates.size());
+                mTotalReadsProcessed = checkpoint.TotalReadsProcessed;
+                return checkpoint.Candidates;
+            }
+        }
+
+        List<Candidate> candidates = mCandidateState.findCandidates(mRegion, refSequence);
+        mTotalReadsProcessed = mCandidateState.totalReadsProcessed();
+
+        CandidateCheckpoint.write(
+                checkpointFile, mRegion, mConfig.TumorIds, mConfig.CandidateCheckpointHash, candidates, mTotalReadsProcessed);
+
+        return candidates;
     }
 
-    private void finaliseResults()
+    private List<VariantContext> finaliseResults()
     {
         mSageVariants.stream().filter(x -> x.isPassing() && x.hasLocalPhaseSets()).forEach(x -> mPassingPhaseSets.addAll(x.localPhaseSets()));
 
@@ -200,7 +322,19 @@ public class RegionTask
 
         VariantPhaser.removeUninformativeLps(finalVariants, mPassingPhaseSets);
 
-        mResults.addFinalVariants(mTaskId, finalVariants);
+        List<VariantContext> variantContexts = Lists.newArrayList();
+
+        if(mCheckpointResults)
+        {
+            finalVariants.forEach(x -> variantContexts.add(
+                    VariantContextFactory.create(x, mConfig.Common.ReferenceIds, mConfig.TumorIds)));
+
+            mResults.addFinalVariantContexts(mTaskId, variantContexts);
+        }
+        else
+        {
+            mResults.addFinalVariants(mTaskId, finalVariants);
+        }
 
         if(mConfig.Common.Visualiser.Enabled)
         {
@@ -208,7 +342,8 @@ public class RegionTask
                     variant, mConfig.TumorIds, mConfig.Common.ReferenceIds, mConfig.Common.Visualiser));
         }
 
-        mResults.addTotalReads(mCandidateState.totalReadsProcessed());
+        mResults.addTotalReads(mTotalReadsProcessed);
+        mReportedTotalReads = mTotalReadsProcessed;
 
         mPerfCounters.add(mEvidenceStage.getVariantPhaser().getPerfCounter());
 
@@ -232,5 +367,7 @@ public class RegionTask
                 }
             }
         }
+
+        return variantContexts;
     }
 }
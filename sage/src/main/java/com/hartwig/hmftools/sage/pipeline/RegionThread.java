@@ -8,13 +8,20 @@ import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.hartwig.hmftools.common.gene.TranscriptData;
+import com.hartwig.hmftools.common.genome.chromosome.Chromosome;
+import com.hartwig.hmftools.common.genome.chromosome.HumanChromosome;
+import com.hartwig.hmftools.common.genome.chromosome.MitochondrialChromosome;
 import com.hartwig.hmftools.common.genome.refgenome.RefGenomeSource;
 import com.hartwig.hmftools.common.region.BaseRegion;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
+import com.hartwig.hmftools.sage.ReferenceData;
 import com.hartwig.hmftools.sage.SageCallConfig;
 import com.hartwig.hmftools.sage.common.PartitionTask;
 import com.hartwig.hmftools.sage.common.SamSlicerFactory;
@@ -25,11 +32,13 @@ import com.hartwig.hmftools.sage.phase.PhaseSetCounter;
 import com.hartwig.hmftools.sage.bqr.BqrRecordMap;
 import com.hartwig.hmftools.sage.quality.MsiJitterCalcs;
 
+import org.jetbrains.annotations.Nullable;
+
 import htsjdk.samtools.reference.IndexedFastaSequenceFile;
 
 public class RegionThread extends Thread
 {
-    private final String mChromosome;
+    private String mChromosome;
     private final SageCallConfig mConfig;
     private final IndexedFastaSequenceFile mRefGenomeFile;
     private final RefGenomeSource mRefGenome;
@@ -42,14 +51,16 @@ public class RegionThread extends Thread
     private final Queue<PartitionTask> mPartitions;
     private final RegionResults mRegionResults;
 
-    // cache of chromosome-specific ref data
-    private final List<BaseRegion> mPanelRegions;
-    private final List<SimpleVariant> mHotspots;
-    private final List<TranscriptData> mTranscripts;
-    private final List<BaseRegion> mHighConfidenceRegions;
+    // cache of chromosome-specific ref data, loaded per chromosome from the full ref data when partitions span the genome
+    private final ReferenceData mRefData;
+    private List<BaseRegion> mPanelRegions;
+    private List<SimpleVariant> mHotspots;
+    private List<TranscriptData> mTranscripts;
+    private List<BaseRegion> mHighConfidenceRegions;
 
     private final SamSlicerFactory mSamSlicerFactory;
     private final FragmentLengths mFragmentLengths;
+    private final ExecutorService mPrefetchExecutor;
 
     public RegionThread(
             final String chromosome, final SageCallConfig config,
@@ -57,8 +68,30 @@ public class RegionThread extends Thread
             final PhaseSetCounter phaseSetCounter, final List<BaseRegion> panelRegions, final List<SimpleVariant> hotspots,
             final List<TranscriptData> transcripts, final List<BaseRegion> highConfidenceRegions,
             final Queue<PartitionTask> partitions, final RegionResults regionResults, final FragmentLengths fragmentLengths)
+    {
+        this(chromosome, config, null, qualityRecalibrationMap, msiJitterCalcs, coverage, phaseSetCounter, panelRegions, hotspots,
+                transcripts, highConfidenceRegions, partitions, regionResults, fragmentLengths);
+    }
+
+    public RegionThread(
+            final SageCallConfig config, final ReferenceData refData,
+            final Map<String, BqrRecordMap> qualityRecalibrationMap, final MsiJitterCalcs msiJitterCalcs, final Coverage coverage,
+            final PhaseSetCounter phaseSetCounter, final Queue<PartitionTask> partitions, final RegionResults regionResults,
+            final FragmentLengths fragmentLengths)
+    {
+        this(null, config, refData, qualityRecalibrationMap, msiJitterCalcs, coverage, phaseSetCounter, null, null,
+                null, null, partitions, regionResults, fragmentLengths);
+    }
+
+    private RegionThread(
+            @Nullable final String chromosome, final SageCallConfig config, @Nullable final ReferenceData refData,
+            final Map<String, BqrRecordMap> qualityRecalibrationMap, final MsiJitterCalcs msiJitterCalcs, final Coverage coverage,
+            final PhaseSetCounter phaseSetCounter, final List<BaseRegion> panelRegions, final List<SimpleVariant> hotspots,
+            final List<TranscriptData> transcripts, final List<BaseRegion> highConfidenceRegions,
+            final Queue<PartitionTask> partitions, final RegionResults regionResults, final FragmentLengths fragmentLengths)
     {
         mChromosome = chromosome;
+        mRefData = refData;
         mConfig = config;
         mSamSlicerFactory = new SamSlicerFactory();
         mRefGenomeFile = loadRefGenome(config.Common.RefGenomeFile);
@@ -80,6 +113,11 @@ public class RegionThread extends Thread
         // create readers for each sample and BAM
         mSamSlicerFactory.buildBamReaders(mConfig.TumorIds, mConfig.TumorBams, mConfig.Common, mRefGenomeFile);
 
+        // a single background thread decodes the BAMs for each evidence pass while this thread collects the evidence
+        mPrefetchExecutor = mConfig.PrefetchEvidenceReads ?
+                Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat(getName() + "-prefetch").setDaemon(true).build())
+                : null;
+
         start();
     }
 
@@ -90,6 +128,10 @@ public class RegionThread extends Thread
             try
             {
                 PartitionTask partition = mPartitions.remove();
+
+                if(mRefData != null && !partition.Partition.Chromosome.equals(mChromosome))
+                    loadChromosomeRefData(partition.Partition.Chromosome);
+
                 RegionTask task = createRegionTask(partition);
 
                 if(partition.TaskId > 0 && (partition.TaskId % 100) == 0)
@@ -113,9 +155,25 @@ public class RegionThread extends Thread
             }
         }
 
+        if(mPrefetchExecutor != null)
+            mPrefetchExecutor.shutdownNow();
+
         mSamSlicerFactory.close();
     }
 
+    private void loadChromosomeRefData(final String chromosome)
+    {
+        mChromosome = chromosome;
+
+        final Chromosome chr = HumanChromosome.contains(chromosome)
+                ? HumanChromosome.fromString(chromosome) : MitochondrialChromosome.fromString(chromosome);
+
+        mPanelRegions = mRefData.PanelWithHotspots.get(chr);
+        mHotspots = mRefData.Hotspots.get(chr);
+        mTranscripts = mRefData.ChromosomeTranscripts.get(chromosome);
+        mHighConfidenceRegions = mRefData.HighConfidence.get(chr);
+    }
+
     private RegionTask createRegionTask(final PartitionTask partitionTask)
     {
         ChrBaseRegion region = partitionTask.Partition;
@@ -138,6 +196,6 @@ public class RegionThread extends Thread
         return new RegionTask(
                 partitionTask.TaskId, region, mRegionResults, mConfig, mRefGenome, regionHotspots, regionPanel, regionsTranscripts,
                 regionHighConfidence, mQualityRecalibrationMap, mMsiJitterCalcs, mPhaseSetCounter, mCoverage, mSamSlicerFactory,
-                mFragmentLengths);
+                mFragmentLengths, mPrefetchExecutor);
     }
 }
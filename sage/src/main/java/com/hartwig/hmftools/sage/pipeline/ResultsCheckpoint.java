@@ -0,0 +1,202 @@
+package com.hartwig.hmftools.sage.pipeline;
+
+import static java.lang.String.format;
+
+import static com.hartwig.hmftools.common.variant.SageVcfTags.LOCAL_PHASE_SET;
+import static com.hartwig.hmftools.sage.SageCommon.SG_LOGGER;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
+import com.hartwig.hmftools.common.sequencing.SequencingType;
+import com.hartwig.hmftools.sage.SageCallConfig;
+import com.hartwig.hmftools.sage.phase.PhaseSetCounter;
+import com.hartwig.hmftools.sage.vcf.VariantVCF;
+
+import org.jetbrains.annotations.Nullable;
+
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.VCFCodec;
+import htsjdk.variant.vcf.VCFEncoder;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderVersion;
+
+public class ResultsCheckpoint
+{
+    // a partition's final variants written as VCF records once the partition completes, so a rerun can skip it entirely
+    public final int CandidateCount;
+    public final int TotalReads;
+    public final List<VariantContext> Variants;
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String FILE_EXTENSION = ".sage.results.bin";
+
+    public ResultsCheckpoint(int candidateCount, int totalReads, final List<VariantContext> variants)
+    {
+        CandidateCount = candidateCount;
+        TotalReads = totalReads;
+        Variants = variants;
+    }
+
+    public static String checkpointFilename(final String checkpointDir, final ChrBaseRegion region)
+    {
+        return format("%s%s_%d_%d%s", checkpointDir, region.Chromosome, region.start(), region.end(), FILE_EXTENSION);
+    }
+
+    public static VCFHeader checkpointHeader(final SageCallConfig config)
+    {
+        // the same header as the output VCF, for encoding and decoding its records
+        List<String> samples = Lists.newArrayList(config.Common.ReferenceIds);
+        samples.addAll(config.TumorIds);
+
+        return VariantVCF.createHeader(config.Common.Version, samples, config.Common.Sequencing.Type == SequencingType.ULTIMA);
+    }
+
+    public static void write(
+            final String filename, final ChrBaseRegion region, long configHash, final VCFHeader header,
+            final ResultsCheckpoint results)
+    {
+        File tempFile = new File(filename + ".tmp");
+
+        try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))
+        {
+            output.writeInt(FORMAT_VERSION);
+            output.writeLong(configHash);
+            output.writeUTF(region.Chromosome);
+            output.writeInt(region.start());
+            output.writeInt(region.end());
+            output.writeInt(results.CandidateCount);
+            output.writeInt(results.TotalReads);
+            output.writeInt(results.Variants.size());
+
+            VCFEncoder encoder = new VCFEncoder(header, true, false);
+
+            for(VariantContext variant : results.Variants)
+            {
+                byte[] record = encoder.encode(variant).getBytes(StandardCharsets.UTF_8);
+                output.writeInt(record.length);
+                output.write(record);
+            }
+        }
+        catch(IOException e)
+        {
+            SG_LOGGER.error("region({}) failed to write results checkpoint: {}", region, e.toString());
+            tempFile.delete();
+            return;
+        }
+
+        try
+        {
+            Files.move(tempFile.toPath(), new File(filename).toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch(IOException e)
+        {
+            SG_LOGGER.error("region({}) failed to complete results checkpoint: {}", region, e.toString());
+            tempFile.delete();
+        }
+    }
+
+    @Nullable
+    public static ResultsCheckpoint read(final String filename, final ChrBaseRegion region, long configHash, final VCFHeader header)
+    {
+        // returns null if there is no checkpoint or it was written with a different config or for a different region
+        File file = new File(filename);
+
+        if(!file.exists())
+            return null;
+
+        try(DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+        {
+            int version = input.readInt();
+
+            if(version != FORMAT_VERSION)
+            {
+                SG_LOGGER.warn("region({}) ignoring results checkpoint with version({})", region, version);
+                return null;
+            }
+
+            long checkpointConfigHash = input.readLong();
+            String chromosome = input.readUTF();
+            int regionStart = input.readInt();
+            int regionEnd = input.readInt();
+
+            if(checkpointConfigHash != configHash || !region.matches(new ChrBaseRegion(chromosome, regionStart, regionEnd)))
+            {
+                SG_LOGGER.warn("region({}) ignoring results checkpoint with differing config({}) region({}:{}-{})",
+                        region, checkpointConfigHash != configHash ? "changed" : "unchanged", chromosome, regionStart, regionEnd);
+                return null;
+            }
+
+            int candidateCount = input.readInt();
+            int totalReads = input.readInt();
+            int variantCount = input.readInt();
+
+            VCFCodec codec = new VCFCodec();
+            codec.setVCFHeader(header, VCFHeaderVersion.VCF4_2);
+
+            List<VariantContext> variants = Lists.newArrayListWithCapacity(variantCount);
+
+            for(int i = 0; i < variantCount; ++i)
+            {
+                byte[] record = new byte[input.readInt()];
+                input.readFully(record);
+                variants.add(codec.decode(new String(record, StandardCharsets.UTF_8)));
+            }
+
+            return new ResultsCheckpoint(candidateCount, totalReads, variants);
+        }
+        catch(IOException | RuntimeException e)
+        {
+            SG_LOGGER.warn("region({}) failed to read results checkpoint: {}", region, e.toString());
+            return null;
+        }
+    }
+
+    public static List<VariantContext> renumberPhaseSets(final List<VariantContext> variants, final PhaseSetCounter phaseSetCounter)
+    {
+        // local phase sets are numbered in the order partitions complete, so take new IDs to keep them unique within this run
+        Map<Integer,Integer> phaseSetMap = Maps.newTreeMap();
+
+        variants.stream()
+                .filter(x -> x.hasAttribute(LOCAL_PHASE_SET))
+                .forEach(x -> x.getAttributeAsIntList(LOCAL_PHASE_SET, 0).forEach(y -> phaseSetMap.put(y, 0)));
+
+        if(phaseSetMap.isEmpty())
+            return variants;
+
+        phaseSetMap.keySet().forEach(x -> phaseSetMap.put(x, phaseSetCounter.getNext()));
+
+        List<VariantContext> renumbered = Lists.newArrayListWithCapacity(variants.size());
+
+        for(VariantContext variant : variants)
+        {
+            if(!variant.hasAttribute(LOCAL_PHASE_SET))
+            {
+                renumbered.add(variant);
+                continue;
+            }
+
+            List<Integer> phaseSets = Lists.newArrayList();
+            variant.getAttributeAsIntList(LOCAL_PHASE_SET, 0).forEach(x -> phaseSets.add(phaseSetMap.get(x)));
+
+            renumbered.add(new VariantContextBuilder(variant).attribute(LOCAL_PHASE_SET, phaseSets).make());
+        }
+
+        return renumbered;
+    }
+}
@@ -1,12 +1,14 @@
 package com.hartwig.hmftools.sage.vcf;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
 import com.hartwig.hmftools.sage.SageConfig;
 import com.hartwig.hmftools.sage.common.SageVariant;
 
 import htsjdk.samtools.reference.IndexedFastaSequenceFile;
+import htsjdk.variant.variantcontext.VariantContext;
 
 public class VcfWriter
 {
@@ -29,6 +31,12 @@ public class VcfWriter
     }
 
     public void writeVariants(int taskIndex, final List<SageVariant> variants)
+    {
+        writeVariantContexts(taskIndex, variants.stream()
+                .map(x -> VariantContextFactory.create(x, mReferenceIds, mTumorIds)).collect(Collectors.toList()));
+    }
+
+    public void writeVariantContexts(int taskIndex, final List<VariantContext> variants)
     {
         if(taskIndex < mLastWrittenIndex)
             flushChromosome();
@@ -54,9 +62,9 @@ public class VcfWriter
         }
     }
 
-    private void writeVariants(final List<SageVariant> variants)
+    private void writeVariants(final List<VariantContext> variants)
     {
-        variants.forEach(x -> mVcfFile.write(VariantContextFactory.create(x, mReferenceIds, mTumorIds)));
+        variants.forEach(x -> mVcfFile.write(x));
     }
 
     private void checkQueue()
@@ -91,9 +99,9 @@ public class VcfWriter
     private class CompleteVariants
     {
         public final int TaskIndex;
-        public final List<SageVariant> Variants;
+        public final List<VariantContext> Variants;
 
-        public CompleteVariants(int taskIndex, final List<SageVariant> variants)
+        public CompleteVariants(int taskIndex, final List<VariantContext> variants)
         {
             Variants = variants;
             TaskIndex = taskIndex;
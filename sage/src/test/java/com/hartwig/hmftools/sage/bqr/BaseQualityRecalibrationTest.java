@@ -13,6 +13,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.hartwig.hmftools.common.qual.BqrKey;
 import com.hartwig.hmftools.common.qual.BqrReadType;
@@ -208,4 +209,42 @@ public class BaseQualityRecalibrationTest
         BqrRecord rec2 = bqrRecords.stream().filter(x -> x.Key.equals(aAltKey)).findFirst().orElse(null);
         assertEquals(37, rec2.RecalibratedQuality, 0.1);
     }
+
+    @Test
+    public void testRecordMapLookup()
+    {
+        List<BqrRecord> records = Lists.newArrayList();
+
+        BqrKey key1 = createKey('A', 'G', 30, BqrReadType.NONE);
+        BqrKey key2 = createKey('C', 'T', 37, BqrReadType.DUAL);
+        BqrKey key3 = new BqrKey((byte)'A', (byte)'N', new byte[] { 65, 65, 65 }, (byte)30, BqrReadType.NONE); // non-standard base
+
+        records.add(new BqrRecord(key1, 100, 25.5));
+        records.add(new BqrRecord(key2, 100, 41.2));
+        records.add(new BqrRecord(key3, 100, 5.0));
+
+        BqrRecordMap recordMap = new BqrRecordMap(records);
+
+        assertEquals(25.5, recordMap.getQualityAdjustment(
+                key1.Ref, key1.Alt, key1.TrinucleotideContext, key1.Quality, key1.ReadType), 0.001);
+
+        assertEquals(41.2, recordMap.getQualityAdjustment(
+                key2.Ref, key2.Alt, key2.TrinucleotideContext, key2.Quality, key2.ReadType), 0.001);
+
+        assertEquals(5.0, recordMap.getQualityAdjustment(
+                key3.Ref, key3.Alt, key3.TrinucleotideContext, key3.Quality, key3.ReadType), 0.001);
+
+        // unmatched read type, quality or context return the raw quality
+        assertEquals(30, recordMap.getQualityAdjustment(
+                key1.Ref, key1.Alt, key1.TrinucleotideContext, key1.Quality, BqrReadType.DUAL), 0.001);
+
+        assertEquals(31, recordMap.getQualityAdjustment(
+                key1.Ref, key1.Alt, key1.TrinucleotideContext, (byte)31, key1.ReadType), 0.001);
+
+        assertEquals(30, recordMap.getQualityAdjustment(
+                key1.Ref, key1.Alt, new byte[] { 67, 65, 65 }, key1.Quality, key1.ReadType), 0.001);
+
+        assertEquals(30, recordMap.getQualityAdjustment(
+                key1.Ref, key1.Alt, new byte[] { 78, 65, 65 }, key1.Quality, key1.ReadType), 0.001);
+    }
 }
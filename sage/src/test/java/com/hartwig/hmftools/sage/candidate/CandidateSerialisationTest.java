@@ -10,9 +10,19 @@ import static com.hartwig.hmftools.sage.vcf.VcfTags.READ_CONTEXT_INFO;
 import static com.hartwig.hmftools.sage.vcf.VcfTags.READ_CONTEXT_LEFT_FLANK;
 import static com.hartwig.hmftools.sage.vcf.VcfTags.READ_CONTEXT_RIGHT_FLANK;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
 import com.hartwig.hmftools.common.test.MockRefGenome;
 import com.hartwig.hmftools.sage.common.RefSequence;
 import com.hartwig.hmftools.sage.common.SimpleVariant;
@@ -151,4 +161,66 @@ public class CandidateSerialisationTest
 
         assertTrue(recreatedContext.matches(readContext));
     }
+
+    @Test
+    public void testCandidateCheckpoint() throws IOException
+    {
+        VariantReadContextBuilder builder = new VariantReadContextBuilder(DEFAULT_FLANK_LENGTH);
+
+        int position = 21;
+        String readBases = REF_BASES.substring(1, position) + "C" + REF_BASES.substring(position + 1, 50);
+        SAMRecord read = buildSamRecord(1, buildCigarString(readBases.length()), readBases);
+        VariantReadContext snvContext = builder.createContext(new SimpleVariant(CHR_1, position, "A", "C"), read, position - 1, REF_SEQUENCE);
+
+        position = 17;
+        readBases = REF_BASES.substring(1, position + 1) + REF_BASES.substring(position + 4, 50);
+        read = buildSamRecord(1, "17M3D29M", readBases);
+        VariantReadContext delContext = builder.createContext(new SimpleVariant(CHR_1, position, "ACCC", "A"), read, position - 1, REF_SEQUENCE);
+
+        List<Candidate> candidates = Lists.newArrayList(
+                new Candidate(VariantTier.PANEL, snvContext, 2, 5), new Candidate(VariantTier.LOW_CONFIDENCE, delContext, 1, 3));
+
+        ChrBaseRegion region = new ChrBaseRegion(CHR_1, 1, 1000);
+        List<String> tumorIds = Lists.newArrayList("TUMOR");
+
+        Path checkpointDir = Files.createTempDirectory("sage_checkpoint");
+        String filename = CandidateCheckpoint.checkpointFilename(checkpointDir.toString() + File.separator, region);
+
+        long configHash = 123;
+
+        assertNull(CandidateCheckpoint.read(filename, region, tumorIds, configHash, REF_SEQUENCE, DEFAULT_FLANK_LENGTH));
+
+        CandidateCheckpoint.write(filename, region, tumorIds, configHash, candidates, 250);
+
+        CandidateCheckpoint checkpoint = CandidateCheckpoint.read(filename, region, tumorIds, configHash, REF_SEQUENCE, DEFAULT_FLANK_LENGTH);
+        assertNotNull(checkpoint);
+        assertEquals(250, checkpoint.TotalReadsProcessed);
+
+        List<Candidate> recreatedCandidates = checkpoint.Candidates;
+        assertEquals(candidates.size(), recreatedCandidates.size());
+
+        for(int i = 0; i < candidates.size(); ++i)
+        {
+            Candidate candidate = candidates.get(i);
+            Candidate recreated = recreatedCandidates.get(i);
+
+            assertEquals(candidate.tier(), recreated.tier());
+            assertEquals(candidate.minNumberOfEvents(), recreated.minNumberOfEvents());
+            assertEquals(candidate.readContextSupport(), recreated.readContextSupport());
+            assertTrue(recreated.variant().matches(candidate.variant()));
+            assertTrue(recreated.readContext().matches(candidate.readContext()));
+        }
+
+        // a checkpoint from other samples, another region or a different config is not used
+        assertNull(CandidateCheckpoint.read(
+                filename, region, Lists.newArrayList("OTHER"), configHash, REF_SEQUENCE, DEFAULT_FLANK_LENGTH));
+
+        assertNull(CandidateCheckpoint.read(
+                filename, new ChrBaseRegion(CHR_1, 1, 2000), tumorIds, configHash, REF_SEQUENCE, DEFAULT_FLANK_LENGTH));
+
+        assertNull(CandidateCheckpoint.read(filename, region, tumorIds, configHash + 1, REF_SEQUENCE, DEFAULT_FLANK_LENGTH));
+
+        new File(filename).delete();
+        checkpointDir.toFile().delete();
+    }
 }
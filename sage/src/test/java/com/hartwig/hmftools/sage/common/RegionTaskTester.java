@@ -3,6 +3,7 @@ package com.hartwig.hmftools.sage.common;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -37,6 +38,7 @@ public class RegionTaskTester
     public final SamSlicerFactory SamSlicerFactory;
 
     public final MockSamSlicer TumorSamSlicer;
+    public final MockSamSlicer ReferenceSamSlicer;
 
     public static final String TEST_TUMOR_ID = "TUMOR_ID";
     public static final String TEST_REF_ID = "TEST_REF_ID";
@@ -62,12 +64,26 @@ public class RegionTaskTester
 
         TumorSamSlicer = new MockSamSlicer();
         SamSlicerFactory.addSamSlicer(TEST_TUMOR_ID, TumorSamSlicer);
+
+        ReferenceSamSlicer = new MockSamSlicer();
+    }
+
+    public void addReference()
+    {
+        Config.Common.ReferenceIds.add(TEST_REF_ID);
+        SamSlicerFactory.addSamSlicer(TEST_REF_ID, ReferenceSamSlicer);
     }
 
     public RegionTask createRegionTask(final ChrBaseRegion region)
+    {
+        return createRegionTask(region, null);
+    }
+
+    public RegionTask createRegionTask(final ChrBaseRegion region, final ExecutorService prefetchExecutor)
     {
         return new RegionTask(
                 0, region, Results, Config, RefGenome, Hotspots, PanelRegions, Transcripts, HighConfidenceRegions,
-                QualityRecalibrationMap, JitterCalcs, PhaseSetCounter, Coverage, SamSlicerFactory, new FragmentLengths(Config.Common));
+                QualityRecalibrationMap, JitterCalcs, PhaseSetCounter, Coverage, SamSlicerFactory, new FragmentLengths(Config.Common),
+                prefetchExecutor);
     }
 }
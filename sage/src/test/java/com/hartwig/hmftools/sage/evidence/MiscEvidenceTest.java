@@ -19,18 +19,29 @@ import static com.hartwig.hmftools.sage.common.VariantUtils.createReadContext;
 import static com.hartwig.hmftools.sage.common.VariantUtils.createReadCounter;
 import static com.hartwig.hmftools.sage.common.VariantUtils.createSimpleVariant;
 import static com.hartwig.hmftools.sage.evidence.SplitReadSegment.formSegment;
+import static com.hartwig.hmftools.sage.pipeline.EvidenceReadPrefetch.MAX_QUEUED_BATCHES;
+import static com.hartwig.hmftools.sage.pipeline.EvidenceReadPrefetch.READ_BATCH_SIZE;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.Lists;
 import com.hartwig.hmftools.common.region.ChrBaseRegion;
+import com.hartwig.hmftools.common.utils.PerformanceCounter;
 import com.hartwig.hmftools.sage.common.RegionTaskTester;
+import com.hartwig.hmftools.sage.common.SamSlicerFactory;
 import com.hartwig.hmftools.sage.common.SageVariant;
 import com.hartwig.hmftools.sage.common.SimpleVariant;
 import com.hartwig.hmftools.sage.common.VariantReadContext;
 import com.hartwig.hmftools.sage.common.VariantReadContextBuilder;
+import com.hartwig.hmftools.sage.pipeline.EvidenceReadPrefetch;
 import com.hartwig.hmftools.sage.pipeline.RegionTask;
 
 import org.junit.Test;
@@ -259,4 +270,109 @@ public class MiscEvidenceTest
         TestCase.assertEquals(7, delRcCounter.readSupportCounts().Total);
         TestCase.assertEquals(7, delRcCounter.depth());
     }
+
+    @Test
+    public void testPrefetchReferenceEvidence()
+    {
+        ChrBaseRegion region = new ChrBaseRegion(CHR_1, 1, 300);
+
+        RegionTaskTester tester = new RegionTaskTester();
+        tester.addReference();
+        String refBases = REF_BASES_200 + generateRandomBases(1500);
+        tester.RefGenome.RefGenomeMap.put(CHR_1, refBases);
+
+        // tumor reads establish an SNV at position 50
+        String readBases = REF_BASES_200.substring(30, 50) + "A" + REF_BASES_200.substring(51, 70);
+        SAMRecord altRead = buildSamRecord(30, "40M", readBases, buildDefaultBaseQuals(readBases.length()));
+
+        for(int i = 0; i < 3; ++i)
+        {
+            tester.TumorSamSlicer.ReadRecords.add(altRead);
+        }
+
+        // reference reads support the ref, plus one read away from the variant
+        String refReadBases = REF_BASES_200.substring(30, 70);
+        SAMRecord refRead = buildSamRecord(30, "40M", refReadBases, buildDefaultBaseQuals(refReadBases.length()));
+
+        String distantReadBases = REF_BASES_200.substring(150, 190);
+        SAMRecord distantRead = buildSamRecord(150, "40M", distantReadBases, buildDefaultBaseQuals(distantReadBases.length()));
+
+        tester.ReferenceSamSlicer.ReadRecords.add(refRead);
+        tester.ReferenceSamSlicer.ReadRecords.add(refRead);
+        tester.ReferenceSamSlicer.ReadRecords.add(distantRead);
+
+        RegionTask task = tester.createRegionTask(region);
+        task.run();
+
+        ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor();
+        RegionTask prefetchTask = tester.createRegionTask(region, prefetchExecutor);
+        prefetchTask.run();
+        prefetchExecutor.shutdown();
+
+        assertEquals(1, task.getVariants().size());
+        assertEquals(1, prefetchTask.getVariants().size());
+
+        ReadContextCounter refCounter = task.getVariants().get(0).referenceReadCounters().get(0);
+        ReadContextCounter singlePassRefCounter = prefetchTask.getVariants().get(0).referenceReadCounters().get(0);
+
+        assertEquals(2, singlePassRefCounter.readSupportCounts().Ref);
+        assertEquals(refCounter.readSupportCounts().Ref, singlePassRefCounter.readSupportCounts().Ref);
+        assertEquals(refCounter.depth(), singlePassRefCounter.depth());
+
+        ReadContextCounter tumorCounter = prefetchTask.getVariants().get(0).tumorReadCounters().get(0);
+        assertEquals(3, tumorCounter.readSupportCounts().Full);
+    }
+
+    @Test
+    public void testReadPrefetchSweep()
+    {
+        SamSlicerFactory samSlicerFactory = new SamSlicerFactory();
+
+        List<SAMRecord> sampleReads = Lists.newArrayList();
+        AtomicInteger decodedCount = new AtomicInteger();
+
+        for(int i = 0; i < 20000; ++i)
+        {
+            sampleReads.add(buildSamRecord(30, "40M", REF_BASES_200.substring(30, 70), buildDefaultBaseQuals(40)));
+        }
+
+        samSlicerFactory.addSamSlicer(TEST_SAMPLE, consumer ->
+        {
+            for(SAMRecord read : sampleReads)
+            {
+                decodedCount.incrementAndGet();
+                consumer.accept(read);
+            }
+        });
+
+        ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor();
+        EvidenceReadPrefetch readPrefetch = new EvidenceReadPrefetch(prefetchExecutor, samSlicerFactory, new PerformanceCounter("PrefetchWait", false));
+        List<ChrBaseRegion> sliceRegions = Lists.newArrayList(new ChrBaseRegion(CHR_1, 1, 200));
+
+        // all reads are streamed through in order
+        readPrefetch.startSweep(Lists.newArrayList(TEST_SAMPLE), sliceRegions);
+
+        List<SAMRecord> streamedReads = Lists.newArrayList();
+        readPrefetch.sampleReads(TEST_SAMPLE).slice(streamedReads::add);
+        readPrefetch.cancel();
+
+        assertEquals(sampleReads, streamedReads);
+
+        // an unread sweep decodes no further than the queue's bound, and cancelling it waits for the decode to stop
+        decodedCount.set(0);
+        readPrefetch.startSweep(Lists.newArrayList(TEST_SAMPLE), sliceRegions);
+
+        while(decodedCount.get() < READ_BATCH_SIZE)
+        {
+            Thread.yield();
+        }
+
+        readPrefetch.cancel();
+
+        int decodedOnCancel = decodedCount.get();
+        assertTrue(decodedOnCancel <= (MAX_QUEUED_BATCHES + 2) * READ_BATCH_SIZE);
+        assertEquals(decodedOnCancel, decodedCount.get());
+
+        prefetchExecutor.shutdown();
+    }
 }
@@ -0,0 +1,69 @@
+package com.hartwig.hmftools.sage.pipeline;
+
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.sage.pipeline.AdaptivePartitioner.buildPartitions;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
+
+import org.junit.Test;
+
+public class AdaptivePartitionerTest
+{
+    private static final int UNIT_SIZE = 1000;
+    private static final int MIN_SIZE = 250;
+
+    @Test
+    public void testUniformDensity()
+    {
+        // each partition holds 4 units, matching the target cost
+        long[] unitCosts = { 10, 10, 10, 10, 10, 10, 10, 10, 10, 10 };
+
+        List<ChrBaseRegion> partitions = buildPartitions(CHR_1, 9500, unitCosts, UNIT_SIZE, 40, 4000, MIN_SIZE);
+
+        assertEquals(3, partitions.size());
+        assertEquals(new ChrBaseRegion(CHR_1, 1, 4000), partitions.get(0));
+        assertEquals(new ChrBaseRegion(CHR_1, 4001, 8000), partitions.get(1));
+        assertEquals(new ChrBaseRegion(CHR_1, 8001, 9500), partitions.get(2));
+    }
+
+    @Test
+    public void testSparseRegionsCombined()
+    {
+        // sparse and empty units combine up to the maximum partition size
+        long[] unitCosts = { 0, 0, 0, 0, 0, 0, 1, 1, 20, 10 };
+
+        List<ChrBaseRegion> partitions = buildPartitions(CHR_1, 10000, unitCosts, UNIT_SIZE, 40, 6000, MIN_SIZE);
+
+        assertEquals(2, partitions.size());
+        assertEquals(new ChrBaseRegion(CHR_1, 1, 6000), partitions.get(0));
+        assertEquals(new ChrBaseRegion(CHR_1, 6001, 10000), partitions.get(1));
+    }
+
+    @Test
+    public void testDeepRegionSplit()
+    {
+        long[] unitCosts = { 10, 10, 100, 10, 1000 };
+
+        List<ChrBaseRegion> partitions = buildPartitions(CHR_1, 5000, unitCosts, UNIT_SIZE, 40, 4000, MIN_SIZE);
+
+        // the first deep unit splits by cost, the second is limited by the minimum partition size
+        assertEquals(9, partitions.size());
+        assertEquals(new ChrBaseRegion(CHR_1, 1, 2000), partitions.get(0));
+        assertEquals(new ChrBaseRegion(CHR_1, 2001, 2334), partitions.get(1));
+        assertEquals(new ChrBaseRegion(CHR_1, 2335, 2668), partitions.get(2));
+        assertEquals(new ChrBaseRegion(CHR_1, 2669, 3000), partitions.get(3));
+        assertEquals(new ChrBaseRegion(CHR_1, 3001, 4000), partitions.get(4));
+        assertEquals(new ChrBaseRegion(CHR_1, 4001, 4250), partitions.get(5));
+        assertEquals(new ChrBaseRegion(CHR_1, 4751, 5000), partitions.get(8));
+
+        // partitions are contiguous and cover the chromosome
+        for(int i = 1; i < partitions.size(); ++i)
+        {
+            assertEquals(partitions.get(i - 1).end() + 1, partitions.get(i).start());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.hartwig.hmftools.sage.pipeline;
+
+import static com.hartwig.hmftools.common.test.GeneTestUtils.CHR_1;
+import static com.hartwig.hmftools.common.variant.SageVcfTags.LOCAL_PHASE_SET;
+import static com.hartwig.hmftools.common.variant.SageVcfTags.TIER;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import com.hartwig.hmftools.common.region.ChrBaseRegion;
+import com.hartwig.hmftools.sage.phase.PhaseSetCounter;
+import com.hartwig.hmftools.sage.vcf.VariantVCF;
+
+import org.junit.Test;
+
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.vcf.VCFHeader;
+
+public class ResultsCheckpointTest
+{
+    private static final String TUMOR_ID = "TUMOR";
+
+    @Test
+    public void testResultsCheckpoint() throws IOException
+    {
+        VCFHeader header = VariantVCF.createHeader("1.0", Lists.newArrayList(TUMOR_ID), false);
+
+        List<VariantContext> variants = Lists.newArrayList(
+                createVariant(100, "A", "C", Lists.newArrayList(5)),
+                createVariant(120, "G", "T", Lists.newArrayList(5, 8)),
+                createVariant(150, "T", "TA", null));
+
+        ChrBaseRegion region = new ChrBaseRegion(CHR_1, 1, 1000);
+
+        Path checkpointDir = Files.createTempDirectory("sage_checkpoint");
+        String filename = ResultsCheckpoint.checkpointFilename(checkpointDir.toString() + File.separator, region);
+
+        long configHash = 123;
+
+        assertNull(ResultsCheckpoint.read(filename, region, configHash, header));
+
+        ResultsCheckpoint.write(filename, region, configHash, header, new ResultsCheckpoint(10, 2500, variants));
+
+        ResultsCheckpoint checkpoint = ResultsCheckpoint.read(filename, region, configHash, header);
+        assertNotNull(checkpoint);
+        assertEquals(10, checkpoint.CandidateCount);
+        assertEquals(2500, checkpoint.TotalReads);
+        assertEquals(variants.size(), checkpoint.Variants.size());
+
+        for(int i = 0; i < variants.size(); ++i)
+        {
+            VariantContext variant = variants.get(i);
+            VariantContext recreated = checkpoint.Variants.get(i);
+
+            assertEquals(variant.getStart(), recreated.getStart());
+            assertEquals(variant.getReference(), recreated.getReference());
+            assertEquals(variant.getAlternateAllele(0), recreated.getAlternateAllele(0));
+            assertEquals(variant.getAttributeAsString(TIER, ""), recreated.getAttributeAsString(TIER, ""));
+            assertEquals(variant.getPhredScaledQual(), recreated.getPhredScaledQual(), 0.01);
+
+            assertEquals(
+                    variant.getGenotype(TUMOR_ID).getAD()[1],
+                    recreated.getGenotype(TUMOR_ID).getAD()[1]);
+        }
+
+        // local phase sets are given new IDs, keeping those shared between variants
+        PhaseSetCounter phaseSetCounter = new PhaseSetCounter();
+        phaseSetCounter.getNext();
+
+        List<VariantContext> renumbered = ResultsCheckpoint.renumberPhaseSets(checkpoint.Variants, phaseSetCounter);
+        assertEquals(Lists.newArrayList(2), renumbered.get(0).getAttributeAsIntList(LOCAL_PHASE_SET, 0));
+        assertEquals(Lists.newArrayList(2, 3), renumbered.get(1).getAttributeAsIntList(LOCAL_PHASE_SET, 0));
+        assertEquals(false, renumbered.get(2).hasAttribute(LOCAL_PHASE_SET));
+
+        // a checkpoint from a different config or another region is not used
+        assertNull(ResultsCheckpoint.read(filename, region, configHash + 1, header));
+        assertNull(ResultsCheckpoint.read(filename, new ChrBaseRegion(CHR_1, 1, 2000), configHash, header));
+
+        new File(filename).delete();
+        checkpointDir.toFile().delete();
+    }
+
+    private static VariantContext createVariant(int position, final String ref, final String alt, final List<Integer> phaseSets)
+    {
+        List<Allele> alleles = Lists.newArrayList(Allele.create(ref, true), Allele.create(alt, false));
+
+        VariantContextBuilder builder = new VariantContextBuilder()
+                .chr(CHR_1).start(position).stop(position + ref.length() - 1)
+                .alleles(alleles)
+                .log10PError(-position / 10.0)
+                .attribute(TIER, "PANEL")
+                .genotypes(new GenotypeBuilder(TUMOR_ID).alleles(alleles).AD(new int[] { 20, position / 10 }).DP(20 + position / 10).make());
+
+        if(phaseSets != null)
+            builder.attribute(LOCAL_PHASE_SET, phaseSets);
+
+        return builder.make();
+    }
+}